@@ -0,0 +1,91 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.agent.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.thoughtworks.go.remote.AgentRemoteProtocol;
+import com.thoughtworks.go.remote.AgentRuntimeInfoDeltas;
+import org.springframework.remoting.httpinvoker.CommonsHttpInvokerRequestExecutor;
+import org.springframework.remoting.httpinvoker.HttpInvokerClientConfiguration;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+
+/**
+ * @understands making BuildRepositoryRemote calls in the agent protocol instead of Java serialization
+ * Connections come from the shared HttpClient, so they are kept alive between pings.
+ */
+public class AgentRemoteProtocolRequestExecutor extends CommonsHttpInvokerRequestExecutor {
+    private final AgentRuntimeInfoDeltas runtimeInfoDeltas = new AgentRuntimeInfoDeltas();
+    private final ThreadLocal<RemoteInvocation> invocationBeingSent = new ThreadLocal<RemoteInvocation>();
+
+    public AgentRemoteProtocolRequestExecutor() {
+        setContentType(AgentRemoteProtocol.CONTENT_TYPE);
+    }
+
+    @Override
+    protected void writeRemoteInvocation(RemoteInvocation invocation, OutputStream os) throws IOException {
+        invocationBeingSent.set(invocation);
+        protocol().writeCall(invocation.getMethodName(), invocation.getArguments(), os);
+    }
+
+    @Override
+    protected RemoteInvocationResult doExecuteRequest(HttpInvokerClientConfiguration config, ByteArrayOutputStream baos) throws IOException, ClassNotFoundException {
+        try {
+            RemoteInvocationResult result = super.doExecuteRequest(config, baos);
+            if (!(result instanceof ResendInFull)) {
+                runtimeInfoDeltas.acknowledgeWritten();
+                return result;
+            }
+            runtimeInfoDeltas.discardWritten();
+            runtimeInfoDeltas.forgetAll();
+            ByteArrayOutputStream full = new ByteArrayOutputStream();
+            writeRemoteInvocation(invocationBeingSent.get(), full);
+            result = super.doExecuteRequest(config, full);
+            if (result instanceof ResendInFull) {
+                throw new IOException("Server refused the full runtime info of the agent");
+            }
+            runtimeInfoDeltas.acknowledgeWritten();
+            return result;
+        } finally {
+            runtimeInfoDeltas.discardWritten();
+            invocationBeingSent.remove();
+        }
+    }
+
+    @Override
+    protected RemoteInvocationResult readRemoteInvocationResult(InputStream is, String codebaseUrl) throws IOException, ClassNotFoundException {
+        AgentRemoteProtocol.Result result = protocol().readResult(is);
+        if (result.shouldResendInFull()) {
+            return new ResendInFull();
+        }
+        return result.getException() != null ? new RemoteInvocationResult(result.getException()) : new RemoteInvocationResult(result.getValue());
+    }
+
+    private AgentRemoteProtocol protocol() {
+        return new AgentRemoteProtocol(runtimeInfoDeltas, getBeanClassLoader());
+    }
+
+    private static class ResendInFull extends RemoteInvocationResult {
+        private ResendInFull() {
+            super((Object) null);
+        }
+    }
+}
@@ -112,6 +112,11 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
 
     public static final String MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY = "material.update.idle.interval";
     private static GoSystemProperty<Long> MATERIAL_UPDATE_IDLE_INTERVAL = new GoLongSystemProperty(MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, 60000L);
+    public static final String MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY = "material.update.max.idle.interval";
+    private static GoSystemProperty<Long> MATERIAL_UPDATE_MAX_IDLE_INTERVAL = new GoLongSystemProperty(MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY, 300000L);
+    private static GoSystemProperty<Integer> CENTRALIZED_SCM_MATERIAL_CHECK_LISTENER_COUNT = new CachedProperty<Integer>(new GoIntSystemProperty("material.check.threads.centralized.scm", 3));
+    private static GoSystemProperty<Integer> DEPENDENCY_MATERIAL_CHECK_LISTENER_COUNT = new CachedProperty<Integer>(new GoIntSystemProperty("material.check.threads.dependency", 3));
+    public static GoSystemProperty<Integer> MATERIAL_MODIFICATIONS_INSERT_BATCH_SIZE = new CachedProperty<Integer>(new GoIntSystemProperty("material.modifications.insert.batch.size", 500));
 
     public static GoSystemProperty<Integer> PLUGIN_LOCATION_MONITOR_INTERVAL_IN_SECONDS = new GoIntSystemProperty("pluginLocationMonitor.sleepTimeInSecs", -1);
     public static final String PLUGINS_PATH = "plugins";
@@ -137,7 +142,29 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static GoSystemProperty<Integer> IDLE_TIMEOUT = new GoIntSystemProperty("idle.timeout", 30000);
     public static GoSystemProperty<Integer> RESPONSE_BUFFER_SIZE = new GoIntSystemProperty("response.buffer.size", 32768);
 
+    public static GoSystemProperty<Integer> CONSOLE_OUTPUT_BUFFER_SIZE = new GoIntSystemProperty("console.output.buffer.size", 4 * 1024 * 1024);
+    public static GoSystemProperty<Boolean> CONSOLE_OUTPUT_COMPRESSION_ENABLED = new GoBooleanSystemProperty("console.output.compression.enabled", true);
+
+    public static GoSystemProperty<Integer> GIT_MAX_MODIFIED_FILES_PER_COMMIT = new CachedProperty<Integer>(new GoIntSystemProperty("git.max.modified.files.per.commit", 5000));
+
+    public static GoSystemProperty<String> AGENT_ARTIFACT_CACHE_DIR = new CachedProperty<String>(new GoStringSystemProperty("agent.artifact.cache.dir", "artifact-cache"));
+    public static GoSystemProperty<Integer> AGENT_ARTIFACT_CACHE_SIZE_IN_MB = new CachedProperty<Integer>(new GoIntSystemProperty("agent.artifact.cache.size.mb", 2048));
+    public static GoSystemProperty<Integer> AGENT_MATERIAL_PREPARATION_THREADS = new CachedProperty<Integer>(new GoIntSystemProperty("agent.material.preparation.threads", 4));
+    public static GoSystemProperty<Boolean> AGENT_GIT_REFERENCE_REPOSITORIES_ENABLED = new CachedProperty<Boolean>(new GoBooleanSystemProperty("agent.git.reference.repositories.enabled", true));
+    public static GoSystemProperty<String> AGENT_GIT_REFERENCE_REPOSITORIES_DIR = new CachedProperty<String>(new GoStringSystemProperty("agent.git.reference.repositories.dir", "git-references"));
+    public static GoSystemProperty<Integer> AGENT_GIT_REFERENCE_REPOSITORIES_UNUSED_DAYS = new CachedProperty<Integer>(new GoIntSystemProperty("agent.git.reference.repositories.unused.days", 30));
+    public static GoSystemProperty<Integer> AGENT_GIT_REFERENCE_REPOSITORIES_REBUILD_DAYS = new CachedProperty<Integer>(new GoIntSystemProperty("agent.git.reference.repositories.rebuild.days", 30));
+    public static GoSystemProperty<Integer> AGENT_GIT_REFERENCE_REPOSITORIES_MAX_GROWTH_FACTOR = new CachedProperty<Integer>(new GoIntSystemProperty("agent.git.reference.repositories.max.growth.factor", 2));
+
+    public static GoSystemProperty<Integer> WORK_LONG_POLL_TIMEOUT_IN_MILLIS = new CachedProperty<Integer>(new GoIntSystemProperty("work.long.poll.timeout.ms", 30000));
+    public static GoSystemProperty<Integer> WORK_LONG_POLL_REMATCH_INTERVAL_IN_MILLIS = new CachedProperty<Integer>(new GoIntSystemProperty("work.long.poll.rematch.interval.ms", 10000));
+    public static GoSystemProperty<Integer> WORK_LONG_POLL_MAX_PARKED_AGENTS = new CachedProperty<Integer>(new GoIntSystemProperty("work.long.poll.max.parked.agents", 100));
+
+    public static GoSystemProperty<Integer> PIPELINE_SCHEDULING_THREADS = new CachedProperty<Integer>(new GoIntSystemProperty("pipeline.scheduling.threads", 4));
+
     public static GoSystemProperty<Integer> PLUGIN_NOTIFICATION_LISTENER_COUNT = new CachedProperty<Integer>(new GoIntSystemProperty("plugin.notification.listener.count", 1));
+    public static GoSystemProperty<Boolean> GO_CACHE_REGION_STATISTICS = new GoBooleanSystemProperty("go.cache.region.statistics", false);
+    public static GoSystemProperty<Integer> TEST_REPORT_PARSER_THREADS = new CachedProperty<Integer>(new GoIntSystemProperty("test.report.parser.threads", 1));
 
     /* DATABASE CONFIGURATION - Defaults are of H2 */
     public static GoSystemProperty<String> GO_DATABASE_HOST = new GoStringSystemProperty("db.host", "localhost");
@@ -391,6 +418,14 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return Integer.parseInt(getPropertyImpl("material.check.threads", "10"));
     }
 
+    public int getNumberOfCentralizedScmMaterialCheckListener() {
+        return CENTRALIZED_SCM_MATERIAL_CHECK_LISTENER_COUNT.getValue();
+    }
+
+    public int getNumberOfDependencyMaterialCheckListener() {
+        return DEPENDENCY_MATERIAL_CHECK_LISTENER_COUNT.getValue();
+    }
+
     public int getNumberOfPluginNotificationListener() {
         return PLUGIN_NOTIFICATION_LISTENER_COUNT.getValue();
     }
@@ -633,6 +668,10 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return MATERIAL_UPDATE_IDLE_INTERVAL.getValue();
     }
 
+    public long getMaterialUpdateMaxIdleInterval() {
+        return MATERIAL_UPDATE_MAX_IDLE_INTERVAL.getValue();
+    }
+
     public boolean isDefaultDbProvider() {
         return GO_DATABASE_PROVIDER.getValue().equals(H2_DATABASE);
     }
@@ -33,6 +33,7 @@ public class ZipBuilder {
     private OutputStream destinationStream;
     private boolean excludeRootDir;
     private Map<String, File> toAdd = new HashMap<String, File>();
+    private ZipUtil.FileStreamDecorator decorator = ZipUtil.NO_DECORATION;
 
     public ZipBuilder(ZipUtil zipUtil, int level, OutputStream destinationStream, boolean excludeRootDir) {
         this.zipUtil = zipUtil;
@@ -41,6 +42,11 @@ public class ZipBuilder {
         this.level = level;
     }
 
+    public ZipBuilder decoratingFilesWith(ZipUtil.FileStreamDecorator decorator) {
+        this.decorator = decorator;
+        return this;
+    }
+
     public ZipBuilder add(String directoryNameInsideZip, File sourceToZip) {
         toAdd.put(directoryNameInsideZip, sourceToZip);
         return this;
@@ -54,7 +60,7 @@ public class ZipBuilder {
             for (Map.Entry<String, File> zipDirToSourceFileEntry : toAdd.entrySet()) {
                 File sourceFileToZip = zipDirToSourceFileEntry.getValue();
                 String destinationFolder = zipDirToSourceFileEntry.getKey();
-                zipUtil.addToZip(new ZipPath(destinationFolder), sourceFileToZip, zip, excludeRootDir);
+                zipUtil.addToZip(new ZipPath(destinationFolder), sourceFileToZip, zip, excludeRootDir, decorator);
             }
             zip.flush();
         } finally {
@@ -29,6 +29,11 @@ import static java.lang.String.format;
 
 public class ZipUtil {
     private static final Logger LOGGER = Logger.getLogger(ZipUtil.class);
+    static final FileStreamDecorator NO_DECORATION = new FileStreamDecorator() {
+        public InputStream decorate(File file, InputStream contents) {
+            return contents;
+        }
+    };
     private ZipEntryHandler zipEntryHandler = null;
 
     public ZipUtil() {
@@ -60,43 +65,51 @@ public class ZipUtil {
         zipContents(file, output, level, false);
     }
 
+    /**
+     * Zips like zip(file, output, level), but every file is read through the decorator, so callers can look at the
+     * contents (e.g. checksum them) in the same pass that zips them.
+     */
+    public void zip(File file, OutputStream output, int level, FileStreamDecorator decorator) throws IOException {
+        new ZipBuilder(this, level, output, false).decoratingFilesWith(decorator).add("", file).done();
+    }
+
     private void zipContents(File file, OutputStream output, int level, boolean excludeRootDir) throws IOException {
         new ZipBuilder(this, level, output, excludeRootDir).add("", file).done();
     }
 
-    private void addFolderToZip(ZipPath path, File source, ZipOutputStream zip, boolean excludeRootDir) throws IOException {
+    private void addFolderToZip(ZipPath path, File source, ZipOutputStream zip, boolean excludeRootDir, FileStreamDecorator decorator) throws IOException {
         ZipPath newPath = path.with(source);
         if (source.isFile()) {
-            addToZip(newPath, source, zip, false);
+            addToZip(newPath, source, zip, false, decorator);
         } else {
-            addDirectory(path, source, zip, excludeRootDir);
+            addDirectory(path, source, zip, excludeRootDir, decorator);
         }
     }
 
-    private void addDirectory(ZipPath path, File source, ZipOutputStream zip, boolean excludeRootDir) throws IOException {
+    private void addDirectory(ZipPath path, File source, ZipOutputStream zip, boolean excludeRootDir, FileStreamDecorator decorator) throws IOException {
         if (excludeRootDir) {
-            addDirContents(path, source, zip);
+            addDirContents(path, source, zip, decorator);
             return;
         }
         ZipPath newPath = path.with(source);
         zip.putNextEntry(newPath.asZipEntryDirectory());
-        addDirContents(newPath, source, zip);
+        addDirContents(newPath, source, zip, decorator);
     }
 
-    private void addDirContents(ZipPath path, File source, ZipOutputStream zip) throws IOException {
+    private void addDirContents(ZipPath path, File source, ZipOutputStream zip, FileStreamDecorator decorator) throws IOException {
         for (File file : source.listFiles()) {
-            addToZip(path, file, zip, false);
+            addToZip(path, file, zip, false, decorator);
         }
     }
 
-    void addToZip(ZipPath path, File srcFile, ZipOutputStream zip, boolean excludeRootDir) throws IOException {
+    void addToZip(ZipPath path, File srcFile, ZipOutputStream zip, boolean excludeRootDir, FileStreamDecorator decorator) throws IOException {
         if (srcFile.isDirectory()) {
-            addFolderToZip(path, srcFile, zip, excludeRootDir);
+            addFolderToZip(path, srcFile, zip, excludeRootDir, decorator);
         } else {
             byte[] buff = new byte[4096];
-            BufferedInputStream inputStream = null;
+            InputStream inputStream = null;
             try {
-                inputStream = new BufferedInputStream(new FileInputStream(srcFile));
+                inputStream = decorator.decorate(srcFile, new BufferedInputStream(new FileInputStream(srcFile)));
                 ZipEntry zipEntry = path.with(srcFile).asZipEntry();
                 zipEntry.setTime(srcFile.lastModified());
                 zip.putNextEntry(zipEntry);
@@ -186,4 +199,8 @@ public class ZipUtil {
         public void handleEntry(ZipEntry entry, InputStream stream) throws IOException;
     }
 
+    public static interface FileStreamDecorator {
+        public InputStream decorate(File file, InputStream contents) throws IOException;
+    }
+
 }
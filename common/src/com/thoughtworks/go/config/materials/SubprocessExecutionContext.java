@@ -21,4 +21,6 @@ package com.thoughtworks.go.config.materials;
  */
 public interface SubprocessExecutionContext {
     String getProcessNamespace(String fingerprint);
+
+    boolean isGitReferenceRepositoryEnabled();
 }
@@ -23,19 +23,23 @@ import com.thoughtworks.go.domain.MaterialInstance;
 import com.thoughtworks.go.domain.materials.*;
 import com.thoughtworks.go.domain.materials.git.GitCommand;
 import com.thoughtworks.go.domain.materials.git.GitMaterialInstance;
+import com.thoughtworks.go.domain.materials.git.GitReferenceRepositories;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.domain.materials.svn.MaterialUrl;
 import com.thoughtworks.go.util.GoConstants;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.InMemoryStreamConsumer;
 import com.thoughtworks.go.util.command.ProcessOutputStreamConsumer;
 import com.thoughtworks.go.util.command.UrlArgument;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.math.NumberUtils;
 import org.apache.log4j.Logger;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -123,8 +127,16 @@ public class GitMaterial extends ScmMaterial {
     public void updateTo(ProcessOutputStreamConsumer outputStreamConsumer, Revision revision, File baseDir, final SubprocessExecutionContext execCtx) {
         try {
             outputStreamConsumer.stdOutput(format("[%s] Start updating %s at revision %s from %s", GoConstants.PRODUCT_NAME, updatingTarget(), revision.getRevision(), url));
-            GitCommand git = git(outputStreamConsumer, workingdir(baseDir));
-            git.fetchAndReset(outputStreamConsumer, revision);
+            GitReferenceRepositories references = new GitReferenceRepositories(new SystemEnvironment());
+            File referenceRepository = referenceRepository(references, outputStreamConsumer, revision, execCtx);
+            try {
+                GitCommand git = git(outputStreamConsumer, workingdir(baseDir), referenceRepository);
+                git.fetchAndReset(outputStreamConsumer, revision);
+            } finally {
+                if (referenceRepository != null) {
+                    references.release(getFingerprint());
+                }
+            }
             outputStreamConsumer.stdOutput(format("[%s] Done.\n", GoConstants.PRODUCT_NAME));
         } catch (Exception e) {
             bomb(e);
@@ -184,13 +196,30 @@ public class GitMaterial extends ScmMaterial {
         }
     }
 
+    private File referenceRepository(GitReferenceRepositories references, ProcessOutputStreamConsumer outputStreamConsumer, Revision revision, SubprocessExecutionContext execCtx) {
+        if (isSubmoduleFolder() || !execCtx.isGitReferenceRepositoryEnabled()) {
+            return null;
+        }
+        try {
+            return references.referenceFor(getFingerprint(), url, revision, outputStreamConsumer);
+        } catch (Exception e) {
+            LOG.warn(format("Could not use the git reference repository for %s, falling back to a full clone", url), e);
+            outputStreamConsumer.stdOutput(format("[GIT] Could not use the shared reference repository, falling back to a full clone: %s", e.getMessage()));
+            return null;
+        }
+    }
+
     private GitCommand git(ProcessOutputStreamConsumer outputStreamConsumer, final File workingFolder) throws Exception {
+        return git(outputStreamConsumer, workingFolder, null);
+    }
+
+    private GitCommand git(ProcessOutputStreamConsumer outputStreamConsumer, final File workingFolder, File referenceRepository) throws Exception {
         if (isSubmoduleFolder()) {
             return new GitCommand(getFingerprint(), new File(workingFolder.getPath()), GitMaterialConfig.DEFAULT_BRANCH, true);
         }
 
         GitCommand gitCommand = new GitCommand(getFingerprint(), workingFolder, getBranch(), false);
-        if (!isGitRepository(workingFolder) || isRepositoryChanged(gitCommand, workingFolder)) {
+        if (!isGitRepository(workingFolder) || isMissingReferencedObjects(workingFolder) || isRepositoryChanged(gitCommand, workingFolder)) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Invalid git working copy or repository changed. Delete folder: " + workingFolder);
             }
@@ -208,7 +237,7 @@ public class GitMaterial extends ScmMaterial {
                     }
                 });
             }
-            int returnValue = gitCommand.cloneFrom(outputStreamConsumer, url.forCommandline());
+            int returnValue = gitCommand.cloneFrom(outputStreamConsumer, url.forCommandline(), referenceRepository);
             bombIfFailedToRunCommandLine(returnValue, "Failed to run git clone command");
         }
         return gitCommand;
@@ -222,6 +251,26 @@ public class GitMaterial extends ScmMaterial {
         return new File(workingFolder, ".git").isDirectory();
     }
 
+    private boolean isMissingReferencedObjects(File workingFolder) throws IOException {
+        File alternates = new File(workingFolder, ".git/objects/info/alternates");
+        if (!alternates.exists()) {
+            return false;
+        }
+        for (String line : FileUtils.readLines(alternates)) {
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            File objectStore = new File(line.trim());
+            if (!objectStore.isAbsolute()) {
+                objectStore = new File(alternates.getParentFile().getParentFile(), line.trim());
+            }
+            if (!objectStore.isDirectory()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean isRepositoryChanged(GitCommand command, File workingDirectory) {
         UrlArgument currentWorkingUrl = command.workingRepositoryUrl();
         if (LOG.isTraceEnabled()) {
@@ -0,0 +1,159 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.domain;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * @understands artifact files an agent has already fetched, stored by their md5 so any later fetch of the same content is a local copy
+ * Only content whose md5 was verified against the server's checksum file is added. Least recently used files are evicted beyond the size limit.
+ */
+public class ArtifactContentCache {
+    private static final Logger LOG = Logger.getLogger(ArtifactContentCache.class);
+    public static final ArtifactContentCache DISABLED = new ArtifactContentCache(null, 0);
+
+    private final File root;
+    private final long maxBytes;
+    private long currentBytes = -1;
+
+    public ArtifactContentCache(File root, long maxBytes) {
+        this.root = root;
+        this.maxBytes = maxBytes;
+    }
+
+    public static ArtifactContentCache forAgent(SystemEnvironment systemEnvironment) {
+        long maxBytes = systemEnvironment.get(SystemEnvironment.AGENT_ARTIFACT_CACHE_SIZE_IN_MB) * 1024L * 1024L;
+        if (maxBytes <= 0) {
+            return DISABLED;
+        }
+        return new ArtifactContentCache(new File(systemEnvironment.get(SystemEnvironment.AGENT_ARTIFACT_CACHE_DIR)), maxBytes);
+    }
+
+    public boolean isEnabled() {
+        return root != null && maxBytes > 0;
+    }
+
+    public synchronized boolean contains(String md5) {
+        return isEnabled() && isValidMd5(md5) && blobFor(md5).isFile();
+    }
+
+    /**
+     * Copies the cached content with the given md5 to the destination. Returns false when it is not cached.
+     */
+    public synchronized boolean restore(String md5, File destination) throws IOException {
+        if (!contains(md5)) {
+            return false;
+        }
+        File blob = blobFor(md5);
+        FileUtils.copyFile(blob, destination, false);
+        blob.setLastModified(System.currentTimeMillis());
+        return true;
+    }
+
+    public synchronized void add(String md5, File verifiedContent) {
+        if (!isEnabled() || !isValidMd5(md5) || verifiedContent.length() > maxBytes) {
+            return;
+        }
+        File blob = blobFor(md5);
+        if (blob.isFile()) {
+            blob.setLastModified(System.currentTimeMillis());
+            return;
+        }
+        long cachedBytes = currentBytes();
+        File temp = new File(blob.getParentFile(), blob.getName() + ".tmp");
+        try {
+            FileUtils.copyFile(verifiedContent, temp, false);
+            if (!temp.renameTo(blob)) {
+                FileUtils.deleteQuietly(temp);
+                return;
+            }
+            currentBytes = cachedBytes + blob.length();
+            if (currentBytes > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(temp);
+            LOG.warn(String.format("[Artifact Cache] Could not cache %s", verifiedContent.getAbsolutePath()), e);
+        }
+    }
+
+    private long currentBytes() {
+        if (currentBytes < 0) {
+            currentBytes = 0;
+            for (File blob : blobs()) {
+                currentBytes += blob.length();
+            }
+        }
+        return currentBytes;
+    }
+
+    private void evict() {
+        List<File> blobs = blobs();
+        Collections.sort(blobs, new Comparator<File>() {
+            public int compare(File one, File other) {
+                return Long.valueOf(one.lastModified()).compareTo(other.lastModified());
+            }
+        });
+        long target = maxBytes * 9 / 10;
+        for (File blob : blobs) {
+            if (currentBytes <= target) {
+                break;
+            }
+            long length = blob.length();
+            if (blob.delete()) {
+                currentBytes -= length;
+            }
+        }
+    }
+
+    private List<File> blobs() {
+        List<File> blobs = new ArrayList<File>();
+        File[] buckets = root.listFiles();
+        if (buckets == null) {
+            return blobs;
+        }
+        for (File bucket : buckets) {
+            File[] files = bucket.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (isValidMd5(file.getName())) {
+                    blobs.add(file);
+                }
+            }
+        }
+        return blobs;
+    }
+
+    private File blobFor(String md5) {
+        return new File(new File(root, md5.substring(0, 2)), md5);
+    }
+
+    private boolean isValidMd5(String md5) {
+        return md5 != null && md5.matches("[0-9a-f]{32}");
+    }
+}
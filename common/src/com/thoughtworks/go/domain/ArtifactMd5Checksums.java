@@ -21,6 +21,8 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 import org.apache.log4j.Logger;
@@ -90,4 +92,15 @@ public class ArtifactMd5Checksums implements Serializable {
     public String md5For(String artifactPath) {
         return checksumProperties.getProperty(artifactPath);
     }
+
+    public Map<String, String> md5sUnder(String directoryPath) {
+        String prefix = directoryPath.endsWith("/") ? directoryPath : directoryPath + "/";
+        Map<String, String> md5s = new HashMap<String, String>();
+        for (String artifactPath : checksumProperties.stringPropertyNames()) {
+            if (artifactPath.startsWith(prefix)) {
+                md5s.put(artifactPath, checksumProperties.getProperty(artifactPath));
+            }
+        }
+        return md5s;
+    }
 }
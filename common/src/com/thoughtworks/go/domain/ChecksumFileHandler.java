@@ -65,6 +65,13 @@ public class ChecksumFileHandler implements FetchHandler {
         throw new UnsupportedOperationException();
     }
 
+    public void useArtifactContentCache(ArtifactContentCache artifactContentCache) {
+    }
+
+    public boolean restoreFromArtifactContentCache() {
+        return false;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -19,10 +19,12 @@ package com.thoughtworks.go.domain;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import javax.servlet.http.HttpServletResponse;
 
+import com.thoughtworks.go.util.ArtifactLogUtil;
 import com.thoughtworks.go.util.FileUtil;
 import com.thoughtworks.go.util.ZipUtil;
 import com.thoughtworks.go.validation.ChecksumValidator;
@@ -37,6 +39,7 @@ public class DirHandler implements FetchHandler {
     private static final Logger LOG = Logger.getLogger(DirHandler.class);
     private ArtifactMd5Checksums artifactMd5Checksums;
     private ChecksumValidationPublisher checksumValidationPublisher;
+    private transient ArtifactContentCache artifactContentCache;
 
     public DirHandler(String srcFile, File destOnAgent) {
         this.srcFile = srcFile;
@@ -56,12 +59,59 @@ public class DirHandler implements FetchHandler {
         new ZipUtil(new ZipUtil.ZipEntryHandler() {
             public void handleEntry(ZipEntry entry, InputStream stream) throws IOException {
                 LOG.info(String.format("[Agent Fetch Artifact] Downloading a directory from '%s' to '%s'. Handling the entry: '%s'", srcFile, destOnAgent.getAbsolutePath(), entry.getName()));
-                new ChecksumValidator(artifactMd5Checksums).validate(getSrcFilePath(entry), md5Hex(stream), checksumValidationPublisher);
+                String srcFilePath = getSrcFilePath(entry);
+                String md5 = md5Hex(stream);
+                new ChecksumValidator(artifactMd5Checksums).validate(srcFilePath, md5, checksumValidationPublisher);
+                if (artifactContentCache().isEnabled() && artifactMd5Checksums != null && md5.equals(artifactMd5Checksums.md5For(srcFilePath))) {
+                    artifactContentCache().add(md5, new File(destOnAgent, entry.getName()));
+                }
             }
         }).unzip(zipInputStream, destOnAgent);
         LOG.info(String.format("[Agent Fetch Artifact] Downloading a directory from '%s' to '%s'. Took: %sms", srcFile, destOnAgent.getAbsolutePath(), System.currentTimeMillis() - before));
     }
 
+    public void useArtifactContentCache(ArtifactContentCache artifactContentCache) {
+        this.artifactContentCache = artifactContentCache;
+    }
+
+    /**
+     * The checksum file is the only listing of the directory the agent has, so this gives up on anything the server writes
+     * into the job's artifacts without a checksum, i.e. the whole job root and cruise-output. Empty directories are not restored.
+     */
+    public boolean restoreFromArtifactContentCache() throws IOException {
+        String normalizedSrc = FileUtil.normalizePath(srcFile);
+        if (artifactMd5Checksums == null || normalizedSrc.isEmpty() || normalizedSrc.equals(".") || isInCruiseOutput(normalizedSrc)) {
+            return false;
+        }
+        Map<String, String> md5s = artifactMd5Checksums.md5sUnder(normalizedSrc);
+        if (md5s.isEmpty()) {
+            return false;
+        }
+        for (String md5 : md5s.values()) {
+            if (!artifactContentCache().contains(md5)) {
+                return false;
+            }
+        }
+        String parent = new File(srcFile).getParent();
+        int parentLength = parent == null ? 0 : FileUtil.normalizePath(parent).length() + 1;
+        for (Map.Entry<String, String> fileAndMd5 : md5s.entrySet()) {
+            if (!artifactContentCache().restore(fileAndMd5.getValue(), new File(destOnAgent, fileAndMd5.getKey().substring(parentLength)))) {
+                return false;
+            }
+            checksumValidationPublisher.md5Match(fileAndMd5.getKey());
+        }
+        LOG.info(String.format("[Agent Fetch Artifact] Restored %s files of '%s' to '%s' from the artifact cache", md5s.size(), srcFile, destOnAgent.getAbsolutePath()));
+        return true;
+    }
+
+    private boolean isInCruiseOutput(String normalizedSrc) {
+        return normalizedSrc.equals(ArtifactLogUtil.CRUISE_OUTPUT_FOLDER) || normalizedSrc.startsWith(ArtifactLogUtil.CRUISE_OUTPUT_FOLDER + "/");
+    }
+
+    private ArtifactContentCache artifactContentCache() {
+        return artifactContentCache == null ? ArtifactContentCache.DISABLED : artifactContentCache;
+    }
+
     private String getSrcFilePath(ZipEntry entry) {
         String parent = new File(srcFile).getParent();
         return FileUtil.normalizePath(new File(parent, entry.getName()).getPath());
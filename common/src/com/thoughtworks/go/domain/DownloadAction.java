@@ -16,6 +16,7 @@
 
 package com.thoughtworks.go.domain;
 
+import java.io.IOException;
 import javax.servlet.http.HttpServletResponse;
 
 import com.thoughtworks.go.util.Clock;
@@ -28,17 +29,26 @@ public class DownloadAction {
     private final HttpService httpService;
     private final DefaultGoPublisher goPublisher;
     private final Clock clock;
+    private final ArtifactContentCache artifactContentCache;
     private static final int DOWNLOAD_SLEEP_MILLIS = 5000;
     private static final Logger LOG = Logger.getLogger(DownloadAction.class);
 
 
     public DownloadAction(HttpService httpService, DefaultGoPublisher goPublisher, Clock clock) {
+        this(httpService, goPublisher, clock, ArtifactContentCache.DISABLED);
+    }
+
+    public DownloadAction(HttpService httpService, DefaultGoPublisher goPublisher, Clock clock, ArtifactContentCache artifactContentCache) {
         this.httpService = httpService;
         this.goPublisher = goPublisher;
         this.clock = clock;
+        this.artifactContentCache = artifactContentCache;
     }
 
     public void perform(String url, FetchHandler handler) throws Exception {
+        if (restoredFromCache(handler)) {
+            return;
+        }
         int retryCount = 0;
         while (true) {
             retryCount++;
@@ -63,6 +73,18 @@ public class DownloadAction {
         }
     }
 
+    private boolean restoredFromCache(FetchHandler handler) throws IOException {
+        if (!artifactContentCache.isEnabled()) {
+            return false;
+        }
+        handler.useArtifactContentCache(artifactContentCache);
+        if (!handler.restoreFromArtifactContentCache()) {
+            return false;
+        }
+        goPublisher.consumeLineWithPrefix("Artifact found in the agent's artifact cache, skipped fetching it");
+        return handler.handleResult(HttpServletResponse.SC_OK, goPublisher);
+    }
+
     private void publishDownloadError(String url, String cause, long backout) throws InterruptedException {
         String message = String.format("Could not fetch artifact %s. Pausing %s seconds to retry. Error was : %s", url, backout, cause);
         goPublisher.consumeLineWithPrefix(message);
@@ -30,4 +30,12 @@ public interface FetchHandler extends Serializable {
     boolean handleResult(int returncode, DefaultGoPublisher goPublisher);
 
     void useArtifactMd5Checksums(ArtifactMd5Checksums artifactMd5Checksums);
+
+    void useArtifactContentCache(ArtifactContentCache artifactContentCache);
+
+    /**
+     * Puts the artifact in place from the agent's content cache instead of downloading it.
+     * Returns false, having changed nothing, unless the checksums say every file it needs is cached.
+     */
+    boolean restoreFromArtifactContentCache() throws IOException;
 }
@@ -40,6 +40,7 @@ public class FileHandler implements FetchHandler {
     private static final Logger LOG = Logger.getLogger(FileHandler.class);
     private ArtifactMd5Checksums artifactMd5Checksums;
     private ChecksumValidationPublisher checksumValidationPublisher;
+    private transient ArtifactContentCache artifactContentCache;
 
     public FileHandler(File artifact, String srcFile) {
         this.artifact = artifact;
@@ -84,6 +85,9 @@ public class FileHandler implements FetchHandler {
             }
             String artifactMD5 = md5Hex(inputStream);
             new ChecksumValidator(artifactMd5Checksums).validate(srcFile, artifactMD5, checksumValidationPublisher);
+            if (artifactContentCache().isEnabled() && artifactMD5.equals(expectedMd5())) {
+                artifactContentCache().add(artifactMD5, artifact);
+            }
             if (LOG.isInfoEnabled()) {
                 LOG.info(String.format("[Artifact File Download] [%s] Checksum computation of artifact %s ended", new Date(), artifact.getName()));
             }
@@ -102,6 +106,27 @@ public class FileHandler implements FetchHandler {
         this.artifactMd5Checksums = artifactMd5Checksums;
     }
 
+    public void useArtifactContentCache(ArtifactContentCache artifactContentCache) {
+        this.artifactContentCache = artifactContentCache;
+    }
+
+    public boolean restoreFromArtifactContentCache() throws IOException {
+        String md5 = expectedMd5();
+        if (md5 == null || !artifactContentCache().restore(md5, artifact)) {
+            return false;
+        }
+        checksumValidationPublisher.md5Match(srcFile);
+        return true;
+    }
+
+    private ArtifactContentCache artifactContentCache() {
+        return artifactContentCache == null ? ArtifactContentCache.DISABLED : artifactContentCache;
+    }
+
+    private String expectedMd5() {
+        return artifactMd5Checksums == null ? null : artifactMd5Checksums.md5For(srcFile);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
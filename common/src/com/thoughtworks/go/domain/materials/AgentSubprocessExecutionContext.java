@@ -19,6 +19,7 @@ package com.thoughtworks.go.domain.materials;
 import com.thoughtworks.go.config.materials.SubprocessExecutionContext;
 import com.thoughtworks.go.remote.AgentIdentifier;
 import com.thoughtworks.go.util.CachedDigestUtils;
+import com.thoughtworks.go.util.SystemEnvironment;
 
 class AgentSubprocessExecutionContext implements SubprocessExecutionContext {
     private AgentIdentifier agentIdentifier;
@@ -32,4 +33,8 @@ class AgentSubprocessExecutionContext implements SubprocessExecutionContext {
     public String getProcessNamespace(String fingerprint) {
         return CachedDigestUtils.sha256Hex(fingerprint + agentIdentifier.getUuid() + workingDirectory);
     }
+
+    public boolean isGitReferenceRepositoryEnabled() {
+        return new SystemEnvironment().get(SystemEnvironment.AGENT_GIT_REFERENCE_REPOSITORIES_ENABLED);
+    }
 }
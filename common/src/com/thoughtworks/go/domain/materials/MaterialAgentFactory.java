@@ -48,6 +48,10 @@ public class MaterialAgentFactory {
     }
 
     public MaterialAgent createAgent(MaterialRevision revision) {
+        return createAgent(revision, consumer);
+    }
+
+    public MaterialAgent createAgent(MaterialRevision revision, ProcessOutputStreamConsumer consumer) {
         Material material = revision.getMaterial();
         if (material instanceof DependencyMaterial) {
             return new DependencyMaterialAgent(revision);
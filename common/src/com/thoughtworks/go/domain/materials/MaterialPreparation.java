@@ -0,0 +1,112 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.domain.materials;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.thoughtworks.go.domain.MaterialRevision;
+import com.thoughtworks.go.util.command.ProcessOutputStreamConsumer;
+import com.thoughtworks.go.util.command.StreamConsumer;
+import com.thoughtworks.go.work.GoPublisher;
+
+import static com.thoughtworks.go.util.ExceptionUtils.messageOf;
+import static java.lang.String.format;
+
+/**
+ * @understands updating the materials of a job side by side, writing each material's output as whole lines labelled with its name
+ */
+public class MaterialPreparation {
+    private final GoPublisher publisher;
+    private final int maxConcurrency;
+
+    public MaterialPreparation(GoPublisher publisher, int maxConcurrency) {
+        this.publisher = publisher;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public void prepare(List<MaterialRevision> revisions, MaterialAgentFactory agentFactory) throws InterruptedException {
+        int concurrency = Math.min(maxConcurrency, revisions.size());
+        if (concurrency <= 1) {
+            for (MaterialRevision revision : revisions) {
+                agentFactory.createAgent(revision).prepare();
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<String> labels = new ArrayList<String>();
+            List<Future<?>> updates = new ArrayList<Future<?>>();
+            for (MaterialRevision revision : revisions) {
+                String label = revision.getMaterial().getDisplayName();
+                LabelledConsumer output = new LabelledConsumer(label, publisher);
+                final MaterialAgent agent = agentFactory.createAgent(revision, new ProcessOutputStreamConsumer<LabelledConsumer, LabelledConsumer>(output, output));
+                labels.add(label);
+                updates.add(executor.submit(new Runnable() {
+                    public void run() {
+                        agent.prepare();
+                    }
+                }));
+            }
+            waitFor(updates, labels);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void waitFor(List<Future<?>> updates, List<String> labels) throws InterruptedException {
+        List<String> failedMaterials = new ArrayList<String>();
+        Throwable firstFailure = null;
+        for (int i = 0; i < updates.size(); i++) {
+            try {
+                updates.get(i).get();
+            } catch (ExecutionException e) {
+                publisher.consumeLineWithPrefix(format("Failed to update material [%s]: %s", labels.get(i), messageOf(e.getCause())));
+                failedMaterials.add(labels.get(i));
+                if (firstFailure == null) {
+                    firstFailure = e.getCause();
+                }
+            }
+        }
+        if (failedMaterials.size() == 1 && firstFailure instanceof RuntimeException) {
+            throw (RuntimeException) firstFailure;
+        }
+        if (!failedMaterials.isEmpty()) {
+            throw new RuntimeException(format("Failed to update materials %s", failedMaterials), firstFailure);
+        }
+    }
+
+    private static class LabelledConsumer implements StreamConsumer {
+        private final String label;
+        private final StreamConsumer publisher;
+
+        public LabelledConsumer(String label, StreamConsumer publisher) {
+            this.label = label;
+            this.publisher = publisher;
+        }
+
+        public void consumeLine(String line) {
+            publisher.consumeLine(format("[%s] %s", label, line));
+        }
+    }
+}
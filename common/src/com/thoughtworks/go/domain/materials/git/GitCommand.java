@@ -23,6 +23,7 @@ import com.thoughtworks.go.domain.materials.SCMCommand;
 import com.thoughtworks.go.domain.materials.mercurial.StringRevision;
 import com.thoughtworks.go.util.FileUtil;
 import com.thoughtworks.go.util.StringUtil;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.*;
 
 import java.io.File;
@@ -30,7 +31,6 @@ import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static com.thoughtworks.go.domain.materials.ModifiedAction.parseGitAction;
 import static com.thoughtworks.go.util.DateUtils.formatRFC822;
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static com.thoughtworks.go.util.ListUtil.join;
@@ -39,7 +39,6 @@ import static com.thoughtworks.go.util.command.ProcessOutputStreamConsumer.inMem
 public class GitCommand extends SCMCommand {
     private static final Pattern GIT_SUBMODULE_STATUS_PATTERN = Pattern.compile("^.[0-9a-fA-F]{40} (.+?)( \\(.+\\))?$");
     private static final Pattern GIT_SUBMODULE_URL_PATTERN = Pattern.compile("^submodule\\.(.+)\\.url (.+)$");
-    private static final Pattern GIT_DIFF_TREE_PATTERN = Pattern.compile("^(.)\\s+(.+)$");
 
     private final File workingDir;
     private final String branch;
@@ -53,10 +52,38 @@ public class GitCommand extends SCMCommand {
     }
 
     public int cloneFrom(ProcessOutputStreamConsumer outputStreamConsumer, String url) {
-        CommandLine gitClone = git().withArg("clone").withArg(String.format("--branch=%s", branch)).withArg(new UrlArgument(url)).withArg(workingDir.getAbsolutePath());
+        return cloneFrom(outputStreamConsumer, url, null);
+    }
+
+    public int cloneFrom(ProcessOutputStreamConsumer outputStreamConsumer, String url, File referenceRepository) {
+        CommandLine gitClone = git().withArg("clone").withArg(String.format("--branch=%s", branch));
+        if (referenceRepository != null) {
+            gitClone.withArg("--reference").withArg(referenceRepository.getAbsolutePath());
+        }
+        gitClone.withArg(new UrlArgument(url)).withArg(workingDir.getAbsolutePath());
         return run(gitClone, outputStreamConsumer);
     }
 
+    public int cloneBareFrom(ProcessOutputStreamConsumer outputStreamConsumer, String url) {
+        CommandLine gitClone = git().withArgs("clone", "--bare").withArg(new UrlArgument(url)).withArg(workingDir.getAbsolutePath());
+        return run(gitClone, outputStreamConsumer);
+    }
+
+    public void fetchOnlyBranchesAndTags() {
+        runOrBomb(git().withArgs("config", "remote.origin.fetch", "+refs/heads/*:refs/heads/*").withWorkingDir(workingDir));
+        runOrBomb(git().withArgs("config", "--add", "remote.origin.fetch", "+refs/tags/*:refs/tags/*").withWorkingDir(workingDir));
+    }
+
+    public void keepUnreachableObjects() {
+        // Working copies borrow objects from this repository through alternates, so gc must never prune any
+        runOrBomb(git().withArgs("config", "gc.pruneExpire", "never").withWorkingDir(workingDir));
+    }
+
+    public boolean hasRevision(Revision revision) {
+        CommandLine gitCatFile = git().withArgs("cat-file", "-e", revision.getRevision() + "^{commit}").withWorkingDir(workingDir);
+        return run(gitCatFile, inMemoryConsumer()) == 0;
+    }
+
     // http://www.kernel.org/pub/software/scm/git/docs/git-log.html
     private String modificationTemplate(String separator) {
         return "%cn <%ce>%n%H%n%ai%n%n%s%n%b%n" + separator;
@@ -82,42 +109,17 @@ public class GitCommand extends SCMCommand {
             throw new RuntimeException(String.format("Working directory: %s\n%s", workingDir, outputStreamConsumer.getStdError()), e);
         }
 
-        CommandLine gitCmd = git().withArg("log").withArgs(args).withWorkingDir(workingDir);
-        ConsoleResult result = runOrBomb(gitCmd);
-
-        GitModificationParser parser = new GitModificationParser();
-        List<Modification> mods = parser.parse(result.output());
-        for (Modification mod : mods) {
-            addModifiedFiles(mod);
-        }
-        return mods;
-    }
-
-    private void addModifiedFiles(Modification mod) {
-        ConsoleResult consoleResult = diffTree(mod.getRevision());
-        List<String> result = consoleResult.output();
-
-        for (String resultLine : result) {
-            // First line is the node
-            if (resultLine.equals(mod.getRevision())) {
-                continue;
-            }
-
-            Matcher m = matchResultLine(resultLine);
-            if (!m.find()) {
-                bomb("Unable to parse git-diff-tree output line: " + consoleResult.replaceSecretInfo(resultLine) + "\n"
-                        + "From output:\n"
-                        + consoleResult.outputForDisplayAsString());
-            }
-            mod.createModifiedFile(m.group(2), null, parseGitAction(m.group(1).charAt(0)));
+        // One pass over the history: --name-status lists each commit's files right after its message
+        CommandLine gitCmd = git().withArgs("log", "--name-status", "--no-renames", "--root").withArgs(args).withWorkingDir(workingDir);
+        GitModificationParser parser = new GitModificationParser(new SystemEnvironment().get(SystemEnvironment.GIT_MAX_MODIFIED_FILES_PER_COMMIT));
+        InMemoryConsumer errors = new InMemoryConsumer();
+        int result = run(gitCmd, new ProcessOutputStreamConsumer<GitModificationParser, InMemoryConsumer>(parser, errors));
+        if (result != 0) {
+            throw new RuntimeException(String.format("git log failed for [%s]\n%s", workingDir, errors));
         }
+        return parser.getModifications();
     }
 
-    private Matcher matchResultLine(String resultLine) {
-        return GIT_DIFF_TREE_PATTERN.matcher(resultLine);
-    }
-
-
     public void fetchAndReset(ProcessOutputStreamConsumer outputStreamConsumer, Revision revision) {
         outputStreamConsumer.stdOutput(String.format("[GIT] Fetch and reset in working directory %s", workingDir));
         cleanAllUnversionedFiles(outputStreamConsumer);
@@ -277,7 +279,7 @@ public class GitCommand extends SCMCommand {
         }
     }
 
-    private int gc(ProcessOutputStreamConsumer outputStreamConsumer) {
+    int gc(ProcessOutputStreamConsumer outputStreamConsumer) {
         outputStreamConsumer.stdOutput("[GIT] Performing git gc");
         CommandLine gitGc = git().withArgs("gc", "--auto").withWorkingDir(workingDir);
         return run(gitGc, outputStreamConsumer);
@@ -22,9 +22,21 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.domain.materials.ModifiedAction;
 import com.thoughtworks.go.util.DateUtils;
+import com.thoughtworks.go.util.command.StreamConsumer;
+import org.apache.log4j.Logger;
+
+import static com.thoughtworks.go.domain.materials.ModifiedAction.parseGitAction;
+
+/**
+ * @understands building modifications, with their modified files, from the output of
+ * 'git log --pretty=medium --name-status' one line at a time, as git produces it
+ */
+public class GitModificationParser implements StreamConsumer {
+    private static final Logger LOG = Logger.getLogger(GitModificationParser.class);
+    public static final int NO_FILE_LIMIT = Integer.MAX_VALUE;
 
-public class GitModificationParser {
     private LinkedList<Modification> modifications = new LinkedList<Modification>();
     private static final String SPACES = "\\s+";
     private static final String COMMENT_INDENT = "\\s{4}";
@@ -36,37 +48,91 @@ public class GitModificationParser {
     private static final Pattern AUTHOR_PATTERN = Pattern.compile("^Author:"+ SPACES + AUTHOR + "$");
     private static final Pattern DATE_PATTERN = Pattern.compile("^Date:" + SPACES + DATE + "$");
     private static final Pattern COMMENT_PATTERN = Pattern.compile("^" + COMMENT_INDENT + COMMENT_TEXT + "$");
+    private static final Pattern NAME_STATUS_PATTERN = Pattern.compile("^([A-Z])[0-9]*\\t(.+)$");
+
+    private final int maxFilesPerCommit;
+    private int filesInLastCommit;
+    private int filesSkippedInLastCommit;
+
+    public GitModificationParser() {
+        this(NO_FILE_LIMIT);
+    }
+
+    public GitModificationParser(int maxFilesPerCommit) {
+        this.maxFilesPerCommit = maxFilesPerCommit;
+    }
 
-    public List<Modification> parse(List<String> output) {
+    public synchronized List<Modification> parse(List<String> output) {
         for (String line : output) {
             processLine(line);
         }
-        return modifications;
+        return getModifications();
     }
 
-    public List<Modification> getModifications() {
+    public synchronized List<Modification> getModifications() {
+        recordSkippedFiles();
         return modifications;
     }
 
-    public void processLine(String line) {
+    public void consumeLine(String line) {
+        processLine(line);
+    }
+
+    public synchronized void processLine(String line) {
+        if (line.isEmpty()) {
+            return;
+        }
+        Matcher commentMatcher = COMMENT_PATTERN.matcher(line);
+        if (commentMatcher.matches()) {
+            Modification last = modifications.getLast();
+            String comment = last.getComment();
+            if (!comment.isEmpty()) comment += "\n";
+            last.setComment(comment + commentMatcher.group(1));
+            return;
+        }
         Matcher matcher = COMMIT_PATTERN.matcher(line);
         if (matcher.matches()) {
+            recordSkippedFiles();
             modifications.add(new Modification("", "", null, null, matcher.group(1)));
+            filesInLastCommit = 0;
+            return;
         }
         Matcher authorMatcher = AUTHOR_PATTERN.matcher(line);
         if (authorMatcher.matches()) {
             modifications.getLast().setUserName(authorMatcher.group(1));
+            return;
         }
         Matcher dateMatcher = DATE_PATTERN.matcher(line);
         if (dateMatcher.matches()) {
             modifications.getLast().setModifiedTime(DateUtils.parseISO8601(dateMatcher.group(1)));
+            return;
         }
-        Matcher commentMatcher = COMMENT_PATTERN.matcher(line);
-        if (commentMatcher.matches()) {
-            Modification last = modifications.getLast();
-            String comment = last.getComment();
-            if (!comment.isEmpty()) comment += "\n";
-            last.setComment(comment + commentMatcher.group(1));
-       }
+        Matcher fileMatcher = NAME_STATUS_PATTERN.matcher(line);
+        if (fileMatcher.matches()) {
+            addModifiedFile(fileMatcher.group(2), parseGitAction(fileMatcher.group(1).charAt(0)));
+        }
+    }
+
+    private void addModifiedFile(String fileName, ModifiedAction action) {
+        if (filesInLastCommit >= maxFilesPerCommit) {
+            filesSkippedInLastCommit++;
+            return;
+        }
+        modifications.getLast().createModifiedFile(fileName, null, action);
+        filesInLastCommit++;
+    }
+
+    /*
+     * A placeholder entry stands in for the files that were not kept, so that a material with an ignore filter
+     * still sees a change it cannot ignore, rather than deciding on a partial list of files.
+     */
+    private void recordSkippedFiles() {
+        if (filesSkippedInLastCommit == 0) {
+            return;
+        }
+        Modification last = modifications.getLast();
+        LOG.warn(String.format("Commit %s changes more than %s files, only the first %s are recorded", last.getRevision(), maxFilesPerCommit, maxFilesPerCommit));
+        last.createModifiedFile(String.format("... %s more files", filesSkippedInLastCommit), null, ModifiedAction.unknown);
+        filesSkippedInLastCommit = 0;
     }
 }
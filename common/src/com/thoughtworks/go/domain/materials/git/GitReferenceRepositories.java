@@ -0,0 +1,225 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.domain.materials.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.thoughtworks.go.domain.materials.Revision;
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.util.command.ProcessOutputStreamConsumer;
+import com.thoughtworks.go.util.command.UrlArgument;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.apache.log4j.Logger;
+
+import static com.thoughtworks.go.util.ExceptionUtils.bomb;
+import static com.thoughtworks.go.util.FileUtil.createParentFolderIfNotExist;
+import static com.thoughtworks.go.util.FileUtil.deleteFolder;
+import static java.lang.String.format;
+
+/**
+ * @understands the bare mirror an agent keeps per git material, which its working copies borrow objects from
+ *
+ * Each material gets a folder holding one mirror, named after the time it was built. Objects are never pruned from a
+ * mirror because working copies may still borrow them, so once a mirror grows past its age or size limit it is built
+ * again from scratch, in a new folder, at a time when no checkout is using it. Working copies that borrowed from the
+ * old mirror find it gone and are cloned again.
+ */
+public class GitReferenceRepositories {
+    private static final Logger LOG = Logger.getLogger(GitReferenceRepositories.class);
+    static final String LAST_USED_MARKER = "go-last-used";
+    static final String BUILT_SIZE_MARKER = "go-built-size";
+    private static final long CLEANUP_INTERVAL = TimeUnit.HOURS.toMillis(1);
+    private static final AtomicLong lastCleanup = new AtomicLong();
+    private static final ConcurrentMap<String, AtomicInteger> checkoutsInProgress = new ConcurrentHashMap<String, AtomicInteger>();
+
+    private final File root;
+    private final long unusedPeriod;
+    private final long rebuildPeriod;
+    private final int maxGrowthFactor;
+
+    public GitReferenceRepositories(SystemEnvironment systemEnvironment) {
+        this(new File(systemEnvironment.get(SystemEnvironment.AGENT_GIT_REFERENCE_REPOSITORIES_DIR)),
+                TimeUnit.DAYS.toMillis(systemEnvironment.get(SystemEnvironment.AGENT_GIT_REFERENCE_REPOSITORIES_UNUSED_DAYS)),
+                TimeUnit.DAYS.toMillis(systemEnvironment.get(SystemEnvironment.AGENT_GIT_REFERENCE_REPOSITORIES_REBUILD_DAYS)),
+                systemEnvironment.get(SystemEnvironment.AGENT_GIT_REFERENCE_REPOSITORIES_MAX_GROWTH_FACTOR));
+    }
+
+    GitReferenceRepositories(File root, long unusedPeriod, long rebuildPeriod, int maxGrowthFactor) {
+        this.root = root;
+        this.unusedPeriod = unusedPeriod;
+        this.rebuildPeriod = rebuildPeriod;
+        this.maxGrowthFactor = maxGrowthFactor;
+    }
+
+    /**
+     * Every call must be followed by a call to {@link #release(String)} once the checkout is done with the mirror
+     */
+    public File referenceFor(String fingerprint, UrlArgument url, Revision revision, ProcessOutputStreamConsumer outputStreamConsumer) {
+        File folder = new File(root, fingerprint);
+        File mirror;
+        synchronized (mutexFor(fingerprint)) {
+            mirror = currentMirror(folder);
+            if (mirror == null) {
+                outputStreamConsumer.stdOutput(format("[GIT] Creating shared reference repository for %s", url));
+                mirror = build(fingerprint, folder, url, outputStreamConsumer);
+            } else if (!new GitCommand(fingerprint, mirror, null, false).hasRevision(revision)) {
+                if (isDueForRebuild(mirror) && !isInUse(fingerprint)) {
+                    outputStreamConsumer.stdOutput(format("[GIT] Rebuilding shared reference repository for %s", url));
+                    File outgrown = mirror;
+                    mirror = build(fingerprint, folder, url, outputStreamConsumer);
+                    deleteFolder(outgrown);
+                } else {
+                    outputStreamConsumer.stdOutput(format("[GIT] Refreshing shared reference repository for %s", url));
+                    GitCommand git = new GitCommand(fingerprint, mirror, null, false);
+                    git.fetch(outputStreamConsumer);
+                    git.gc(outputStreamConsumer);
+                }
+            }
+            markUsed(folder);
+            counterFor(fingerprint).incrementAndGet();
+        }
+        removeUnusedPeriodically();
+        return mirror;
+    }
+
+    public void release(String fingerprint) {
+        counterFor(fingerprint).decrementAndGet();
+    }
+
+    void removeUnused() {
+        File[] folders = root.listFiles();
+        if (folders == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (File folder : folders) {
+            synchronized (mutexFor(folder.getName())) {
+                File marker = new File(folder, LAST_USED_MARKER);
+                if (marker.exists() && now - marker.lastModified() > unusedPeriod && !isInUse(folder.getName())) {
+                    LOG.info(format("Removing git reference repository [%s], unused since %tc", folder, marker.lastModified()));
+                    deleteFolder(folder);
+                }
+            }
+        }
+    }
+
+    private File build(String fingerprint, File folder, UrlArgument url, ProcessOutputStreamConsumer outputStreamConsumer) {
+        if (isBareRepository(folder)) {
+            // a mirror from before mirrors were kept one level down, in a folder of their own
+            deleteFolder(folder);
+        }
+        File mirror = new File(folder, String.valueOf(System.currentTimeMillis()));
+        createParentFolderIfNotExist(mirror);
+        GitCommand git = new GitCommand(fingerprint, mirror, null, false);
+        if (git.cloneBareFrom(outputStreamConsumer, url.forCommandline()) != 0) {
+            deleteFolder(mirror);
+            throw bomb(format("Failed to create git reference repository for %s", url));
+        }
+        git.fetchOnlyBranchesAndTags();
+        git.keepUnreachableObjects();
+        writeBuiltSize(mirror);
+        return mirror;
+    }
+
+    private boolean isDueForRebuild(File mirror) {
+        long builtAt = NumberUtils.toLong(mirror.getName());
+        if (System.currentTimeMillis() - builtAt > rebuildPeriod) {
+            return true;
+        }
+        long builtSize = readBuiltSize(mirror);
+        return builtSize > 0 && FileUtils.sizeOfDirectory(mirror) > builtSize * maxGrowthFactor;
+    }
+
+    private File currentMirror(File folder) {
+        File[] candidates = folder.listFiles();
+        if (candidates == null) {
+            return null;
+        }
+        File current = null;
+        for (File candidate : candidates) {
+            if (isBareRepository(candidate) && (current == null || NumberUtils.toLong(candidate.getName()) > NumberUtils.toLong(current.getName()))) {
+                current = candidate;
+            }
+        }
+        return current;
+    }
+
+    private boolean isInUse(String fingerprint) {
+        AtomicInteger checkouts = checkoutsInProgress.get(fingerprint);
+        return checkouts != null && checkouts.get() > 0;
+    }
+
+    private AtomicInteger counterFor(String fingerprint) {
+        AtomicInteger counter = checkoutsInProgress.get(fingerprint);
+        if (counter == null) {
+            AtomicInteger created = new AtomicInteger();
+            counter = checkoutsInProgress.putIfAbsent(fingerprint, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    private void writeBuiltSize(File mirror) {
+        try {
+            FileUtils.writeStringToFile(new File(mirror, BUILT_SIZE_MARKER), String.valueOf(FileUtils.sizeOfDirectory(mirror)));
+        } catch (IOException e) {
+            LOG.warn(format("Could not record the size of git reference repository [%s]", mirror), e);
+        }
+    }
+
+    private long readBuiltSize(File mirror) {
+        try {
+            return NumberUtils.toLong(FileUtils.readFileToString(new File(mirror, BUILT_SIZE_MARKER)).trim());
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void removeUnusedPeriodically() {
+        long last = lastCleanup.get();
+        long now = System.currentTimeMillis();
+        if (now - last >= CLEANUP_INTERVAL && lastCleanup.compareAndSet(last, now)) {
+            removeUnused();
+        }
+    }
+
+    private void markUsed(File folder) {
+        try {
+            FileUtils.touch(new File(folder, LAST_USED_MARKER));
+        } catch (IOException e) {
+            LOG.warn(format("Could not mark git reference repository [%s] as used", folder), e);
+        }
+    }
+
+    private boolean isBareRepository(File folder) {
+        return new File(folder, "HEAD").isFile() && new File(folder, "objects").isDirectory();
+    }
+
+    private static String mutexFor(String fingerprint) {
+        return (GitReferenceRepositories.class.getName() + "_" + fingerprint).intern();
+    }
+}
@@ -17,7 +17,9 @@
 package com.thoughtworks.go.presentation.pipelinehistory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.thoughtworks.go.domain.PipelinePauseInfo;
 
@@ -27,6 +29,7 @@ import com.thoughtworks.go.domain.PipelinePauseInfo;
 public class PipelineGroupModel {
     private String name;
     private List<PipelineModel> pipelineModels = new ArrayList<PipelineModel>();
+    private Map<String, PipelineModel> pipelineModelsByName = new HashMap<String, PipelineModel>();
 
     public PipelineGroupModel(String name) {
         this.name = name;
@@ -48,8 +51,13 @@ public class PipelineGroupModel {
     }
 
     public PipelineModel pipelineModelForPipelineName(String pipelineName, boolean canForce, boolean canOperate, PipelinePauseInfo pipelinePauseInfo) {
-        if (!containsPipeline(pipelineName)) { pipelineModels.add(new PipelineModel(pipelineName, canForce, canOperate, pipelinePauseInfo)); }
-        return getPipelineModel(pipelineName);
+        PipelineModel pipelineModel = getPipelineModel(pipelineName);
+        if (pipelineModel == null) {
+            pipelineModel = new PipelineModel(pipelineName, canForce, canOperate, pipelinePauseInfo);
+            pipelineModels.add(pipelineModel);
+            pipelineModelsByName.put(pipelineName.toLowerCase(), pipelineModel);
+        }
+        return pipelineModel;
     }
 
     public boolean containsPipeline(String pipelineName) {
@@ -57,15 +65,12 @@ public class PipelineGroupModel {
     }
 
     public PipelineModel getPipelineModel(String pipelineName) {
-        for (PipelineModel pipelineModel : pipelineModels) {
-            if (pipelineModel.getName().equalsIgnoreCase(pipelineName)) {
-                return pipelineModel;
-            }
-        }
-        return null;
+        return pipelineModelsByName.get(pipelineName.toLowerCase());
     }
 
     public void remove(PipelineModel pipelineModel) {
-        pipelineModels.remove(pipelineModel);
+        if (pipelineModels.remove(pipelineModel)) {
+            pipelineModelsByName.remove(pipelineModel.getName().toLowerCase());
+        }
     }
 }
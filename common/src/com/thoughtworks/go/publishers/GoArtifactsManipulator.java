@@ -17,13 +17,9 @@
 package com.thoughtworks.go.publishers;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.util.Collection;
-import java.util.Properties;
-import java.util.zip.Deflater;
 import javax.servlet.http.HttpServletResponse;
 
+import com.thoughtworks.go.domain.ArtifactContentCache;
 import com.thoughtworks.go.domain.DownloadAction;
 import com.thoughtworks.go.domain.builder.FetchArtifactBuilder;
 import com.thoughtworks.go.domain.JobIdentifier;
@@ -36,25 +32,23 @@ import com.thoughtworks.go.util.*;
 import com.thoughtworks.go.util.HttpService;
 import com.thoughtworks.go.util.URLService;
 import com.thoughtworks.go.work.DefaultGoPublisher;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import static com.thoughtworks.go.util.ArtifactLogUtil.getConsoleOutputFolderAndFileNameUrl;
-import static com.thoughtworks.go.util.CachedDigestUtils.md5Hex;
 import static com.thoughtworks.go.util.GoConstants.PUBLISH_MAX_RETRIES;
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static com.thoughtworks.go.util.FileUtil.normalizePath;
 import static java.lang.String.format;
-import static org.apache.commons.lang.StringUtils.removeStart;
 
 @Component
 public class GoArtifactsManipulator {
     private final HttpService httpService;
     private final URLService urlService;
     private final ZipUtil zipUtil;
+    private final ArtifactContentCache artifactContentCache;
     private static final Logger LOGGER = Logger.getLogger(GoArtifactsManipulator.class);
 
     @Autowired
@@ -62,6 +56,7 @@ public class GoArtifactsManipulator {
         this.httpService = httpService;
         this.urlService = urlService;
         this.zipUtil = zipUtil;
+        this.artifactContentCache = ArtifactContentCache.forAgent(new SystemEnvironment());
     }
 
     public void publish(DefaultGoPublisher goPublisher, String destPath, File source, JobIdentifier jobIdentifier) {
@@ -71,30 +66,21 @@ public class GoArtifactsManipulator {
             bomb(message);
         }
 
+        String normalizedDestPath = normalizePath(destPath);
+        StreamingArtifactZip artifact = new StreamingArtifactZip(source, normalizedDestPath, zipUtil);
+        long size = artifact.size();
+
         int publishingAttempts = 0;
         Throwable lastException = null;
         while (publishingAttempts < PUBLISH_MAX_RETRIES) {
-            File tmpDir = null;
             try {
                 publishingAttempts++;
 
-                tmpDir = FileUtil.createTempFolder();
-                File dataToUpload = new File(tmpDir, source.getName() + ".zip");
-                zipUtil.zip(source, dataToUpload, Deflater.BEST_SPEED);
-
-                long size = 0;
-                if (source.isDirectory()) {
-                    size = FileUtils.sizeOfDirectory(source);
-                } else {
-                    size = source.length();
-                }
-
                 goPublisher.consumeLineWithPrefix("Uploading artifacts from " + source.getAbsolutePath() + " to " + getDestPath(destPath));
 
-                String normalizedDestPath = normalizePath(destPath);
                 String url = urlService.getUploadUrlOfAgent(jobIdentifier, normalizedDestPath, publishingAttempts);
 
-                int statusCode = httpService.upload(url, size, dataToUpload, artifactChecksums(source, normalizedDestPath));
+                int statusCode = httpService.upload(url, size, artifact);
 
                 if (statusCode == HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE) {
                     String message = String.format("Artifact upload for file %s (Size: %s) was denied by the server. This usually happens when server runs out of disk space.",
@@ -113,8 +99,6 @@ public class GoArtifactsManipulator {
                 LOGGER.error(message, e);
                 goPublisher.consumeLineWithPrefix(message);
                 lastException = e;
-            } finally {
-                FileUtil.deleteFolder(tmpDir);
             }
         }
         if (lastException != null) {
@@ -122,65 +106,12 @@ public class GoArtifactsManipulator {
         }
     }
 
-    private Properties artifactChecksums(File source, String destPath) throws IOException {
-        if (source.isDirectory()) {
-            return computeChecksumForContentsOfDirectory(source, destPath);
-        }
-
-        FileInputStream inputStream = null;
-        Properties properties = null;
-        try {
-            inputStream = new FileInputStream(source);
-            properties = computeChecksumForFile(source.getName(), md5Hex(inputStream), destPath);
-        } finally {
-            if (inputStream != null) {
-                inputStream.close();
-            }
-        }
-        return properties;
-    }
-
-    private Properties computeChecksumForContentsOfDirectory(File directory, String destPath) throws IOException {
-        Collection<File> fileStructure = FileUtils.listFiles(directory, null, true);
-        Properties checksumProperties = new Properties();
-        for (File file : fileStructure) {
-            String filePath = removeStart(file.getAbsolutePath(), directory.getParentFile().getAbsolutePath());
-            FileInputStream inputStream = null;
-            try {
-                inputStream = new FileInputStream(file);
-                checksumProperties.setProperty(getEffectiveFileName(destPath, normalizePath(filePath)), md5Hex(inputStream));
-            } finally {
-                if (inputStream != null) {
-                    inputStream.close();
-                }
-            }
-        }
-        return checksumProperties;
-    }
-
-    private Properties computeChecksumForFile(String sourceName, String md5, String destPath) throws IOException {
-        String effectiveFileName = getEffectiveFileName(destPath, sourceName);
-        Properties properties = new Properties();
-        properties.setProperty(effectiveFileName, md5);
-        return properties;
-    }
-
-    private String getEffectiveFileName(String computedDestPath, String filePath) {
-        File artifactDest = computedDestPath.isEmpty() ? new File(filePath) : new File(computedDestPath, filePath);
-        return removeLeadingSlash(artifactDest);
-    }
-
-    private String removeLeadingSlash(File artifactDest) {
-        return removeStart(normalizePath(artifactDest.getPath()), "/");
-    }
-
-
     public void fetch(DefaultGoPublisher goPublisher, FetchArtifactBuilder fetchArtifactBuilder) {
         try {
             String fetchMsg = String.format("Fetching artifact [%s] from [%s]", fetchArtifactBuilder.getSrc(),
                     fetchArtifactBuilder.jobLocatorForDisplay());
             goPublisher.consumeLineWithPrefix(fetchMsg);
-            fetchArtifactBuilder.fetch(new DownloadAction(httpService, goPublisher, new SystemTimeClock()), urlService);
+            fetchArtifactBuilder.fetch(new DownloadAction(httpService, goPublisher, new SystemTimeClock(), artifactContentCache), urlService);
         } catch (Exception e) {
             String fetchMsg = String.format("Failed to save artifact [%s] to [%s]",
                     fetchArtifactBuilder.getSrc(), fetchArtifactBuilder.getDest());
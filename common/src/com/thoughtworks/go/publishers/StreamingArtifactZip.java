@@ -0,0 +1,130 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.publishers;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.zip.Deflater;
+
+import com.thoughtworks.go.util.UploadableArtifact;
+import com.thoughtworks.go.util.ZipUtil;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+
+import static com.thoughtworks.go.util.FileUtil.normalizePath;
+import static org.apache.commons.lang.StringUtils.removeStart;
+
+/**
+ * @understands zipping an artifact into an upload while checksumming each file from the same read
+ */
+class StreamingArtifactZip implements UploadableArtifact {
+    private final File source;
+    private final String destPath;
+    private final ZipUtil zipUtil;
+    private final long size;
+    private volatile Properties checksums;
+
+    StreamingArtifactZip(File source, String destPath, ZipUtil zipUtil) {
+        this.source = source;
+        this.destPath = destPath;
+        this.zipUtil = zipUtil;
+        this.size = source.isDirectory() ? FileUtils.sizeOfDirectory(source) : source.length();
+    }
+
+    public String getName() {
+        return source.getName() + ".zip";
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public void writeZipTo(OutputStream output) throws IOException {
+        if (checksums != null) {
+            // an earlier attempt already checksummed every file, only the zip has to be resent
+            zipUtil.zip(source, new UnclosableOutputStream(output), Deflater.BEST_SPEED);
+            return;
+        }
+        Properties computed = new Properties();
+        zipUtil.zip(source, new UnclosableOutputStream(output), Deflater.BEST_SPEED, new ChecksummingDecorator(computed));
+        checksums = computed;
+    }
+
+    public Properties getChecksums() {
+        if (checksums == null) {
+            throw new IllegalStateException("Checksums of " + source.getAbsolutePath() + " are only known once it has been zipped");
+        }
+        return checksums;
+    }
+
+    private String checksumKey(File file) {
+        String filePath = source.isDirectory() ? normalizePath(removeStart(file.getAbsolutePath(), source.getParentFile().getAbsolutePath())) : file.getName();
+        File artifactDest = destPath.isEmpty() ? new File(filePath) : new File(destPath, filePath);
+        return removeStart(normalizePath(artifactDest.getPath()), "/");
+    }
+
+    private class ChecksummingDecorator implements ZipUtil.FileStreamDecorator {
+        private final Properties computed;
+        private final MessageDigest digest;
+
+        private ChecksummingDecorator(Properties computed) {
+            this.computed = computed;
+            try {
+                this.digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        public InputStream decorate(final File file, InputStream contents) {
+            digest.reset();
+            return new DigestInputStream(contents, digest) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    computed.setProperty(checksumKey(file), Hex.encodeHexString(digest.digest()));
+                }
+            };
+        }
+    }
+
+    /**
+     * The zip is followed by other parts of the request, so finishing the zip must not close the request stream.
+     */
+    private static class UnclosableOutputStream extends FilterOutputStream {
+        private UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.remote;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import com.thoughtworks.go.domain.JobResult;
+import com.thoughtworks.go.domain.JobState;
+import com.thoughtworks.go.server.service.AgentRuntimeInfo;
+
+/**
+ * @understands the versioned binary format of calls an agent makes on BuildRepositoryRemote, and their results
+ * Runtime info, which every ping carries, is sent as a delta. Strings, booleans and job states and results are written directly.
+ * Anything else, i.e. job identifiers, work and exceptions, is Java-serialized inside the frame.
+ */
+public class AgentRemoteProtocol {
+    public static final String CONTENT_TYPE = "application/x-go-agent-rpc";
+    public static final int VERSION = 1;
+    private static final int MAGIC = 0x474F;
+
+    private static final List<String> METHODS = Arrays.asList("ping", "getWork", "reportCurrentStatus", "reportCompleting", "reportCompleted", "isIgnored", "getCookie");
+
+    private static final int NULL = 0;
+    private static final int RUNTIME_INFO = 1;
+    private static final int STRING = 2;
+    private static final int BOOLEAN = 3;
+    private static final int AGENT_INSTRUCTION = 4;
+    private static final int JOB_STATE = 5;
+    private static final int JOB_RESULT = 6;
+    private static final int SERIALIZED = 7;
+
+    private static final int RETURNED = 0;
+    private static final int THREW = 1;
+    private static final int RESEND_IN_FULL = 2;
+
+    private final AgentRuntimeInfoDeltas runtimeInfoDeltas;
+    private final ClassLoader classLoader;
+
+    public AgentRemoteProtocol(AgentRuntimeInfoDeltas runtimeInfoDeltas, ClassLoader classLoader) {
+        this.runtimeInfoDeltas = runtimeInfoDeltas;
+        this.classLoader = classLoader;
+    }
+
+    public void writeCall(String methodName, Object[] arguments, OutputStream stream) throws IOException {
+        int method = METHODS.indexOf(methodName);
+        if (method < 0) {
+            throw new IllegalArgumentException(String.format("Method [%s] is not part of version %s of the agent protocol", methodName, VERSION));
+        }
+        DataOutputStream out = new DataOutputStream(stream);
+        writeHeader(out);
+        out.writeByte(method);
+        out.writeByte(arguments == null ? 0 : arguments.length);
+        if (arguments != null) {
+            for (Object argument : arguments) {
+                writeValue(argument, out);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * @throws AgentRuntimeInfoDeltas.UnknownBaseException when runtime info was sent as a delta against something this side does not hold
+     */
+    public Call readCall(InputStream stream) throws IOException, ClassNotFoundException {
+        DataInputStream in = new DataInputStream(stream);
+        readHeader(in);
+        int method = in.readUnsignedByte();
+        if (method >= METHODS.size()) {
+            throw new IOException(String.format("Unknown method %s in version %s of the agent protocol", method, VERSION));
+        }
+        Object[] arguments = new Object[in.readUnsignedByte()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = readValue(in);
+        }
+        return new Call(methodNamed(METHODS.get(method)), arguments);
+    }
+
+    public void writeResult(Object value, Throwable exception, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        writeHeader(out);
+        if (exception != null) {
+            out.writeByte(THREW);
+            writeSerialized(exception, out);
+        } else {
+            out.writeByte(RETURNED);
+            writeValue(value, out);
+        }
+        out.flush();
+    }
+
+    public void writeResendInFull(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        writeHeader(out);
+        out.writeByte(RESEND_IN_FULL);
+        out.flush();
+    }
+
+    public Result readResult(InputStream stream) throws IOException, ClassNotFoundException {
+        DataInputStream in = new DataInputStream(stream);
+        readHeader(in);
+        int status = in.readUnsignedByte();
+        switch (status) {
+            case RETURNED:
+                return new Result(readValue(in), null, false);
+            case THREW:
+                return new Result(null, (Throwable) readSerialized(in), false);
+            case RESEND_IN_FULL:
+                return new Result(null, null, true);
+            default:
+                throw new IOException("Unknown result status " + status);
+        }
+    }
+
+    private void writeHeader(DataOutputStream out) throws IOException {
+        out.writeShort(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    private void readHeader(DataInputStream in) throws IOException {
+        if (in.readUnsignedShort() != MAGIC) {
+            throw new IOException("Not an agent protocol message");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException(String.format("Agent protocol version %s is not supported, expected %s", version, VERSION));
+        }
+    }
+
+    private void writeValue(Object value, DataOutputStream out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof AgentRuntimeInfo) {
+            out.writeByte(RUNTIME_INFO);
+            runtimeInfoDeltas.write((AgentRuntimeInfo) value, out);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            out.writeUTF((String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof AgentInstruction) {
+            out.writeByte(AGENT_INSTRUCTION);
+            out.writeBoolean(((AgentInstruction) value).isShouldCancelJob());
+        } else if (value instanceof JobState) {
+            out.writeByte(JOB_STATE);
+            out.writeUTF(((JobState) value).name());
+        } else if (value instanceof JobResult) {
+            out.writeByte(JOB_RESULT);
+            out.writeUTF(((JobResult) value).name());
+        } else {
+            out.writeByte(SERIALIZED);
+            writeSerialized(value, out);
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+        int type = in.readUnsignedByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case RUNTIME_INFO:
+                return runtimeInfoDeltas.read(in);
+            case STRING:
+                return in.readUTF();
+            case BOOLEAN:
+                return in.readBoolean();
+            case AGENT_INSTRUCTION:
+                return new AgentInstruction(in.readBoolean());
+            case JOB_STATE:
+                return JobState.valueOf(in.readUTF());
+            case JOB_RESULT:
+                return JobResult.valueOf(in.readUTF());
+            case SERIALIZED:
+                return readSerialized(in);
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private void writeSerialized(Object value, DataOutputStream out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream objectOut = new ObjectOutputStream(bytes);
+        objectOut.writeObject(value);
+        objectOut.close();
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private Object readSerialized(DataInputStream in) throws IOException, ClassNotFoundException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+                try {
+                    return Class.forName(description.getName(), false, classLoader);
+                } catch (ClassNotFoundException e) {
+                    return super.resolveClass(description);
+                }
+            }
+        };
+        try {
+            return objectIn.readObject();
+        } finally {
+            objectIn.close();
+        }
+    }
+
+    private Method methodNamed(String methodName) {
+        for (Method method : BuildRepositoryRemote.class.getMethods()) {
+            if (method.getName().equals(methodName)) {
+                return method;
+            }
+        }
+        throw new IllegalStateException(String.format("BuildRepositoryRemote has no method [%s]", methodName));
+    }
+
+    public static class Call {
+        private final Method method;
+        private final Object[] arguments;
+
+        private Call(Method method, Object[] arguments) {
+            this.method = method;
+            this.arguments = arguments;
+        }
+
+        public String getMethodName() {
+            return method.getName();
+        }
+
+        public Class[] getParameterTypes() {
+            return method.getParameterTypes();
+        }
+
+        public Object[] getArguments() {
+            return arguments;
+        }
+    }
+
+    public static class Result {
+        private final Object value;
+        private final Throwable exception;
+        private final boolean resendInFull;
+
+        private Result(Object value, Throwable exception, boolean resendInFull) {
+            this.value = value;
+            this.exception = exception;
+            this.resendInFull = resendInFull;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public Throwable getException() {
+            return exception;
+        }
+
+        public boolean shouldResendInFull() {
+            return resendInFull;
+        }
+    }
+}
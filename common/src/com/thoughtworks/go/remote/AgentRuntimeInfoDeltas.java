@@ -0,0 +1,212 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.remote;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.thoughtworks.go.domain.AgentRuntimeStatus;
+import com.thoughtworks.go.server.service.AgentBuildingInfo;
+import com.thoughtworks.go.server.service.AgentRuntimeInfo;
+
+/**
+ * @understands sending an agent's runtime info as the fields that changed since the last one the other side acknowledged
+ * The agent keeps the last report the server answered and the server the latest report it received, both per agent uuid. Sequences only
+ * grow within a session, so two reports never share one. A delta names the session and sequence it was made against, and is refused when
+ * the other side does not hold exactly that base, in which case the full info is resent.
+ */
+public class AgentRuntimeInfoDeltas {
+    private static final int HOST_NAME = 0;
+    private static final int IP_ADDRESS = 1;
+    private static final int RUNTIME_STATUS = 2;
+    private static final int BUILDING_INFO = 3;
+    private static final int BUILD_LOCATOR = 4;
+    private static final int LOCATION = 5;
+    private static final int USABLE_SPACE = 6;
+    private static final int OPERATING_SYSTEM = 7;
+    private static final int COOKIE = 8;
+    private static final int AGENT_LAUNCHER_VERSION = 9;
+    private static final int FIELD_COUNT = 10;
+    private static final long NO_BASE = 0;
+
+    private final ConcurrentMap<String, Base> bases = new ConcurrentHashMap<String, Base>();
+    private final long session = new SecureRandom().nextLong();
+    private final AtomicLong lastSequence = new AtomicLong(NO_BASE);
+    private final ThreadLocal<Written> written = new ThreadLocal<Written>();
+
+    /**
+     * The report becomes the base of later deltas only once {@link #acknowledgeWritten()} is called on the same thread.
+     */
+    public void write(AgentRuntimeInfo info, DataOutputStream out) throws IOException {
+        String uuid = info.getUUId();
+        Object[] fields = fieldsOf(info);
+        Base base = bases.get(uuid);
+        long sequence = lastSequence.incrementAndGet();
+
+        out.writeUTF(uuid);
+        out.writeLong(session);
+        out.writeLong(sequence);
+        out.writeLong(base == null ? NO_BASE : base.sequence);
+        int changed = 0;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            if (base == null || !equal(base.fields[field], fields[field])) {
+                changed |= 1 << field;
+            }
+        }
+        out.writeShort(changed);
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            if ((changed & (1 << field)) != 0) {
+                writeField(field, fields[field], out);
+            }
+        }
+        written.set(new Written(uuid, new Base(session, sequence, fields)));
+    }
+
+    public void acknowledgeWritten() {
+        Written report = written.get();
+        written.remove();
+        if (report != null) {
+            keepIfLater(report.uuid, report.base);
+        }
+    }
+
+    public void discardWritten() {
+        written.remove();
+    }
+
+    public AgentRuntimeInfo read(DataInputStream in) throws IOException {
+        String uuid = in.readUTF();
+        long senderSession = in.readLong();
+        long sequence = in.readLong();
+        long baseSequence = in.readLong();
+        Object[] fields = new Object[FIELD_COUNT];
+        if (baseSequence != NO_BASE) {
+            Base base = bases.get(uuid);
+            if (base == null || base.session != senderSession || base.sequence != baseSequence) {
+                throw new UnknownBaseException(uuid);
+            }
+            fields = Arrays.copyOf(base.fields, FIELD_COUNT);
+        }
+        int changed = in.readUnsignedShort();
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            if ((changed & (1 << field)) != 0) {
+                fields[field] = readField(field, in);
+            }
+        }
+        keepIfLater(uuid, new Base(senderSession, sequence, fields));
+        return runtimeInfoFrom(uuid, fields);
+    }
+
+    private synchronized void keepIfLater(String uuid, Base base) {
+        Base current = bases.get(uuid);
+        if (current == null || current.session != base.session || current.sequence < base.sequence) {
+            bases.put(uuid, base);
+        }
+    }
+
+    public void forget(String uuid) {
+        bases.remove(uuid);
+    }
+
+    public void forgetAll() {
+        bases.clear();
+    }
+
+    private Object[] fieldsOf(AgentRuntimeInfo info) {
+        Object[] fields = new Object[FIELD_COUNT];
+        fields[HOST_NAME] = info.getHostName();
+        fields[IP_ADDRESS] = info.getIpAdress();
+        fields[RUNTIME_STATUS] = info.getRuntimeStatus() == null ? null : info.getRuntimeStatus().name();
+        AgentBuildingInfo buildingInfo = info.getBuildingInfo();
+        fields[BUILDING_INFO] = buildingInfo == null ? null : buildingInfo.getBuildingInfo();
+        fields[BUILD_LOCATOR] = buildingInfo == null ? null : buildingInfo.getBuildLocator();
+        fields[LOCATION] = info.getLocation();
+        fields[USABLE_SPACE] = info.getUsableSpace();
+        fields[OPERATING_SYSTEM] = info.getOperatingSystem();
+        fields[COOKIE] = info.getCookie();
+        fields[AGENT_LAUNCHER_VERSION] = info.getAgentLauncherVersion();
+        return fields;
+    }
+
+    private AgentRuntimeInfo runtimeInfoFrom(String uuid, Object[] fields) {
+        String runtimeStatus = (String) fields[RUNTIME_STATUS];
+        AgentBuildingInfo buildingInfo = null;
+        if (fields[BUILDING_INFO] != null || fields[BUILD_LOCATOR] != null) {
+            buildingInfo = new AgentBuildingInfo((String) fields[BUILDING_INFO], (String) fields[BUILD_LOCATOR]);
+        }
+        return AgentRuntimeInfo.fromReport(new AgentIdentifier((String) fields[HOST_NAME], (String) fields[IP_ADDRESS], uuid),
+                runtimeStatus == null ? null : AgentRuntimeStatus.valueOf(runtimeStatus), buildingInfo, (String) fields[LOCATION],
+                (Long) fields[USABLE_SPACE], (String) fields[OPERATING_SYSTEM], (String) fields[COOKIE], (String) fields[AGENT_LAUNCHER_VERSION]);
+    }
+
+    private void writeField(int field, Object value, DataOutputStream out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value == null) {
+            return;
+        }
+        if (field == USABLE_SPACE) {
+            out.writeLong((Long) value);
+        } else {
+            out.writeUTF((String) value);
+        }
+    }
+
+    private Object readField(int field, DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return field == USABLE_SPACE ? (Object) in.readLong() : in.readUTF();
+    }
+
+    private boolean equal(Object one, Object other) {
+        return one == null ? other == null : one.equals(other);
+    }
+
+    private static class Base {
+        private final long session;
+        private final long sequence;
+        private final Object[] fields;
+
+        private Base(long session, long sequence, Object[] fields) {
+            this.session = session;
+            this.sequence = sequence;
+            this.fields = fields;
+        }
+    }
+
+    private static class Written {
+        private final String uuid;
+        private final Base base;
+
+        private Written(String uuid, Base base) {
+            this.uuid = uuid;
+            this.base = base;
+        }
+    }
+
+    public static class UnknownBaseException extends RuntimeException {
+        public UnknownBaseException(String uuid) {
+            super(String.format("No runtime info to apply the delta from agent [%s] to", uuid));
+        }
+    }
+}
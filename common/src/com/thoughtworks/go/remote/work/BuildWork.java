@@ -28,6 +28,7 @@ import com.thoughtworks.go.config.RunIfConfig;
 import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.domain.GoControlLog;
 import com.thoughtworks.go.domain.materials.MaterialAgentFactory;
+import com.thoughtworks.go.domain.materials.MaterialPreparation;
 import com.thoughtworks.go.plugin.access.packagematerial.PackageAsRepositoryExtension;
 import com.thoughtworks.go.plugin.access.pluggabletask.TaskExtension;
 import com.thoughtworks.go.plugin.access.scm.SCMExtension;
@@ -151,7 +152,7 @@ public class BuildWork implements Work {
         return result;
     }
 
-    private void prepareJob(AgentIdentifier agentIdentifier, PackageAsRepositoryExtension packageAsRepositoryExtension, SCMExtension scmExtension) {
+    private void prepareJob(AgentIdentifier agentIdentifier, PackageAsRepositoryExtension packageAsRepositoryExtension, SCMExtension scmExtension) throws InterruptedException {
         goPublisher.reportAction("Start to prepare");
         goPublisher.reportCurrentStatus(JobState.Preparing);
 
@@ -168,9 +169,8 @@ public class BuildWork implements Work {
 
         goPublisher.consumeLineWithPrefix("Start to update materials.\n");
 
-        for (MaterialRevision revision : materialRevisions.getRevisions()) {
-            materialAgentFactory.createAgent(revision).prepare();
-        }
+        int concurrency = new SystemEnvironment().get(SystemEnvironment.AGENT_MATERIAL_PREPARATION_THREADS);
+        new MaterialPreparation(goPublisher, concurrency).prepare(materialRevisions.getRevisions(), materialAgentFactory);
     }
 
     private EnvironmentVariableContext setupEnvrionmentContext(EnvironmentVariableContext context) {
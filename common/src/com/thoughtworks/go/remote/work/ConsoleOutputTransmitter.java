@@ -17,38 +17,56 @@
 package com.thoughtworks.go.remote.work;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
 
 import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.StreamConsumer;
-import org.apache.commons.collections.buffer.CircularFifoBuffer;
+import org.apache.commons.lang.time.FastDateFormat;
 import org.apache.log4j.Logger;
 
 import static java.lang.String.format;
 
+/**
+ * @understands buffering console output on the agent and sending it to the server in batches.
+ * Producers are held back once the buffer is full rather than having lines dropped.
+ */
 public final class ConsoleOutputTransmitter implements StreamConsumer, Runnable {
     private static final Logger LOGGER = Logger.getLogger(ConsoleOutputTransmitter.class);
+    private static final FastDateFormat DATE_FORMAT = FastDateFormat.getInstance("HH:mm:ss.SSS");
 
     private volatile boolean isStopped = false;
-    private CircularFifoBuffer buffer = new CircularFifoBuffer(10 * 1024); // maximum 10k lines
+    private final Object bufferLock = new Object();
+    private final Object flushLock = new Object();
+    private StringBuilder buffer = new StringBuilder();
+    private final int maxBufferSize;
     private Integer sleepInSeconds;
     private final ConsoleAppender consoleAppender;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss.SSS");
 
 
     public ConsoleOutputTransmitter(ConsoleAppender consoleAppender) {
+        this(consoleAppender, new SystemEnvironment());
+    }
+
+    ConsoleOutputTransmitter(ConsoleAppender consoleAppender, SystemEnvironment systemEnvironment) {
         this.consoleAppender = consoleAppender;
-        sleepInSeconds = new SystemEnvironment().getConsolePublishInterval();
+        sleepInSeconds = systemEnvironment.getConsolePublishInterval();
+        maxBufferSize = systemEnvironment.get(SystemEnvironment.CONSOLE_OUTPUT_BUFFER_SIZE);
         new Thread(this).start();
     }
 
 
     public void consumeLine(String line) {
-        synchronized (buffer) {
-            buffer.add(format("%s %s", dateFormat.format(new Date()), line));
+        String timestampedLine = format("%s %s\n", DATE_FORMAT.format(new Date()), line);
+        synchronized (bufferLock) {
+            while (!isStopped && buffer.length() > 0 && buffer.length() + timestampedLine.length() > maxBufferSize) {
+                try {
+                    bufferLock.wait(sleepInSeconds * 1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            buffer.append(timestampedLine);
         }
     }
 
@@ -63,34 +81,33 @@ public final class ConsoleOutputTransmitter implements StreamConsumer, Runnable
     }
 
     public void flushToServer() {
-        if (buffer.isEmpty()) { return; }
-
-        List sent = new ArrayList();
-        try {
-            synchronized (buffer) {
-                while (!buffer.isEmpty()) {
-                    sent.add(buffer.remove());
-                }
+        synchronized (flushLock) {
+            String pending;
+            synchronized (bufferLock) {
+                if (buffer.length() == 0) { return; }
+                pending = buffer.toString();
+                buffer = new StringBuilder();
             }
-            StringBuilder result = new StringBuilder();
-            for (Object string : sent) {
-                result.append(string);
-                result.append("\n");
-            }
-            consoleAppender.append(result.toString());
-        } catch (IOException e) {
-            LOGGER.warn("Could not send console output to server", e);
-            //recreate buffer
-            synchronized (buffer) {
-                sent.addAll(buffer);
-                buffer = new CircularFifoBuffer(10 * 1024);
-                buffer.addAll(sent);
+            try {
+                consoleAppender.append(pending);
+                synchronized (bufferLock) {
+                    bufferLock.notifyAll();
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Could not send console output to server", e);
+                //put back what was not sent ahead of anything produced since
+                synchronized (bufferLock) {
+                    buffer.insert(0, pending);
+                }
             }
         }
     }
 
     public void stop() {
         isStopped = true;
+        synchronized (bufferLock) {
+            bufferLock.notifyAll();
+        }
         flushToServer();
     }
 
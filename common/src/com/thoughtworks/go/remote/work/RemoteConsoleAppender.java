@@ -16,13 +16,16 @@
 
 package com.thoughtworks.go.remote.work;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
 
 import com.thoughtworks.go.remote.AgentIdentifier;
 import com.thoughtworks.go.util.HttpService;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
 import org.apache.commons.httpclient.methods.PutMethod;
-import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.apache.commons.httpclient.params.HttpClientParams;
 import org.apache.log4j.Logger;
 
@@ -33,11 +36,18 @@ public class RemoteConsoleAppender implements ConsoleAppender {
     private String consoleUri;
     private HttpService httpService;
     private final AgentIdentifier agentIdentifier;
+    private final boolean compress;
+    private long offset = 0;
 
     public RemoteConsoleAppender(String consoleUri, HttpService httpService, AgentIdentifier agentIdentifier) {
+        this(consoleUri, httpService, agentIdentifier, new SystemEnvironment());
+    }
+
+    RemoteConsoleAppender(String consoleUri, HttpService httpService, AgentIdentifier agentIdentifier, SystemEnvironment systemEnvironment) {
         this.consoleUri = consoleUri;
         this.httpService = httpService;
         this.agentIdentifier = agentIdentifier;
+        this.compress = systemEnvironment.get(SystemEnvironment.CONSOLE_OUTPUT_COMPRESSION_ENABLED);
     }
 
     public void append(String content) throws IOException {
@@ -47,18 +57,40 @@ public class RemoteConsoleAppender implements ConsoleAppender {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Appending console to URL -> " + consoleUri);
             }
-            putMethod.setRequestEntity(new StringRequestEntity(content));
+            byte[] bytes = content.getBytes("UTF-8");
+            if (compress) {
+                putMethod.setRequestEntity(new ByteArrayRequestEntity(gzip(bytes)));
+                putMethod.setRequestHeader("Content-Encoding", "gzip");
+            } else {
+                putMethod.setRequestEntity(new ByteArrayRequestEntity(bytes));
+            }
+            putMethod.setRequestHeader(HttpService.GO_CONSOLE_OFFSET, String.valueOf(offset));
 
             HttpClientParams clientParams = new HttpClientParams();
             clientParams.setParameter("agentId", agentIdentifier.getUuid());
-            HttpService.setSizeHeader(putMethod, content.getBytes().length);
+            HttpService.setSizeHeader(putMethod, bytes.length);
             putMethod.setParams(clientParams);
-            httpClient.executeMethod(putMethod);
+            int statusCode = httpClient.executeMethod(putMethod);
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Got " + putMethod.getStatusCode());
+                LOGGER.debug("Got " + statusCode);
             }
+            if (statusCode >= 500) {
+                throw new IOException(String.format("Server responded with %s while appending console output", statusCode));
+            }
+            offset += bytes.length;
         } finally {
             putMethod.releaseConnection();
         }
     }
+
+    private byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        GZIPOutputStream out = new GZIPOutputStream(compressed);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        return compressed.toByteArray();
+    }
 }
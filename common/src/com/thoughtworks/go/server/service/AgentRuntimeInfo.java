@@ -97,6 +97,16 @@ public class AgentRuntimeInfo implements Serializable {
         return fromAgent(agentIdentifier,cookie,agentLauncherVersion,currentWorkingDirectory());
     }
 
+    public static AgentRuntimeInfo fromReport(AgentIdentifier identifier, AgentRuntimeStatus runtimeStatus, AgentBuildingInfo buildingInfo, String location,
+                                              Long usableSpace, String operatingSystem, String cookie, String agentLauncherVersion) {
+        AgentRuntimeInfo agentRuntimeInfo = new AgentRuntimeInfo(identifier, AgentStatus.Idle, location, cookie, agentLauncherVersion);
+        agentRuntimeInfo.runtimeStatus = runtimeStatus;
+        agentRuntimeInfo.buildingInfo = buildingInfo;
+        agentRuntimeInfo.usableSpace = usableSpace;
+        agentRuntimeInfo.operatingSystemName = operatingSystem;
+        return agentRuntimeInfo;
+    }
+
     private void refresh() {
         refreshUsableSpace();
         refreshOperatingSystem();
@@ -18,60 +18,57 @@ package com.thoughtworks.go.serverhealth;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.thoughtworks.go.config.CruiseConfig;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ServerHealthService {
-    private Map<HealthStateType, ServerHealthState> serverHealth;
+    // kept sorted by scope, which is how HealthStateType orders itself, so listing the states needs no sorting
+    private final ConcurrentSkipListMap<HealthStateScope, Map<HealthStateType, ServerHealthState>> statesByScope;
+    private final AtomicLong version = new AtomicLong();
+    private CruiseConfig lastCheckedConfig;
+    private long versionAtLastConfigCheck = -1;
 
     public ServerHealthService() {
-        this.serverHealth = new ConcurrentHashMap<HealthStateType, ServerHealthState>();
+        this.statesByScope = new ConcurrentSkipListMap<HealthStateScope, Map<HealthStateType, ServerHealthState>>();
     }
 
-    public void removeByScope(HealthStateScope scope) {
-        for (HealthStateType healthStateType : entryKeys()) {
-            if (healthStateType.isSameScope(scope)) {
-                serverHealth.remove(healthStateType);
-            }
+    public synchronized void removeByScope(HealthStateScope scope) {
+        if (statesByScope.remove(scope) != null) {
+            version.incrementAndGet();
         }
     }
 
-    private Set<HealthStateType> entryKeys() {
-        return new HashSet<HealthStateType>(serverHealth.keySet());
-    }
-
     public List<ServerHealthState> filterByScope(HealthStateScope scope) {
-        List<ServerHealthState> filtered = new ArrayList<ServerHealthState>();
-        for (Map.Entry<HealthStateType, ServerHealthState> entry : sortedEntries()) {
-            HealthStateType type = entry.getKey();
-            if (type.isSameScope(scope)) {
-                filtered.add(entry.getValue());
-            }
-        }
-        return filtered;
+        Map<HealthStateType, ServerHealthState> states = statesByScope.get(scope);
+        return states == null ? new ArrayList<ServerHealthState>() : new ArrayList<ServerHealthState>(states.values());
     }
 
     public HealthStateType update(ServerHealthState serverHealthState) {
         HealthStateType type = serverHealthState.getType();
         if (serverHealthState.getLogLevel() == HealthStateLevel.OK) {
-            if (serverHealth.containsKey(type)) {
-                serverHealth.remove(type);
-            }
+            remove(type);
             return null;
         } else {
-            serverHealth.put(type, serverHealthState);
+            put(type, serverHealthState);
             return type;
         }
     }
 
+    /**
+     * Changes whenever a health state is added, replaced or removed, so callers can tell whether anything
+     * changed since they last listed the states.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
     public ServerHealthStates getAllValidLogs(CruiseConfig cruiseConfig) {
         removeMessagesForElementsNoLongerInConfig(cruiseConfig);
         removeExpiredMessages();
@@ -83,49 +80,73 @@ public class ServerHealthService {
     }
 
     @Deprecated // Remove once we get rid of SpringJUnitTestRunner
-    public void removeAllLogs() {
-        serverHealth.clear();
+    public synchronized void removeAllLogs() {
+        statesByScope.clear();
+        version.incrementAndGet();
     }
 
-    private void removeMessagesForElementsNoLongerInConfig(CruiseConfig cruiseConfig) {
-        for (HealthStateType type : entryKeys()) {
-            if (type.isRemovedFromConfig(cruiseConfig)) {
-                this.removeByScope(type);
+    private synchronized void put(HealthStateType type, ServerHealthState state) {
+        Map<HealthStateType, ServerHealthState> current = statesByScope.get(type.getScope());
+        Map<HealthStateType, ServerHealthState> updated = current == null ? new LinkedHashMap<HealthStateType, ServerHealthState>() : new LinkedHashMap<HealthStateType, ServerHealthState>(current);
+        updated.put(type, state);
+        statesByScope.put(type.getScope(), Collections.unmodifiableMap(updated));
+        version.incrementAndGet();
+    }
+
+    private synchronized void remove(HealthStateType type) {
+        Map<HealthStateType, ServerHealthState> current = statesByScope.get(type.getScope());
+        if (current == null || !current.containsKey(type)) {
+            return;
+        }
+        if (current.size() == 1) {
+            statesByScope.remove(type.getScope());
+        } else {
+            Map<HealthStateType, ServerHealthState> updated = new LinkedHashMap<HealthStateType, ServerHealthState>(current);
+            updated.remove(type);
+            statesByScope.put(type.getScope(), Collections.unmodifiableMap(updated));
+        }
+        version.incrementAndGet();
+    }
+
+    private synchronized void removeMessagesForElementsNoLongerInConfig(CruiseConfig cruiseConfig) {
+        // nothing was added since the last check against this very config, so it would remove nothing
+        if (cruiseConfig == lastCheckedConfig && version.get() == versionAtLastConfigCheck) {
+            return;
+        }
+        for (HealthStateScope scope : new ArrayList<HealthStateScope>(statesByScope.keySet())) {
+            if (scope.isRemovedFromConfig(cruiseConfig)) {
+                removeByScope(scope);
             }
         }
+        lastCheckedConfig = cruiseConfig;
+        versionAtLastConfigCheck = version.get();
     }
 
     private void removeExpiredMessages() {
-        for (Map.Entry<HealthStateType, ServerHealthState> entry : new HashSet<Map.Entry<HealthStateType, ServerHealthState>>(serverHealth.entrySet())) {
-            ServerHealthState value = entry.getValue();
-            if (value.hasExpired()) {
-                serverHealth.remove(entry.getKey());
+        for (Map<HealthStateType, ServerHealthState> states : statesByScope.values()) {
+            for (ServerHealthState state : states.values()) {
+                if (state.hasExpired()) {
+                    removeIfUnchanged(state);
+                }
             }
         }
     }
 
-    private void removeByScope(HealthStateType type) {
-        removeByScope(type.getScope());
+    private synchronized void removeIfUnchanged(ServerHealthState expired) {
+        Map<HealthStateType, ServerHealthState> current = statesByScope.get(expired.getType().getScope());
+        if (current != null && current.get(expired.getType()) == expired) {
+            remove(expired.getType());
+        }
     }
 
     private ServerHealthStates logs() {
         ArrayList<ServerHealthState> logs = new ArrayList<ServerHealthState>();
-        for (Map.Entry<HealthStateType, ServerHealthState> entry : sortedEntries()) {
-            logs.add(entry.getValue());
+        for (Map<HealthStateType, ServerHealthState> states : statesByScope.values()) {
+            logs.addAll(states.values());
         }
         return new ServerHealthStates(logs);
     }
 
-    private List<Map.Entry<HealthStateType, ServerHealthState>> sortedEntries() {
-        List<Map.Entry<HealthStateType, ServerHealthState>> entries = new ArrayList<Map.Entry<HealthStateType, ServerHealthState>>(serverHealth.entrySet());
-        Collections.sort(entries, new Comparator<Map.Entry<HealthStateType, ServerHealthState>>() {
-            public int compare(Map.Entry<HealthStateType, ServerHealthState> one, Map.Entry<HealthStateType, ServerHealthState> other) {
-                return one.getKey().compareTo(other.getKey());
-            }
-        });
-        return entries;
-    }
-
     public String getLogsAsText() {
         StringBuilder text = new StringBuilder();
         for (ServerHealthState state : logs()) {
@@ -138,12 +159,11 @@ public class ServerHealthService {
     }
 
     public boolean containsError(HealthStateType type, HealthStateLevel level) {
-        ServerHealthStates allLogs = getAllLogs();
-        for (ServerHealthState log : allLogs) {
-            if (log.getType() == type && log.getLogLevel() == level) {
-                return true;
-            }
+        Map<HealthStateType, ServerHealthState> states = statesByScope.get(type.getScope());
+        if (states == null) {
+            return false;
         }
-        return false;
+        ServerHealthState state = states.get(type);
+        return state != null && state.getLogLevel() == level;
     }
 }
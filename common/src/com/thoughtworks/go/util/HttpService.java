@@ -20,6 +20,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Properties;
 import javax.servlet.http.HttpServletResponse;
@@ -46,6 +47,7 @@ public class HttpService {
     private HttpClientFactory httpClientFactory;
     private static final Log LOGGER = LogFactory.getLog(HttpService.class);
     public static final String GO_ARTIFACT_PAYLOAD_SIZE = "X-GO-ARTIFACT-SIZE";
+    public static final String GO_CONSOLE_OFFSET = "X-GO-CONSOLE-OFFSET";
 
     public HttpService() {
         this(new HttpClientFactory(new HttpClient()));
@@ -79,6 +81,25 @@ public class HttpService {
         }
     }
 
+    /**
+     * Streams the artifact zip and its checksums in a chunked request body, without staging the zip on disk first.
+     */
+    public int upload(String url, long size, UploadableArtifact artifact) throws IOException {
+        LOGGER.info(String.format("Streaming artifact [%s] to url [%s]", artifact.getName(), url));
+
+        PostMethod filePost = httpClientFactory.createPost(url);
+        setSizeHeader(filePost, size);
+        filePost.setRequestEntity(httpClientFactory.createStreamingMultipartRequestEntity(artifact, filePost.getParams()));
+        try {
+            return execute(filePost);
+        } catch (IOException e) {
+            LOGGER.error("Error while uploading artifact [" + artifact.getName() + "]", e);
+            throw e;
+        } finally {
+            filePost.releaseConnection();
+        }
+    }
+
     private PostMethod createPostMethodForUpload(String url, long size, File artifactFile, Properties artifactChecksums) throws IOException {
         PostMethod filePost = httpClientFactory.createPost(url);
         setSizeHeader(filePost, size);
@@ -174,5 +195,37 @@ public class HttpService {
             }
             return new MultipartRequestEntity(parts.toArray(new Part[]{}), methodParams);
         }
+
+        public MultipartRequestEntity createStreamingMultipartRequestEntity(final UploadableArtifact artifact, HttpMethodParams methodParams) {
+            Part zip = new StreamedFilePart(GoConstants.ZIP_MULTIPART_FILENAME, artifact.getName()) {
+                protected void sendData(OutputStream out) throws IOException {
+                    artifact.writeZipTo(out);
+                }
+            };
+            Part checksums = new StreamedFilePart(GoConstants.CHECKSUM_MULTIPART_FILENAME, "checksum_file") {
+                protected void sendData(OutputStream out) throws IOException {
+                    artifact.getChecksums().store(out, "");
+                }
+            };
+            return new MultipartRequestEntity(new Part[]{zip, checksums}, methodParams);
+        }
+    }
+
+    /**
+     * A file part whose length is not known up front, which makes the request body chunked.
+     * The zip part has to be sent before the checksum part, because the checksums are computed while zipping.
+     */
+    private static abstract class StreamedFilePart extends FilePart {
+        private StreamedFilePart(String name, String fileName) {
+            super(name, new ByteArrayPartSource(fileName, new byte[0]));
+        }
+
+        @Override
+        protected long lengthOfData() {
+            return -1;
+        }
+
+        @Override
+        protected abstract void sendData(OutputStream out) throws IOException;
     }
 }
@@ -0,0 +1,102 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.domain;
+
+import java.io.File;
+
+import com.thoughtworks.go.util.FileUtil;
+import com.thoughtworks.go.util.TestFileUtil;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ArtifactContentCacheTest {
+    private File cacheRoot;
+    private File workingDir;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheRoot = TestFileUtil.createTempFolder("artifact_cache");
+        workingDir = TestFileUtil.createTempFolder("artifact_cache_working_dir");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtil.tryDeleting(cacheRoot);
+        FileUtil.tryDeleting(workingDir);
+    }
+
+    @Test
+    public void shouldRestoreContentThatWasAddedUnderItsMd5() throws Exception {
+        ArtifactContentCache cache = new ArtifactContentCache(cacheRoot, 1024);
+        File artifact = file("artifact.txt", "content");
+        String md5 = DigestUtils.md5Hex("content");
+
+        cache.add(md5, artifact);
+
+        File restored = new File(workingDir, "restored/artifact.txt");
+        assertThat(cache.restore(md5, restored), is(true));
+        assertThat(FileUtils.readFileToString(restored), is("content"));
+        assertThat(cache.restore(DigestUtils.md5Hex("something else"), new File(workingDir, "other")), is(false));
+    }
+
+    @Test
+    public void shouldIgnoreAnythingThatIsNotAnMd5() throws Exception {
+        ArtifactContentCache cache = new ArtifactContentCache(cacheRoot, 1024);
+
+        cache.add("../../escape", file("artifact.txt", "content"));
+
+        assertThat(cache.contains("../../escape"), is(false));
+        assertThat(cacheRoot.list().length, is(0));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedContentWhenOverTheSizeLimit() throws Exception {
+        ArtifactContentCache cache = new ArtifactContentCache(cacheRoot, 25);
+        String first = DigestUtils.md5Hex("0123456789");
+        String second = DigestUtils.md5Hex("abcdefghij");
+        String third = DigestUtils.md5Hex("ABCDEFGHIJ");
+
+        cache.add(first, file("first", "0123456789"));
+        cache.add(second, file("second", "abcdefghij"));
+        new File(new File(cacheRoot, first.substring(0, 2)), first).setLastModified(System.currentTimeMillis() - 60000);
+        cache.add(third, file("third", "ABCDEFGHIJ"));
+
+        assertThat(cache.contains(first), is(false));
+        assertThat(cache.contains(second), is(true));
+        assertThat(cache.contains(third), is(true));
+    }
+
+    @Test
+    public void shouldDoNothingWhenDisabled() throws Exception {
+        ArtifactContentCache.DISABLED.add(DigestUtils.md5Hex("content"), file("artifact.txt", "content"));
+
+        assertThat(ArtifactContentCache.DISABLED.isEnabled(), is(false));
+        assertThat(ArtifactContentCache.DISABLED.contains(DigestUtils.md5Hex("content")), is(false));
+    }
+
+    private File file(String name, String content) throws Exception {
+        File file = new File(workingDir, name);
+        FileUtils.writeStringToFile(file, content);
+        return file;
+    }
+}
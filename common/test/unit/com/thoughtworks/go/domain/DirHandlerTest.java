@@ -181,6 +181,51 @@ public class DirHandlerTest {
         assertArtifactWasSaved("fetch_dest");
     }
 
+    @Test
+    public void shouldRestoreADirectoryFromTheArtifactCacheOnceAllOfItsFilesWereVerified() throws IOException {
+        File cacheRoot = TestFileUtil.createTempFolder("artifact_cache");
+        ArtifactContentCache cache = new ArtifactContentCache(cacheRoot, 1024 * 1024);
+        java.util.Properties properties = new java.util.Properties();
+        properties.setProperty("fetch_dest/first", DigestUtils.md5Hex("First File"));
+        properties.setProperty("fetch_dest/under_dir/second", DigestUtils.md5Hex("Second File"));
+        ArtifactMd5Checksums artifactMd5Checksums = new ArtifactMd5Checksums(properties);
+        try {
+            dirHandler.useArtifactMd5Checksums(artifactMd5Checksums);
+            dirHandler.useArtifactContentCache(cache);
+            assertThat(dirHandler.restoreFromArtifactContentCache(), is(false));
+
+            dirHandler.handle(new FileInputStream(createZip("under_dir")));
+
+            FileUtil.tryDeleting(agentDest);
+            DirHandler anotherFetch = new DirHandler("fetch_dest", agentDest);
+            anotherFetch.useArtifactMd5Checksums(artifactMd5Checksums);
+            anotherFetch.useArtifactContentCache(cache);
+            assertThat(anotherFetch.restoreFromArtifactContentCache(), is(true));
+            anotherFetch.handleResult(200, goPublisher);
+
+            assertArtifactWasSaved("under_dir");
+            assertThat(goPublisher.getMessage(), containsString(String.format("Saved artifact to [%s] after verifying the integrity of its contents.", agentDest)));
+        } finally {
+            FileUtil.tryDeleting(cacheRoot);
+        }
+    }
+
+    @Test
+    public void shouldNotRestoreTheJobRootOrCruiseOutputFromTheArtifactCache() throws IOException {
+        ArtifactContentCache cache = mock(ArtifactContentCache.class);
+        when(cache.contains(org.mockito.Matchers.anyString())).thenReturn(true);
+        java.util.Properties properties = new java.util.Properties();
+        properties.setProperty("cruise-output/console.log", DigestUtils.md5Hex("log"));
+        properties.setProperty("first", DigestUtils.md5Hex("First File"));
+
+        for (String src : new String[]{"", ".", "cruise-output"}) {
+            DirHandler handler = new DirHandler(src, agentDest);
+            handler.useArtifactMd5Checksums(new ArtifactMd5Checksums(properties));
+            handler.useArtifactContentCache(cache);
+            assertThat(handler.restoreFromArtifactContentCache(), is(false));
+        }
+    }
+
     private File createZip(String subDirectoryName) throws IOException {
         File first = new File(artifactDest, "first");
         FileUtils.writeStringToFile(first, "First File");
@@ -119,6 +119,35 @@ public class DownloadActionTest {
         assertThat(goPublisher.getMessage(), containsString("Artifact is not modified, skipped fetching it"));
     }
 
+    @Test
+    public void shouldNotDownloadAnArtifactThatCanBeRestoredFromTheArtifactCache() throws Exception {
+        ArtifactContentCache cache = mock(ArtifactContentCache.class);
+        when(cache.isEnabled()).thenReturn(true);
+        when(fetchHandler.restoreFromArtifactContentCache()).thenReturn(true);
+        when(fetchHandler.handleResult(SC_OK, publisher)).thenReturn(true);
+        HttpService httpService = mock(HttpService.class);
+
+        new DownloadAction(httpService, publisher, clock, cache).perform("foo", fetchHandler);
+
+        verify(fetchHandler).useArtifactContentCache(cache);
+        verifyNoMoreInteractions(httpService);
+        assertThat(publisher.getMessage(), containsString("Artifact found in the agent's artifact cache, skipped fetching it"));
+    }
+
+    @Test
+    public void shouldDownloadAnArtifactThatIsNotInTheArtifactCache() throws Exception {
+        ArtifactContentCache cache = mock(ArtifactContentCache.class);
+        when(cache.isEnabled()).thenReturn(true);
+        when(fetchHandler.restoreFromArtifactContentCache()).thenReturn(false);
+        when(fetchHandler.handleResult(SC_OK, publisher)).thenReturn(true);
+        HttpService httpService = mock(HttpService.class);
+        when(httpService.download("foo", fetchHandler)).thenReturn(SC_OK);
+
+        new DownloadAction(httpService, publisher, clock, cache).perform("foo", fetchHandler);
+
+        verify(httpService).download("foo", fetchHandler);
+    }
+
     private String getSrc() {
         return "";
     }
@@ -0,0 +1,136 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.domain;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import com.thoughtworks.go.util.FileUtil;
+import com.thoughtworks.go.util.TestFileUtil;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.matchers.JUnitMatchers.containsString;
+
+public class TestReportAggregatorTest {
+    private File testFolder;
+
+    @Before
+    public void setUp() {
+        testFolder = TestFileUtil.createTempFolder(UUID.randomUUID().toString());
+    }
+
+    @After
+    public void tearDown() {
+        FileUtil.deleteFolder(testFolder);
+    }
+
+    @Test
+    public void shouldSummariseJUnitAndNUnitReportsTogether() throws IOException {
+        List<File> reports = Arrays.asList(nunitReport("nunit.xml"), junitReport("junit.xml"));
+
+        TestReportAggregator.Summary summary = new TestReportAggregator(1).aggregate(reports, new StringWriter(), new ArrayList<File>());
+
+        assertThat(summary.runCount(), is(5));
+        assertThat(summary.failureCount(), is(3));
+        assertThat(summary.notRunCount(), is(1));
+        assertThat(summary.duration(), is("3.000"));
+    }
+
+    @Test
+    public void shouldWriteDetailsOfFailuresErrorsAndWarnings() throws IOException {
+        StringWriter html = new StringWriter();
+
+        new TestReportAggregator(1).aggregate(Arrays.asList(nunitReport("nunit.xml"), junitReport("junit.xml")), html, new ArrayList<File>());
+
+        assertThat(html.toString(), containsString("Unit Test Failure and Error Details (3)"));
+        assertThat(html.toString(), containsString("Warning Details (1)"));
+        assertThat(html.toString(), containsString("<td class=\"section-data\">Error</td>\n<td class=\"section-data\">junit.err</td>"));
+        assertThat(html.toString(), containsString("<td class=\"section-data\">expected &lt;1&gt; &amp; got 2</td>"));
+        assertThat(html.toString(), containsString("<pre>at Foo.bar()</pre>"));
+        assertThat(html.toString(), containsString("<td class=\"section-data\">not ready</td>"));
+        assertThat(html.toString(), not(containsString("nunit.pass")));
+        assertThat(html.toString(), not(containsString("All Tests Passed")));
+    }
+
+    @Test
+    public void shouldReportFilesWhichAreNotTestReports() throws IOException {
+        File coverage = file("coverage.xml", "<coverage><module name=\"foo\"/></coverage>");
+        File broken = file("broken.xml", "<testsuite><testcase name=\"half\">");
+        List<File> unrecognised = new ArrayList<File>();
+
+        TestReportAggregator.Summary summary = new TestReportAggregator(1).aggregate(Arrays.asList(coverage, junitReport("junit.xml"), broken), new StringWriter(), unrecognised);
+
+        assertThat(unrecognised, is(Arrays.asList(coverage, broken)));
+        assertThat(summary.runCount(), is(3));
+    }
+
+    @Test
+    public void shouldProduceTheSameReportWhenParsingFilesInParallel() throws IOException {
+        List<File> reports = new ArrayList<File>();
+        for (int i = 0; i < 10; i++) {
+            reports.add(i % 2 == 0 ? nunitReport("nunit" + i + ".xml") : junitReport("junit" + i + ".xml"));
+        }
+        StringWriter sequential = new StringWriter();
+        StringWriter parallel = new StringWriter();
+
+        new TestReportAggregator(1).aggregate(reports, sequential, new ArrayList<File>());
+        new TestReportAggregator(4).aggregate(reports, parallel, new ArrayList<File>());
+
+        assertThat(parallel.toString(), is(sequential.toString()));
+    }
+
+    @Test
+    public void shouldFormatDurationsTheWayXPathDoes() {
+        assertThat(TestReportAggregator.formatSeconds(TestReportAggregator.xpathNumber(" 12.5 ")), is("12.500"));
+        assertThat(TestReportAggregator.formatSeconds(TestReportAggregator.xpathNumber("39,82")), is("NaN"));
+        assertThat(TestReportAggregator.formatSeconds(0), is(".000"));
+    }
+
+    private File nunitReport(String name) throws IOException {
+        return file(name, "<test-results><test-suite name=\"all\" time=\"1.5\"><results>"
+                + "<test-case name=\"nunit.pass\" executed=\"True\"/>"
+                + "<test-case name=\"nunit.fail\"><failure><message>expected &lt;1&gt; &amp; got 2</message><stack-trace>at Foo.bar()</stack-trace></failure></test-case>"
+                + "<test-case name=\"nunit.ignored\" executed=\"False\"><reason><message>not ready</message></reason></test-case>"
+                + "</results></test-suite></test-results>");
+    }
+
+    private File junitReport(String name) throws IOException {
+        return file(name, "<testsuite name=\"junit\">"
+                + "<testcase name=\"junit.err\" time=\"0.5\"><error message=\"boom\">java.lang.RuntimeException</error></testcase>"
+                + "<testcase name=\"junit.fail\" time=\"0.5\"><failure message=\"nope\">junit.framework.AssertionFailedError</failure></testcase>"
+                + "<testcase name=\"junit.pass\" time=\"0.5\"/>"
+                + "</testsuite>");
+    }
+
+    private File file(String name, String content) throws IOException {
+        File file = new File(testFolder, name);
+        FileUtils.writeStringToFile(file, content);
+        return file;
+    }
+}
@@ -0,0 +1,188 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.domain.materials;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.thoughtworks.go.domain.MaterialRevision;
+import com.thoughtworks.go.domain.Property;
+import com.thoughtworks.go.util.command.ProcessOutputStreamConsumer;
+import com.thoughtworks.go.work.GoPublisher;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MaterialPreparationTest {
+    private RecordingPublisher publisher;
+    private MaterialAgentFactory agentFactory;
+
+    @Before
+    public void setUp() {
+        publisher = new RecordingPublisher();
+        agentFactory = mock(MaterialAgentFactory.class);
+    }
+
+    @Test
+    public void shouldPrepareMaterialsSideBySide() throws Exception {
+        final CountDownLatch allMaterialsBeingPrepared = new CountDownLatch(2);
+        final AtomicInteger preparedTogether = new AtomicInteger();
+        MaterialAgent waitForTheOtherMaterial = new MaterialAgent() {
+            public void prepare() {
+                allMaterialsBeingPrepared.countDown();
+                try {
+                    if (allMaterialsBeingPrepared.await(10, TimeUnit.SECONDS)) {
+                        preparedTogether.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        MaterialRevision first = revision("first");
+        MaterialRevision second = revision("second");
+        when(agentFactory.createAgent(eq(first), any(ProcessOutputStreamConsumer.class))).thenReturn(waitForTheOtherMaterial);
+        when(agentFactory.createAgent(eq(second), any(ProcessOutputStreamConsumer.class))).thenReturn(waitForTheOtherMaterial);
+
+        new MaterialPreparation(publisher, 2).prepare(Arrays.asList(first, second), agentFactory);
+
+        assertThat(preparedTogether.get(), is(2));
+    }
+
+    @Test
+    public void shouldLabelEachLineOfAMaterialsOutputWithItsName() throws Exception {
+        MaterialRevision first = revision("first");
+        MaterialRevision second = revision("second");
+        when(agentFactory.createAgent(eq(first), any(ProcessOutputStreamConsumer.class))).thenAnswer(agentPrinting("cloning"));
+        when(agentFactory.createAgent(eq(second), any(ProcessOutputStreamConsumer.class))).thenAnswer(agentPrinting("updating"));
+
+        new MaterialPreparation(publisher, 2).prepare(Arrays.asList(first, second), agentFactory);
+
+        assertThat(publisher.lines, hasItem("[first] cloning"));
+        assertThat(publisher.lines, hasItem("[second] updating"));
+    }
+
+    @Test
+    public void shouldReportEveryMaterialThatFailedAfterTheOthersAreDone() throws Exception {
+        MaterialRevision first = revision("first");
+        MaterialRevision second = revision("second");
+        MaterialRevision third = revision("third");
+        when(agentFactory.createAgent(eq(first), any(ProcessOutputStreamConsumer.class))).thenReturn(failingAgent("repository not found"));
+        when(agentFactory.createAgent(eq(second), any(ProcessOutputStreamConsumer.class))).thenAnswer(agentPrinting("updated"));
+        when(agentFactory.createAgent(eq(third), any(ProcessOutputStreamConsumer.class))).thenReturn(failingAgent("connection refused"));
+
+        try {
+            new MaterialPreparation(publisher, 3).prepare(Arrays.asList(first, second, third), agentFactory);
+            fail("should have failed to prepare materials");
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), containsString("[first, third]"));
+        }
+        assertThat(publisher.lines, hasItem("[second] updated"));
+        assertThat(publisher.lines, hasItem("Failed to update material [first]: repository not found"));
+        assertThat(publisher.lines, hasItem("Failed to update material [third]: connection refused"));
+    }
+
+    @Test
+    public void shouldPrepareMaterialsOneAfterTheOtherWithoutLabelsWhenConcurrencyIsOne() throws Exception {
+        final List<String> prepared = Collections.synchronizedList(new ArrayList<String>());
+        MaterialRevision first = revision("first");
+        MaterialRevision second = revision("second");
+        when(agentFactory.createAgent(first)).thenReturn(recordingAgent(prepared, "first"));
+        when(agentFactory.createAgent(second)).thenReturn(recordingAgent(prepared, "second"));
+
+        new MaterialPreparation(publisher, 1).prepare(Arrays.asList(first, second), agentFactory);
+
+        assertThat(prepared, is(Arrays.asList("first", "second")));
+    }
+
+    private MaterialRevision revision(String name) {
+        Material material = mock(Material.class);
+        when(material.getDisplayName()).thenReturn(name);
+        MaterialRevision revision = mock(MaterialRevision.class);
+        when(revision.getMaterial()).thenReturn(material);
+        return revision;
+    }
+
+    private Answer<MaterialAgent> agentPrinting(final String line) {
+        return new Answer<MaterialAgent>() {
+            public MaterialAgent answer(InvocationOnMock invocation) throws Throwable {
+                final ProcessOutputStreamConsumer consumer = (ProcessOutputStreamConsumer) invocation.getArguments()[1];
+                return new MaterialAgent() {
+                    public void prepare() {
+                        consumer.stdOutput(line);
+                    }
+                };
+            }
+        };
+    }
+
+    private MaterialAgent failingAgent(final String message) {
+        return new MaterialAgent() {
+            public void prepare() {
+                throw new RuntimeException(message);
+            }
+        };
+    }
+
+    private MaterialAgent recordingAgent(final List<String> prepared, final String name) {
+        return new MaterialAgent() {
+            public void prepare() {
+                prepared.add(name);
+            }
+        };
+    }
+
+    private static class RecordingPublisher implements GoPublisher {
+        private final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+
+        public void upload(File fileToUpload, String destPath) {
+        }
+
+        public void consumeLineWithPrefix(String message) {
+            lines.add(message);
+        }
+
+        public void setProperty(Property property) {
+        }
+
+        public void reportErrorMessage(String message, Exception e) {
+            lines.add(message);
+        }
+
+        public void consumeLine(String line) {
+            lines.add(line);
+        }
+    }
+}
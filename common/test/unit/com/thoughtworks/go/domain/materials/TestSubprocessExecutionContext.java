@@ -24,4 +24,8 @@ public class TestSubprocessExecutionContext implements SubprocessExecutionContex
     public String getProcessNamespace(String fingerprint) {
         return UUID.randomUUID().toString();
     }
+
+    public boolean isGitReferenceRepositoryEnabled() {
+        return false;
+    }
 }
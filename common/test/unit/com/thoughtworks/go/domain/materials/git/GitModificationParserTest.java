@@ -16,6 +16,11 @@
 
 package com.thoughtworks.go.domain.materials.git;
 
+import java.util.Arrays;
+import java.util.List;
+
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.domain.materials.ModifiedAction;
 import com.thoughtworks.go.util.DateUtils;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
@@ -103,4 +108,59 @@ public class GitModificationParserTest {
                 parser.getModifications().get(1).getComment(),
                 is("My Comment 2"));
     }
+
+    @Test
+    public void shouldReadModifiedFilesListedAfterEachCommit() {
+        List<Modification> modifications = parser.parse(Arrays.asList(
+                "commit 4e55d27dc7aad26dadb02a33db0518cb5ec54888",
+                "Author: Cruise Developer <cruise@cruise-sf3.(none)>",
+                "Date:   2009-08-11 13:08:51 -0700",
+                "",
+                "    My Comment 2",
+                "",
+                "M\tbuild.xml",
+                "D\tsrc/old file.txt",
+                "commit 5def073a425dfe239aabd4bf8039ffe3b0e8856b",
+                "Author: Cruise Developer <cruise@cruise-sf3.(none)>",
+                "Date:   2009-08-10 13:08:51 -0700",
+                "",
+                "    My Comment 1",
+                "",
+                "A\tREADME"));
+
+        assertThat(modifications.size(), is(2));
+        assertThat(modifications.get(0).getComment(), is("My Comment 2"));
+        assertThat(modifications.get(0).getModifiedFiles().size(), is(2));
+        assertThat(modifications.get(0).getModifiedFiles().get(0).getFileName(), is("build.xml"));
+        assertThat(modifications.get(0).getModifiedFiles().get(0).getAction(), is(ModifiedAction.modified));
+        assertThat(modifications.get(0).getModifiedFiles().get(1).getFileName(), is("src/old file.txt"));
+        assertThat(modifications.get(0).getModifiedFiles().get(1).getAction(), is(ModifiedAction.deleted));
+        assertThat(modifications.get(1).getModifiedFiles().size(), is(1));
+        assertThat(modifications.get(1).getModifiedFiles().get(0).getAction(), is(ModifiedAction.added));
+    }
+
+    @Test
+    public void shouldKeepOnlyTheConfiguredNumberOfFilesPerCommitAndNoteTheRest() {
+        parser = new GitModificationParser(2);
+        simulateOneComment();
+        parser.processLine("");
+        parser.processLine("    Big change");
+        parser.processLine("");
+        parser.processLine("A\tone");
+        parser.processLine("A\ttwo");
+        parser.processLine("A\tthree");
+        parser.processLine("A\tfour");
+        simulateOneComment();
+        parser.processLine("");
+        parser.processLine("    Small change");
+        parser.processLine("");
+        parser.processLine("M\tone");
+
+        List<Modification> modifications = parser.getModifications();
+        assertThat(modifications.get(0).getModifiedFiles().size(), is(3));
+        assertThat(modifications.get(0).getModifiedFiles().get(1).getFileName(), is("two"));
+        assertThat(modifications.get(0).getModifiedFiles().get(2).getFileName(), is("... 2 more files"));
+        assertThat(modifications.get(0).getModifiedFiles().get(2).getAction(), is(ModifiedAction.unknown));
+        assertThat(modifications.get(1).getModifiedFiles().size(), is(1));
+    }
 }
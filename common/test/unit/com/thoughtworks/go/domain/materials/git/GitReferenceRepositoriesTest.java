@@ -0,0 +1,168 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.domain.materials.git;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import com.thoughtworks.go.config.materials.git.GitMaterialConfig;
+import com.thoughtworks.go.domain.materials.mercurial.StringRevision;
+import com.thoughtworks.go.helper.TestRepo;
+import com.thoughtworks.go.util.FileUtil;
+import com.thoughtworks.go.util.TestFileUtil;
+import com.thoughtworks.go.util.command.InMemoryStreamConsumer;
+import com.thoughtworks.go.util.command.UrlArgument;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.thoughtworks.go.util.command.ProcessOutputStreamConsumer.inMemoryConsumer;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.Assert.assertThat;
+
+public class GitReferenceRepositoriesTest {
+    private GitTestRepo gitRepo;
+    private File root;
+    private GitReferenceRepositories references;
+    private UrlArgument url;
+    private InMemoryStreamConsumer output;
+
+    @Before
+    public void setUp() throws Exception {
+        gitRepo = new GitTestRepo();
+        url = new UrlArgument(gitRepo.projectRepositoryUrl());
+        root = TestFileUtil.createTempFolder("GitReferenceRepositoriesTest" + System.currentTimeMillis());
+        references = new GitReferenceRepositories(root, TimeUnit.DAYS.toMillis(30), TimeUnit.DAYS.toMillis(30), 2);
+        output = inMemoryConsumer();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TestRepo.internalTearDown();
+        FileUtil.deleteFolder(root);
+    }
+
+    @Test
+    public void shouldMirrorTheRepositoryOncePerMaterial() throws Exception {
+        StringRevision latest = new StringRevision(gitRepo.latestModification().getRevision());
+
+        File mirror = references.referenceFor("fingerprint", url, latest, output);
+
+        assertThat(mirror.getParentFile(), is(new File(root, "fingerprint")));
+        assertThat(new GitCommand(null, mirror, null, false).hasRevision(latest), is(true));
+        assertThat(references.referenceFor("fingerprint", url, latest, output), is(mirror));
+    }
+
+    @Test
+    public void shouldFetchOnlyBranchesAndTagsIntoTheMirror() throws Exception {
+        File mirror = references.referenceFor("fingerprint", url, new StringRevision(gitRepo.latestModification().getRevision()), output);
+
+        String config = FileUtils.readFileToString(new File(mirror, "config"));
+        assertThat(config, containsString("fetch = +refs/heads/*:refs/heads/*"));
+        assertThat(config, containsString("fetch = +refs/tags/*:refs/tags/*"));
+        assertThat(config, not(containsString("mirror = true")));
+    }
+
+    @Test
+    public void shouldFetchIntoTheMirrorOnlyWhenTheRevisionIsNotInItYet() throws Exception {
+        references.referenceFor("fingerprint", url, new StringRevision(gitRepo.latestModification().getRevision()), output);
+        StringRevision newRevision = new StringRevision(gitRepo.checkInOneFile("new-file.txt", "a new revision").get(0).getRevision());
+        InMemoryStreamConsumer refreshOutput = inMemoryConsumer();
+
+        File mirror = references.referenceFor("fingerprint", url, newRevision, refreshOutput);
+
+        assertThat(refreshOutput.getStdOut(), containsString("Refreshing shared reference repository"));
+        assertThat(new GitCommand(null, mirror, null, false).hasRevision(newRevision), is(true));
+    }
+
+    @Test
+    public void shouldCloneWorkingCopiesThatBorrowObjectsFromTheMirror() throws Exception {
+        File mirror = references.referenceFor("fingerprint", url, new StringRevision(gitRepo.latestModification().getRevision()), output);
+        File workingCopy = new File(TestFileUtil.createTempFolder("GitReferenceRepositoriesTest-wc" + System.currentTimeMillis()), "repo");
+
+        int returnCode = new GitCommand(null, workingCopy, GitMaterialConfig.DEFAULT_BRANCH, false).cloneFrom(output, url.forCommandline(), mirror);
+
+        assertThat(returnCode, is(0));
+        assertThat(FileUtils.readFileToString(new File(workingCopy, ".git/objects/info/alternates")), containsString(new File(mirror, "objects").getAbsolutePath()));
+    }
+
+    @Test
+    public void shouldRemoveOnlyMirrorsThatHaveNotBeenUsedForTheUnusedPeriod() throws Exception {
+        StringRevision latest = new StringRevision(gitRepo.latestModification().getRevision());
+        File stale = references.referenceFor("stale", url, latest, output).getParentFile();
+        File fresh = references.referenceFor("fresh", url, latest, output).getParentFile();
+        references.release("stale");
+        references.release("fresh");
+        new File(stale, GitReferenceRepositories.LAST_USED_MARKER).setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31));
+
+        references.removeUnused();
+
+        assertThat(stale.exists(), is(false));
+        assertThat(fresh.exists(), is(true));
+    }
+
+    @Test
+    public void shouldRebuildAMirrorPastItsAgeInANewFolderOnceNoCheckoutIsUsingIt() throws Exception {
+        File old = makeOld(references.referenceFor("outgrown-by-age", url, new StringRevision(gitRepo.latestModification().getRevision()), output));
+        references.release("outgrown-by-age");
+        StringRevision newRevision = new StringRevision(gitRepo.checkInOneFile("new-file.txt", "a new revision").get(0).getRevision());
+        InMemoryStreamConsumer rebuildOutput = inMemoryConsumer();
+
+        File mirror = references.referenceFor("outgrown-by-age", url, newRevision, rebuildOutput);
+
+        assertThat(rebuildOutput.getStdOut(), containsString("Rebuilding shared reference repository"));
+        assertThat(mirror, is(not(old)));
+        assertThat(old.exists(), is(false));
+        assertThat(new GitCommand(null, mirror, null, false).hasRevision(newRevision), is(true));
+    }
+
+    @Test
+    public void shouldRebuildAMirrorThatHasGrownPastItsSizeLimit() throws Exception {
+        File old = references.referenceFor("outgrown-by-size", url, new StringRevision(gitRepo.latestModification().getRevision()), output);
+        references.release("outgrown-by-size");
+        FileUtils.writeStringToFile(new File(old, GitReferenceRepositories.BUILT_SIZE_MARKER), "1");
+        StringRevision newRevision = new StringRevision(gitRepo.checkInOneFile("new-file.txt", "a new revision").get(0).getRevision());
+        InMemoryStreamConsumer rebuildOutput = inMemoryConsumer();
+
+        references.referenceFor("outgrown-by-size", url, newRevision, rebuildOutput);
+
+        assertThat(rebuildOutput.getStdOut(), containsString("Rebuilding shared reference repository"));
+        assertThat(old.exists(), is(false));
+    }
+
+    @Test
+    public void shouldRefreshAnOutgrownMirrorInsteadOfRebuildingItWhileACheckoutIsUsingIt() throws Exception {
+        File old = makeOld(references.referenceFor("in-use", url, new StringRevision(gitRepo.latestModification().getRevision()), output));
+        StringRevision newRevision = new StringRevision(gitRepo.checkInOneFile("new-file.txt", "a new revision").get(0).getRevision());
+        InMemoryStreamConsumer refreshOutput = inMemoryConsumer();
+
+        File mirror = references.referenceFor("in-use", url, newRevision, refreshOutput);
+
+        assertThat(refreshOutput.getStdOut(), containsString("Refreshing shared reference repository"));
+        assertThat(mirror, is(old));
+    }
+
+    private File makeOld(File mirror) {
+        File old = new File(mirror.getParentFile(), String.valueOf(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31)));
+        assertThat(mirror.renameTo(old), is(true));
+        return old;
+    }
+}
@@ -16,13 +16,20 @@
 
 package com.thoughtworks.go.publishers;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Properties;
+import java.util.zip.Deflater;
+import java.util.zip.ZipInputStream;
 import javax.servlet.http.HttpServletResponse;
 
 import com.thoughtworks.go.domain.ArtifactMd5Checksums;
 import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.Property;
 import com.thoughtworks.go.remote.AgentIdentifier;
 import com.thoughtworks.go.remote.work.BuildRepositoryRemoteStub;
 import com.thoughtworks.go.remote.work.GoArtifactsManipulatorStub;
@@ -32,6 +39,9 @@ import com.thoughtworks.go.util.FileUtil;
 import com.thoughtworks.go.util.HttpService;
 import com.thoughtworks.go.util.ReflectionUtil;
 import com.thoughtworks.go.util.TestFileUtil;
+import com.thoughtworks.go.util.URLService;
+import com.thoughtworks.go.util.UploadableArtifact;
+import com.thoughtworks.go.util.ZipUtil;
 import com.thoughtworks.go.work.DefaultGoPublisher;
 import org.apache.commons.collections.buffer.CircularFifoBuffer;
 import org.apache.commons.io.FileUtils;
@@ -40,14 +50,16 @@ import org.hamcrest.Description;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -78,8 +90,8 @@ public class GoArtifactsManipulatorTest {
 
     @Test
     public void shouldBombWithErrorWhenStatusCodeReturnedIsRequestEntityTooLarge() throws IOException, InterruptedException {
-        long size = anyLong();
-        when(httpService.upload(any(String.class), size, any(File.class), any(Properties.class))).thenReturn(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        long size = tempFile.length();
+        when(httpService.upload(any(String.class), eq(size), any(UploadableArtifact.class))).thenReturn(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
 
         CircularFifoBuffer buffer = (CircularFifoBuffer) ReflectionUtil.getField(ReflectionUtil.getField(goPublisher, "consoleOutputTransmitter"), "buffer");
         synchronized (buffer) {
@@ -97,12 +109,12 @@ public class GoArtifactsManipulatorTest {
     @Test
     public void uploadShouldBeGivenFileSize() throws IOException {
 
-        when(httpService.upload(any(String.class), eq(tempFile.length()), any(File.class), any(Properties.class))).thenReturn(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        when(httpService.upload(any(String.class), eq(tempFile.length()), any(UploadableArtifact.class))).thenReturn(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
         try {
             goArtifactsManipulatorStub.publish(goPublisher, "dest", tempFile, jobIdentifier);
             fail("should have thrown request entity too large error");
         } catch (RuntimeException e) {
-            verify(httpService).upload(any(String.class), eq(tempFile.length()), any(File.class), any(Properties.class));
+            verify(httpService).upload(any(String.class), eq(tempFile.length()), any(UploadableArtifact.class));
         }
     }
 
@@ -114,9 +126,11 @@ public class GoArtifactsManipulatorTest {
         Properties properties = new Properties();
         properties.setProperty("dest/path/file.txt", md5);
 
-        when(httpService.upload(any(String.class), eq(tempFile.length()), any(File.class), eq(properties))).thenReturn(HttpServletResponse.SC_OK);
+        UploadedArtifact uploaded = uploadReturning(HttpServletResponse.SC_OK, tempFile.length());
 
         goArtifactsManipulatorStub.publish(goPublisher, "/dest/path", tempFile, jobIdentifier);
+
+        assertThat(uploaded.checksums, is(properties));
     }
 
     @Test
@@ -127,9 +141,11 @@ public class GoArtifactsManipulatorTest {
         Properties properties = new Properties();
         properties.setProperty("file.txt", md5);
 
-        when(httpService.upload(any(String.class), eq(tempFile.length()), any(File.class), eq(properties))).thenReturn(HttpServletResponse.SC_OK);
+        UploadedArtifact uploaded = uploadReturning(HttpServletResponse.SC_OK, tempFile.length());
 
         goArtifactsManipulatorStub.publish(goPublisher, "", tempFile, jobIdentifier);
+
+        assertThat(uploaded.checksums, is(properties));
     }
 
     @Test
@@ -142,10 +158,74 @@ public class GoArtifactsManipulatorTest {
         File anotherFile = new File(artifactFolder, "bond/james_bond/another_file");
         FileUtils.writeStringToFile(anotherFile, secondData);
 
+        UploadedArtifact uploaded = uploadReturning(HttpServletResponse.SC_OK, FileUtils.sizeOfDirectory(artifactFolder));
+
+        goArtifactsManipulatorStub.publish(goPublisher, "dest", artifactFolder, jobIdentifier);
 
-        when(httpService.upload(any(String.class), eq(FileUtils.sizeOfDirectory(artifactFolder)), any(File.class), eq(expectedProperties(data, secondData)))).thenReturn(HttpServletResponse.SC_OK);
+        assertThat(uploaded.checksums, is(expectedProperties(data, secondData)));
+    }
+
+    @Test
+    public void shouldStreamTheSameZipThatWouldHaveBeenWrittenToDisk() throws IOException {
+        FileUtils.writeStringToFile(tempFile, "Some text");
+        FileUtils.writeStringToFile(new File(artifactFolder, "bond/james_bond/another_file"), "some more");
+
+        UploadedArtifact uploaded = uploadReturning(HttpServletResponse.SC_OK, FileUtils.sizeOfDirectory(artifactFolder));
 
         goArtifactsManipulatorStub.publish(goPublisher, "dest", artifactFolder, jobIdentifier);
+
+        File unzipped = TestFileUtil.createTempFolder("unzipped");
+        try {
+            new ZipUtil().unzip(new ZipInputStream(new ByteArrayInputStream(uploaded.zip)), unzipped);
+            assertThat(FileUtils.readFileToString(new File(unzipped, "artifact_folder/file.txt")), is("Some text"));
+            assertThat(FileUtils.readFileToString(new File(unzipped, "artifact_folder/bond/james_bond/another_file")), is("some more"));
+        } finally {
+            FileUtil.tryDeleting(unzipped);
+        }
+    }
+
+    @Test
+    public void shouldNotChecksumFilesAgainWhenRetryingAnUpload() throws IOException {
+        FileUtils.writeStringToFile(tempFile, "Some text");
+        final ZipUtil zipUtil = mock(ZipUtil.class);
+        goArtifactsManipulatorStub = new GoArtifactsManipulatorStub(new ArrayList<Property>(), new ArrayList<String>(), httpService, new URLService(), zipUtil);
+        final UploadedArtifact uploaded = new UploadedArtifact();
+        when(httpService.upload(any(String.class), eq(tempFile.length()), any(UploadableArtifact.class))).thenAnswer(new Answer<Integer>() {
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
+                UploadableArtifact artifact = (UploadableArtifact) invocation.getArguments()[2];
+                artifact.writeZipTo(new ByteArrayOutputStream());
+                uploaded.checksums = artifact.getChecksums();
+                return uploaded.attempts++ == 0 ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : HttpServletResponse.SC_OK;
+            }
+        });
+
+        goArtifactsManipulatorStub.publish(goPublisher, "dest", tempFile, jobIdentifier);
+
+        assertThat(uploaded.attempts, is(2));
+        verify(zipUtil, times(1)).zip(eq(tempFile), any(OutputStream.class), eq(Deflater.BEST_SPEED), any(ZipUtil.FileStreamDecorator.class));
+        verify(zipUtil, times(1)).zip(eq(tempFile), any(OutputStream.class), eq(Deflater.BEST_SPEED));
+    }
+
+    private UploadedArtifact uploadReturning(final int statusCode, long size) throws IOException {
+        final UploadedArtifact uploaded = new UploadedArtifact();
+        when(httpService.upload(any(String.class), eq(size), any(UploadableArtifact.class))).thenAnswer(new Answer<Integer>() {
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
+                UploadableArtifact artifact = (UploadableArtifact) invocation.getArguments()[2];
+                ByteArrayOutputStream zip = new ByteArrayOutputStream();
+                artifact.writeZipTo(zip);
+                uploaded.zip = zip.toByteArray();
+                uploaded.checksums = artifact.getChecksums();
+                uploaded.attempts++;
+                return statusCode;
+            }
+        });
+        return uploaded;
+    }
+
+    private static class UploadedArtifact {
+        private byte[] zip;
+        private Properties checksums;
+        private int attempts;
     }
 
     private Properties expectedProperties(String data, String secondData) {
@@ -0,0 +1,98 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.remote;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import com.thoughtworks.go.domain.AgentRuntimeStatus;
+import com.thoughtworks.go.server.service.AgentBuildingInfo;
+import com.thoughtworks.go.server.service.AgentRuntimeInfo;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.remoting.support.RemoteInvocation;
+
+@Ignore("This is used for benchmarking the agent protocol against Java serialization. It is not run automatically")
+public class AgentRemoteProtocolPerformanceTest {
+    private static final int WARM_UP_PINGS = 20000;
+    private static final int PINGS = 100000;
+
+    private AgentRuntimeInfoDeltas agentDeltas;
+    private AgentRemoteProtocol agent;
+    private AgentRemoteProtocol server;
+    private AgentRuntimeInfo runtimeInfo;
+
+    @Before
+    public void setUp() {
+        agentDeltas = new AgentRuntimeInfoDeltas();
+        agent = new AgentRemoteProtocol(agentDeltas, getClass().getClassLoader());
+        server = new AgentRemoteProtocol(new AgentRuntimeInfoDeltas(), getClass().getClassLoader());
+        runtimeInfo = AgentRuntimeInfo.fromReport(new AgentIdentifier("localhost", "127.0.0.1", "uuid"), AgentRuntimeStatus.Idle,
+                AgentBuildingInfo.NOT_BUILDING, "/var/lib/go-agent", 1024L, "Linux", "cookie", "12.3");
+    }
+
+    @Test
+    public void encodeAndDecodePingsThroughBothProtocols() throws Exception {
+        pingWithJavaSerialization(WARM_UP_PINGS);
+        pingWithAgentProtocol(WARM_UP_PINGS);
+
+        report("Java serialization", pingWithJavaSerialization(PINGS));
+        report("Agent protocol", pingWithAgentProtocol(PINGS));
+    }
+
+    private long[] pingWithJavaSerialization(int pings) throws Exception {
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < pings; i++) {
+            runtimeInfo.setUsableSpace(1024L + i % 2);
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(serialized);
+            out.writeObject(new RemoteInvocation("ping", new Class[]{AgentRuntimeInfo.class}, new Object[]{runtimeInfo}));
+            out.close();
+            bytes += serialized.size();
+            new ObjectInputStream(new ByteArrayInputStream(serialized.toByteArray())).readObject();
+        }
+        return new long[]{System.nanoTime() - start, bytes};
+    }
+
+    private long[] pingWithAgentProtocol(int pings) throws Exception {
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < pings; i++) {
+            runtimeInfo.setUsableSpace(1024L + i % 2);
+            ByteArrayOutputStream call = callOf("ping", runtimeInfo);
+            bytes += call.size();
+            server.readCall(new ByteArrayInputStream(call.toByteArray()));
+            agentDeltas.acknowledgeWritten();
+        }
+        return new long[]{System.nanoTime() - start, bytes};
+    }
+
+    private ByteArrayOutputStream callOf(String method, Object... arguments) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        agent.writeCall(method, arguments, bytes);
+        return bytes;
+    }
+
+    private void report(String protocol, long[] nanosAndBytes) {
+        System.out.println(String.format("%s: %.2f microseconds and %d bytes per ping", protocol, nanosAndBytes[0] / 1000.0 / PINGS, nanosAndBytes[1] / PINGS));
+    }
+}
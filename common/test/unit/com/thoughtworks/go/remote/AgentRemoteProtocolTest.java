@@ -0,0 +1,208 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.remote;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.CountDownLatch;
+
+import com.thoughtworks.go.domain.AgentRuntimeStatus;
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.JobResult;
+import com.thoughtworks.go.domain.JobState;
+import com.thoughtworks.go.server.service.AgentBuildingInfo;
+import com.thoughtworks.go.server.service.AgentRuntimeInfo;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.remoting.support.RemoteInvocation;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class AgentRemoteProtocolTest {
+    private AgentRuntimeInfoDeltas agentDeltas;
+    private AgentRemoteProtocol agent;
+    private AgentRemoteProtocol server;
+    private AgentRuntimeInfo runtimeInfo;
+
+    @Before
+    public void setUp() {
+        agentDeltas = new AgentRuntimeInfoDeltas();
+        agent = new AgentRemoteProtocol(agentDeltas, getClass().getClassLoader());
+        server = new AgentRemoteProtocol(new AgentRuntimeInfoDeltas(), getClass().getClassLoader());
+        runtimeInfo = AgentRuntimeInfo.fromReport(new AgentIdentifier("localhost", "127.0.0.1", "uuid"), AgentRuntimeStatus.Idle,
+                AgentBuildingInfo.NOT_BUILDING, "/var/lib/go-agent", 1024L, "Linux", "cookie", "12.3");
+    }
+
+    @Test
+    public void shouldCarryRuntimeInfoAcrossACall() throws Exception {
+        AgentRemoteProtocol.Call call = server.readCall(in(callOf("ping", runtimeInfo)));
+
+        assertThat(call.getMethodName(), is("ping"));
+        assertThat(call.getParameterTypes(), is(new Class[]{AgentRuntimeInfo.class}));
+        assertThat((AgentRuntimeInfo) call.getArguments()[0], is(runtimeInfo));
+    }
+
+    @Test
+    public void shouldApplyOnlyTheChangedFieldsOfLaterPings() throws Exception {
+        exchange("ping", runtimeInfo);
+        runtimeInfo.busy(new AgentBuildingInfo("pipeline/1/stage/1/job", "pipeline/1/stage/1/job"));
+
+        AgentRemoteProtocol.Call call = server.readCall(in(callOf("ping", runtimeInfo)));
+
+        AgentRuntimeInfo received = (AgentRuntimeInfo) call.getArguments()[0];
+        assertThat(received, is(runtimeInfo));
+        assertThat(received.getRuntimeStatus(), is(AgentRuntimeStatus.Building));
+        assertThat(received.getCookie(), is("cookie"));
+        assertThat(received.getUsableSpace(), is(1024L));
+    }
+
+    @Test
+    public void shouldCarryJobStatesResultsAndSerializableArguments() throws Exception {
+        JobIdentifier jobIdentifier = new JobIdentifier("pipeline", 1, "1", "stage", "1", "job", 10L);
+
+        AgentRemoteProtocol.Call call = server.readCall(in(callOf("reportCompleted", runtimeInfo, jobIdentifier, JobResult.Passed)));
+        assertThat(call.getArguments()[1], is((Object) jobIdentifier));
+        assertThat(call.getArguments()[2], is((Object) JobResult.Passed));
+
+        call = server.readCall(in(callOf("reportCurrentStatus", runtimeInfo, jobIdentifier, JobState.Building)));
+        assertThat(call.getArguments()[2], is((Object) JobState.Building));
+    }
+
+    @Test
+    public void shouldAskForTheFullRuntimeInfoWhenTheServerDoesNotHoldTheBase() throws Exception {
+        callOf("ping", runtimeInfo);
+        agentDeltas.acknowledgeWritten();
+        try {
+            server.readCall(in(callOf("ping", runtimeInfo)));
+            fail("should not have applied a delta against an unknown base");
+        } catch (AgentRuntimeInfoDeltas.UnknownBaseException expected) {
+        }
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        server.writeResendInFull(response);
+        assertThat(agent.readResult(in(response)).shouldResendInFull(), is(true));
+    }
+
+    @Test
+    public void shouldNotApplyADeltaFromAnotherAgentReportingTheSameUuid() throws Exception {
+        AgentRemoteProtocol impostor = new AgentRemoteProtocol(new AgentRuntimeInfoDeltas(), getClass().getClassLoader());
+        exchange("ping", runtimeInfo);
+        server.readCall(in(callOf(impostor, "ping", runtimeInfo)));
+
+        try {
+            server.readCall(in(callOf("ping", runtimeInfo)));
+            fail("should not have applied a delta against the base of another agent");
+        } catch (AgentRuntimeInfoDeltas.UnknownBaseException expected) {
+        }
+    }
+
+    @Test
+    public void shouldCarryReturnedValuesAndThrownExceptions() throws Exception {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        server.writeResult("cookie", null, response);
+        assertThat(agent.readResult(in(response)).getValue(), is((Object) "cookie"));
+
+        response = new ByteArrayOutputStream();
+        server.writeResult(null, new IllegalStateException("boom"), response);
+        assertThat(agent.readResult(in(response)).getException().getMessage(), is("boom"));
+    }
+
+    @Test
+    public void shouldNotSendADeltaAgainstAReportTheServerNeverAnswered() throws Exception {
+        callOf("ping", runtimeInfo);
+        agentDeltas.discardWritten();
+
+        AgentRemoteProtocol.Call call = server.readCall(in(callOf("ping", runtimeInfo)));
+
+        assertThat((AgentRuntimeInfo) call.getArguments()[0], is(runtimeInfo));
+    }
+
+    @Test
+    public void shouldKeepTheLaterOfTwoFullReportsWhichArriveOutOfOrder() throws Exception {
+        exchange("ping", runtimeInfo);
+        agentDeltas.forgetAll();
+
+        final CountDownLatch idleWritten = new CountDownLatch(1);
+        final CountDownLatch buildingAcknowledged = new CountDownLatch(1);
+        final ByteArrayOutputStream[] idle = new ByteArrayOutputStream[1];
+        Thread pingThread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    idle[0] = callOf("ping", runtimeInfo);
+                    idleWritten.countDown();
+                    buildingAcknowledged.await();
+                    agentDeltas.acknowledgeWritten();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        pingThread.start();
+        idleWritten.await();
+        runtimeInfo.busy(new AgentBuildingInfo("pipeline/1/stage/1/job", "pipeline/1/stage/1/job"));
+        ByteArrayOutputStream building = callOf("ping", runtimeInfo);
+        agentDeltas.acknowledgeWritten();
+        buildingAcknowledged.countDown();
+        pingThread.join();
+
+        server.readCall(in(building));
+        server.readCall(in(idle[0]));
+        AgentRemoteProtocol.Call call = server.readCall(in(callOf("ping", runtimeInfo)));
+
+        assertThat(((AgentRuntimeInfo) call.getArguments()[0]).getRuntimeStatus(), is(AgentRuntimeStatus.Building));
+    }
+
+    @Test
+    public void shouldSendAPingInAFractionOfTheBytesOfJavaSerialization() throws Exception {
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(serialized);
+        out.writeObject(new RemoteInvocation("ping", new Class[]{AgentRuntimeInfo.class}, new Object[]{runtimeInfo}));
+        out.close();
+
+        exchange("ping", runtimeInfo);
+        ByteArrayOutputStream delta = callOf("ping", runtimeInfo);
+
+        assertThat(delta.size() * 10, lessThan(serialized.size()));
+    }
+
+    private AgentRemoteProtocol.Call exchange(String method, Object... arguments) throws Exception {
+        AgentRemoteProtocol.Call call = server.readCall(in(callOf(method, arguments)));
+        agentDeltas.acknowledgeWritten();
+        return call;
+    }
+
+    private ByteArrayOutputStream callOf(String method, Object... arguments) throws IOException {
+        return callOf(agent, method, arguments);
+    }
+
+    private ByteArrayOutputStream callOf(AgentRemoteProtocol protocol, String method, Object... arguments) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        protocol.writeCall(method, arguments, bytes);
+        return bytes;
+    }
+
+    private ByteArrayInputStream in(ByteArrayOutputStream bytes) {
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+}
@@ -51,6 +51,7 @@ import org.mockito.Mock;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -325,7 +326,7 @@ public class BuildWorkArtifactUploadingTest {
     }
 
     private class ZipUtilThatRunsOutOfMemory extends ZipUtil {
-        public File zip(File source, File destFile, int level) {
+        public void zip(File source, OutputStream output, int level, FileStreamDecorator decorator) {
             throw new OutOfMemoryError("#2824");
         }
     }
@@ -25,10 +25,13 @@ import java.util.ArrayList;
 import javax.servlet.http.HttpServletResponse;
 
 import com.thoughtworks.go.util.HttpService;
+import com.thoughtworks.go.util.UploadableArtifact;
+import org.apache.commons.io.output.NullOutputStream;
 
 public class HttpServiceStub extends HttpService {
     private Map<String, File> uploadedFiles = new HashMap<String, File>();
     private List<String> uploadedFileUrls = new ArrayList<String>();
+    private Map<String, UploadableArtifact> uploadedArtifacts = new HashMap<String, UploadableArtifact>();
 
     private int returnCode;
 
@@ -48,8 +51,21 @@ public class HttpServiceStub extends HttpService {
         return returnCode;
     }
 
+    @Override
+    public int upload(String url, long size, UploadableArtifact artifact) throws IOException {
+        artifact.writeZipTo(new NullOutputStream());
+        uploadedArtifacts.put(url, artifact);
+        uploadedFileUrls.add(url);
+
+        return returnCode;
+    }
+
     public Map<String, File> getUploadedFiles() {
         return uploadedFiles;
     }
+
+    public Map<String, UploadableArtifact> getUploadedArtifacts() {
+        return uploadedArtifacts;
+    }
 }
 
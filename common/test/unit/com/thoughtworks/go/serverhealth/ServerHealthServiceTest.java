@@ -16,6 +16,8 @@
 
 package com.thoughtworks.go.serverhealth;
 
+import java.util.Arrays;
+
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.JobConfigs;
@@ -171,4 +173,45 @@ public class ServerHealthServiceTest {
         assertThat(serverHealthService.getAllLogs().size(), is(1));
         assertThat(serverHealthService, ServerHealthMatcher.containsState(globalId));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldListLogsOrderedByScope() throws Exception {
+        ServerHealthState pipelineError = ServerHealthState.error("message", "description", pipelineId);
+        ServerHealthState groupError = ServerHealthState.error("message", "description", groupId);
+        ServerHealthState globalError = ServerHealthState.error("message", "description", globalId);
+        serverHealthService.update(pipelineError);
+        serverHealthService.update(groupError);
+        serverHealthService.update(globalError);
+
+        assertThat(serverHealthService.getAllLogs(), is(new ServerHealthStates(globalError, groupError, pipelineError)));
+    }
+
+    @Test
+    public void shouldFilterLogsByScope() throws Exception {
+        HealthStateScope scope = forPipeline(PIPELINE_NAME);
+        ServerHealthState general = ServerHealthState.error("message", "description", HealthStateType.general(scope));
+        ServerHealthState license = ServerHealthState.error("message", "description", HealthStateType.invalidLicense(scope));
+        serverHealthService.update(general);
+        serverHealthService.update(license);
+        serverHealthService.update(ServerHealthState.error("message", "description", globalId));
+
+        assertThat(serverHealthService.filterByScope(scope), is(Arrays.asList(general, license)));
+        assertThat(serverHealthService.filterByScope(forPipeline("other")).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldChangeVersionOnlyWhenLogsChange() throws Exception {
+        long initial = serverHealthService.getVersion();
+
+        serverHealthService.update(ServerHealthState.success(globalId));
+        serverHealthService.removeByScope(forPipeline(PIPELINE_NAME));
+        assertThat(serverHealthService.getVersion(), is(initial));
+
+        serverHealthService.update(ServerHealthState.error("message", "description", globalId));
+        long afterAdding = serverHealthService.getVersion();
+        assertThat(afterAdding > initial, is(true));
+
+        serverHealthService.update(ServerHealthState.success(globalId));
+        assertThat(serverHealthService.getVersion() > afterAdding, is(true));
+    }
+}
@@ -0,0 +1,655 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.domain;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.thoughtworks.go.util.TestFileUtil;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * @understands reading junit and nunit reports one at a time and writing them up as a single html summary
+ */
+class TestReportAggregator {
+    private static final Pattern XPATH_NUMBER = Pattern.compile("-?(\\d+(\\.\\d*)?|\\.\\d+)");
+    private static final String UTF_8 = "UTF-8";
+
+    private final int threads;
+
+    TestReportAggregator(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Reads every report exactly once, keeping only its failing and ignored test cases aside, and writes the summary
+     * the way unittests.xsl used to render the merged reports.
+     */
+    Summary aggregate(List<File> reportFiles, Writer html, List<File> unrecognisedFiles) throws IOException {
+        List<ParsedReport> reports = parseAll(reportFiles);
+        try {
+            Summary summary = new Summary();
+            for (int i = 0; i < reports.size(); i++) {
+                if (reports.get(i).recognised) {
+                    summary.add(reports.get(i));
+                } else {
+                    unrecognisedFiles.add(reportFiles.get(i));
+                }
+            }
+            new HtmlWriter(html, summary, reports).write();
+            return summary;
+        } finally {
+            for (ParsedReport report : reports) {
+                report.spool.delete();
+            }
+        }
+    }
+
+    private List<ParsedReport> parseAll(List<File> reportFiles) throws IOException {
+        List<ParsedReport> reports = new ArrayList<ParsedReport>();
+        if (threads == 1 || reportFiles.size() < 2) {
+            for (File reportFile : reportFiles) {
+                reports.add(parse(reportFile));
+            }
+            return reports;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, reportFiles.size()));
+        try {
+            List<Future<ParsedReport>> futures = new ArrayList<Future<ParsedReport>>();
+            for (final File reportFile : reportFiles) {
+                futures.add(executor.submit(new Callable<ParsedReport>() {
+                    public ParsedReport call() throws Exception {
+                        return parse(reportFile);
+                    }
+                }));
+            }
+            for (Future<ParsedReport> future : futures) {
+                reports.add(future.get());
+            }
+            return reports;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading test reports");
+        } catch (ExecutionException e) {
+            IOException failure = new IOException("Unable to read test reports: " + e.getCause().getMessage());
+            failure.initCause(e.getCause());
+            throw failure;
+        } finally {
+            executor.shutdownNow();
+            if (reports.size() < reportFiles.size()) {
+                for (ParsedReport report : reports) {
+                    report.spool.delete();
+                }
+            }
+        }
+    }
+
+    private ParsedReport parse(File reportFile) throws IOException {
+        ParsedReport report = new ParsedReport(TestFileUtil.createUniqueTempFile(reportFile.getName() + ".spool"));
+        DataOutputStream spool = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(report.spool)));
+        InputStream in = null;
+        XMLStreamReader reader = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(reportFile));
+            reader = inputFactory().createXMLStreamReader(in);
+            new ReportParser(reader, report, spool).parse();
+        } catch (XMLStreamException e) {
+            report.ignore();
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                }
+            }
+            IOUtils.closeQuietly(in);
+            IOUtils.closeQuietly(spool);
+        }
+        return report;
+    }
+
+    private XMLInputFactory inputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    static double xpathNumber(String value) {
+        if (value == null) {
+            return 0;
+        }
+        String trimmed = value.trim();
+        return XPATH_NUMBER.matcher(trimmed).matches() ? Double.parseDouble(trimmed) : Double.NaN;
+    }
+
+    static String formatSeconds(double seconds) {
+        if (Double.isNaN(seconds)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(seconds)) {
+            return seconds > 0 ? "Infinity" : "-Infinity";
+        }
+        return new DecimalFormat("##.000", new DecimalFormatSymbols(Locale.ENGLISH)).format(seconds);
+    }
+
+    static class Summary {
+        private int junitCases;
+        private int junitFailures;
+        private int junitErrors;
+        private double junitTime;
+        private int nunitCases;
+        private int nunitFailures;
+        private int nunitNotRun;
+        private double nunitTime;
+
+        private void add(ParsedReport report) {
+            junitCases += report.junitCases;
+            junitFailures += report.junitFailures;
+            junitErrors += report.junitErrors;
+            junitTime += report.junitTime;
+            nunitCases += report.nunitCases;
+            nunitFailures += report.nunitFailures;
+            nunitNotRun += report.nunitNotRun;
+            nunitTime += report.nunitTime;
+        }
+
+        int runCount() {
+            return nunitCases + junitCases - nunitNotRun;
+        }
+
+        int failureCount() {
+            return nunitFailures + junitFailures + junitErrors;
+        }
+
+        int notRunCount() {
+            return nunitNotRun;
+        }
+
+        String duration() {
+            return formatSeconds(nunitTime + junitTime);
+        }
+    }
+
+    private static class ParsedReport {
+        private final File spool;
+        private boolean recognised;
+        private int junitCases;
+        private int junitFailures;
+        private int junitErrors;
+        private double junitTime;
+        private int nunitCases;
+        private int nunitFailures;
+        private int nunitNotRun;
+        private double nunitTime;
+
+        private ParsedReport(File spool) {
+            this.spool = spool;
+        }
+
+        private void ignore() {
+            recognised = false;
+            junitCases = junitFailures = junitErrors = nunitCases = nunitFailures = nunitNotRun = 0;
+            junitTime = nunitTime = 0;
+        }
+    }
+
+    private static class ReportParser {
+        private final XMLStreamReader reader;
+        private final ParsedReport report;
+        private final DataOutputStream spool;
+        private final List<String> path = new ArrayList<String>();
+        private final List<boolean[]> firstSuiteOfTestResults = new ArrayList<boolean[]>();
+
+        private TestCase testCase;
+        private int testCaseDepth;
+        private Problem problem;
+        private int problemDepth;
+        private StringBuilder capture;
+        private int captureDepth;
+        private String captureTarget;
+
+        private ReportParser(XMLStreamReader reader, ParsedReport report, DataOutputStream spool) {
+            this.reader = reader;
+            this.report = report;
+            this.spool = spool;
+        }
+
+        private void parse() throws XMLStreamException, IOException {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        startElement(reader.getLocalName());
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        endElement(reader.getLocalName());
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (capture != null) {
+                            capture.append(reader.getText());
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private void startElement(String name) {
+            String parent = path.isEmpty() ? null : path.get(path.size() - 1);
+            path.add(name);
+
+            if (testCase != null) {
+                startInsideTestCase(name, parent);
+            } else if ("test-results".equals(name)) {
+                report.recognised = true;
+                firstSuiteOfTestResults.add(new boolean[]{false});
+            } else if ("testsuite".equals(name)) {
+                report.recognised = true;
+            } else if ("testcase".equals(name) && "testsuite".equals(parent)) {
+                report.junitCases++;
+                String time = reader.getAttributeValue(null, "time");
+                if (time != null) {
+                    report.junitTime += xpathNumber(time);
+                }
+                startTestCase(false);
+            } else if ("test-suite".equals(name) && "test-results".equals(parent)) {
+                boolean[] firstSuiteSeen = firstSuiteOfTestResults.get(firstSuiteOfTestResults.size() - 1);
+                if (!firstSuiteSeen[0]) {
+                    firstSuiteSeen[0] = true;
+                    String time = reader.getAttributeValue(null, "time");
+                    if (time != null) {
+                        report.nunitTime += xpathNumber(time);
+                    }
+                }
+            } else if ("test-case".equals(name) && "results".equals(parent) && isInsideNUnitSuite()) {
+                report.nunitCases++;
+                startTestCase(true);
+            }
+        }
+
+        private boolean isInsideNUnitSuite() {
+            return !firstSuiteOfTestResults.isEmpty() && path.size() >= 3 && "test-suite".equals(path.get(path.size() - 3));
+        }
+
+        private void startTestCase(boolean nunit) {
+            testCase = new TestCase(nunit, reader.getAttributeValue(null, "name"));
+            testCaseDepth = path.size();
+        }
+
+        private void startInsideTestCase(String name, String parent) {
+            if (problem == null) {
+                if (path.size() != testCaseDepth + 1) {
+                    return;
+                }
+                ProblemType type = testCase.nunit ? ProblemType.forNUnit(name) : ProblemType.forJUnit(name);
+                if (type == null) {
+                    return;
+                }
+                countProblem(type);
+                problem = new Problem(type);
+                problemDepth = path.size();
+                if (!testCase.nunit) {
+                    problem.message = reader.getAttributeValue(null, "message");
+                    startCapture("details");
+                }
+                return;
+            }
+            if (testCase.nunit && capture == null) {
+                if ("message".equals(name) && problem.message == null) {
+                    startCapture("message");
+                } else if ("stack-trace".equals(name) && problem.details == null) {
+                    startCapture("details");
+                }
+            }
+        }
+
+        private void countProblem(ProblemType type) {
+            if (type == ProblemType.ERROR) {
+                report.junitErrors++;
+            } else if (type == ProblemType.FAILURE && testCase.nunit) {
+                report.nunitFailures++;
+            } else if (type == ProblemType.FAILURE) {
+                report.junitFailures++;
+            } else {
+                report.nunitNotRun++;
+            }
+        }
+
+        private void startCapture(String target) {
+            capture = new StringBuilder();
+            captureDepth = path.size();
+            captureTarget = target;
+        }
+
+        private void endElement(String name) throws IOException {
+            int depth = path.size();
+            path.remove(depth - 1);
+
+            if (capture != null && depth == captureDepth) {
+                if ("message".equals(captureTarget)) {
+                    problem.message = capture.toString();
+                } else {
+                    problem.details = capture.toString();
+                }
+                capture = null;
+            }
+            if (problem != null && depth == problemDepth) {
+                testCase.problems.add(problem);
+                problem = null;
+            }
+            if (testCase != null && depth == testCaseDepth) {
+                if (!testCase.problems.isEmpty()) {
+                    testCase.writeTo(spool);
+                }
+                testCase = null;
+            }
+            if ("test-results".equals(name) && !firstSuiteOfTestResults.isEmpty()) {
+                firstSuiteOfTestResults.remove(firstSuiteOfTestResults.size() - 1);
+            }
+        }
+    }
+
+    private static enum ProblemType {
+        ERROR, FAILURE, REASON;
+
+        static ProblemType forJUnit(String element) {
+            if ("error".equals(element)) {
+                return ERROR;
+            }
+            return "failure".equals(element) ? FAILURE : null;
+        }
+
+        static ProblemType forNUnit(String element) {
+            if ("reason".equals(element)) {
+                return REASON;
+            }
+            return "failure".equals(element) ? FAILURE : null;
+        }
+    }
+
+    private static class Problem {
+        private final ProblemType type;
+        private String message;
+        private String details;
+
+        private Problem(ProblemType type) {
+            this.type = type;
+        }
+    }
+
+    private static class TestCase {
+        private final boolean nunit;
+        private final String name;
+        private final List<Problem> problems = new ArrayList<Problem>();
+
+        private TestCase(boolean nunit, String name) {
+            this.nunit = nunit;
+            this.name = name;
+        }
+
+        private Problem first(ProblemType type) {
+            for (Problem problem : problems) {
+                if (problem.type == type) {
+                    return problem;
+                }
+            }
+            return null;
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeBoolean(nunit);
+            writeString(out, name);
+            out.writeInt(problems.size());
+            for (Problem problem : problems) {
+                out.writeInt(problem.type.ordinal());
+                writeString(out, problem.message);
+                writeString(out, problem.details);
+            }
+        }
+
+        private static TestCase readFrom(DataInputStream in) throws IOException {
+            boolean nunit;
+            try {
+                nunit = in.readBoolean();
+            } catch (EOFException endOfSpool) {
+                return null;
+            }
+            TestCase testCase = new TestCase(nunit, readString(in));
+            int problemCount = in.readInt();
+            for (int i = 0; i < problemCount; i++) {
+                Problem problem = new Problem(ProblemType.values()[in.readInt()]);
+                problem.message = readString(in);
+                problem.details = readString(in);
+                testCase.problems.add(problem);
+            }
+            return testCase;
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, UTF_8);
+        }
+    }
+
+    private static interface TestCaseHandler {
+        void handle(TestCase testCase) throws IOException;
+    }
+
+    private static class HtmlWriter {
+        private final Writer out;
+        private final Summary summary;
+        private final List<ParsedReport> reports;
+        private int row;
+
+        private HtmlWriter(Writer out, Summary summary, List<ParsedReport> reports) {
+            this.out = out;
+            this.summary = summary;
+            this.reports = reports;
+        }
+
+        private void write() throws IOException {
+            out.write("<table class=\"section-table\" cellpadding=\"2\" cellspacing=\"0\" border=\"0\" width=\"98%\">\n");
+            out.write("<div class=\"tests\">\n<p>Tests run:\n");
+            out.write("<span class=\"tests_total_count\">" + summary.runCount() + "</span>\n, Failures:\n");
+            out.write("<span class=\"tests_failed_count\">" + summary.failureCount() + "</span>\n, Not run:\n");
+            out.write("<span class=\"tests_ignored_count\">" + summary.notRunCount() + "</span>\n, Time:\n");
+            out.write("<span class=\"tests_total_duration\">" + summary.duration() + "</span>\nseconds.\n</p>\n</div>\n");
+
+            if (summary.runCount() == 0) {
+                out.write("<tr>\n<td colspan=\"2\" class=\"section-data\">No Tests Run</td>\n</tr>\n");
+                out.write("<tr>\n<td colspan=\"2\" class=\"section-error\">This project doesn't have any tests</td>\n</tr>\n");
+            } else if (summary.failureCount() == 0) {
+                out.write("<tr>\n<td colspan=\"2\" class=\"section-data\">All Tests Passed</td>\n</tr>\n");
+            }
+
+            writeRows(ProblemType.ERROR, "Error", 0);
+            writeRows(ProblemType.FAILURE, "Failure", summary.junitErrors);
+            writeRows(ProblemType.REASON, "Warning", summary.failureCount());
+            out.write("<tr>\n<td colspan=\"2\"></td>\n</tr>\n");
+
+            if (summary.failureCount() > 0) {
+                out.write("<tr>\n<td class=\"sectionheader\" colspan=\"2\">\nUnit Test Failure and Error Details (" + summary.failureCount() + ")\n</td>\n</tr>\n");
+                writeJUnitDetails(ProblemType.ERROR);
+                writeJUnitDetails(ProblemType.FAILURE);
+                writeNUnitDetails(ProblemType.FAILURE);
+                out.write("<tr>\n<td colspan=\"2\"></td>\n</tr>\n");
+            }
+
+            if (summary.notRunCount() > 0) {
+                out.write("<tr>\n<td class=\"sectionheader\" colspan=\"2\">\nWarning Details (" + summary.notRunCount() + ")\n</td>\n</tr>\n");
+                writeNUnitDetails(ProblemType.REASON);
+                out.write("<tr>\n<td colspan=\"2\"></td>\n</tr>\n");
+            }
+            out.write("</table>\n");
+            out.flush();
+        }
+
+        private void writeRows(final ProblemType type, final String label, final int offset) throws IOException {
+            row = 0;
+            eachTestCase(new TestCaseHandler() {
+                public void handle(TestCase testCase) throws IOException {
+                    for (Problem problem : testCase.problems) {
+                        if (problem.type != type) {
+                            continue;
+                        }
+                        row++;
+                        out.write((offset + row) % 2 == 0 ? "<tr class=\"section-oddrow\">\n" : "<tr>\n");
+                        out.write("<td class=\"section-data\">" + label + "</td>\n");
+                        out.write("<td class=\"section-data\">" + escape(testCase.name) + "</td>\n</tr>\n");
+                    }
+                }
+            });
+        }
+
+        private void writeJUnitDetails(final ProblemType type) throws IOException {
+            eachTestCase(new TestCaseHandler() {
+                public void handle(TestCase testCase) throws IOException {
+                    if (testCase.nunit || testCase.first(type) == null) {
+                        return;
+                    }
+                    writeDetailRow("Test:", testCase.name);
+                    writeJUnitProblem(testCase.first(ProblemType.ERROR), "Error");
+                    writeJUnitProblem(testCase.first(ProblemType.FAILURE), "Failure");
+                    out.write("<tr>\n<td colspan=\"2\"></td>\n</tr>\n");
+                }
+            });
+        }
+
+        private void writeJUnitProblem(Problem problem, String label) throws IOException {
+            if (problem == null) {
+                return;
+            }
+            writeDetailRow("Type:", label);
+            writeDetailRow("Message:", problem.message);
+            out.write("<tr>\n<td></td>\n<td class=\"section-error\"><pre>" + escape(problem.details) + "</pre></td>\n</tr>\n");
+        }
+
+        private void writeNUnitDetails(final ProblemType type) throws IOException {
+            eachTestCase(new TestCaseHandler() {
+                public void handle(TestCase testCase) throws IOException {
+                    if (!testCase.nunit || testCase.first(type) == null) {
+                        return;
+                    }
+                    Problem failure = testCase.first(ProblemType.FAILURE);
+                    if (failure != null) {
+                        writeDetailRow("Test:", testCase.name);
+                        writeDetailRow("Type:", "Failure");
+                        writeDetailRow("Message:", failure.message);
+                        out.write("<tr>\n<td></td>\n<td class=\"section-error\"><pre>" + escape(failure.details) + "</pre></td>\n</tr>\n");
+                    }
+                    Problem reason = testCase.first(ProblemType.REASON);
+                    if (reason != null) {
+                        writeDetailRow("Test:", testCase.name);
+                        writeDetailRow("Type:", "Warning");
+                        writeDetailRow("Message:", reason.message);
+                    }
+                    out.write("<tr>\n<td colspan=\"2\"></td>\n</tr>\n");
+                }
+            });
+        }
+
+        private void writeDetailRow(String label, String value) throws IOException {
+            out.write("<tr>\n<td class=\"section-data\">" + label + "</td>\n<td class=\"section-data\">" + escape(value) + "</td>\n</tr>\n");
+        }
+
+        private void eachTestCase(TestCaseHandler handler) throws IOException {
+            for (ParsedReport report : reports) {
+                if (!report.recognised) {
+                    continue;
+                }
+                DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(report.spool)));
+                try {
+                    TestCase testCase;
+                    while ((testCase = TestCase.readFrom(in)) != null) {
+                        handler.handle(testCase);
+                    }
+                } finally {
+                    IOUtils.closeQuietly(in);
+                }
+            }
+        }
+
+        private static String escape(String text) {
+            if (text == null) {
+                return "";
+            }
+            StringBuilder escaped = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '<':
+                        escaped.append("&lt;");
+                        break;
+                    case '>':
+                        escaped.append("&gt;");
+                        break;
+                    case '&':
+                        escaped.append("&amp;");
+                        break;
+                    default:
+                        escaped.append(c);
+                }
+            }
+            return escaped.toString();
+        }
+    }
+}
@@ -16,28 +16,17 @@
 
 package com.thoughtworks.go.domain;
 
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.PrintStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.text.MessageFormat;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.thoughtworks.go.util.FileUtil;
-import com.thoughtworks.go.util.TestFileUtil;
-import com.thoughtworks.go.util.XpathUtils;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.work.GoPublisher;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -45,38 +34,36 @@ import org.apache.commons.io.IOUtils;
 public class UnitTestReportGenerator implements TestReportGenerator {
     private final File folderToUpload;
     private GoPublisher publisher;
-    XPathFactory factory = XPathFactory.newInstance();
+    private final TestReportAggregator aggregator;
 
     public UnitTestReportGenerator(GoPublisher publisher, File folderToUpload) {
+        this(publisher, folderToUpload, new SystemEnvironment().get(SystemEnvironment.TEST_REPORT_PARSER_THREADS));
+    }
+
+    UnitTestReportGenerator(GoPublisher publisher, File folderToUpload, int parserThreads) {
         this.publisher = publisher;
         this.folderToUpload = folderToUpload;
+        this.aggregator = new TestReportAggregator(parserThreads);
     }
 
     public Properties generate(File[] allTestFiles) {
-        FileOutputStream transformedHtml = null;
         File mergedResults = new File(folderToUpload.getAbsolutePath() + FileUtil.fileseparator() + TEST_RESULTS_FILE);
-        File mergedResource = null;
-        FileInputStream mergedFileStream = null;
+        List<File> testFiles = testFilesIn(allTestFiles);
+        Writer transformedHtml = null;
         try {
-            mergedResource = mergeAllTestResultToSingleFile(allTestFiles);
-            transformedHtml = new FileOutputStream(mergedResults);
+            transformedHtml = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(mergedResults), "UTF-8"));
+            List<File> unrecognisedFiles = new ArrayList<File>();
+            TestReportAggregator.Summary summary = aggregator.aggregate(testFiles, transformedHtml, unrecognisedFiles);
+            transformedHtml.close();
 
-            try {
-                mergedFileStream = new FileInputStream(mergedResource);
-                InputStream xslt = getClass().getResourceAsStream("unittests.xsl");
-                Source xmlSource = new StreamSource(mergedFileStream);
-                Source xsltSource = new StreamSource(xslt);
-                TransformerFactory transFact = TransformerFactory.newInstance();
-                Transformer trans = transFact.newTransformer(xsltSource);
-                StreamResult result = new StreamResult(transformedHtml);
-                trans.transform(xmlSource, result);
-            } catch (Exception e) {
-                publisher.reportErrorMessage("Unable to publish test properties. Error was " + e.getMessage(), e);
-            } finally {
-                IOUtils.closeQuietly(mergedFileStream);
+            for (File unrecognisedFile : unrecognisedFiles) {
+                publisher.consumeLine(MessageFormat.format("Ignoring file {0} - it is not a recognised test file.", unrecognisedFile.getName()));
             }
 
-            extractProperties(mergedResults);
+            addProperty(TOTAL_TEST_COUNT, String.valueOf(summary.runCount()));
+            addProperty(FAILED_TEST_COUNT, String.valueOf(summary.failureCount()));
+            addProperty(IGNORED_TEST_COUNT, String.valueOf(summary.notRunCount()));
+            addProperty(TEST_TIME, summary.duration());
 
             publisher.upload(mergedResults, "testoutput");
 
@@ -84,109 +71,27 @@ public class UnitTestReportGenerator implements TestReportGenerator {
         } catch (Exception e) {
             publisher.reportErrorMessage("Unable to publish test properties. Error was " + e.getMessage(), e);
         } finally {
-            IOUtils.closeQuietly(mergedFileStream);
             IOUtils.closeQuietly(transformedHtml);
-            if (mergedResource != null) {
-                mergedResource.delete();
-            }
         }
         return new Properties();
     }
 
-    private Properties extractProperties(File fileSendToServer) throws XPathExpressionException, FileNotFoundException {
-        final Properties properties = new Properties();
-        addProperty(fileSendToServer, "tests_total_count", TOTAL_TEST_COUNT);
-        addProperty(fileSendToServer, "tests_failed_count", FAILED_TEST_COUNT);
-        addProperty(fileSendToServer, "tests_ignored_count", IGNORED_TEST_COUNT);
-        addProperty(fileSendToServer, "tests_total_duration", TEST_TIME);
-        return properties;
-    }
-
-    private File mergeAllTestResultToSingleFile(File[] allTestFiles) throws IOException {
-        FileOutputStream mergedResourcesStream = null;
-        try {
-            File mergedResource = TestFileUtil.createUniqueTempFile("mergedFile.xml");
-            mergedResourcesStream = new FileOutputStream(mergedResource);
-            merge(allTestFiles, mergedResourcesStream);
-            return mergedResource;
-        } finally {
-            IOUtils.closeQuietly(mergedResourcesStream);
-        }
-    }
-
-    private void addProperty(File xmlFile, String cssClass, String cruiseProperty) {
-        try {
-            String xpath = "//div/p/span[@class='" + cssClass + "']";
-            String output = XpathUtils.evaluate(factory, xmlFile, xpath);
-            output = output.startsWith(".") ? "0" + output : output;
-            Property property = new Property(cruiseProperty, output);
-            publisher.setProperty(property);
-        } catch (Exception e) {
-            publisher.consumeLine("Could not publish property " + e.getMessage());
-        }
-    }
-
-    public void merge(File[] testFiles, OutputStream outputStream) throws IOException {
-        PrintStream out = new PrintStream(outputStream, true, "UTF-8");
-        out.println("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>");
-        out.println("<all-results>");
-
-        for (File testFile : testFiles) {
+    private List<File> testFilesIn(File[] allTestFiles) {
+        List<File> testFiles = new ArrayList<File>();
+        for (File testFile : allTestFiles) {
             if (testFile.isDirectory()) {
-                for (Object file : FileUtils.listFiles(testFile,new String[]{"xml"},true)) {
-                   pumpFileContentIfValid(out, (File)file);
+                for (Object file : FileUtils.listFiles(testFile, new String[]{"xml"}, true)) {
+                    testFiles.add((File) file);
                 }
             } else {
-                pumpFileContentIfValid(out, testFile);
+                testFiles.add(testFile);
             }
         }
-        out.println("</all-results>");
+        return testFiles;
     }
 
-    private void pumpFileContentIfValid(PrintStream out, File testFile) throws IOException {
-        if (!isValidXml(testFile)) {
-            return;
-        }
-        pumpFileContent(testFile, out);
+    private void addProperty(String cruiseProperty, String value) {
+        String output = value.startsWith(".") ? "0" + value : value;
+        publisher.setProperty(new Property(cruiseProperty, output));
     }
-
-    private void pumpFileContent(File file, PrintStream out) throws IOException {
-        BufferedReader bufferedReader = null;
-        try {
-            bufferedReader = new BufferedReader(new FileReader(file));
-            String line = bufferedReader.readLine();
-            if (!line.contains("<?xml")) { // skip prolog
-                out.println(line);
-            }
-            while ((line = bufferedReader.readLine()) != null) {
-                out.println(line);
-            }
-        } finally {
-            IOUtils.closeQuietly(bufferedReader);
-        }
-    }
-
-    private boolean isValidXml(File file) {
-        try {
-            boolean isTestFile = nodeExists(file, "//test-results") || nodeExists(file, "//testsuite");
-
-            if (!isTestFile) {
-                publisher.consumeLine(MessageFormat.format("Ignoring file {0} - it is not a recognised test file.", file.getName()));
-            }
-
-            return isTestFile;
-        } catch (Exception e) {
-            publisher.consumeLine(MessageFormat.format("The file {0} could not be parsed. It seems to be invalid.", file.getName()));
-            return false;
-        }
-    }
-
-    private boolean nodeExists(File file, String xpath) {
-        try {
-            return XpathUtils.nodeExists(file, xpath);
-        } catch (Exception ignored) {
-            return false;
-        }
-    }
-
 }
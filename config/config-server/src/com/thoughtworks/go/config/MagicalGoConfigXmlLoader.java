@@ -80,6 +80,18 @@ public class MagicalGoConfigXmlLoader {
     }
 
     public GoConfigHolder loadConfigHolder(final String content) throws Exception {
+        return loadConfigHolder(content, true);
+    }
+
+    /**
+     * For XML that MagicalGoConfigXmlWriter has just produced from a config which passed preprocessAndValidate.
+     * The XML is still parsed against the schema, but the config validators are not run over it a second time.
+     */
+    public GoConfigHolder loadPreValidatedConfigHolder(final String content) throws Exception {
+        return loadConfigHolder(content, false);
+    }
+
+    private GoConfigHolder loadConfigHolder(final String content, boolean shouldValidate) throws Exception {
         CruiseConfig configForEdit;
         CruiseConfig config;
         Context context = metricsProbeService.begin(ProbeType.CONVERTING_CONFIG_XML_TO_OBJECT);
@@ -91,7 +103,7 @@ public class MagicalGoConfigXmlLoader {
 
             configForEdit = classParser(element, CruiseConfig.class, configCache, new GoCipher(), registry, new ConfigReferenceElements()).parse();
             setMd5(configForEdit, md5);
-            config = preprocessAndValidate(configForEdit);
+            config = shouldValidate ? preprocessAndValidate(configForEdit) : preprocessOnly(configForEdit);
         } finally {
             metricsProbeService.end(ProbeType.CONVERTING_CONFIG_XML_TO_OBJECT, context);
         }
@@ -120,6 +132,13 @@ public class MagicalGoConfigXmlLoader {
         return cloned;
     }
 
+    private CruiseConfig preprocessOnly(CruiseConfig config) {
+        LOGGER.debug("[Config Save] In preprocessOnly: Cloning.");
+        CruiseConfig cloned = CLONER.deepClone(config);
+        preprocess(cloned);
+        return cloned;
+    }
+
     public static List<ConfigErrors> validate(CruiseConfig config) {
         preprocess(config);
         List<ConfigErrors> validationErrors = new ArrayList<ConfigErrors>();
@@ -16,9 +16,9 @@
 
 package com.thoughtworks.go.config;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
@@ -47,7 +47,6 @@ import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static com.thoughtworks.go.util.ExceptionUtils.bombIf;
 import static com.thoughtworks.go.util.ObjectUtil.nullSafeEquals;
 import static java.text.MessageFormat.format;
-import static org.apache.commons.io.IOUtils.toInputStream;
 
 public class MagicalGoConfigXmlWriter {
     private static final Logger LOGGER = Logger.getLogger(MagicalGoConfigXmlWriter.class);
@@ -90,21 +89,26 @@ public class MagicalGoConfigXmlWriter {
             write(configForEdit, document.getRootElement(), configCache, registry);
 
             LOGGER.debug("[Serializing Config] XSD and DOM validation.");
-            verifyXsdValid(document);
+            byte[] serialized = serialize(document);
+            verifyXsdValid(serialized);
             MagicalGoConfigXmlLoader.validateDom(document.getRootElement(), registry);
             LOGGER.info("[Serializing Config] Generating config partial.");
-            XmlUtils.writeXml(document, output);
+            output.write(serialized);
             LOGGER.debug("[Serializing Config] Finished writing config partial.");
         } finally {
             metricsProbeService.end(ProbeType.WRITE_CONFIG_TO_FILE_SYSTEM, context);
         }
     }
 
-    private void verifyXsdValid(Document document) throws Exception {
+    private byte[] serialize(Document document) throws IOException {
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
         XmlUtils.writeXml(document, buffer);
-        InputStream content = toInputStream(buffer.toString());
-        XmlUtils.validate(content, GoConfigSchema.getCurrentSchema(), new XsdErrorTranslator(), builder, registry.xsds());
+        return buffer.toByteArray();
+    }
+
+    // Validates the very bytes that get written, so the document is only serialized once
+    private void verifyXsdValid(byte[] serialized) throws Exception {
+        XmlUtils.validate(new ByteArrayInputStream(serialized), GoConfigSchema.getCurrentSchema(), new XsdErrorTranslator(), builder, registry.xsds());
     }
 
     public String toXmlPartial(Object domainObject) {
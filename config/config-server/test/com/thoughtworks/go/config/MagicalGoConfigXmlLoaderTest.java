@@ -2229,6 +2229,34 @@ public class MagicalGoConfigXmlLoaderTest {
         assertThat(cruiseConfig.pipelineConfigByName(new CaseInsensitiveString("pipeline1")).getVariables(), hasItem(new EnvironmentVariableConfig("param_name", "stage variable")));
     }
 
+    @Test
+    public void shouldPreprocessConfigLoadedFromXmlThatWasAlreadyValidated() throws Exception {
+        String content = ConfigMigrator.migrate(ConfigFileFixture.configWithPipeline(
+                "<pipeline name='pipeline1'>"
+                        + "    <params>"
+                        + "         <param name=\"some_param\">param_name</param>"
+                        + "    </params>"
+                        + "      <environmentvariables>"
+                        + "         <variable name='#{some_param}'>stage variable</variable>"
+                        + "      </environmentvariables>"
+                        + "    <materials>"
+                        + "      <svn url ='svnurl'/>"
+                        + "    </materials>"
+                        + "  <stage name='mingle'>"
+                        + "    <jobs>"
+                        + "      <job name='do-something'>"
+                        + "      </job>"
+                        + "    </jobs>"
+                        + "  </stage>"
+                        + "</pipeline>", 22));
+
+        GoConfigHolder holder = xmlLoader.loadPreValidatedConfigHolder(content);
+
+        assertThat(holder.config.pipelineConfigByName(new CaseInsensitiveString("pipeline1")).getVariables(), hasItem(new EnvironmentVariableConfig("param_name", "stage variable")));
+        assertThat(holder.configForEdit.pipelineConfigByName(new CaseInsensitiveString("pipeline1")).getVariables(), hasItem(new EnvironmentVariableConfig("#{some_param}", "stage variable")));
+        assertThat(holder.configForEdit.getMd5(), is(xmlLoader.loadConfigHolder(content).configForEdit.getMd5()));
+    }
+
     @Test
     public void shouldSupportRunOnAllAgents() throws Exception {
         CruiseConfig cruiseConfig = loadJobWithRunOnAllAgents("true");
@@ -198,15 +198,16 @@ public class GoConfigDataSource {
 
             // Need to convert to xml before we try to write it to the config file.
             // If our cruiseConfig fails XSD validation, we don't want to write it incorrectly.
-            String configAsXml = getModifiedConfig(updatingCommand, configHolder);
+            boolean shouldMerge = shouldMergeConfig(updatingCommand, configHolder);
+            ModifiedConfig modifiedConfig = getModifiedConfig(updatingCommand, configHolder, shouldMerge);
 
             randomAccessFile.seek(0);
             randomAccessFile.setLength(0);
             outputStream = new FileOutputStream(randomAccessFile.getFD());
             LOGGER.info(String.format("[Configuration Changed] Saving updated configuration."));
-            IOUtils.write(configAsXml, outputStream);
-            ConfigSaveState configSaveState = shouldMergeConfig(updatingCommand, configHolder) ? ConfigSaveState.MERGED : ConfigSaveState.UPDATED;
-            return new GoConfigSaveResult(internalLoad(configAsXml, getConfigUpdatingUser(updatingCommand)), configSaveState);
+            IOUtils.write(modifiedConfig.configAsXml, outputStream);
+            ConfigSaveState configSaveState = shouldMerge ? ConfigSaveState.MERGED : ConfigSaveState.UPDATED;
+            return new GoConfigSaveResult(checkin(modifiedConfig.configAsXml, modifiedConfig.configHolder, getConfigUpdatingUser(updatingCommand)), configSaveState);
         } catch (ConfigFileHasChangedException e) {
             LOGGER.warn("Configuration file could not be merged successfully after a concurrent edit : " + e.getMessage(), e);
             throw e;
@@ -231,9 +232,9 @@ public class GoConfigDataSource {
         return updatingCommand instanceof UserAware ? ((UserAware) updatingCommand).user() : new ConfigModifyingUser();
     }
 
-    private String getModifiedConfig(UpdateConfigCommand updatingCommand, GoConfigHolder configHolder) throws Exception {
+    private ModifiedConfig getModifiedConfig(UpdateConfigCommand updatingCommand, GoConfigHolder configHolder, boolean shouldMerge) throws Exception {
         LOGGER.debug("[Config Save] ==-- Getting modified config");
-        if (shouldMergeConfig(updatingCommand, configHolder)) {
+        if (shouldMerge) {
             if(!systemEnvironment.get(SystemEnvironment.ENABLE_CONFIG_MERGE_FEATURE)) {
                 throw new ConfigMergeException(ConfigFileHasChangedException.CONFIG_CHANGED_PLEASE_REFRESH);
             }
@@ -241,7 +242,9 @@ public class GoConfigDataSource {
         }
         CruiseConfig config = updatingCommand.update(cloner.deepClone(configHolder.configForEdit));
         LOGGER.debug("[Config Save] ==-- Done getting modified config");
-        return configAsXml(config);
+        String configAsXml = configAsXml(config);
+        // configAsXml has already run the config validators over the modified config, so they are not run again over the same XML
+        return new ModifiedConfig(configAsXml, magicalGoConfigXmlLoader.loadPreValidatedConfigHolder(configAsXml));
     }
 
     private boolean shouldMergeConfig(UpdateConfigCommand updatingCommand, GoConfigHolder configHolder) {
@@ -255,7 +258,7 @@ public class GoConfigDataSource {
         return false;
     }
 
-    private String getMergedConfig(NoOverwriteUpdateConfigCommand noOverwriteCommand, String latestMd5) throws Exception {
+    private ModifiedConfig getMergedConfig(NoOverwriteUpdateConfigCommand noOverwriteCommand, String latestMd5) throws Exception {
         LOGGER.debug("[Config Save] Getting merged config");
         String oldMd5 = noOverwriteCommand.unmodifiedMd5();
         CruiseConfig modifiedConfig = getOldConfigAndMutateWithChanges(noOverwriteCommand, oldMd5);
@@ -265,14 +268,13 @@ public class GoConfigDataSource {
                 serverVersion.version(), modifiedConfig.edition(), timeProvider);
 
         String mergedConfigXml = configRepository.getConfigMergedWithLatestRevision(configRevision, oldMd5);
-        validateMergedXML(mergedConfigXml, latestMd5);
-        return mergedConfigXml;
+        return new ModifiedConfig(mergedConfigXml, validateMergedXML(mergedConfigXml, latestMd5));
     }
 
-    private CruiseConfig validateMergedXML(String mergedConfigXml, String latestMd5) throws Exception {
+    private GoConfigHolder validateMergedXML(String mergedConfigXml, String latestMd5) throws Exception {
         LOGGER.debug("[Config Save] -=- Converting merged config to XML");
         try {
-            return magicalGoConfigXmlLoader.loadConfigHolder(mergedConfigXml).configForEdit;
+            return magicalGoConfigXmlLoader.loadConfigHolder(mergedConfigXml);
         } catch (Exception e) {
             LOGGER.info(format("[CONFIG_MERGE] Post merge validation failed, latest-md5: %s", latestMd5));
             throw new ConfigMergePostValidationException(e.getMessage(), e);
@@ -300,7 +302,10 @@ public class GoConfigDataSource {
     }
 
     private GoConfigHolder internalLoad(final String content, final ConfigModifyingUser configModifyingUser) throws Exception {
-        GoConfigHolder configHolder = magicalGoConfigXmlLoader.loadConfigHolder(content);
+        return checkin(content, magicalGoConfigXmlLoader.loadConfigHolder(content), configModifyingUser);
+    }
+
+    private GoConfigHolder checkin(final String content, final GoConfigHolder configHolder, final ConfigModifyingUser configModifyingUser) throws Exception {
         CruiseConfig config = configHolder.config;
         reloadStrategy.latestState(config);
         configRepository.checkin(new GoConfigRevision(content, configHolder.configForEdit.getMd5(), configModifyingUser.getUserName(), serverVersion.version(), config.edition(), timeProvider));
@@ -343,6 +348,16 @@ public class GoConfigDataSource {
         }
     }
 
+    private static class ModifiedConfig {
+        private final String configAsXml;
+        private final GoConfigHolder configHolder;
+
+        private ModifiedConfig(String configAsXml, GoConfigHolder configHolder) {
+            this.configAsXml = configAsXml;
+            this.configHolder = configHolder;
+        }
+    }
+
     private static interface ReloadStrategy {
         static class ReloadTestResult {
             final boolean requiresReload;
@@ -45,6 +45,8 @@ public class GoConfigFileDao {
     private CachedGoConfig cachedConfigService;
     private MetricsProbeService metricsProbeService;
     private final Object writeLock;
+    private final Object pendingAgentUpdatesLock = new Object();
+    private List<PendingAgentUpdate> pendingAgentUpdates = new ArrayList<PendingAgentUpdate>();
     private Cloner cloner = new Cloner();
 
     @Autowired
@@ -59,7 +61,7 @@ public class GoConfigFileDao {
     }
 
     public void addAgent(final AgentConfig agentConfig) {
-        updateConfig(createAddAgentCommand(agentConfig));
+        updateAgentConfig(createAddAgentCommand(agentConfig));
     }
 
     public void updateMailHost(MailHost mailHost) {
@@ -75,11 +77,11 @@ public class GoConfigFileDao {
     }
 
     public void updateAgentResources(final String uuid, final Resources resources) {
-        updateConfig(new UpdateResourcesCommand(uuid, resources));
+        updateAgentConfig(new UpdateResourcesCommand(uuid, resources));
     }
 
     public void updateAgentApprovalStatus(final String uuid, final Boolean isDenied) {
-        updateConfig(updateApprovalStatus(uuid, isDenied));
+        updateAgentConfig(updateApprovalStatus(uuid, isDenied));
     }
 
     public static UpdateConfigCommand updateApprovalStatus(final String uuid, final Boolean isDenied) {
@@ -91,7 +93,7 @@ public class GoConfigFileDao {
     }
 
     public void deleteAgents(AgentInstance... agentInstances) {
-        updateConfig(commandForDeletingAgents(agentInstances));
+        updateAgentConfig(commandForDeletingAgents(agentInstances));
     }
 
     CompositeConfigCommand commandForDeletingAgents(AgentInstance... agentInstances) {
@@ -126,7 +128,102 @@ public class GoConfigFileDao {
     }
 
     public void updateAgentIp(final String uuid, final String ipAddress, String userName) {
-        updateConfig(new UpdateAgentIp(uuid, ipAddress, userName));
+        updateAgentConfig(new UpdateAgentIp(uuid, ipAddress, userName));
+    }
+
+    /**
+     * Agent changes arrive in bursts (e.g. many agents registering at once). Whoever gets the write lock
+     * writes every agent change queued so far in one go, instead of one config save per agent.
+     */
+    private void updateAgentConfig(UpdateConfigCommand command) {
+        PendingAgentUpdate update = new PendingAgentUpdate(command);
+        synchronized (pendingAgentUpdatesLock) {
+            pendingAgentUpdates.add(update);
+        }
+        synchronized (writeLock) {
+            if (!update.isWritten()) {
+                List<PendingAgentUpdate> batch;
+                synchronized (pendingAgentUpdatesLock) {
+                    batch = pendingAgentUpdates;
+                    pendingAgentUpdates = new ArrayList<PendingAgentUpdate>();
+                }
+                writeAgentUpdates(batch);
+            }
+        }
+        update.rethrowFailure();
+    }
+
+    private void writeAgentUpdates(List<PendingAgentUpdate> batch) {
+        List<PendingAgentUpdate> group = new ArrayList<PendingAgentUpdate>();
+        for (PendingAgentUpdate update : batch) {
+            if (update.command instanceof UserAware) {
+                writeTogether(group);
+                group.clear();
+                writeAlone(update);
+            } else {
+                group.add(update);
+            }
+        }
+        writeTogether(group);
+    }
+
+    private void writeTogether(List<PendingAgentUpdate> group) {
+        if (group.size() <= 1) {
+            for (PendingAgentUpdate update : group) {
+                writeAlone(update);
+            }
+            return;
+        }
+        CompositeConfigCommand command = new CompositeConfigCommand();
+        for (PendingAgentUpdate update : group) {
+            command.addCommand(update.command);
+        }
+        try {
+            updateConfig(command);
+        } catch (RuntimeException e) {
+            // one bad change fails the whole batch, write them one at a time so only its caller sees the error
+            for (PendingAgentUpdate update : group) {
+                writeAlone(update);
+            }
+            return;
+        }
+        for (PendingAgentUpdate update : group) {
+            update.written(null);
+        }
+    }
+
+    private void writeAlone(PendingAgentUpdate update) {
+        try {
+            updateConfig(update.command);
+            update.written(null);
+        } catch (RuntimeException e) {
+            update.written(e);
+        }
+    }
+
+    private static class PendingAgentUpdate {
+        private final UpdateConfigCommand command;
+        private boolean written;
+        private RuntimeException failure;
+
+        private PendingAgentUpdate(UpdateConfigCommand command) {
+            this.command = command;
+        }
+
+        synchronized void written(RuntimeException failure) {
+            this.written = true;
+            this.failure = failure;
+        }
+
+        synchronized boolean isWritten() {
+            return written;
+        }
+
+        synchronized void rethrowFailure() {
+            if (failure != null) {
+                throw failure;
+            }
+        }
     }
 
     public void updateBuild(final String pipeline, final String stage, final int buildIndex, final JobConfig build, final String md5) {
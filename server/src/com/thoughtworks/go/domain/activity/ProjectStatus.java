@@ -23,8 +23,12 @@ import org.apache.commons.lang.StringUtils;
 import org.jdom.Element;
 import org.jdom.output.XMLOutputter;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class ProjectStatus {
@@ -42,6 +46,7 @@ public class ProjectStatus {
     public static final String DEFAULT_LAST_BUILD_LABEL = "1";
     private volatile Viewers viewers;
     private String cachedXmlRepresentation;
+    private volatile String[] cachedXmlRepresentationParts;
 
     public ProjectStatus(String name, String activity, String lastBuildStatus, String lastBuildLabel,
                          Date lastBuildTime, String webUrl) {
@@ -168,6 +173,31 @@ public class ProjectStatus {
         return cachedXmlRepresentation;
     }
 
+    public void writeXmlRepresentationTo(Writer writer, String siteUrlPrefix) throws IOException {
+        String[] parts = cachedXmlRepresentationParts;
+        if (parts == null) {
+            parts = splitAroundSiteUrlPrefix(xmlRepresentation());
+            cachedXmlRepresentationParts = parts;
+        }
+        writer.write(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            writer.write(siteUrlPrefix);
+            writer.write(parts[i]);
+        }
+    }
+
+    private static String[] splitAroundSiteUrlPrefix(String xml) {
+        List<String> parts = new ArrayList<String>();
+        int start = 0;
+        int index;
+        while ((index = xml.indexOf(SITE_URL_PREFIX, start)) >= 0) {
+            parts.add(xml.substring(start, index));
+            start = index + SITE_URL_PREFIX.length();
+        }
+        parts.add(xml.substring(start));
+        return parts.toArray(new String[parts.size()]);
+    }
+
     public Set<String> getBreakers() {
         return breakers;
     }
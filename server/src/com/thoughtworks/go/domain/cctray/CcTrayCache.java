@@ -32,6 +32,7 @@ public class CcTrayCache {
      */
     private LinkedHashMap<String, ProjectStatus> cache;
     private volatile List<ProjectStatus> orderedEntries;
+    private volatile long version;
 
     public CcTrayCache() {
         this.cache = new LinkedHashMap<String, ProjectStatus>();
@@ -62,8 +63,17 @@ public class CcTrayCache {
         return this.orderedEntries;
     }
 
+    /**
+     * Changes every time the entries do. It is bumped only after the new entries are visible, so anyone who reads the
+     * version before calling allEntriesInOrder() never sees older entries than that version describes.
+     */
+    public long version() {
+        return this.version;
+    }
+
     private void cacheHasChanged() {
         this.orderedEntries = new ArrayList<ProjectStatus>(cache.values());
+        this.version++;
     }
 
     private Map<String, ProjectStatus> createReplacementItems(List<ProjectStatus> statuses) {
@@ -16,12 +16,15 @@
 
 package com.thoughtworks.go.listener;
 
-import java.util.TreeSet;
+import java.util.List;
 
 import com.thoughtworks.go.domain.PipelineTimelineEntry;
 
 public interface TimelineUpdateListener {
 
-    void added(PipelineTimelineEntry newlyAddedEntry, TreeSet<PipelineTimelineEntry> timeline);
+    /**
+     * @param timeline every entry of the pipeline in natural order. It must not be modified.
+     */
+    void added(PipelineTimelineEntry newlyAddedEntry, List<PipelineTimelineEntry> timeline);
 
 }
\ No newline at end of file
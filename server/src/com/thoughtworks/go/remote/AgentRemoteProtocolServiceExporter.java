@@ -0,0 +1,69 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.remote;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.remoting.httpinvoker.HttpInvokerServiceExporter;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+
+/**
+ * @understands serving BuildRepositoryRemote calls made in the agent protocol, and Java-serialized calls from agents which do not speak it yet
+ */
+public class AgentRemoteProtocolServiceExporter extends HttpInvokerServiceExporter {
+    private static final Logger LOG = Logger.getLogger(AgentRemoteProtocolServiceExporter.class);
+    @Autowired
+    private AgentRuntimeInfoDeltas runtimeInfoDeltas;
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!isAgentProtocol(request.getContentType())) {
+            super.handleRequest(request, response);
+            return;
+        }
+        AgentRemoteProtocol protocol = new AgentRemoteProtocol(runtimeInfoDeltas, getBeanClassLoader());
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        try {
+            AgentRemoteProtocol.Call call = protocol.readCall(request.getInputStream());
+            RemoteInvocationResult result = invokeAndCreateResult(new RemoteInvocation(call.getMethodName(), call.getParameterTypes(), call.getArguments()), getProxy());
+            protocol.writeResult(result.getValue(), result.getException(), body);
+        } catch (AgentRuntimeInfoDeltas.UnknownBaseException e) {
+            LOG.debug(e.getMessage());
+            protocol.writeResendInFull(body);
+        } catch (ClassNotFoundException e) {
+            throw new ServletException("Class not found while reading an agent protocol call", e);
+        } catch (IOException e) {
+            LOG.warn("Could not read an agent protocol call", e);
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        response.setContentType(AgentRemoteProtocol.CONTENT_TYPE);
+        response.setContentLength(body.size());
+        body.writeTo(response.getOutputStream());
+    }
+
+    private boolean isAgentProtocol(String contentType) {
+        return contentType != null && contentType.startsWith(AgentRemoteProtocol.CONTENT_TYPE);
+    }
+}
@@ -0,0 +1,85 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.server.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @understands one lock per cache key, held only while some thread is using it.
+ * Unlike synchronizing on key.intern(), unrelated callers never share a lock and the JVM string table is not involved.
+ */
+class CacheKeyLocks {
+    private final ConcurrentMap<String, KeyLock> locks = new ConcurrentHashMap<String, KeyLock>();
+
+    public void lock(String key) {
+        acquire(key).lock.lock();
+    }
+
+    public void unlock(String key) {
+        KeyLock keyLock = locks.get(key);
+        if (keyLock == null || !keyLock.lock.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Lock for cache key " + key + " is not held by the current thread");
+        }
+        keyLock.lock.unlock();
+        if (keyLock.users.decrementAndGet() == 0 && keyLock.users.compareAndSet(0, KeyLock.RETIRED)) {
+            locks.remove(key, keyLock);
+        }
+    }
+
+    int size() {
+        return locks.size();
+    }
+
+    private KeyLock acquire(String key) {
+        while (true) {
+            KeyLock keyLock = locks.get(key);
+            if (keyLock == null) {
+                KeyLock newLock = new KeyLock();
+                keyLock = locks.putIfAbsent(key, newLock);
+                if (keyLock == null) {
+                    keyLock = newLock;
+                }
+            }
+            if (keyLock.register()) {
+                return keyLock;
+            }
+            // a releasing thread retired this lock between our lookup and registration, it is about to be removed
+            locks.remove(key, keyLock);
+        }
+    }
+
+    private static class KeyLock {
+        private static final int RETIRED = -1;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicInteger users = new AtomicInteger();
+
+        boolean register() {
+            while (true) {
+                int current = users.get();
+                if (current == RETIRED) {
+                    return false;
+                }
+                if (users.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
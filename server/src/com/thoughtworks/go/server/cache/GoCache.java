@@ -17,13 +17,23 @@
 package com.thoughtworks.go.server.cache;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.thoughtworks.go.domain.NullUser;
 import com.thoughtworks.go.domain.PersistentObject;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
+import com.thoughtworks.go.util.SystemEnvironment;
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.Element;
 import net.sf.ehcache.config.CacheConfiguration;
@@ -41,6 +51,8 @@ public class GoCache {
     private final ThreadLocal<Boolean> doNotServeForTransaction = new ThreadLocal<Boolean>();
 
     private final String SUB_KEY_DELIMITER = "!_#$#_!";
+    static final int MAX_TRACKED_REGIONS = 100;
+    static final String OTHER_REGION = "other";
 
     private Cache ehCache;
 
@@ -48,8 +60,11 @@ public class GoCache {
     private TransactionSynchronizationManager transactionSynchronizationManager;
 
     private final Set<Class<? extends PersistentObject>> nullObjectClasses;
+    private final CacheKeyLocks keyLocks = new CacheKeyLocks();
+    private final ConcurrentMap<String, RegionStatistics> regionStatistics = new ConcurrentHashMap<String, RegionStatistics>();
+    private final boolean tracksRegionStatistics;
 
-    static class KeyList extends ArrayList<String> {
+    static class KeyList extends ConcurrentSkipListSet<String> {
     }
 
     public GoCache(EhCacheFactoryBean ehCacheFactoryBean, TransactionSynchronizationManager transactionSynchronizationManager) {
@@ -68,6 +83,7 @@ public class GoCache {
         this.transactionSynchronizationManager = transactionSynchronizationManager;
         this.nullObjectClasses = new HashSet<Class<? extends PersistentObject>>();
         nullObjectClasses.add(NullUser.class);
+        this.tracksRegionStatistics = new SystemEnvironment().get(SystemEnvironment.GO_CACHE_REGION_STATISTICS);
     }
 
     public void stopServingForTransaction() {
@@ -95,6 +111,9 @@ public class GoCache {
             return;
         }
         ehCache.put(new Element(key, value));
+        if (tracksRegionStatistics) {
+            regionFor(key).puts.incrementAndGet();
+        }
     }
 
     public List<String> getKeys() {
@@ -138,7 +157,117 @@ public class GoCache {
         if (doNotServeForTransaction()) {
             return null;
         }
-        return getWithoutTransactionCheck(key);
+        Object value = getWithoutTransactionCheck(key);
+        if (tracksRegionStatistics) {
+            RegionStatistics region = regionFor(key);
+            if (value == null) {
+                region.misses.incrementAndGet();
+            } else {
+                region.hits.incrementAndGet();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value for the key, loading and caching it if it is missing. Callers racing for the same key wait
+     * for a single load instead of each hitting the database. A null from the loader is returned but not cached.
+     */
+    public <T> T getOrCompute(String key, ValueLoader<T> loader) {
+        T value = (T) get(key);
+        if (value != null) {
+            return value;
+        }
+        keyLocks.lock(key);
+        try {
+            value = (T) get(key);
+            if (value == null) {
+                value = loader.load();
+                if (value != null) {
+                    put(key, value);
+                }
+            }
+            return value;
+        } finally {
+            keyLocks.unlock(key);
+        }
+    }
+
+    /**
+     * Batch form of getOrCompute(key, loader): the keys that are missing are locked, in sorted order so that two batches
+     * cannot deadlock, checked again and handed to the loader in one call, in the order they were asked for. Values the loader leaves out are not cached
+     * and map to null in the result.
+     */
+    public <T> Map<String, T> getOrComputeAll(Collection<String> keys, BatchValueLoader<T> loader) {
+        Map<String, T> values = new LinkedHashMap<String, T>();
+        TreeSet<String> missingKeys = new TreeSet<String>();
+        for (String key : keys) {
+            T value = (T) get(key);
+            values.put(key, value);
+            if (value == null) {
+                missingKeys.add(key);
+            }
+        }
+        if (missingKeys.isEmpty()) {
+            return values;
+        }
+        List<String> lockedKeys = new ArrayList<String>();
+        try {
+            for (String key : missingKeys) {
+                keyLocks.lock(key);
+                lockedKeys.add(key);
+            }
+            List<String> stillMissingKeys = new ArrayList<String>();
+            for (String key : values.keySet()) {
+                if (!missingKeys.contains(key)) {
+                    continue;
+                }
+                T value = (T) get(key);
+                values.put(key, value);
+                if (value == null) {
+                    stillMissingKeys.add(key);
+                }
+            }
+            if (!stillMissingKeys.isEmpty()) {
+                Map<String, T> loaded = loader.load(stillMissingKeys);
+                for (String key : stillMissingKeys) {
+                    T value = loaded.get(key);
+                    if (value != null) {
+                        put(key, value);
+                    }
+                    values.put(key, value);
+                }
+            }
+            return values;
+        } finally {
+            for (String key : lockedKeys) {
+                keyLocks.unlock(key);
+            }
+        }
+    }
+
+    /**
+     * Loads under the lock of the parent key, the one remove(key) and remove(key, subKey) take, so an invalidation
+     * cannot slip in between the load and the put and leave a stale value cached.
+     */
+    public <T> T getOrCompute(String key, String subKey, ValueLoader<T> loader) {
+        T value = (T) get(key, subKey);
+        if (value != null) {
+            return value;
+        }
+        keyLocks.lock(key);
+        try {
+            value = (T) get(key, subKey);
+            if (value == null) {
+                value = loader.load();
+                if (value != null) {
+                    put(key, subKey, value);
+                }
+            }
+            return value;
+        } finally {
+            keyLocks.unlock(key);
+        }
     }
 
     private Object getWithoutTransactionCheck(String key) {
@@ -160,14 +289,20 @@ public class GoCache {
     }
 
     public boolean remove(String key) {
-        synchronized (key.intern()) {
+        keyLocks.lock(key);
+        try {
             Object value = getWithoutTransactionCheck(key);
             if (value instanceof KeyList) {
                 for (String subKey : (KeyList) value) {
                     ehCache.remove(compositeKey(key, subKey));
                 }
             }
+            if (tracksRegionStatistics) {
+                regionFor(key).removes.incrementAndGet();
+            }
             return ehCache.remove(key);
+        } finally {
+            keyLocks.unlock(key);
         }
     }
 
@@ -176,14 +311,16 @@ public class GoCache {
     }
 
     public void put(String key, String subKey, Object value) {
-        KeyList subKeys;
-        synchronized (key.intern()) {
-            subKeys = subKeyFamily(key);
+        keyLocks.lock(key);
+        try {
+            KeyList subKeys = subKeyFamily(key);
             if (subKeys == null) {
                 subKeys = new KeyList();
                 put(key, subKeys);
             }
             subKeys.add(subKey);
+        } finally {
+            keyLocks.unlock(key);
         }
         put(compositeKey(key, subKey), value);
     }
@@ -199,7 +336,10 @@ public class GoCache {
     }
 
     private KeyList subKeyFamily(String parentKey) {
-        return (KeyList) get(parentKey);
+        if (doNotServeForTransaction()) {
+            return null;
+        }
+        return (KeyList) getWithoutTransactionCheck(parentKey);
     }
 
     private String compositeKey(String key, String subKey) {
@@ -211,10 +351,19 @@ public class GoCache {
     }
 
     public void remove(String key, String subKey) {
-        synchronized (key.intern()) {
+        keyLocks.lock(key);
+        try {
             KeyList subKeys = subKeyFamily(key);
-            subKeys.remove(subKey);
-            remove(compositeKey(key, subKey));
+            if (subKeys != null) {
+                subKeys.remove(subKey);
+            }
+            String compositeKey = compositeKey(key, subKey);
+            if (tracksRegionStatistics) {
+                regionFor(compositeKey).removes.incrementAndGet();
+            }
+            ehCache.remove(compositeKey);
+        } finally {
+            keyLocks.unlock(key);
         }
     }
 
@@ -222,6 +371,72 @@ public class GoCache {
         return ehCache.getLiveCacheStatistics();
     }
 
+    public boolean tracksRegionStatistics() {
+        return tracksRegionStatistics;
+    }
+
+    public Map<String, RegionStatistics> regionStatistics() {
+        return new TreeMap<String, RegionStatistics>(regionStatistics);
+    }
+
+    private RegionStatistics regionFor(String key) {
+        String region = region(key);
+        RegionStatistics statistics = regionStatistics.get(region);
+        if (statistics != null) {
+            return statistics;
+        }
+        if (regionStatistics.size() >= MAX_TRACKED_REGIONS) {
+            region = OTHER_REGION;
+        }
+        RegionStatistics newStatistics = new RegionStatistics();
+        statistics = regionStatistics.putIfAbsent(region, newStatistics);
+        return statistics == null ? newStatistics : statistics;
+    }
+
+    private String region(String key) {
+        int delimiter = key.indexOf(SUB_KEY_DELIMITER);
+        if (delimiter >= 0) {
+            key = key.substring(0, delimiter);
+        }
+        int first = key.indexOf('_');
+        if (first < 0) {
+            return key;
+        }
+        int second = key.indexOf('_', first + 1);
+        return second < 0 ? key : key.substring(0, second);
+    }
+
+    public static interface ValueLoader<T> {
+        T load();
+    }
+
+    public static interface BatchValueLoader<T> {
+        Map<String, T> load(List<String> keys);
+    }
+
+    public static class RegionStatistics {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong puts = new AtomicLong();
+        private final AtomicLong removes = new AtomicLong();
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+
+        public long getPuts() {
+            return puts.get();
+        }
+
+        public long getRemoves() {
+            return removes.get();
+        }
+    }
+
     public CacheConfiguration configuration() {
         return ehCache.getCacheConfiguration();
     }
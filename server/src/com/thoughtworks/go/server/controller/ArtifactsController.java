@@ -22,10 +22,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import com.thoughtworks.go.domain.ConsoleOut;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.domain.exception.IllegalArtifactLocationException;
 import com.thoughtworks.go.server.cache.ZipArtifactCache;
@@ -41,6 +41,7 @@ import com.thoughtworks.go.server.web.ArtifactFolderViewFactory;
 import com.thoughtworks.go.server.web.FileModelAndView;
 import com.thoughtworks.go.server.web.ResponseCodeView;
 import com.thoughtworks.go.util.ArtifactLogUtil;
+import com.thoughtworks.go.util.HttpService;
 import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -230,7 +231,7 @@ public class ArtifactsController {
         }
 
         if (isConsoleOutput(filePath)) {
-            return putConsoleOutput(jobIdentifier, filePath, request.getInputStream());
+            return putConsoleOutput(jobIdentifier, filePath, consoleInputStream(request), consoleOffset(request));
         } else {
             return putArtifact(jobIdentifier, filePath, request.getInputStream());
         }
@@ -253,8 +254,7 @@ public class ArtifactsController {
                     buildName);
             String consoleOutPath = ArtifactLogUtil.CRUISE_OUTPUT_FOLDER + '/' + ArtifactLogUtil.CONSOLE_LOG_FILE_NAME;
             File artifact = artifactsService.findArtifact(identifier, consoleOutPath);
-            ConsoleOut consoleOut = artifactsService.getConsoleOut(artifact, startLine);
-            return new ModelAndView(new ConsoleOutView(consoleOut.calculateNextStart(), consoleOut.output()));
+            return new ModelAndView(new ConsoleOutView(artifactsService.consoleLogIndex(artifact), startLine));
         } catch (FileNotFoundException e) {
             return new ModelAndView(new ConsoleOutView(0, ""));
         }
@@ -312,9 +312,23 @@ public class ArtifactsController {
         return getConsoleOutputFolderAndFileName().equalsIgnoreCase(filePath);
     }
 
-    private ModelAndView putConsoleOutput(final JobIdentifier jobIdentifier, final String filePath, final InputStream inputStream) throws Exception {
+    private InputStream consoleInputStream(HttpServletRequest request) throws IOException {
+        if ("gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))) {
+            return new GZIPInputStream(request.getInputStream());
+        }
+        return request.getInputStream();
+    }
+
+    private Long consoleOffset(HttpServletRequest request) {
+        String offset = request.getHeader(HttpService.GO_CONSOLE_OFFSET);
+        return offset == null ? null : Long.valueOf(offset);
+    }
+
+    private ModelAndView putConsoleOutput(final JobIdentifier jobIdentifier, final String filePath, final InputStream inputStream, Long offset) throws Exception {
         File artifact = artifactsService.findArtifact(jobIdentifier, filePath);
-        boolean updated = artifactsService.updateConsoleLog(artifact, inputStream, ArtifactsService.LineListener.NO_OP_LINE_LISTENER);
+        boolean updated = offset == null
+                ? artifactsService.updateConsoleLog(artifact, inputStream, ArtifactsService.LineListener.NO_OP_LINE_LISTENER)
+                : artifactsService.updateConsoleLog(artifact, inputStream, offset, ArtifactsService.LineListener.NO_OP_LINE_LISTENER);
         if (updated) {
             consoleActivityMonitor.consoleUpdatedFor(jobIdentifier);
             return FileModelAndView.fileAppended(filePath);
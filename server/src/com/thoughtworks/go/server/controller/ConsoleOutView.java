@@ -16,23 +16,34 @@
 
 package com.thoughtworks.go.server.controller;
 
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.thoughtworks.go.server.domain.ConsoleLogIndex;
 import com.thoughtworks.go.util.GoConstants;
 import org.springframework.web.servlet.View;
 
 public class ConsoleOutView implements View {
     private int offset;
     private String content;
+    private ConsoleLogIndex index;
+    private int startingLine;
 
     public ConsoleOutView(int offset, String content) {
         this.offset = offset;
         this.content = content;
     }
 
+    public ConsoleOutView(ConsoleLogIndex index, int startingLine) {
+        this.index = index;
+        this.startingLine = startingLine;
+        this.offset = index.nextStart(startingLine);
+    }
+
     public String getContentType() {
         return GoConstants.RESPONSE_CHARSET;
     }
@@ -41,7 +52,11 @@ public class ConsoleOutView implements View {
         response.addHeader("X-JSON", "[" + getOffset() + "]");
         PrintWriter writer = response.getWriter();
         try {
-            writer.write(getContent());
+            if (index == null) {
+                writer.write(content);
+            } else {
+                index.writeLines(startingLine, writer);
+            }
         } finally {
             writer.close();
         }
@@ -52,7 +67,12 @@ public class ConsoleOutView implements View {
         return offset;
     }
 
-    public String getContent() {
-        return content;
+    public String getContent() throws IOException {
+        if (index == null) {
+            return content;
+        }
+        StringWriter writer = new StringWriter();
+        index.writeLines(startingLine, writer);
+        return writer.toString();
     }
 }
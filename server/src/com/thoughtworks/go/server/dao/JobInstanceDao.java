@@ -27,6 +27,10 @@ import java.util.List;
  */
 public interface JobInstanceDao {
 
+    /**
+     * Plans are shared with the cache and are not copied for each caller, so they must not be modified.
+     * Only jobs scheduled since the last call are loaded; a plan is dropped from the cache when its job changes state.
+     */
     List<JobPlan> orderedScheduledBuilds();
 
     JobInstances latestCompletedJobs(String pipelineName, String stageName, String jobConfigName, int count);
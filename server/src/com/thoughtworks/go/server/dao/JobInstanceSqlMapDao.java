@@ -80,20 +80,17 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         this.artifactPropertiesGeneratorRepository = artifactPropertiesGeneratorRepository;
     }
 
-    public JobInstance buildByIdWithTransitions(long buildInstanceId) {
-        String cacheKey = cacheKeyforJobInstanceWithTransitions(buildInstanceId);
-        synchronized (cacheKey) {
-            JobInstance instance = (JobInstance) goCache.get(cacheKey);
-            if (instance == null) {
-                instance = job(buildInstanceId, "buildByIdWithTransitions");
-                goCache.put(cacheKey, instance);
+    public JobInstance buildByIdWithTransitions(final long buildInstanceId) {
+        JobInstance instance = goCache.getOrCompute(cacheKeyforJobInstanceWithTransitions(buildInstanceId), new GoCache.ValueLoader<JobInstance>() {
+            public JobInstance load() {
+                return job(buildInstanceId, "buildByIdWithTransitions");
             }
-            return cloner.deepClone(instance);
-        }
+        });
+        return cloner.deepClone(instance);
     }
 
     private String cacheKeyforJobInstanceWithTransitions(long jobId) {
-        return (getClass().getName() + "_jobInstanceWithTranistionIds_" + jobId).intern();
+        return getClass().getName() + "_jobInstanceWithTranistionIds_" + jobId;
     }
 
     public JobInstance buildById(long buildId) {
@@ -126,44 +123,28 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         return activeJobs;
     }
 
-    private ActiveJob getActiveJob(Long activeJobId) {
-        String activeJobKey = cacheKeyForActiveJob(activeJobId);
-        ActiveJob activeJob = (ActiveJob) goCache.get(activeJobKey);
-        if (activeJob == null) {
-            synchronized (activeJobKey) {
-                activeJob = (ActiveJob) goCache.get(activeJobKey);
-                if (activeJob == null) {
-                    activeJob = _getActiveJob(activeJobId);
-                    if (activeJob != null) { // could have changed to not active and consquently no match found
-                        cacheActiveJob(activeJob);
-                    }
-                }
+    private ActiveJob getActiveJob(final Long activeJobId) {
+        // a null load means the job is no longer active, and is not cached
+        return goCache.getOrCompute(cacheKeyForActiveJob(activeJobId), new GoCache.ValueLoader<ActiveJob>() {
+            public ActiveJob load() {
+                ActiveJob activeJob = _getActiveJob(activeJobId);
+                return activeJob == null ? null : cloner.deepClone(activeJob);//TODO: we should clone while serving the object out, and not while adding it to cache
             }
-        }
-        return activeJob;//TODO: clone it, caller may mutate
+        });//TODO: clone it, caller may mutate
     }
 
     private List<Long> getActiveJobIds() {
-        String idsCacheKey = cacheKeyForActiveJobIds();
-        List<Long> activeJobIds = (List<Long>) goCache.get(idsCacheKey);
-
-        synchronized (idsCacheKey) {
-            if (activeJobIds == null) {
-                activeJobIds = getSqlMapClientTemplate().queryForList("getActiveJobIds");
-                goCache.put(idsCacheKey, activeJobIds);
+        return goCache.getOrCompute(cacheKeyForActiveJobIds(), new GoCache.ValueLoader<List<Long>>() {
+            public List<Long> load() {
+                return (List<Long>) getSqlMapClientTemplate().queryForList("getActiveJobIds");
             }
-        }
-        return activeJobIds;
+        });
     }
 
     private ActiveJob _getActiveJob(Long id) {
         return (ActiveJob) getSqlMapClientTemplate().queryForObject("getActiveJobById", arguments("id", id).asMap());
     }
 
-    private void cacheActiveJob(ActiveJob activeJob) {
-        goCache.put(cacheKeyForActiveJob(activeJob.getId()), cloner.deepClone(activeJob));//TODO: we should clone while serving the object out, and not while adding it to cache
-    }
-
     public JobInstance mostRecentJobWithTransitions(JobIdentifier job) {
         Long buildId = findOriginalJobIdentifier(job.getStageIdentifier(), job.getBuildName()).getBuildId();
         return buildByIdWithTransitions(buildId);
@@ -208,39 +189,28 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         plan.setTriggerVariables(environmentVariableDao.load(plan.getPipelineId(), EnvironmentVariableSqlMapDao.EnvironmentVariableType.Trigger));
     }
 
-    public JobIdentifier findOriginalJobIdentifier(StageIdentifier stageIdentifier, String jobName) {
-        String key = cacheKeyForOriginalJobIdentifier(stageIdentifier, jobName);
-
-        JobIdentifier jobIdentifier = (JobIdentifier) goCache.get(key);
-
-        if (jobIdentifier == null) {
-            synchronized (key) {
-                jobIdentifier = (JobIdentifier) goCache.get(key);
-                if (jobIdentifier == null) {
-                    Map params = arguments("pipelineName", stageIdentifier.getPipelineName()).
-                            and("pipelineCounter", stageIdentifier.getPipelineCounter()).
-                            and("pipelineLabel", stageIdentifier.getPipelineLabel()).
-                            and("stageName", stageIdentifier.getStageName()).
-                            and("stageCounter", Integer.parseInt(stageIdentifier.getStageCounter())).
-                            and("jobName", jobName).asMap();
-
-                    jobIdentifier = (JobIdentifier) getSqlMapClientTemplate().queryForObject("findJobId", params);
-
-                    goCache.put(key, jobIdentifier);
-                }
+    public JobIdentifier findOriginalJobIdentifier(final StageIdentifier stageIdentifier, final String jobName) {
+        JobIdentifier jobIdentifier = goCache.getOrCompute(cacheKeyForOriginalJobIdentifier(stageIdentifier, jobName), new GoCache.ValueLoader<JobIdentifier>() {
+            public JobIdentifier load() {
+                Map params = arguments("pipelineName", stageIdentifier.getPipelineName()).
+                        and("pipelineCounter", stageIdentifier.getPipelineCounter()).
+                        and("pipelineLabel", stageIdentifier.getPipelineLabel()).
+                        and("stageName", stageIdentifier.getStageName()).
+                        and("stageCounter", Integer.parseInt(stageIdentifier.getStageCounter())).
+                        and("jobName", jobName).asMap();
+                return (JobIdentifier) getSqlMapClientTemplate().queryForObject("findJobId", params);
             }
-        }
-
+        });
         return cloner.deepClone(jobIdentifier);
     }
 
     private String cacheKeyForOriginalJobIdentifier(StageIdentifier stageIdentifier, String jobName) {
-        return (getClass().getName() + "_originalJobIdentifier_" + StringUtil.escapeAndJoinStrings(
+        return getClass().getName() + "_originalJobIdentifier_" + StringUtil.escapeAndJoinStrings(
                 stageIdentifier.getPipelineName(),
                 stageIdentifier.getPipelineLabel(),
                 String.valueOf(stageIdentifier.getPipelineCounter()),
                 stageIdentifier.getStageName(),
-                stageIdentifier.getStageCounter()) + "_job_" + jobName.toLowerCase()).intern();
+                stageIdentifier.getStageCounter()) + "_job_" + jobName.toLowerCase();
     }
 
     public List<JobIdentifier> getBuildingJobs() {
@@ -286,17 +256,9 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
             public Object doInTransaction(TransactionStatus status) {
                 transactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
                     @Override public void afterCommit() {
-                        // Methods not extracted in order to make synchronization visible.
-                        synchronized (cacheKeyForJobPlan(jobInstance.getId())) {
-                            removeCachedJobPlan(jobInstance);
-                        }
-                        synchronized (cacheKeyForActiveJobIds()) {
-                            goCache.remove(cacheKeyForActiveJobIds());
-                        }
-                        String activeJobKey = cacheKeyForActiveJob(jobInstance.getId());
-                        synchronized (activeJobKey) {
-                            goCache.remove(activeJobKey);
-                        }
+                        removeCachedJobPlan(jobInstance);
+                        goCache.remove(cacheKeyForActiveJobIds());
+                        goCache.remove(cacheKeyForActiveJob(jobInstance.getId()));
                         removeCachedJobInstance(jobInstance);
                     }
                 });
@@ -310,10 +272,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
     }
 
     private void removeCachedJobInstance(JobInstance jobInstance) {
-        String cacheKeyOfJob = cacheKeyforJobInstanceWithTransitions(jobInstance.getId());
-        synchronized (cacheKeyOfJob) {
-            goCache.remove(cacheKeyOfJob);
-        }
+        goCache.remove(cacheKeyforJobInstanceWithTransitions(jobInstance.getId()));
     }
 
     private void removeCachedJobPlan(JobInstance jobInstance) {
@@ -394,18 +353,14 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         List<Long> jobIds = (List<Long>) getSqlMapClientTemplate().queryForList("scheduledPlanIds");
 
         List<JobPlan> plans = new ArrayList<JobPlan>();
-        for (Long jobId : jobIds) {
-            String cacheKey = cacheKeyForJobPlan(jobId);
-            synchronized (cacheKey) {
-                JobPlan jobPlan = (JobPlan) goCache.get(cacheKey);
-                if (jobPlan == null) {
-                    jobPlan = _loadJobPlan(jobId);
-                }
-                if (jobPlan != null) {
-                    jobPlan = cloner.deepClone(jobPlan);
-                    goCache.put(cacheKey, jobPlan);
-                    plans.add(jobPlan);
+        for (final Long jobId : jobIds) {
+            JobPlan jobPlan = goCache.getOrCompute(cacheKeyForJobPlan(jobId), new GoCache.ValueLoader<JobPlan>() {
+                public JobPlan load() {
+                    return _loadJobPlan(jobId);
                 }
+            });
+            if (jobPlan != null) {
+                plans.add(jobPlan);
             }
         }
         return plans;
@@ -421,15 +376,15 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
     }
 
     private String cacheKeyForJobPlan(Long jobId) {
-        return (getClass().getName() + "_jobPlan_" + jobId).intern();
+        return getClass().getName() + "_jobPlan_" + jobId;
     }
 
     private String cacheKeyForActiveJob(Long jobId) {
-        return (getClass().getName() + "_activeJob_" + jobId).intern();
+        return getClass().getName() + "_activeJob_" + jobId;
     }
 
     private String cacheKeyForActiveJobIds() {
-        return (getClass().getName() + "_activeJobIds").intern();
+        return getClass().getName() + "_activeJobIds";
     }
 
     public JobInstance getLatestInProgressBuildByAgentUuid(String uuid) {
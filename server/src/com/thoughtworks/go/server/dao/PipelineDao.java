@@ -22,6 +22,7 @@ import com.thoughtworks.go.presentation.pipelinehistory.PipelineInstanceModel;
 import com.thoughtworks.go.presentation.pipelinehistory.PipelineInstanceModels;
 
 import java.util.List;
+import java.util.Map;
 
 
 public interface PipelineDao {
@@ -97,5 +98,7 @@ public interface PipelineDao {
 
     List<PipelineIdentifier> getPipelineInstancesTriggeredWithDependencyMaterial(String pipelineName, PipelineIdentifier revision);
 
+    Map<String, List<PipelineIdentifier>> getPipelineInstancesTriggeredWithDependencyMaterial(List<String> pipelineNames, PipelineIdentifier revision);
+
     List<PipelineIdentifier> getPipelineInstancesTriggeredWithDependencyMaterial(String pipelineName, MaterialInstance materialInstance, String revision);
 }
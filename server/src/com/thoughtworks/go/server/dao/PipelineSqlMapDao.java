@@ -141,28 +141,21 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         return (Pipeline) getSqlMapClientTemplate().queryForObject("findPipelineByNameAndCounter", map);
     }
 
-    public BuildCause findBuildCauseOfPipelineByNameAndCounter(String name, int counter) {
-        String cacheKey = cacheKeyForBuildCauseByNameAndCounter(name, counter);
-        BuildCause buildCause = (BuildCause) goCache.get(cacheKey);
-        if (buildCause == null) {
-            synchronized (cacheKey) {
-                buildCause = (BuildCause) goCache.get(cacheKey);
-                if (buildCause == null) {
-                    Pipeline pipeline = findPipelineByNameAndCounter(name, counter);
-                    if (pipeline == null) {
-                        throw new PipelineNotFoundException(String.format("Pipeline %s with counter %d was not found", name, counter));
-                    }
-                    loadMaterialRevisions(pipeline);
-                    buildCause = pipeline.getBuildCause();
-                    goCache.put(cacheKey, buildCause);
+    public BuildCause findBuildCauseOfPipelineByNameAndCounter(final String name, final int counter) {
+        return goCache.getOrCompute(cacheKeyForBuildCauseByNameAndCounter(name, counter), new GoCache.ValueLoader<BuildCause>() {
+            public BuildCause load() {
+                Pipeline pipeline = findPipelineByNameAndCounter(name, counter);
+                if (pipeline == null) {
+                    throw new PipelineNotFoundException(String.format("Pipeline %s with counter %d was not found", name, counter));
                 }
+                loadMaterialRevisions(pipeline);
+                return pipeline.getBuildCause();
             }
-        }
-        return buildCause;
+        });
     }
 
     private String cacheKeyForBuildCauseByNameAndCounter(String name, int counter) {
-        return (PipelineSqlMapDao.class + "_buildCauseByNameAndCounter_" + name + "_and_" + counter).intern();
+        return PipelineSqlMapDao.class + "_buildCauseByNameAndCounter_" + name + "_and_" + counter;
     }
 
     public Pipeline findPipelineByNameAndLabel(String name, String label) {
@@ -337,24 +330,17 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         return instanceModel;
     }
 
-    private PipelineInstanceModel loadPipelineInstanceModelByNameAndCounter(String pipelineName, int pipelineCounter) {
-        String cacheKey = cacheKeyForPipelineHistoryByNameAndCounter(pipelineName, pipelineCounter);
-        PipelineInstanceModel instanceModel = (PipelineInstanceModel) goCache.get(cacheKey);;
-        if (instanceModel == null) {
-            synchronized (cacheKey) {
-                instanceModel = (PipelineInstanceModel) goCache.get(cacheKey);
-                if (instanceModel == null) {
-                    instanceModel = (PipelineInstanceModel) getSqlMapClientTemplate().queryForObject("getPipelineHistoryByNameAndCounter",
-                            arguments("pipelineName", pipelineName).and("pipelineCounter", pipelineCounter).asMap());
-                    goCache.put(cacheKey, instanceModel);
-                }
+    private PipelineInstanceModel loadPipelineInstanceModelByNameAndCounter(final String pipelineName, final int pipelineCounter) {
+        return goCache.getOrCompute(cacheKeyForPipelineHistoryByNameAndCounter(pipelineName, pipelineCounter), new GoCache.ValueLoader<PipelineInstanceModel>() {
+            public PipelineInstanceModel load() {
+                return (PipelineInstanceModel) getSqlMapClientTemplate().queryForObject("getPipelineHistoryByNameAndCounter",
+                        arguments("pipelineName", pipelineName).and("pipelineCounter", pipelineCounter).asMap());
             }
-        }
-        return instanceModel;
+        });
     }
 
     private String cacheKeyForPipelineHistoryByNameAndCounter(String pipelineName, int pipelineCounter) {
-        return (String.format("%s_cacheKeyForPipelineHistoryByName_%s_AndCounter_%s", PipelineSqlMapDao.class.getName(), pipelineName, pipelineCounter)).intern();
+        return String.format("%s_cacheKeyForPipelineHistoryByName_%s_AndCounter_%s", PipelineSqlMapDao.class.getName(), pipelineName, pipelineCounter);
     }
 
     public PipelineDependencyGraphOld pipelineGraphByNameAndCounter(String pipelineName, int pipelineCounter) {
@@ -401,8 +387,8 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         return getSqlMapClientTemplate().queryForList("allActivePipelines");
     }
 
-    private List<CaseInsensitiveString> getPipelineNamesInConfig() {
-        return configFileDao.load().getAllPipelineNames();
+    private Set<CaseInsensitiveString> getPipelineNamesInConfig() {
+        return new HashSet<CaseInsensitiveString>(configFileDao.load().getAllPipelineNames());
     }
 
     private void waitForLoaderThreadsToJoin(Thread[] loaderThreads) {
@@ -457,7 +443,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
     }
 
     private void cacheMaterialRevisions(List<PipelineInstanceModel> models) {
-        List<CaseInsensitiveString> pipelinesInConfig = getPipelineNamesInConfig();
+        Set<CaseInsensitiveString> pipelinesInConfig = getPipelineNamesInConfig();
         if (pipelinesInConfig.isEmpty()) {
             LOGGER.warn("No pipelines found in Config, Skipping material revision caching.");
             return;
@@ -479,7 +465,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
     private PipelineInstanceModels convertToPipelineInstanceModels(Map<String, TreeSet<Long>> result) {
         List<PipelineInstanceModel> models = new ArrayList<PipelineInstanceModel>();
 
-        List<CaseInsensitiveString> pipelinesInConfig= getPipelineNamesInConfig();
+        Set<CaseInsensitiveString> pipelinesInConfig = getPipelineNamesInConfig();
         if (pipelinesInConfig.isEmpty()) {
             LOGGER.warn("No pipelines found in Config, Skipping PIM loading.");
             return PipelineInstanceModels.createPipelineInstanceModels(models);
@@ -541,20 +527,14 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         return (PipelineSqlMapDao.class.getName() + "_activePipelines").intern();
     }
 
-    public PipelineInstanceModel loadHistory(long id) {
-        String cacheKey = pipelineHistoryCacheKey(id);
-        PipelineInstanceModel result = (PipelineInstanceModel) goCache.get(cacheKey);
-        if (result == null) {
-            synchronized (cacheKey) {
-                result = (PipelineInstanceModel) goCache.get(cacheKey);
-                if (result == null) {
-                    result = (PipelineInstanceModel) getSqlMapClientTemplate().queryForObject("getPipelineHistoryById", arguments("id", id).asMap());
-                    if (result == null) {
-                        return null;
-                    }
-                    goCache.put(cacheKey, result);
-                }
+    public PipelineInstanceModel loadHistory(final long id) {
+        PipelineInstanceModel result = goCache.getOrCompute(pipelineHistoryCacheKey(id), new GoCache.ValueLoader<PipelineInstanceModel>() {
+            public PipelineInstanceModel load() {
+                return (PipelineInstanceModel) getSqlMapClientTemplate().queryForObject("getPipelineHistoryById", arguments("id", id).asMap());
             }
+        });
+        if (result == null) {
+            return null;
         }
         return cloner.deepClone(result);
     }
@@ -640,7 +620,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
     }
 
     String pipelineHistoryCacheKey(Long id) {
-        return (PipelineSqlMapDao.class.getName() + "_pipelineHistory_" + id).intern();
+        return PipelineSqlMapDao.class.getName() + "_pipelineHistory_" + id;
     }
 
     public PipelineInstanceModels loadHistory(String pipelineName, int limit, int offset) {
@@ -689,20 +669,13 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
     }
 
 
-    List<Long> findPipelineIds(String pipelineName, int limit, int offset) {
+    List<Long> findPipelineIds(final String pipelineName, final int limit, final int offset) {
         if (wantLatestIdOnly(limit, offset)) {
-            String cacheKey = cacheKeyForLatestPipelineIdByPipelineName(pipelineName);
-            List<Long> ids = (List<Long>) goCache.get(cacheKey);
-            if (ids == null) {
-                synchronized (cacheKey) {
-                    ids = (List<Long>) goCache.get(cacheKey);
-                    if (ids == null) {
-                        ids = fetchPipelineIds(pipelineName, limit, offset);
-                        goCache.put(cacheKey, ids);
-                    }
+            return goCache.getOrCompute(cacheKeyForLatestPipelineIdByPipelineName(pipelineName), new GoCache.ValueLoader<List<Long>>() {
+                public List<Long> load() {
+                    return fetchPipelineIds(pipelineName, limit, offset);
                 }
-            }
-            return ids;
+            });
         } //dont bother caching if looking for more than the latest, because limit and offset may changed
         return fetchPipelineIds(pipelineName, limit, offset);
     }
@@ -722,7 +695,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
     }
 
     private String cacheKeyForLatestPipelineIdByPipelineName(String pipelineName) {
-        return (PipelineSqlMapDao.class.getName() + "_latestPipelineIdByPipelineName_" + pipelineName).intern();
+        return PipelineSqlMapDao.class.getName() + "_latestPipelineIdByPipelineName_" + pipelineName;
     }
 
     private PipelineInstanceModels loadHistory(String pipelineName, List<Long> ids) {
@@ -945,67 +918,85 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
     }
 
     String cacheKeyForlatestPassedStage(long pipelineId, String stage) {
-        return (PipelineSqlMapDao.class + "_cacheKeyForlatestPassedStage_" + pipelineId + "_and_" + stage).intern();
+        return PipelineSqlMapDao.class + "_cacheKeyForlatestPassedStage_" + pipelineId + "_and_" + stage;
     }
 
-    public StageIdentifier latestPassedStageIdentifier(long pipelineId, String stage) {
-        String cacheKey = cacheKeyForlatestPassedStage(pipelineId, stage);
-        StageIdentifier result = (StageIdentifier) goCache.get(cacheKey);
-        if (result == null) {
-            synchronized (cacheKey) {
-                result = (StageIdentifier) goCache.get(cacheKey);
-                if (result == null) {
-                    result = (StageIdentifier) getSqlMapClientTemplate().queryForObject("latestPassedStageForPipelineId", arguments("id", pipelineId).and("stage", stage).asMap());
-                    result = (result == null) ? StageIdentifier.NULL : result;
-                    goCache.put(cacheKey, result);
-                }
+    public StageIdentifier latestPassedStageIdentifier(final long pipelineId, final String stage) {
+        return goCache.getOrCompute(cacheKeyForlatestPassedStage(pipelineId, stage), new GoCache.ValueLoader<StageIdentifier>() {
+            public StageIdentifier load() {
+                StageIdentifier result = (StageIdentifier) getSqlMapClientTemplate().queryForObject("latestPassedStageForPipelineId", arguments("id", pipelineId).and("stage", stage).asMap());
+                return (result == null) ? StageIdentifier.NULL : result;
             }
-        }
-        return result;
+        });
     }
 
     @Override
-    public List<PipelineIdentifier> getPipelineInstancesTriggeredWithDependencyMaterial(String pipelineName, PipelineIdentifier dependencyPipelineIdentifier) {
+    public List<PipelineIdentifier> getPipelineInstancesTriggeredWithDependencyMaterial(final String pipelineName, final PipelineIdentifier dependencyPipelineIdentifier) {
         String cacheKey = cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial(pipelineName, dependencyPipelineIdentifier.getName(), dependencyPipelineIdentifier.getCounter());
-        List<PipelineIdentifier> pipelineIdentifiers = (List<PipelineIdentifier>) goCache.get(cacheKey);
-        if (pipelineIdentifiers == null) {
-            synchronized (cacheKey) {
-                pipelineIdentifiers = (List<PipelineIdentifier>) goCache.get(cacheKey);
-                if (pipelineIdentifiers == null) {
-                    pipelineIdentifiers = (List<PipelineIdentifier>) getSqlMapClientTemplate().queryForList("pipelineInstancesTriggeredOutOfDependencyMaterial",
-                            arguments("pipelineName", pipelineName).and("dependencyPipelineName", dependencyPipelineIdentifier.getName())
-                                    .and("stageLocator", dependencyPipelineIdentifier.getName() + "/" + dependencyPipelineIdentifier.getCounter() + "/%/%")
-                                    .asMap());
-                    goCache.put(cacheKey, pipelineIdentifiers);
+        return goCache.getOrCompute(cacheKey, new GoCache.ValueLoader<List<PipelineIdentifier>>() {
+            public List<PipelineIdentifier> load() {
+                return (List<PipelineIdentifier>) getSqlMapClientTemplate().queryForList("pipelineInstancesTriggeredOutOfDependencyMaterial",
+                        arguments("pipelineName", pipelineName).and("dependencyPipelineName", dependencyPipelineIdentifier.getName())
+                                .and("stageLocator", dependencyPipelineIdentifier.getName() + "/" + dependencyPipelineIdentifier.getCounter() + "/%/%")
+                                .asMap());
+            }
+        });
+    }
+
+    @Override
+    public Map<String, List<PipelineIdentifier>> getPipelineInstancesTriggeredWithDependencyMaterial(List<String> pipelineNames, final PipelineIdentifier dependencyPipelineIdentifier) {
+        final Map<String, String> pipelineNamesByCacheKey = new LinkedHashMap<String, String>();
+        for (String pipelineName : pipelineNames) {
+            pipelineNamesByCacheKey.put(cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial(pipelineName, dependencyPipelineIdentifier.getName(), dependencyPipelineIdentifier.getCounter()),
+                    pipelineName);
+        }
+        Map<String, List<PipelineIdentifier>> byCacheKey = goCache.getOrComputeAll(pipelineNamesByCacheKey.keySet(), new GoCache.BatchValueLoader<List<PipelineIdentifier>>() {
+            public Map<String, List<PipelineIdentifier>> load(List<String> cacheKeys) {
+                List<String> notCached = new ArrayList<String>();
+                for (String cacheKey : cacheKeys) {
+                    notCached.add(pipelineNamesByCacheKey.get(cacheKey));
+                }
+                List<PipelineIdentifier> found = (List<PipelineIdentifier>) getSqlMapClientTemplate().queryForList("pipelineInstancesOfPipelinesTriggeredOutOfDependencyMaterial",
+                        arguments("pipelineNames", notCached).and("dependencyPipelineName", dependencyPipelineIdentifier.getName())
+                                .and("stageLocator", dependencyPipelineIdentifier.getName() + "/" + dependencyPipelineIdentifier.getCounter() + "/%/%")
+                                .asMap());
+                Map<String, List<PipelineIdentifier>> loaded = new HashMap<String, List<PipelineIdentifier>>();
+                for (String cacheKey : cacheKeys) {
+                    List<PipelineIdentifier> instances = new ArrayList<PipelineIdentifier>();
+                    for (PipelineIdentifier identifier : found) {
+                        if (identifier.getName().equalsIgnoreCase(pipelineNamesByCacheKey.get(cacheKey))) {
+                            instances.add(identifier);
+                        }
+                    }
+                    loaded.put(cacheKey, instances);
                 }
+                return loaded;
             }
+        });
+        Map<String, List<PipelineIdentifier>> result = new LinkedHashMap<String, List<PipelineIdentifier>>();
+        for (Map.Entry<String, String> entry : pipelineNamesByCacheKey.entrySet()) {
+            result.put(entry.getValue(), byCacheKey.get(entry.getKey()));
         }
-        return pipelineIdentifiers;
+        return result;
     }
 
 	@Override
-	public List<PipelineIdentifier> getPipelineInstancesTriggeredWithDependencyMaterial(String pipelineName, MaterialInstance materialInstance, String revision) {
+	public List<PipelineIdentifier> getPipelineInstancesTriggeredWithDependencyMaterial(final String pipelineName, final MaterialInstance materialInstance, final String revision) {
 		String cacheKey = cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial(pipelineName, materialInstance.getFingerprint(), revision);
-		List<PipelineIdentifier> pipelineIdentifiers = (List<PipelineIdentifier>) goCache.get(cacheKey);
-		if (pipelineIdentifiers == null) {
-			synchronized (cacheKey) {
-				pipelineIdentifiers = (List<PipelineIdentifier>) goCache.get(cacheKey);
-				if (pipelineIdentifiers == null) {
-					pipelineIdentifiers = (List<PipelineIdentifier>) getSqlMapClientTemplate().queryForList("pipelineInstancesTriggeredOffOfMaterialRevision",
-							arguments("pipelineName", pipelineName).and("materialId", materialInstance.getId()).and("materialRevision", revision).asMap());
-					goCache.put(cacheKey, pipelineIdentifiers);
-				}
+		return goCache.getOrCompute(cacheKey, new GoCache.ValueLoader<List<PipelineIdentifier>>() {
+			public List<PipelineIdentifier> load() {
+				return (List<PipelineIdentifier>) getSqlMapClientTemplate().queryForList("pipelineInstancesTriggeredOffOfMaterialRevision",
+						arguments("pipelineName", pipelineName).and("materialId", materialInstance.getId()).and("materialRevision", revision).asMap());
 			}
-		}
-		return pipelineIdentifiers;
+		});
 	}
 
     private String cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial(String pipelineName, String dependencyPipelineName, Integer dependencyPipelineCounter) {
-        return (PipelineSqlMapDao.class + "_cacheKeyForPipelineInstancesWithDependencyMaterial_" + pipelineName + "_" + dependencyPipelineName + "_" + dependencyPipelineCounter).intern();
+        return PipelineSqlMapDao.class + "_cacheKeyForPipelineInstancesWithDependencyMaterial_" + pipelineName + "_" + dependencyPipelineName + "_" + dependencyPipelineCounter;
     }
 
 	String cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial(String pipelineName, String fingerPrint, String revision) {
-		return (PipelineSqlMapDao.class + "_cacheKeyForPipelineInstancesWithDependencyMaterial_" + pipelineName + "_" + fingerPrint + "_" + revision).intern();
+		return PipelineSqlMapDao.class + "_cacheKeyForPipelineInstancesWithDependencyMaterial_" + pipelineName + "_" + fingerPrint + "_" + revision;
 	}
 
     private void invalidateCacheConditionallyForPipelineInstancesTriggeredWithDependencyMaterial(Pipeline pipeline) {
@@ -169,7 +169,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
 
 
     private String cacheKeyForStageCount(String pipelineName, String stageName) {
-        return String.format("%s_numberOfStages_%s_<>_%s", getClass().getName(), pipelineName, stageName).intern();
+        return String.format("%s_numberOfStages_%s_<>_%s", getClass().getName(), pipelineName, stageName);
     }
 
     public Stages getStagesByPipelineId(long pipelineId) {
@@ -187,12 +187,9 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         return maxCounter == null ? 0 : maxCounter;
     }
 
-    public Stage findStageWithIdentifier(StageIdentifier identifier) {
-        String cachekey = cacheKeyForStageIdentifier(identifier);
-        String cacheKeyForIdentifiers = cacheKeyForListOfStageIdentifiers(identifier);
-        synchronized (cacheKeyForIdentifiers) {
-            Stage stage = (Stage) goCache.get(cacheKeyForIdentifiers, cachekey);
-            if (stage == null) {
+    public Stage findStageWithIdentifier(final StageIdentifier identifier) {
+        Stage stage = goCache.getOrCompute(cacheKeyForListOfStageIdentifiers(identifier), cacheKeyForStageIdentifier(identifier), new GoCache.ValueLoader<Stage>() {
+            public Stage load() {
                 IBatisUtil.IBatisArgument argument = IBatisUtil.arguments("pipelineName", identifier.getPipelineName())
                         .and("pipelineCounter", identifier.getPipelineCounter())
                         .and("stageName", identifier.getStageName())
@@ -200,25 +197,23 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
                 if (identifier.getPipelineLabel() != null) {
                     argument = argument.and("pipelineLabel", identifier.getPipelineLabel());
                 }
-                Map arguments = argument.asMap();
-                stage = (Stage) getSqlMapClientTemplate().queryForObject("findStageWithJobsByIdentifier", arguments);
-                if (stage == null) {
-                    return new NullStage(identifier.getStageName());
-                }
-                goCache.put(cacheKeyForIdentifiers, cachekey, stage);
+                return (Stage) getSqlMapClientTemplate().queryForObject("findStageWithJobsByIdentifier", argument.asMap());
             }
-            return cloner.deepClone(stage);
+        });
+        if (stage == null) {
+            return new NullStage(identifier.getStageName());
         }
+        return cloner.deepClone(stage);
     }
 
     private String cacheKeyForListOfStageIdentifiers(StageIdentifier stageIdentifier) {
         return String.format("%s_stageRunIdentifier_%s_%s_%s", getClass().getName(), stageIdentifier.getPipelineName(), stageIdentifier.getPipelineCounter(),
-                stageIdentifier.getStageName()).intern();
+                stageIdentifier.getStageName());
     }
 
     private String cacheKeyForStageIdentifier(StageIdentifier stageIdentifier) {
         return String.format("%s_stageIdentifier_%s_%s_%s_%s", getClass().getName(), stageIdentifier.getPipelineName(), stageIdentifier.getPipelineCounter(),
-                stageIdentifier.getStageName(), stageIdentifier.getStageCounter()).intern();
+                stageIdentifier.getStageName(), stageIdentifier.getStageCounter());
     }
 
     public long getExpectedDurationMillis(String pipelineName, String stageName, JobInstance job) {
@@ -332,21 +327,18 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         return (List<StageAsDMR>) getSqlMapClientTemplate().queryForList("allPassedStageAsDMRsAfter", toGet);
     }
 
-    public Stages getAllRunsOfStageForPipelineInstance(String pipelineName, Integer pipelineCounter, String stageName) {
-        String cacheKeyForAllStages = cacheKeyForAllStageOfPipeline(pipelineName, pipelineCounter, stageName);
-        synchronized (cacheKeyForAllStages) {
-            List<Stage> stages = (List<Stage>) goCache.get(cacheKeyForAllStages);
-            if (stages == null) {
+    public Stages getAllRunsOfStageForPipelineInstance(final String pipelineName, final Integer pipelineCounter, final String stageName) {
+        List<Stage> stages = goCache.getOrCompute(cacheKeyForAllStageOfPipeline(pipelineName, pipelineCounter, stageName), new GoCache.ValueLoader<List<Stage>>() {
+            public List<Stage> load() {
                 Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("pipelineCounter", pipelineCounter).and("stageName", stageName).asMap();
-                stages = (List<Stage>) getSqlMapClientTemplate().queryForList("getAllRunsOfStageForPipelineInstance", toGet);
-                goCache.put(cacheKeyForAllStages, stages);
+                return (List<Stage>) getSqlMapClientTemplate().queryForList("getAllRunsOfStageForPipelineInstance", toGet);
             }
-            return new Stages(cloner.deepClone(stages));
-        }
+        });
+        return new Stages(cloner.deepClone(stages));
     }
 
     private String cacheKeyForAllStageOfPipeline(String pipelineName, Integer pipelineCounter, String stageName) {
-        return String.format(getClass().getName() + "_allStageOfPipeline_%s_%s_%s", pipelineName, pipelineCounter, stageName).intern();
+        return String.format(getClass().getName() + "_allStageOfPipeline_%s_%s_%s", pipelineName, pipelineCounter, stageName);
     }
 
     public List<Stage> findStageHistoryForChart(String pipelineName, String stageName, int pageSize, int offset) {
@@ -358,35 +350,22 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         return new Stages((List<Stage>) getSqlMapClientTemplate().queryForList("findStageHistoryForChartPerPipeline", args));
     }
 
-    public int getTotalStageCountForChart(String pipelineName, String stageName) {
-        String key = cacheKeyForStageCountForGraph(pipelineName, stageName);
-        Integer total = (Integer) goCache.get(key);
-        if (total == null) {
-            synchronized (key) {
-                if (total == null) {
-                    Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("stageName", stageName).asMap();
-                    total = (Integer) getSqlMapClientTemplate().queryForObject("getTotalStageCountForChart", toGet);
-                    goCache.put(key, total);
-                }
+    public int getTotalStageCountForChart(final String pipelineName, final String stageName) {
+        return goCache.getOrCompute(cacheKeyForStageCountForGraph(pipelineName, stageName), new GoCache.ValueLoader<Integer>() {
+            public Integer load() {
+                Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("stageName", stageName).asMap();
+                return (Integer) getSqlMapClientTemplate().queryForObject("getTotalStageCountForChart", toGet);
             }
-        }
-        return total;
+        });
     }
 
     @Override
     public List<StageIdentity> findLatestStageInstances() {
-        String key = cacheKeyForLatestStageInstances();
-        List<StageIdentity> stageIdentities = (List<StageIdentity>) goCache.get(key);
-        if (stageIdentities == null) {
-            synchronized (key) {
-                stageIdentities = (List<StageIdentity>) goCache.get(key);
-                if (stageIdentities == null) {
-                    stageIdentities = (List<StageIdentity>) getSqlMapClientTemplate().queryForList("latestStageInstances");
-                    goCache.put(key, stageIdentities);
-                }
+        return goCache.getOrCompute(cacheKeyForLatestStageInstances(), new GoCache.ValueLoader<List<StageIdentity>>() {
+            public List<StageIdentity> load() {
+                return (List<StageIdentity>) getSqlMapClientTemplate().queryForList("latestStageInstances");
             }
-        }
-        return stageIdentities;
+        });
     }
 
 
@@ -461,11 +440,11 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     }
 
     private String cacheKeyForStageHistories(String pipelineName, String stageName) {
-        return String.format("%s_stageHistories_%s_<>_%s", getClass().getName(), pipelineName, stageName).intern();
+        return String.format("%s_stageHistories_%s_<>_%s", getClass().getName(), pipelineName, stageName);
     }
 
     private String cacheKeyForDetailedStageHistories(String pipelineName, String stageName) {
-        return String.format("%s_detailedStageHistories_%s_<>_%s", getClass().getName(), pipelineName, stageName).intern();
+        return String.format("%s_detailedStageHistories_%s_<>_%s", getClass().getName(), pipelineName, stageName);
     }
 
     public Long findStageIdByPipelineAndStageNameAndCounter(long pipelineId, String name, String counter) {
@@ -520,7 +499,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     }
 
     private String cacheKeyForStageOffset(Stage stage) {
-        return String.format("%s_stageOffsetMap_%s_<>_%s", getClass().getName(), stage.getIdentifier().getPipelineName(), stage.getIdentifier().getStageName()).intern();
+        return String.format("%s_stageOffsetMap_%s_<>_%s", getClass().getName(), stage.getIdentifier().getPipelineName(), stage.getIdentifier().getStageName());
     }
 
     private List<StageFeedEntry> findForFeed(String baseQuery, FeedModifier modifier, long transitionId, int pageSize) {
@@ -552,22 +531,13 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         return mostRecentId == null ? NullStage.createNullStage(stageConfig) : stageByIdWithBuildsWithNoAssociations(mostRecentId);
     }
 
-    Long mostRecentId(String pipelineName, String stageName) {
-        String key = cacheKeyForMostRecentId(pipelineName, stageName);
-        Long id = (Long) goCache.get(key);
-        if (id != null) {
-            return id;
-        }
-        synchronized (key) {
-            id = (Long) goCache.get(key);
-            if (id != null) {
-                return id;
+    Long mostRecentId(final String pipelineName, final String stageName) {
+        return goCache.getOrCompute(cacheKeyForMostRecentId(pipelineName, stageName), new GoCache.ValueLoader<Long>() {
+            public Long load() {
+                Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("stageName", stageName).asMap();
+                return (Long) getSqlMapClientTemplate().queryForObject("getMostRecentId", toGet);
             }
-            Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("stageName", stageName).asMap();
-            id = (Long) getSqlMapClientTemplate().queryForObject("getMostRecentId", toGet);
-            goCache.put(key, id);
-        }
-        return id;
+        });
     }
 
     public void stageStatusChanged(Stage stage) {
@@ -585,27 +555,21 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         return stageById(id);
     }
 
-    public Stage stageById(long id) {
-        String key = cacheKeyForStageById(id);
-        Stage stage = (Stage) goCache.get(key);
-
-        if (stage == null) {
-            synchronized (key) {
-                stage = (Stage) goCache.get(key);
+    public Stage stageById(final long id) {
+        Stage stage = goCache.getOrCompute(cacheKeyForStageById(id), new GoCache.ValueLoader<Stage>() {
+            public Stage load() {
+                Stage stage = (Stage) getSqlMapClientTemplate().queryForObject("getStageById", id);
                 if (stage == null) {
-                    stage = (Stage) getSqlMapClientTemplate().queryForObject("getStageById", id);
-                    if (stage == null) {
-                        throw new DataRetrievalFailureException("Unable to load related stage data for id " + id);
-                    }
-                    goCache.put(key, stage);
+                    throw new DataRetrievalFailureException("Unable to load related stage data for id " + id);
                 }
+                return stage;
             }
-        }
+        });
         return cloner.deepClone(stage);
     }
 
     private String cacheKeyForStageById(long id) {
-        return String.format("%s_stageById_%s", getClass().getName(), id).intern();
+        return String.format("%s_stageById_%s", getClass().getName(), id);
     }
 
     public Stage mostRecentPassed(String pipelineName, String stageName) {
@@ -614,17 +578,13 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         return mostRecentId == null ? null : stageByIdWithBuilds(mostRecentId);
     }
 
-    public boolean isStageActive(String pipelineName, String stageName) {
-        String cacheKey = cacheKeyForPipelineAndStage(pipelineName, stageName);
-        synchronized (cacheKey) {
-            Boolean isActive = (Boolean) goCache.get(cacheKey);
-            if (isActive == null) {
-                final Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("stageName", stageName).asMap();
-                isActive = !getSqlMapClientTemplate().queryForObject("isStageActive", toGet).equals(0);
-                goCache.put(cacheKey, isActive);
+    public boolean isStageActive(final String pipelineName, final String stageName) {
+        return goCache.getOrCompute(cacheKeyForPipelineAndStage(pipelineName, stageName), new GoCache.ValueLoader<Boolean>() {
+            public Boolean load() {
+                Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("stageName", stageName).asMap();
+                return !getSqlMapClientTemplate().queryForObject("isStageActive", toGet).equals(0);
             }
-            return isActive;
-        }
+        });
     }
 
     public Stage getStageByBuild(long buildId) {
@@ -665,22 +625,16 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     }
 
     private String cacheKeyForPipelineAndStage(String pipelineName, String stageName) {
-        return String.format("%s_isStageActive_%s_%s", StageSqlMapDao.class.getName(), pipelineName, stageName).intern();
-    }
-
-    public Stages findAllStagesFor(String pipelineName, int counter) {
-        String key = cacheKeyForPipelineAndCounter(pipelineName, counter);
-        List<Stage> stages = (List<Stage>) goCache.get(key);
-        if (stages == null) {
-            synchronized (key) {
-                stages = (List<Stage>) goCache.get(key);
-                if (stages == null) {
-                    Map<String, Object> params = arguments("pipelineName", pipelineName).and("pipelineCounter", counter).asMap();
-                    stages = getSqlMapClientTemplate().queryForList("getStagesByPipelineNameAndCounter", params);
-                    goCache.put(key, stages);
-                }
+        return String.format("%s_isStageActive_%s_%s", StageSqlMapDao.class.getName(), pipelineName, stageName);
+    }
+
+    public Stages findAllStagesFor(final String pipelineName, final int counter) {
+        List<Stage> stages = goCache.getOrCompute(cacheKeyForPipelineAndCounter(pipelineName, counter), new GoCache.ValueLoader<List<Stage>>() {
+            public List<Stage> load() {
+                Map<String, Object> params = arguments("pipelineName", pipelineName).and("pipelineCounter", counter).asMap();
+                return (List<Stage>) getSqlMapClientTemplate().queryForList("getStagesByPipelineNameAndCounter", params);
             }
-        }
+        });
         return new Stages(stages);
     }
 
@@ -693,8 +647,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     }
 
     private String cacheKeyForPipelineAndCounter(String pipelineName, int counter) {
-        String key = StageSqlMapDao.class.getName() + "_allStagesOfPipelineInstance_" + pipelineName + "_" + counter;
-        return key.intern();
+        return StageSqlMapDao.class.getName() + "_allStagesOfPipelineInstance_" + pipelineName + "_" + counter;
     }
 
     public void jobStatusChanged(JobInstance job) {
@@ -713,18 +666,16 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     }
 
     private String cacheKeyForStageCountForGraph(String pipelineName, String stageName) {
-        return String.format("%s_totalStageCountForChart_%s_%s", getClass().getName(), pipelineName, stageName).intern();
+        return String.format("%s_totalStageCountForChart_%s_%s", getClass().getName(), pipelineName, stageName);
     }
 
     private void removeFromCache(String key) {
-        synchronized (key) {
-            goCache.remove(key);
-        }
+        goCache.remove(key);
     }
 
 
     String cacheKeyForMostRecentId(String pipelineName, String stageName) {
-        return String.format("%s_mostRecentId_%s_%s", getClass().getName(), pipelineName, stageName).intern();
+        return String.format("%s_mostRecentId_%s_%s", getClass().getName(), pipelineName, stageName);
     }
 
     private Stage stageByIdWithBuildsWithNoAssociations(long id) {
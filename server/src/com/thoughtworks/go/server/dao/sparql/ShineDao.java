@@ -31,9 +31,9 @@ import com.thoughtworks.go.server.service.StageService;
 import com.thoughtworks.go.server.service.result.LocalizedOperationResult;
 import com.thoughtworks.studios.shine.cruise.GoOntology;
 import com.thoughtworks.studios.shine.cruise.stage.StagesQuery;
+import com.thoughtworks.studios.shine.cruise.stage.details.StageTestResults;
 import com.thoughtworks.studios.shine.semweb.BoundVariables;
 import com.thoughtworks.studios.shine.xunit.XUnitOntology;
-import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 
 /**
@@ -50,19 +50,19 @@ public class ShineDao {
     }
 
     public List<TestSuite> failedTestsFor(final StageIdentifier stageId) {
-        StageTestRuns stageTestRuns = getTestCount(stageId);
-        final List<StageIdentifier> stageIdentifierList = Arrays.asList(stageId);
-        populateFailingTests(stageTestRuns, getFailedTests(stageIdentifierList));
-        populateUsers(stageTestRuns, getCommitters(stageIdentifierList));
+        List<StageTestResults> testResults = stagesQuery.testResults(Arrays.asList(stageId));
+        StageTestRuns stageTestRuns = testCounts(testResults.get(0));
+        populateFailingTests(stageTestRuns, testResults);
+        populateUsers(stageTestRuns, testResults);
         return stageTestRuns.failingTestSuitesForNthPipelineRun(0);
     }
 
     public StageTestRuns failedBuildHistoryForStage(StageIdentifier stageId, LocalizedOperationResult result) {
         try {
-            StageTestRuns stageTestRuns = getTestCount(stageId);
-            List<StageIdentifier> failedStageIds = stageService.findRunForStage(stageId);
-            populateFailingTests(stageTestRuns, getFailedTests(failedStageIds));
-            populateUsers(stageTestRuns, getCommitters(failedStageIds));
+            StageTestRuns stageTestRuns = testCounts(stagesQuery.testResults(Arrays.asList(stageId)).get(0));
+            List<StageTestResults> failedStagesTestResults = stagesQuery.testResults(stageService.findRunForStage(stageId));
+            populateFailingTests(stageTestRuns, failedStagesTestResults);
+            populateUsers(stageTestRuns, failedStagesTestResults);
             stageTestRuns.removeDuplicateTestEntries();
             return stageTestRuns;
         }
@@ -109,131 +109,31 @@ public class ShineDao {
         }
     }
 
-    private StageTestRuns getTestCount(StageIdentifier stageId) {
-        String selectTestCase =
-                "PREFIX xunit: <" + XUnitOntology.URI + "> "
-                        + "\n"
-                        + "SELECT ?testCase ?failure ?error {\n"
-                        + "  ?testCase a xunit:TestCase .\n"
-                        + "  OPTIONAL {\n"
-                        + "     ?testCase xunit:hasFailure ?failure .\n"
-                        + "     ?failure xunit:isError ?error .\n" 
-                        + "  }"
-                        + "}";
-
-        List<TestCaseResultModel> testCounts = stagesQuery.select(selectTestCase, Arrays.asList(stageId), new RdfResultMapper<TestCaseResultModel>() {
-            public TestCaseResultModel map(BoundVariables aRow) {
-                boolean error = Boolean.TRUE.equals(aRow.getBoolean("error"));
-                return new TestCaseResultModel(aRow.getAsString("failure") != null, error);
-            }
-        });
-        int totalCount = testCounts.size();
-        int failuresCount = computeFailureCounts(testCounts);
-        int errorsCount = computeErrorCounts(testCounts);
-        return new StageTestRuns(totalCount, failuresCount, errorsCount);
-    }
-
-    private int computeErrorCounts(List<TestCaseResultModel> testCounts) {
-        int count = 0;
-        for (TestCaseResultModel testCaseResultModel : testCounts) {
-            if (testCaseResultModel.hasFailure() && testCaseResultModel.hasError()) {
-                count++;
-            }
-        }
-        return count;
-    }
-
-    private int computeFailureCounts(List<TestCaseResultModel> testCaseResultModels) {
-        int count = 0;
-        for (TestCaseResultModel testCaseResult : testCaseResultModels) {
-            if (testCaseResult.hasFailure() && !testCaseResult.hasError()) {
-                count++;
-            }
-        }
-        return count;
-    }
-
-    private List<PipelineCommiter> getCommitters(List<StageIdentifier> failedStageIds) {
-        String committersForStage =
-                "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n"
-                        + "PREFIX xunit: <" + XUnitOntology.URI + "> "
-                        + "PREFIX cruise: <" + GoOntology.URI + "> "
-                        + "\n"
-                        + "SELECT DISTINCT ?failedPipelineCounter ?failedPipelineLabel ?user {\n"
-                        + "       ?pipeline cruise:pipelineCounter ?failedPipelineCounter .\n"
-                        + "       ?pipeline cruise:pipelineLabel ?failedPipelineLabel .\n"
-                        + "       ?pipelineTrigger a cruise:ChangeSet .\n"
-                        + "       OPTIONAL {"
-                        + "         ?pipelineTrigger cruise:user ?user .\n"
-                        + "       }"
-                        + "} ORDER BY ?failedPipelineCounter ?user";
-        return stagesQuery.select(committersForStage, failedStageIds, new RdfResultMapper<PipelineCommiter>() {
-
-            public PipelineCommiter map(BoundVariables aRow) {
-                String userName = aRow.getString("user");
-                Integer failedPipelineCounter = aRow.getInt("failedPipelineCounter");
-                String failedPipelineLabel = aRow.getString("failedPipelineLabel");
-                return new PipelineCommiter(userName, failedPipelineCounter, failedPipelineLabel);
-            }
-        });
-
+    private StageTestRuns testCounts(StageTestResults testResults) {
+        return new StageTestRuns(testResults.getTotalCount(), testResults.getFailureCount(), testResults.getErrorCount());
     }
 
-    private void populateUsers(StageTestRuns stageTestRuns, List<PipelineCommiter> commiters) {
-        for (PipelineCommiter commiter : commiters) {
-            if (!StringUtils.isEmpty(commiter.getUserName())) {
-                stageTestRuns.addUser(commiter.getFailedPipelineCounter(), commiter.getFailedPipelineLabel(), commiter.getUserName());
+    private void populateUsers(StageTestRuns stageTestRuns, List<StageTestResults> stagesTestResults) {
+        for (StageTestResults testResults : stagesTestResults) {
+            for (String committer : testResults.getCommitters()) {
+                stageTestRuns.addUser(testResults.getPipelineCounter(), testResults.getPipelineLabel(), committer);
             }
         }
     }
 
-    private List<TestCaseModel> getFailedTests(List<StageIdentifier> failedStageIds) {
-        String selectFailingTests =
-                "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n"
-                        + "PREFIX xunit: <" + XUnitOntology.URI + "> "
-                        + "PREFIX cruise: <" + GoOntology.URI + "> "
-                        + "\n"
-                        + "SELECT DISTINCT ?testSuiteName ?testCaseName ?isError ?jobName ?failedPipelineName ?failedPipelineCounter ?failedPipelineLabel ?failedStageName ?failedStageCounter {\n"
-                        + "       ?pipeline cruise:pipelineName ?failedPipelineName . "
-                        + "       ?pipeline cruise:pipelineCounter ?failedPipelineCounter . "
-                        + "       ?pipeline cruise:pipelineLabel ?failedPipelineLabel . "
-                        + "       ?pipeline cruise:hasStage ?stage . "
-                        + "       ?stage cruise:stageName ?failedStageName . "
-                        + "       ?stage cruise:stageCounter ?failedStageCounter . "
-                        + "       ?stage cruise:hasJob ?job . "
-                        + "       ?job cruise:jobName ?jobName .\n"
-                        + "       OPTIONAL {\n"
-                        + "              ?job xunit:hasTestCase ?testCase .\n"
-                        + "              ?testCase xunit:testCaseName ?testCaseName .\n"
-                        + "              ?testCase xunit:testSuiteName ?testSuiteName .\n"
-                        + "              ?testCase xunit:hasFailure ?failure .\n"
-                        + "              ?failure xunit:isError ?isError.\n"
-                        + "       }\n"
-                        + "} ORDER BY ?jobName ?testSuiteName ?testCaseName";
-
-        return stagesQuery.select(selectFailingTests, failedStageIds, new RdfResultMapper<TestCaseModel>() {
-
-            public TestCaseModel map(BoundVariables aRow) {
-                String failedPipelineName = aRow.getString("failedPipelineName");
-                int failedPipelineCounter = aRow.getInt("failedPipelineCounter");
-                String failedPipelineLabel = aRow.getString("failedPipelineLabel");
-                String failedStageName = aRow.getString("failedStageName");
-                String failedStageCounter = aRow.getString("failedStageCounter");
-                String jobName = aRow.getString("jobName");
-                return new TestCaseModel(new JobIdentifier(failedPipelineName, failedPipelineCounter, failedPipelineLabel, failedStageName, failedStageCounter, jobName),
-                        aRow.getString("testSuiteName"), aRow.getString("testCaseName"), aRow.getBoolean("isError"));
-            }
-        });
-    }
-
-    private void populateFailingTests(StageTestRuns stageTestRuns, List<TestCaseModel> testCaseModels) {
-        for (TestCaseModel testCaseModel : testCaseModels) {
-            JobIdentifier jobIdentifier = testCaseModel.getJobIdentifier();
-            if (!StringUtils.isEmpty(testCaseModel.getTestName())) {
-                stageTestRuns.add(jobIdentifier.getPipelineCounter(), jobIdentifier.getPipelineLabel(), testCaseModel.getTestSuiteName(), testCaseModel.getTestName(), TestStatus.fromURLType(
-                        testCaseModel.isError()), jobIdentifier);
-            } else {
-                stageTestRuns.add(jobIdentifier.getPipelineCounter(), jobIdentifier.getPipelineLabel());
+    private void populateFailingTests(StageTestRuns stageTestRuns, List<StageTestResults> stagesTestResults) {
+        for (StageTestResults testResults : stagesTestResults) {
+            for (StageTestResults.Job job : testResults.getJobs()) {
+                if (!job.hasFailures()) {
+                    stageTestRuns.add(testResults.getPipelineCounter(), testResults.getPipelineLabel());
+                    continue;
+                }
+                JobIdentifier jobIdentifier = new JobIdentifier(testResults.getPipelineName(), testResults.getPipelineCounter(), testResults.getPipelineLabel(),
+                        testResults.getStageName(), testResults.getStageCounter(), job.getName());
+                for (StageTestResults.Failure failure : testResults.failuresOf(job)) {
+                    stageTestRuns.add(jobIdentifier.getPipelineCounter(), jobIdentifier.getPipelineLabel(), failure.getSuiteName(), failure.getTestName(),
+                            TestStatus.fromURLType(failure.isError()), jobIdentifier);
+                }
             }
         }
     }
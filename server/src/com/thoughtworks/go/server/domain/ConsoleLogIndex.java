@@ -0,0 +1,269 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.server.domain;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import com.thoughtworks.go.util.FileUtil;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * @understands where lines start in a console log, so that a tail can seek straight to a line instead of re-reading the log.
+ * Line breaks are counted the same way BufferedReader.readLine() counts them.
+ */
+public class ConsoleLogIndex {
+    private static final Logger LOGGER = Logger.getLogger(ConsoleLogIndex.class);
+    static final int CHECKPOINT_INTERVAL = 128;
+    private static final int VERSION = 1;
+
+    private final File consoleLog;
+    private final File stateFile;
+    private final File checkpointsFile;
+
+    private long indexedBytes;
+    private int completeLines;
+    private boolean partialLine;
+    private boolean pendingCarriageReturn;
+    private boolean checkpointDue;
+    private int persistedCheckpoints;
+    private long[] newCheckpoints = new long[16];
+    private int newCheckpointCount;
+
+    private ConsoleLogIndex(File consoleLog) {
+        this.consoleLog = consoleLog;
+        this.stateFile = new File(consoleLog.getParentFile(), "." + consoleLog.getName() + ".index");
+        this.checkpointsFile = new File(consoleLog.getParentFile(), "." + consoleLog.getName() + ".lines");
+        reset();
+    }
+
+    public static ConsoleLogIndex forLog(File consoleLog) {
+        ConsoleLogIndex index = new ConsoleLogIndex(consoleLog);
+        index.load();
+        return index;
+    }
+
+    /**
+     * Indexes whatever was appended to the log since it was last indexed. Only the new bytes are read.
+     */
+    public ConsoleLogIndex catchUp() throws IOException {
+        if (!consoleLog.exists()) {
+            throw new FileNotFoundException(consoleLog.getAbsolutePath());
+        }
+        long length = consoleLog.length();
+        if (length < indexedBytes) {
+            reset();
+        }
+        if (length == indexedBytes) {
+            return this;
+        }
+        InputStream in = openAt(indexedBytes);
+        try {
+            byte[] buffer = new byte[8192];
+            long position = indexedBytes;
+            int read;
+            while (position < length && (read = in.read(buffer, 0, (int) Math.min(buffer.length, length - position))) != -1) {
+                for (int i = 0; i < read; i++, position++) {
+                    scan(buffer[i], position);
+                }
+            }
+            indexedBytes = position;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        save();
+        return this;
+    }
+
+    public int lineCount() {
+        return completeLines + (partialLine ? 1 : 0);
+    }
+
+    public int nextStart(int startingLine) {
+        return lineCount() > startingLine ? lineCount() : startingLine;
+    }
+
+    public void writeLines(int startingLine, Writer writer) throws IOException {
+        int lineCount = lineCount();
+        if (startingLine >= lineCount) {
+            return;
+        }
+        int checkpoint = Math.min(startingLine / CHECKPOINT_INTERVAL, checkpointCount() - 1);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(openAt(checkpointAt(checkpoint))));
+        try {
+            for (int line = checkpoint * CHECKPOINT_INTERVAL; line < startingLine; line++) {
+                reader.readLine();
+            }
+            String consoleLine;
+            for (int line = startingLine; line < lineCount && (consoleLine = reader.readLine()) != null; line++) {
+                writer.write(consoleLine);
+                writer.write(FileUtil.lineSeparator());
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void scan(byte b, long position) {
+        if (pendingCarriageReturn) {
+            pendingCarriageReturn = false;
+            if (b == '\n') {
+                return;
+            }
+        }
+        if (checkpointDue) {
+            addCheckpoint(position);
+            checkpointDue = false;
+        }
+        if (b == '\n' || b == '\r') {
+            completeLines++;
+            partialLine = false;
+            pendingCarriageReturn = b == '\r';
+            checkpointDue = completeLines % CHECKPOINT_INTERVAL == 0;
+        } else {
+            partialLine = true;
+        }
+    }
+
+    private void addCheckpoint(long position) {
+        if (newCheckpointCount == newCheckpoints.length) {
+            newCheckpoints = Arrays.copyOf(newCheckpoints, newCheckpoints.length * 2);
+        }
+        newCheckpoints[newCheckpointCount++] = position;
+    }
+
+    private int checkpointCount() {
+        return persistedCheckpoints + newCheckpointCount;
+    }
+
+    private long checkpointAt(int checkpoint) throws IOException {
+        if (checkpoint >= persistedCheckpoints) {
+            return newCheckpoints[checkpoint - persistedCheckpoints];
+        }
+        RandomAccessFile lines = new RandomAccessFile(checkpointsFile, "r");
+        try {
+            lines.seek(checkpoint * 8L);
+            return lines.readLong();
+        } finally {
+            lines.close();
+        }
+    }
+
+    private InputStream openAt(long position) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(consoleLog, "r");
+        file.seek(position);
+        return new BufferedInputStream(Channels.newInputStream(file.getChannel()));
+    }
+
+    private void reset() {
+        indexedBytes = 0;
+        completeLines = 0;
+        partialLine = false;
+        pendingCarriageReturn = false;
+        checkpointDue = false;
+        persistedCheckpoints = 0;
+        newCheckpointCount = 0;
+        addCheckpoint(0);
+    }
+
+    private void load() {
+        if (!stateFile.exists() || !checkpointsFile.exists()) {
+            return;
+        }
+        DataInputStream state = null;
+        try {
+            state = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)));
+            if (state.readInt() != VERSION) {
+                return;
+            }
+            long bytes = state.readLong();
+            int lines = state.readInt();
+            boolean partial = state.readBoolean();
+            boolean carriageReturn = state.readBoolean();
+            boolean due = state.readBoolean();
+            int count = state.readInt();
+            if (checkpointsFile.length() < count * 8L) {
+                return;
+            }
+            indexedBytes = bytes;
+            completeLines = lines;
+            partialLine = partial;
+            pendingCarriageReturn = carriageReturn;
+            checkpointDue = due;
+            persistedCheckpoints = count;
+            newCheckpointCount = 0;
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Ignoring unreadable console log index for [%s], it will be rebuilt", consoleLog.getAbsolutePath()), e);
+            reset();
+        } finally {
+            IOUtils.closeQuietly(state);
+        }
+    }
+
+    private void save() throws IOException {
+        RandomAccessFile lines = new RandomAccessFile(checkpointsFile, "rw");
+        try {
+            lines.seek(persistedCheckpoints * 8L);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(lines.getChannel())));
+            for (int i = 0; i < newCheckpointCount; i++) {
+                out.writeLong(newCheckpoints[i]);
+            }
+            out.flush();
+        } finally {
+            lines.close();
+        }
+
+        File tempState = new File(stateFile.getParentFile(), stateFile.getName() + ".tmp" + Thread.currentThread().getId());
+        DataOutputStream state = new DataOutputStream(new FileOutputStream(tempState));
+        try {
+            state.writeInt(VERSION);
+            state.writeLong(indexedBytes);
+            state.writeInt(completeLines);
+            state.writeBoolean(partialLine);
+            state.writeBoolean(pendingCarriageReturn);
+            state.writeBoolean(checkpointDue);
+            state.writeInt(checkpointCount());
+        } finally {
+            state.close();
+        }
+        if (!tempState.renameTo(stateFile)) {
+            FileUtils.deleteQuietly(stateFile);
+            if (!tempState.renameTo(stateFile)) {
+                FileUtils.deleteQuietly(tempState);
+                throw new IOException("Could not save console log index " + stateFile.getAbsolutePath());
+            }
+        }
+        persistedCheckpoints = checkpointCount();
+        newCheckpointCount = 0;
+    }
+}
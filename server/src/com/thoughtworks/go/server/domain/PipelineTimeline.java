@@ -17,18 +17,18 @@
 package com.thoughtworks.go.server.domain;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.TreeSet;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import com.rits.cloning.Cloner;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.domain.PipelineTimelineEntry;
 import com.thoughtworks.go.listener.TimelineUpdateListener;
@@ -43,20 +43,19 @@ import org.springframework.transaction.support.TransactionSynchronizationAdapter
 
 /**
  * @understands a sorted collection of PipelineMaterialModification
+ * Readers see an immutable snapshot without locking. Updates are serialized, prepared aside and published by swapping the snapshot.
  */
 public class PipelineTimeline {
     private static final Logger LOGGER = Logger.getLogger(PipelineTimeline.class);
 
-    private final Map<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> naturalOrderPmm;
-    private final Map<CaseInsensitiveString, ArrayList<PipelineTimelineEntry>> scheduleOrderPmm;
+    private volatile Map<CaseInsensitiveString, PipelineInstances> instancesByPipeline;
     private volatile long maximumId;
     private final PipelineRepository pipelineRepository;
     private TransactionTemplate transactionTemplate;
     private TransactionSynchronizationManager transactionSynchronizationManager;
     private TimelineUpdateListener[] listeners;
-    private final ReadWriteLock naturalOrderLock = new ReentrantReadWriteLock();
-    private final ReadWriteLock scheduleOrderLock = new ReentrantReadWriteLock();
-    private final Cloner cloner = new Cloner();
+    private final Object updateMutex = new Object();
+    private PendingUpdate pendingUpdate;
 
     @Autowired
     public PipelineTimeline(PipelineRepository pipelineRepository, TransactionTemplate transactionTemplate, TransactionSynchronizationManager transactionSynchronizationManager,
@@ -65,8 +64,7 @@ public class PipelineTimeline {
         this.transactionTemplate = transactionTemplate;
         this.transactionSynchronizationManager = transactionSynchronizationManager;
         this.listeners = listeners;
-        naturalOrderPmm = new HashMap<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>>();
-        scheduleOrderPmm = new HashMap<CaseInsensitiveString, ArrayList<PipelineTimelineEntry>>();
+        instancesByPipeline = new HashMap<CaseInsensitiveString, PipelineInstances>();
         maximumId = -1;
     }
 
@@ -75,16 +73,11 @@ public class PipelineTimeline {
      */
     @Deprecated
     public Collection<PipelineTimelineEntry> getEntriesFor(String pipelineName) {
-        naturalOrderLock.readLock().lock();
-        try {
-            TreeSet<PipelineTimelineEntry> tree = naturalOrderPmm.get(new CaseInsensitiveString(pipelineName));
-            if (tree == null) {
-                tree = new TreeSet<PipelineTimelineEntry>();
-            }
-            return Collections.unmodifiableCollection(cloner.deepClone(tree));
-        } finally {
-            naturalOrderLock.readLock().unlock();
+        PipelineInstances instances = instancesByPipeline.get(new CaseInsensitiveString(pipelineName));
+        if (instances == null) {
+            return Collections.emptyList();
         }
+        return instances.naturalOrder();
     }
 
     public long maximumId() {
@@ -92,18 +85,19 @@ public class PipelineTimeline {
     }
 
     public void add(PipelineTimelineEntry pipelineTimelineEntry) {
-        CaseInsensitiveString pipelineName = new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName());
-        initializedNaturalOrderCollection(pipelineName).add(pipelineTimelineEntry);
-        initializedScheduleOrderCollection(pipelineName).add(pipelineTimelineEntry);
-        pipelineTimelineEntry.setInsertedBefore(naturalOrderAfter(pipelineTimelineEntry));
-        pipelineTimelineEntry.setInsertedAfter(naturalOrderBefore(pipelineTimelineEntry));
-        pipelineTimelineEntry.updateNaturalOrder();
-        updateMaximumId(pipelineTimelineEntry.getId());
+        synchronized (updateMutex) {
+            if (pendingUpdate != null) {
+                pendingUpdate.add(pipelineTimelineEntry);
+                return;
+            }
+            PendingUpdate update = new PendingUpdate();
+            update.add(pipelineTimelineEntry);
+            publish(update);
+        }
     }
 
     public void update() {
-        acquireAllWriteLocks();
-        try {
+        synchronized (updateMutex) {
             final long maximumIdBeforeUpdate = maximumId;
             transactionTemplate.execute(new TransactionCallback() {
                 public Object doInTransaction(TransactionStatus transactionStatus) {
@@ -111,50 +105,61 @@ public class PipelineTimeline {
                     transactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
                         @Override public void afterCompletion(int status) {
                             if (STATUS_ROLLED_BACK == status) {
-                                rollbackTempEntries();
+                                rollback(tempEntries[0], maximumIdBeforeUpdate);
                             } else if (STATUS_COMMITTED == status) {
                                 notifyListeners(tempEntries[0]);
                             }
                         }
-
-                        private void rollbackTempEntries() {
-                            for (PipelineTimelineEntry entry : tempEntries[0]) {
-                                rollbackNewEntryFor(entry);
-                            }
-                            maximumId = maximumIdBeforeUpdate;
-                        }
-
-                        private void rollbackNewEntryFor(PipelineTimelineEntry entry) {
-                            CaseInsensitiveString pipelineName = new CaseInsensitiveString(entry.getPipelineName());
-                            initializedNaturalOrderCollection(pipelineName).remove(entry);
-                            initializedScheduleOrderCollection(pipelineName).remove(entry);
-                        }
-
-
                     });
-                    tempEntries[0] = pipelineRepository.updatePipelineTimeline(PipelineTimeline.this);
+                    tempEntries[0] = loadNewEntries();
                     return null;
                 }
             });
-        } finally {
-            releaseAllWriteLocks();
         }
     }
 
+    /**
+     * This is called on system init and is called by Spring. Hence, this is not done in a transaction. At any other time, the method update should be used
+     */
+    public void updateTimelineOnInit() {
+        synchronized (updateMutex) {
+            loadNewEntries();
+        }
+    }
 
-    // --------------------------------------------------------
-    // These methods should acquire and release lock in corresponding order.
-    private void acquireAllWriteLocks() {
-        naturalOrderLock.writeLock().lock();
-        scheduleOrderLock.writeLock().lock();
+    private List<PipelineTimelineEntry> loadNewEntries() {
+        pendingUpdate = new PendingUpdate();
+        try {
+            List<PipelineTimelineEntry> newEntries = pipelineRepository.updatePipelineTimeline(this);
+            publish(pendingUpdate);
+            return newEntries;
+        } finally {
+            pendingUpdate = null;
+        }
     }
 
-    //Release in the reverse of the acquired order.
-    private void releaseAllWriteLocks() {
-        scheduleOrderLock.writeLock().unlock();
-        naturalOrderLock.writeLock().unlock();
+    private void rollback(List<PipelineTimelineEntry> newEntries, long maximumIdBeforeUpdate) {
+        synchronized (updateMutex) {
+            if (newEntries != null) {
+                PendingUpdate update = new PendingUpdate();
+                update.removeAll(newEntries);
+                publish(update);
+            }
+            maximumId = maximumIdBeforeUpdate;
+        }
+    }
+
+    private void publish(PendingUpdate update) {
+        if (update.changedPipelines.isEmpty()) {
+            return;
+        }
+        Map<CaseInsensitiveString, PipelineInstances> updated = new HashMap<CaseInsensitiveString, PipelineInstances>(instancesByPipeline);
+        for (Map.Entry<CaseInsensitiveString, InstancesBuilder> changed : update.changedPipelines.entrySet()) {
+            updated.put(changed.getKey(), changed.getValue().build());
+        }
+        instancesByPipeline = updated;
+        maximumId = Math.max(maximumId, update.maximumId);
     }
-    // --------------------------------------------------------
 
     private void notifyListeners(List<PipelineTimelineEntry> newEntries) {
         Map<CaseInsensitiveString, PipelineTimelineEntry> pipelineToOldestEntry = new HashMap<CaseInsensitiveString, PipelineTimelineEntry>();
@@ -166,10 +171,15 @@ public class PipelineTimeline {
             }
         }
 
+        Map<CaseInsensitiveString, PipelineInstances> snapshot = instancesByPipeline;
         for (TimelineUpdateListener listener : listeners) {
             for (Map.Entry<CaseInsensitiveString, PipelineTimelineEntry> entry : pipelineToOldestEntry.entrySet()) {
+                PipelineInstances instances = snapshot.get(entry.getKey());
+                if (instances == null) {
+                    continue;
+                }
                 try {
-                    listener.added(entry.getValue(), naturalOrderPmm.get(entry.getKey()));
+                    listener.added(entry.getValue(), instances.naturalOrder());
                 } catch (Exception e) {
                     LOGGER.warn("Ignoring exception when notifying listener: " + listener, e);
                 }
@@ -177,39 +187,17 @@ public class PipelineTimeline {
         }
     }
 
-    /**
-     * This is called on system init and is called by Spring. Hence, this is not done in a transaction. At any other time, the method update should be used
-     */
-    public void updateTimelineOnInit() {
-        acquireAllWriteLocks();
-        try {
-            pipelineRepository.updatePipelineTimeline(this);
-        } finally {
-            releaseAllWriteLocks();
-        }
-    }
-
     /**
      * @param id           for the pipeline
      * @param pipelineName
      * @return PMM which was before the pipeline with this id at the time of insertion of the PTE with the id or null if there was nothing before this pipeline during insertion
      */
     public PipelineTimelineEntry runBefore(long id, final CaseInsensitiveString pipelineName) {
-        naturalOrderLock.readLock().lock();
-        try {
-            TreeSet<PipelineTimelineEntry> treeForPipeline = naturalOrderPmm.get(pipelineName);
-            if (treeForPipeline == null) {
-                return null;
-            }
-            for (PipelineTimelineEntry pipelineTimelineEntry : treeForPipeline) {
-                if (id == pipelineTimelineEntry.getId()) {
-                    return pipelineTimelineEntry.insertedAfter();
-                }
-            }
-            throw new RuntimeException("Cannot find pipeline with id: " + id);
-        } finally {
-            naturalOrderLock.readLock().unlock();
+        PipelineInstances instances = instancesByPipeline.get(pipelineName);
+        if (instances == null) {
+            return null;
         }
+        return instances.mandatoryWithId(id).insertedAfter();
     }
 
     /**
@@ -218,147 +206,246 @@ public class PipelineTimeline {
      * @return PMM which was after the pipeline with this id at the time of insertion of the PTE with the id or null if there was nothing after this pipeline during insertion
      */
     public PipelineTimelineEntry runAfter(long id, final CaseInsensitiveString pipelineName) {
-        naturalOrderLock.readLock().lock();
-        try {
-            TreeSet<PipelineTimelineEntry> treeForPipeline = naturalOrderPmm.get(pipelineName);
-            if (treeForPipeline == null) {
-                return null;
-            }
-            for (PipelineTimelineEntry pipelineTimelineEntry : treeForPipeline) {
-                if (id == pipelineTimelineEntry.getId()) {
-                    return pipelineTimelineEntry.insertedBefore();
-                }
-            }
-            throw new RuntimeException("Cannot find pipeline with id: " + id);
-        } finally {
-            naturalOrderLock.readLock().unlock();
+        PipelineInstances instances = instancesByPipeline.get(pipelineName);
+        if (instances == null) {
+            return null;
         }
+        return instances.mandatoryWithId(id).insertedBefore();
     }
 
-    private void updateMaximumId(long id) {
-        maximumId = Math.max(id, maximumId);
+    PipelineTimelineEntry naturalOrderBefore(PipelineTimelineEntry pipelineTimelineEntry) {
+        PipelineInstances instances = instancesByPipeline.get(new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName()));
+        return instances == null ? null : instances.lower(pipelineTimelineEntry);
     }
 
-    private TreeSet<PipelineTimelineEntry> initializedNaturalOrderCollection(final CaseInsensitiveString pipelineName) {
-        if (!naturalOrderPmm.containsKey(pipelineName)) {
-            naturalOrderPmm.put(pipelineName, new TreeSet<PipelineTimelineEntry>());
+    public long pipelineBefore(long id) {
+        for (PipelineInstances instances : instancesByPipeline.values()) {
+            PipelineTimelineEntry entry = instances.withId(id);
+            if (entry != null) {
+                PipelineTimelineEntry timelineEntry = instances.lower(entry);
+                return timelineEntry == null ? -1 : timelineEntry.getId();
+            }
         }
-        return naturalOrderPmm.get(pipelineName);
+        return -1;
     }
 
-    private ArrayList<PipelineTimelineEntry> initializedScheduleOrderCollection(final CaseInsensitiveString pipelineName) {
-        if (!scheduleOrderPmm.containsKey(pipelineName)) {
-            scheduleOrderPmm.put(pipelineName, new ArrayList<PipelineTimelineEntry>());
+    public long pipelineAfter(long id) {
+        for (PipelineInstances instances : instancesByPipeline.values()) {
+            PipelineTimelineEntry entry = instances.withId(id);
+            if (entry != null) {
+                PipelineTimelineEntry timelineEntry = instances.higher(entry);
+                return timelineEntry == null ? -1 : timelineEntry.getId();
+            }
         }
-        return scheduleOrderPmm.get(pipelineName);
+        return -1;
     }
 
-    private PipelineTimelineEntry naturalOrderAfter(PipelineTimelineEntry pipelineTimelineEntry) {
-        naturalOrderLock.readLock().lock();
-        try {
-            return naturalOrderPmm.get(new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName())).higher(pipelineTimelineEntry);
-        } finally {
-            naturalOrderLock.readLock().unlock();
+    /**
+     * @deprecated No reason why you should use this apart from test tear down
+     */
+    @Deprecated
+    public void clearWhichIsEvilAndShouldNotBeUsedInRealWorld() {
+        synchronized (updateMutex) {
+            instancesByPipeline = new HashMap<CaseInsensitiveString, PipelineInstances>();
         }
     }
 
-    PipelineTimelineEntry naturalOrderBefore(PipelineTimelineEntry pipelineTimelineEntry) {
-        naturalOrderLock.readLock().lock();
-        try {
-            return naturalOrderPmm.get(new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName())).lower(pipelineTimelineEntry);
-        } finally {
-            naturalOrderLock.readLock().unlock();
+    public int instanceCount(CaseInsensitiveString pipelineName) {
+        PipelineInstances instances = instancesByPipeline.get(pipelineName);
+        return instances == null ? 0 : instances.size();
+    }
+
+    public PipelineTimelineEntry instanceFor(CaseInsensitiveString pipelineName, int index) {
+        PipelineInstances instances = instancesByPipeline.get(pipelineName);
+        return instances == null ? null : instances.scheduledAt(index);
+    }
+
+    public PipelineTimelineEntry getEntryFor(CaseInsensitiveString pipelineName, Integer pipelineCounter) {
+        PipelineInstances instances = instancesByPipeline.get(pipelineName);
+        return instances == null ? null : instances.withCounter(pipelineCounter);
+    }
+
+    private static int naturalPosition(List<PipelineTimelineEntry> naturalOrder, PipelineTimelineEntry entry) {
+        int low = 0;
+        int high = naturalOrder.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = naturalOrder.get(middle).compareTo(entry);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
         }
+        return -(low + 1);
     }
 
-    public long pipelineBefore(long id) {
-        naturalOrderLock.readLock().lock();
-        try {
-            for (Map.Entry<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> nameToEntry : naturalOrderPmm.entrySet()) {
-                for (PipelineTimelineEntry entry : nameToEntry.getValue()) {
-                    if (entry.getId() == id) {
-                        PipelineTimelineEntry timelineEntry = naturalOrderBefore(entry);
-                        if (timelineEntry == null) {
-                            return -1;
-                        }
-                        return timelineEntry.getId();
-                    }
+    private static PipelineTimelineEntry lower(List<PipelineTimelineEntry> naturalOrder, PipelineTimelineEntry entry) {
+        int position = naturalPosition(naturalOrder, entry);
+        int index = position >= 0 ? position - 1 : -(position + 1) - 1;
+        return index >= 0 ? naturalOrder.get(index) : null;
+    }
+
+    private static PipelineTimelineEntry higher(List<PipelineTimelineEntry> naturalOrder, PipelineTimelineEntry entry) {
+        int position = naturalPosition(naturalOrder, entry);
+        int index = position >= 0 ? position + 1 : -(position + 1);
+        return index < naturalOrder.size() ? naturalOrder.get(index) : null;
+    }
+
+    /**
+     * Published instances of one pipeline. Never changed once built, so readers need no locking.
+     * Ids are kept as primitives in schedule order, and are binary searched while they ascend, which they do unless entries were added out of order.
+     * Both arrays share the same entries, but every entry is still held with all its revisions, so memory grows with the number of pipeline runs.
+     */
+    private static class PipelineInstances {
+        private static final PipelineInstances NONE = new PipelineInstances(new PipelineTimelineEntry[0], new PipelineTimelineEntry[0]);
+
+        private final PipelineTimelineEntry[] naturalOrder;
+        private final PipelineTimelineEntry[] scheduleOrder;
+        private final long[] ids;
+        private final boolean idsAscending;
+
+        private PipelineInstances(PipelineTimelineEntry[] naturalOrder, PipelineTimelineEntry[] scheduleOrder) {
+            this.naturalOrder = naturalOrder;
+            this.scheduleOrder = scheduleOrder;
+            this.ids = new long[scheduleOrder.length];
+            boolean ascending = true;
+            for (int i = 0; i < scheduleOrder.length; i++) {
+                ids[i] = scheduleOrder[i].getId();
+                ascending = ascending && (i == 0 || ids[i - 1] < ids[i]);
+            }
+            this.idsAscending = ascending;
+        }
+
+        List<PipelineTimelineEntry> naturalOrder() {
+            return Collections.unmodifiableList(Arrays.asList(naturalOrder));
+        }
+
+        int size() {
+            return scheduleOrder.length;
+        }
+
+        PipelineTimelineEntry scheduledAt(int index) {
+            return scheduleOrder[index];
+        }
+
+        PipelineTimelineEntry withId(long id) {
+            if (idsAscending) {
+                int index = Arrays.binarySearch(ids, id);
+                return index >= 0 ? scheduleOrder[index] : null;
+            }
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return scheduleOrder[i];
                 }
             }
-            return -1;
-        } finally {
-            naturalOrderLock.readLock().unlock();
+            return null;
         }
-    }
 
-    public long pipelineAfter(long id) {
-        naturalOrderLock.readLock().lock();
-        try {
-            for (Map.Entry<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> nameToEntry : naturalOrderPmm.entrySet()) {
-                for (PipelineTimelineEntry entry : nameToEntry.getValue()) {
-                    if (entry.getId() == id) {
-                        PipelineTimelineEntry timelineEntry = naturalOrderAfter(entry);
-                        if (timelineEntry == null) {
-                            return -1;
-                        }
-                        return timelineEntry.getId();
-                    }
+        PipelineTimelineEntry mandatoryWithId(long id) {
+            PipelineTimelineEntry entry = withId(id);
+            if (entry == null) {
+                throw new RuntimeException("Cannot find pipeline with id: " + id);
+            }
+            return entry;
+        }
+
+        PipelineTimelineEntry withCounter(int counter) {
+            for (int i = scheduleOrder.length - 1; i >= 0; i--) {
+                if (scheduleOrder[i].getCounter() == counter) {
+                    return scheduleOrder[i];
                 }
             }
-            return -1;
-        } finally {
-            naturalOrderLock.readLock().unlock();
+            return null;
         }
-    }
 
-    /**
-     * @deprecated No reason why you should use this apart from test tear down
-     */
-    @Deprecated
-    public void clearWhichIsEvilAndShouldNotBeUsedInRealWorld() {
-        acquireAllWriteLocks();
-        try {
-            naturalOrderPmm.clear();
-            scheduleOrderPmm.clear();
-        } finally {
-            releaseAllWriteLocks();
+        PipelineTimelineEntry lower(PipelineTimelineEntry entry) {
+            return PipelineTimeline.lower(Arrays.asList(naturalOrder), entry);
         }
-    }
 
-    public int instanceCount(CaseInsensitiveString pipelineName) {
-        scheduleOrderLock.readLock().lock();
-        try {
-            ArrayList<PipelineTimelineEntry> instances = scheduleOrderPmm.get(pipelineName);
-            return instances == null ? 0 : instances.size();
-        } finally {
-            scheduleOrderLock.readLock().unlock();
+        PipelineTimelineEntry higher(PipelineTimelineEntry entry) {
+            return PipelineTimeline.higher(Arrays.asList(naturalOrder), entry);
         }
     }
 
-    public PipelineTimelineEntry instanceFor(CaseInsensitiveString pipelineName, int index) {
-        scheduleOrderLock.readLock().lock();
-        try {
-            ArrayList<PipelineTimelineEntry> instances = scheduleOrderPmm.get(pipelineName);
-            return instances == null ? null : instances.get(index);
-        } finally {
-            scheduleOrderLock.readLock().unlock();
+    private static class InstancesBuilder {
+        private final ArrayList<PipelineTimelineEntry> naturalOrder;
+        private final ArrayList<PipelineTimelineEntry> scheduleOrder;
+
+        private InstancesBuilder(PipelineInstances published) {
+            naturalOrder = new ArrayList<PipelineTimelineEntry>(Arrays.asList(published.naturalOrder));
+            scheduleOrder = new ArrayList<PipelineTimelineEntry>(Arrays.asList(published.scheduleOrder));
+        }
+
+        void add(PipelineTimelineEntry entry) {
+            int position = naturalPosition(naturalOrder, entry);
+            if (position >= 0) {
+                return;
+            }
+            naturalOrder.add(-(position + 1), entry);
+            scheduleOrder.add(entry);
+        }
+
+        void remove(Set<Long> ids) {
+            removeFrom(naturalOrder, ids);
+            removeFrom(scheduleOrder, ids);
+        }
+
+        private void removeFrom(List<PipelineTimelineEntry> entries, Set<Long> ids) {
+            for (Iterator<PipelineTimelineEntry> iterator = entries.iterator(); iterator.hasNext(); ) {
+                if (ids.contains(iterator.next().getId())) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        PipelineInstances build() {
+            return new PipelineInstances(naturalOrder.toArray(new PipelineTimelineEntry[naturalOrder.size()]), scheduleOrder.toArray(new PipelineTimelineEntry[scheduleOrder.size()]));
         }
     }
 
+    /**
+     * Changes to the pipelines touched by one update, invisible to readers until published.
+     */
+    private class PendingUpdate {
+        private final Map<CaseInsensitiveString, InstancesBuilder> changedPipelines = new HashMap<CaseInsensitiveString, InstancesBuilder>();
+        private long maximumId = -1;
+
+        void add(PipelineTimelineEntry entry) {
+            InstancesBuilder builder = builderFor(new CaseInsensitiveString(entry.getPipelineName()));
+            builder.add(entry);
+            entry.setInsertedBefore(higher(builder.naturalOrder, entry));
+            entry.setInsertedAfter(lower(builder.naturalOrder, entry));
+            entry.updateNaturalOrder();
+            maximumId = Math.max(maximumId, entry.getId());
+        }
 
-    public PipelineTimelineEntry getEntryFor(CaseInsensitiveString pipelineName, Integer pipelineCounter) {
-        scheduleOrderLock.readLock().lock();
-        try {
-            ArrayList<PipelineTimelineEntry> instances = scheduleOrderPmm.get(pipelineName);
-            for (int i=instances.size()-1; i >= 0; i--) {
-                PipelineTimelineEntry instance = instances.get(i);
-                if (instance.getCounter() == pipelineCounter) {
-                    return instance;
+        void removeAll(List<PipelineTimelineEntry> entries) {
+            Map<CaseInsensitiveString, Set<Long>> idsByPipeline = new HashMap<CaseInsensitiveString, Set<Long>>();
+            for (PipelineTimelineEntry entry : entries) {
+                CaseInsensitiveString pipelineName = new CaseInsensitiveString(entry.getPipelineName());
+                Set<Long> ids = idsByPipeline.get(pipelineName);
+                if (ids == null) {
+                    ids = new HashSet<Long>();
+                    idsByPipeline.put(pipelineName, ids);
                 }
+                ids.add(entry.getId());
             }
-            return null;
-        } finally {
-            scheduleOrderLock.readLock().unlock();
+            for (Map.Entry<CaseInsensitiveString, Set<Long>> pipelineAndIds : idsByPipeline.entrySet()) {
+                builderFor(pipelineAndIds.getKey()).remove(pipelineAndIds.getValue());
+            }
+        }
+
+        private InstancesBuilder builderFor(CaseInsensitiveString pipelineName) {
+            InstancesBuilder builder = changedPipelines.get(pipelineName);
+            if (builder == null) {
+                PipelineInstances published = instancesByPipeline.get(pipelineName);
+                builder = new InstancesBuilder(published == null ? PipelineInstances.NONE : published);
+                changedPipelines.put(pipelineName, builder);
+            }
+            return builder;
         }
     }
 
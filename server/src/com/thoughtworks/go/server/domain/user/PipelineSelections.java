@@ -19,6 +19,8 @@ package com.thoughtworks.go.server.domain.user;
 import java.util.Date;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 import java.io.Serializable;
 
 import com.thoughtworks.go.config.CaseInsensitiveString;
@@ -42,7 +44,7 @@ public class PipelineSelections extends PersistentObject implements Serializable
     };
     private List<String> pipelines;
     private Long userId;
-    private List<CaseInsensitiveString> caseInsensitivePipelineList = new ArrayList<CaseInsensitiveString>();
+    private Set<CaseInsensitiveString> caseInsensitivePipelineList = new HashSet<CaseInsensitiveString>();
     private boolean isBlacklist;
 
     public PipelineSelections() {
@@ -94,7 +96,7 @@ public class PipelineSelections extends PersistentObject implements Serializable
         return pipelines;
     }
 
-    private List<CaseInsensitiveString> caseInsensitivePipelineList() {
+    private Set<CaseInsensitiveString> caseInsensitivePipelineList() {
         return caseInsensitivePipelineList;
     }
 
@@ -105,7 +107,7 @@ public class PipelineSelections extends PersistentObject implements Serializable
 
     private void setSelections(String unselectedPipelines) {
         this.pipelines = ListUtil.split(unselectedPipelines, ",");
-        List<CaseInsensitiveString> pipelineList = new ArrayList<CaseInsensitiveString>();
+        Set<CaseInsensitiveString> pipelineList = new HashSet<CaseInsensitiveString>();
         for (String pipeline : pipelines) {
             pipelineList.add(new CaseInsensitiveString(pipeline));
         }
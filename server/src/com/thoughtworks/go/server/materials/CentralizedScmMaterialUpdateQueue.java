@@ -0,0 +1,34 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.server.messaging.GoMessageQueue;
+import com.thoughtworks.go.server.messaging.MessagingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * @understands requests to update subversion, perforce and tfs materials, kept apart so they do not hold up other materials
+ */
+@Component
+public class CentralizedScmMaterialUpdateQueue extends GoMessageQueue<MaterialUpdateMessage> {
+    @Autowired
+    public CentralizedScmMaterialUpdateQueue(MessagingService messaging) {
+        super(messaging, "centralized-scm-material-update-required");
+    }
+}
@@ -14,32 +14,21 @@
  * limitations under the License.
  *************************GO-LICENSE-END***********************************/
 
-package com.thoughtworks.go.server.dao.sparql;
 
-/**
-* @understands a commiter of a pipeline instance
-*/
-class PipelineCommiter {
-
-    private final String userName;
-    private final Integer failedPipelineCounter;
-    private final String failedPipelineLabel;
-
-    public PipelineCommiter(String userName, Integer failedPipelineCounter, String failedPipelineLabel) {
-        this.userName = userName;
-        this.failedPipelineCounter = failedPipelineCounter;
-        this.failedPipelineLabel = failedPipelineLabel;
-    }
+package com.thoughtworks.go.server.materials;
 
-    public int getFailedPipelineCounter() {
-        return failedPipelineCounter;
-    }
-
-    public String getFailedPipelineLabel() {
-        return failedPipelineLabel;
-    }
+import com.thoughtworks.go.server.messaging.GoMessageQueue;
+import com.thoughtworks.go.server.messaging.MessagingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
 
-    public String getUserName() {
-        return userName;
+/**
+ * @understands requests to update dependency materials, kept apart so they do not hold up other materials
+ */
+@Component
+public class DependencyMaterialUpdateQueue extends GoMessageQueue<MaterialUpdateMessage> {
+    @Autowired
+    public DependencyMaterialUpdateQueue(MessagingService messaging) {
+        super(messaging, "dependency-material-update-required");
     }
 }
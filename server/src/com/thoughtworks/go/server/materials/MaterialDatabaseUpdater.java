@@ -73,13 +73,17 @@ public class MaterialDatabaseUpdater {
         this.materialExpansionService = materialExpansionService;
     }
 
-    public void updateMaterial(final Material material) throws Exception {
+    /**
+     * @return whether the update found revisions that were not already known for the material
+     */
+    public boolean updateMaterial(final Material material) throws Exception {
         String cacheKeyForMaterial = DependencyMaterialUpdater.cacheKeyForDependencyMaterial(material);
         if (thisDependencyMaterialHasAlreadyBeenProcessed(material, cacheKeyForMaterial)) {
-            return;
+            return false;
         }
 
         HealthStateScope scope = HealthStateScope.forMaterial(material);
+        boolean foundNewModifications = true;
         try {
             MaterialInstance materialInstance = materialRepository.findMaterialInstance(material);
             if (materialInstance == null) {
@@ -104,6 +108,7 @@ public class MaterialDatabaseUpdater {
                 }
 
                 synchronized (cacheKeyForMaterial) {
+                    MaterialRevisions before = materialRepository.findLatestModification(material);
                     transactionTemplate.executeWithExceptionHandling(new TransactionCallback() {
                         @Override
                         public Object doInTransaction(TransactionStatus status) throws Exception {
@@ -111,6 +116,7 @@ public class MaterialDatabaseUpdater {
                             return null;
                         }
                     });
+                    foundNewModifications = hasLatestRevisionChanged(before, materialRepository.findLatestModification(material));
                 }
             }
             healthService.removeByScope(scope);
@@ -121,6 +127,14 @@ public class MaterialDatabaseUpdater {
             LOGGER.warn(String.format("[Material Update] %s", message), e);
             throw e;
         }
+        return foundNewModifications;
+    }
+
+    private boolean hasLatestRevisionChanged(MaterialRevisions before, MaterialRevisions after) {
+        if (before == null || after == null) {
+            return true;
+        }
+        return !after.isSameAs(before);
     }
 
     private boolean thisDependencyMaterialHasAlreadyBeenProcessed(Material material, String cacheKeyForMaterial) {
@@ -45,9 +45,9 @@ public class MaterialUpdateListener implements GoMessageListener<MaterialUpdateM
         try {
             mduPerformanceLogger.pickedUpMaterialForMDU(message.trackingId(), material);
             bombIf(diskSpaceMonitor.isLowOnDisk(), "Cruise server is too low on disk to continue with material update");
-            updater.updateMaterial(material);
+            boolean foundNewModifications = updater.updateMaterial(material);
             mduPerformanceLogger.postingMessageAboutMDUCompletion(message.trackingId(), material);
-            topic.post(new MaterialUpdateSuccessfulMessage(material, message.trackingId())); //This should happen only if the transaction is committed.
+            topic.post(new MaterialUpdateSuccessfulMessage(material, message.trackingId(), foundNewModifications)); //This should happen only if the transaction is committed.
         }
         catch (Exception e) {
             topic.post(new MaterialUpdateFailedMessage(material, message.trackingId(), e));
@@ -18,6 +18,7 @@ package com.thoughtworks.go.server.materials;
 
 import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.cronjob.GoDiskSpaceMonitor;
+import com.thoughtworks.go.server.messaging.GoMessageQueue;
 import com.thoughtworks.go.server.perf.MDUPerformanceLogger;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.MaterialExpansionService;
@@ -32,6 +33,8 @@ public class MaterialUpdateListenerFactory {
     private MaterialUpdateCompletedTopic topic;
     private final MaterialRepository materialRepository;
     private MaterialUpdateQueue queue;
+    private CentralizedScmMaterialUpdateQueue centralizedScmQueue;
+    private DependencyMaterialUpdateQueue dependencyQueue;
     private SystemEnvironment systemEnvironment;
     private final ServerHealthService serverHealthService;
     private final GoDiskSpaceMonitor diskSpaceMonitor;
@@ -47,6 +50,8 @@ public class MaterialUpdateListenerFactory {
     @Autowired
     public MaterialUpdateListenerFactory(MaterialUpdateCompletedTopic topic,
                                          MaterialUpdateQueue queue,
+                                         CentralizedScmMaterialUpdateQueue centralizedScmQueue,
+                                         DependencyMaterialUpdateQueue dependencyQueue,
                                          MaterialRepository materialRepository,
                                          SystemEnvironment systemEnvironment,
                                          ServerHealthService serverHealthService,
@@ -58,6 +63,8 @@ public class MaterialUpdateListenerFactory {
                                          PackageMaterialUpdater packageMaterialUpdater, PluggableSCMMaterialUpdater pluggableSCMMaterialUpdater, MaterialExpansionService materialExpansionService, MDUPerformanceLogger mduPerformanceLogger) {
         this.topic = topic;
         this.queue = queue;
+        this.centralizedScmQueue = centralizedScmQueue;
+        this.dependencyQueue = dependencyQueue;
         this.materialRepository = materialRepository;
         this.systemEnvironment = systemEnvironment;
         this.serverHealthService = serverHealthService;
@@ -73,8 +80,12 @@ public class MaterialUpdateListenerFactory {
     }
 
     public void init(){
-        int numberOfListeners = systemEnvironment.getNumberOfMaterialCheckListener();
+        addListeners(queue, systemEnvironment.getNumberOfMaterialCheckListener());
+        addListeners(centralizedScmQueue, systemEnvironment.getNumberOfCentralizedScmMaterialCheckListener());
+        addListeners(dependencyQueue, systemEnvironment.getNumberOfDependencyMaterialCheckListener());
+    }
 
+    private void addListeners(GoMessageQueue<MaterialUpdateMessage> queue, int numberOfListeners) {
         for (int i = 0; i < numberOfListeners; i++) {
             MaterialDatabaseUpdater updater = new MaterialDatabaseUpdater(materialRepository, serverHealthService, transactionTemplate, goCache, dependencyMaterialUpdater, scmMaterialUpdater,
                     packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService);
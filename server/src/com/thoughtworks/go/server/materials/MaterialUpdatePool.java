@@ -0,0 +1,135 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.server.materials;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.thoughtworks.go.domain.materials.Material;
+import com.thoughtworks.go.server.messaging.GoMessageQueue;
+
+/**
+ * @understands which pending material updates to hand to a queue, and when, so that the queue never holds more than its listeners can work on
+ */
+class MaterialUpdatePool {
+    enum Priority {
+        URGENT, NORMAL
+    }
+
+    private final GoMessageQueue<MaterialUpdateMessage> queue;
+    private final int capacity;
+    private final PriorityQueue<PendingUpdate> pending = new PriorityQueue<PendingUpdate>();
+    private final Map<Material, PendingUpdate> pendingByMaterial = new HashMap<Material, PendingUpdate>();
+    private final Map<Material, Long> sentAt = new HashMap<Material, Long>();
+    private final Map<Material, Integer> running = new HashMap<Material, Integer>();
+    private int runningCount;
+    private long sequence;
+
+    MaterialUpdatePool(GoMessageQueue<MaterialUpdateMessage> queue, int capacity) {
+        this.queue = queue;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    GoMessageQueue<MaterialUpdateMessage> queue() {
+        return queue;
+    }
+
+    synchronized void add(Material material, Priority priority, long now) {
+        PendingUpdate existing = pendingByMaterial.get(material);
+        if (existing != null) {
+            if (priority.compareTo(existing.priority) >= 0) {
+                return;
+            }
+            pending.remove(existing);
+        }
+        PendingUpdate update = new PendingUpdate(material, priority, existing == null ? now : existing.queuedAt, sequence++);
+        pending.add(update);
+        pendingByMaterial.put(material, update);
+    }
+
+    /**
+     * @return true if the material is still waiting to be sent, in which case it now waits with at least the given priority
+     */
+    synchronized boolean raiseIfPending(Material material, Priority priority, long now) {
+        if (!pendingByMaterial.containsKey(material)) {
+            return false;
+        }
+        add(material, priority, now);
+        return true;
+    }
+
+    synchronized PendingUpdate nextToSend(long now) {
+        if (runningCount >= capacity || pending.isEmpty()) {
+            return null;
+        }
+        PendingUpdate update = pending.poll();
+        pendingByMaterial.remove(update.material);
+        Integer count = running.get(update.material);
+        running.put(update.material, count == null ? 1 : count + 1);
+        runningCount++;
+        sentAt.put(update.material, now);
+        return update;
+    }
+
+    /**
+     * @return when the completed update was handed to the queue, or null if this pool did not send it
+     */
+    synchronized Long completed(Material material) {
+        Integer count = running.get(material);
+        if (count == null) {
+            return null;
+        }
+        if (count == 1) {
+            running.remove(material);
+        } else {
+            running.put(material, count - 1);
+        }
+        runningCount--;
+        return count == 1 ? sentAt.remove(material) : sentAt.get(material);
+    }
+
+    synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    static class PendingUpdate implements Comparable<PendingUpdate> {
+        final Material material;
+        final Priority priority;
+        final long queuedAt;
+        private final long sequence;
+
+        PendingUpdate(Material material, Priority priority, long queuedAt, long sequence) {
+            this.material = material;
+            this.priority = priority;
+            this.queuedAt = queuedAt;
+            this.sequence = sequence;
+        }
+
+        public int compareTo(PendingUpdate other) {
+            int byPriority = priority.compareTo(other.priority);
+            if (byPriority != 0) {
+                return byPriority;
+            }
+            if (queuedAt != other.queuedAt) {
+                return queuedAt < other.queuedAt ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+}
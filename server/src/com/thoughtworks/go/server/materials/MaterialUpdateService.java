@@ -23,12 +23,18 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.thoughtworks.go.config.CruiseConfig;
+import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
+import com.thoughtworks.go.config.materials.perforce.P4Material;
+import com.thoughtworks.go.config.materials.svn.SvnMaterial;
+import com.thoughtworks.go.config.materials.tfs.TfsMaterial;
 import com.thoughtworks.go.domain.PipelineGroups;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
 import com.thoughtworks.go.i18n.LocalizedMessage;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.materials.MaterialUpdatePool.PendingUpdate;
+import com.thoughtworks.go.server.materials.MaterialUpdatePool.Priority;
 import com.thoughtworks.go.server.materials.postcommit.PostCommitHookImplementer;
 import com.thoughtworks.go.server.materials.postcommit.PostCommitHookMaterialType;
 import com.thoughtworks.go.server.materials.postcommit.PostCommitHookMaterialTypeResolver;
@@ -53,39 +59,52 @@ import static java.lang.String.format;
 
 /**
  * @understands when to send requests to update a material on the database
+ *
+ * Updates are held here and handed to the queue for the material's type only as listeners free up, so an urgent
+ * request (a post-commit notification or a forced pipeline) overtakes the periodic polls still waiting for a listener.
+ * Materials in which no change was found are polled less and less often, up to the configured maximum interval. Dependency
+ * materials are left out of this, as polling is the only way a new stage of an upstream pipeline is noticed.
  */
 @Service
 public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCompletedMessage>, ConfigChangedListener {
     private static final Logger LOGGER = Logger.getLogger(MaterialUpdateService.class);
 
-    private final MaterialUpdateQueue updateQueue;
+    private final MaterialUpdatePool scmPool;
+    private final MaterialUpdatePool centralizedScmPool;
+    private final MaterialUpdatePool dependencyPool;
     private final GoConfigService goConfigService;
     private final SystemEnvironment systemEnvironment;
     private ServerHealthService serverHealthService;
 
     private ConcurrentHashMap<Material, Date> inProgress = new ConcurrentHashMap<Material, Date>();
     private ConcurrentHashMap<Material, Long> materialLastUpdateTimeMap = new ConcurrentHashMap<Material, Long>();
+    private ConcurrentHashMap<Material, Long> materialUpdateIntervals = new ConcurrentHashMap<Material, Long>();
 
     private final PostCommitHookMaterialTypeResolver postCommitHookMaterialType;
     private final MDUPerformanceLogger mduPerformanceLogger;
     private final MaterialConfigConverter materialConfigConverter;
     public static final String TYPE = "post_commit_hook_material_type";
     private final long materialUpdateInterval;
+    private final long maxMaterialUpdateInterval;
     private Set<Material> schedulableMaterials;
 
     @Autowired
-    public MaterialUpdateService(MaterialUpdateQueue queue, MaterialUpdateCompletedTopic completed, GoConfigService goConfigService,
+    public MaterialUpdateService(MaterialUpdateQueue queue, CentralizedScmMaterialUpdateQueue centralizedScmQueue, DependencyMaterialUpdateQueue dependencyQueue,
+                                 MaterialUpdateCompletedTopic completed, GoConfigService goConfigService,
                                  SystemEnvironment systemEnvironment, ServerHealthService serverHealthService,
                                  PostCommitHookMaterialTypeResolver postCommitHookMaterialType,
                                  MDUPerformanceLogger mduPerformanceLogger, MaterialConfigConverter materialConfigConverter) {
         this.goConfigService = goConfigService;
         this.systemEnvironment = systemEnvironment;
-        this.updateQueue = queue;
+        this.scmPool = new MaterialUpdatePool(queue, systemEnvironment.getNumberOfMaterialCheckListener());
+        this.centralizedScmPool = new MaterialUpdatePool(centralizedScmQueue, systemEnvironment.getNumberOfCentralizedScmMaterialCheckListener());
+        this.dependencyPool = new MaterialUpdatePool(dependencyQueue, systemEnvironment.getNumberOfDependencyMaterialCheckListener());
         this.serverHealthService = serverHealthService;
         this.postCommitHookMaterialType = postCommitHookMaterialType;
         this.mduPerformanceLogger = mduPerformanceLogger;
         this.materialConfigConverter = materialConfigConverter;
         this.materialUpdateInterval = systemEnvironment.getMaterialUpdateIdleInterval();
+        this.maxMaterialUpdateInterval = Math.max(materialUpdateInterval, systemEnvironment.getMaterialUpdateMaxIdleInterval());
         completed.addListener(this);
     }
 
@@ -100,7 +119,7 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
         }
         for (Material material : schedulableMaterials) {
             if (hasUpdateIntervalElapsedForScmMaterial(material)) {
-                updateMaterial(material);
+                updateMaterial(material, Priority.NORMAL);
             }
         }
     }
@@ -130,18 +149,23 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     }
 
     public void updateMaterial(Material material) {
+        updateMaterial(material, Priority.URGENT);
+    }
+
+    void updateMaterial(Material material, Priority priority) {
         Date inProgressSince = inProgress.putIfAbsent(material, new Date());
         if (inProgressSince == null || !material.isAutoUpdate()) {
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug(format("[Material Update] Updating material %s", material));
+                LOGGER.debug(format("[Material Update] Updating material %s with priority %s", material, priority));
             }
-            try {
-                long trackingId = mduPerformanceLogger.materialSentToUpdateQueue(material);
-                updateQueue.post(new MaterialUpdateMessage(material, trackingId));
-            } catch (RuntimeException e) {
-                inProgress.remove(material);
-                throw e;
+            MaterialUpdatePool pool = poolFor(material);
+            pool.add(material, priority, System.currentTimeMillis());
+            sendPendingUpdates(pool);
+        } else if (poolFor(material).raiseIfPending(material, priority, System.currentTimeMillis())) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(format("[Material Update] Material %s is still waiting for a listener, it now waits with priority %s", material, priority));
             }
+            sendPendingUpdates(poolFor(material));
         } else {
             LOGGER.warn(format("[Material Update] Skipping update of material %s which has been in-progress since %s", material, inProgressSince));
             long idleTime = getProcessManager().getIdleTimeFor(material.getFingerprint());
@@ -155,6 +179,32 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
         }
     }
 
+    private void sendPendingUpdates(MaterialUpdatePool pool) {
+        PendingUpdate update;
+        while ((update = pool.nextToSend(System.currentTimeMillis())) != null) {
+            Material material = update.material;
+            try {
+                long waited = System.currentTimeMillis() - update.queuedAt;
+                long trackingId = mduPerformanceLogger.materialSentToUpdateQueue(material, waited, pool.pendingCount());
+                pool.queue().post(new MaterialUpdateMessage(material, trackingId));
+            } catch (RuntimeException e) {
+                pool.completed(material);
+                inProgress.remove(material);
+                throw e;
+            }
+        }
+    }
+
+    private MaterialUpdatePool poolFor(Material material) {
+        if (material instanceof DependencyMaterial) {
+            return dependencyPool;
+        }
+        if (material instanceof SvnMaterial || material instanceof P4Material || material instanceof TfsMaterial) {
+            return centralizedScmPool;
+        }
+        return scmPool;
+    }
+
     private Long getMaterialUpdateInActiveTimeoutInMillis() {
         return systemEnvironment.get(SystemEnvironment.MATERIAL_UPDATE_INACTIVE_TIMEOUT) * 60 * 1000L;
     }
@@ -164,13 +214,16 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug(format("[Material Update] Material update completed for material %s", message.getMaterial()));
             }
-            updateLastUpdateTimeForScmMaterial(message.getMaterial());
+            MaterialUpdatePool pool = poolFor(message.getMaterial());
+            Long sentAt = pool.completed(message.getMaterial());
+            updateLastUpdateTimeForScmMaterial(message, sentAt);
             Date addedOn = inProgress.remove(message.getMaterial());
             serverHealthService.removeByScope(HealthStateScope.forMaterialUpdate(message.getMaterial()));
             if (addedOn == null) {
                 LOGGER.warn(format("[Material Update] Material %s was not removed from those inProgress. This might result in it's pipelines not getting scheduled. in-progress: %s",
                         message.getMaterial(), inProgress));
             }
+            sendPendingUpdates(pool);
         } finally {
             mduPerformanceLogger.completionMessageForMaterialReceived(message.trackingId(), message.getMaterial());
         }
@@ -202,7 +255,7 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
     boolean hasUpdateIntervalElapsedForScmMaterial(Material material) {
         if (materialLastUpdateTimeMap.containsKey(material)) {
             Long lastMaterialUpdateTime = materialLastUpdateTimeMap.get(material);
-            boolean shouldUpdateMaterial = (System.currentTimeMillis() - lastMaterialUpdateTime) >= materialUpdateInterval;
+            boolean shouldUpdateMaterial = (System.currentTimeMillis() - lastMaterialUpdateTime) >= updateIntervalFor(material);
             if (LOGGER.isDebugEnabled() && !shouldUpdateMaterial) {
                 LOGGER.debug(format("[Material Update] Skipping update of material %s which has been last updated at %s", material, new Date(lastMaterialUpdateTime)));
             }
@@ -211,13 +264,28 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
         return true;
     }
 
-    private void updateLastUpdateTimeForScmMaterial(Material material) {
-        materialLastUpdateTimeMap.put(material, System.currentTimeMillis());
+    long updateIntervalFor(Material material) {
+        Long interval = materialUpdateIntervals.get(material);
+        return interval == null ? materialUpdateInterval : interval;
+    }
+
+    private void updateLastUpdateTimeForScmMaterial(MaterialUpdateCompletedMessage message, Long sentAt) {
+        Material material = message.getMaterial();
+        long now = System.currentTimeMillis();
+        boolean foundNewModifications = message instanceof MaterialUpdateSuccessfulMessage && ((MaterialUpdateSuccessfulMessage) message).foundNewModifications();
+        boolean backsOff = !foundNewModifications && !(material instanceof DependencyMaterial);
+        long interval = backsOff ? Math.min(updateIntervalFor(material) * 2, maxMaterialUpdateInterval) : materialUpdateInterval;
+        if (sentAt != null) {
+            interval = Math.max(interval, Math.min(now - sentAt, maxMaterialUpdateInterval));
+        }
+        materialUpdateIntervals.put(material, interval);
+        materialLastUpdateTimeMap.put(material, now);
     }
 
     private void updateSchedulableMaterials(boolean forceLoad) {
         if (forceLoad || schedulableMaterials == null) {
             schedulableMaterials = materialConfigConverter.toMaterials(goConfigService.getSchedulableMaterials());
+            materialUpdateIntervals.keySet().retainAll(schedulableMaterials);
         }
     }
 }
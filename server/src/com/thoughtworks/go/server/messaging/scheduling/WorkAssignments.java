@@ -18,6 +18,7 @@ package com.thoughtworks.go.server.messaging.scheduling;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
 
 import com.thoughtworks.go.remote.AgentIdentifier;
 import com.thoughtworks.go.remote.work.NoWork;
@@ -25,56 +26,148 @@ import com.thoughtworks.go.remote.work.Work;
 import com.thoughtworks.go.server.messaging.GoMessageChannel;
 import com.thoughtworks.go.server.messaging.GoMessageListener;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+/**
+ * @understands handing work assigned to an agent back to it, holding its request open until the assignment arrives
+ * An idle agent's request is parked for up to the long poll timeout. While it is parked the agent is offered for
+ * matching again whenever new work may have become available (see rematchParkedAgents), and otherwise once every
+ * rematch interval, so work reaches an idle agent as soon as it is scheduled rather than on its next poll.
+ */
 @Service
 public class WorkAssignments implements GoMessageListener<WorkAssignedMessage> {
     private GoMessageChannel<IdleAgentMessage> idleAgentsTopic;
     private ConcurrentMap<AgentIdentifier, Work> assignments;
+    private final ConcurrentMap<String, Object> agentMutexes = new ConcurrentHashMap<String, Object>();
+    private final ConcurrentMap<AgentIdentifier, AgentRuntimeInfo> parked = new ConcurrentHashMap<AgentIdentifier, AgentRuntimeInfo>();
+    private final long longPollTimeout;
+    private final long rematchInterval;
+    private final Semaphore parkedAgents;
     private static final NoWork NO_WORK = new NoWork();
 
     @Autowired
     public WorkAssignments(IdleAgentTopic idleAgentsTopic,
-                           WorkAssignedTopic assignedWorkTopic) {
+                           WorkAssignedTopic assignedWorkTopic,
+                           SystemEnvironment systemEnvironment) {
+        this(idleAgentsTopic, assignedWorkTopic, systemEnvironment.get(SystemEnvironment.WORK_LONG_POLL_TIMEOUT_IN_MILLIS),
+                systemEnvironment.get(SystemEnvironment.WORK_LONG_POLL_REMATCH_INTERVAL_IN_MILLIS), systemEnvironment.get(SystemEnvironment.WORK_LONG_POLL_MAX_PARKED_AGENTS));
+    }
+
+    WorkAssignments(IdleAgentTopic idleAgentsTopic, WorkAssignedTopic assignedWorkTopic, long longPollTimeout, long rematchInterval, int maxParkedAgents) {
         this.idleAgentsTopic = idleAgentsTopic;
+        this.longPollTimeout = longPollTimeout;
+        this.rematchInterval = rematchInterval;
+        this.parkedAgents = new Semaphore(maxParkedAgents);
         assignedWorkTopic.addListener(this);
         this.assignments = new ConcurrentHashMap<AgentIdentifier, Work>();
     }
 
     public Work getWork(AgentRuntimeInfo runtimeInfo) {
         AgentIdentifier agent = runtimeInfo.getIdentifier();
-        synchronized (agentMutex(agent)) {
+        Object mutex = agentMutex(agent);
+        synchronized (mutex) {
             Work work = assignments.get(agent);
             if (work == null) {
-                assignments.put(agent, NO_WORK);
-                idleAgentsTopic.post(new IdleAgentMessage(runtimeInfo));
-                return NO_WORK;
+                askForWork(runtimeInfo);
+                return waitForAssignment(runtimeInfo, mutex);
             }
 
             if (work instanceof NoWork) {
-                return work;
+                return waitForAssignment(runtimeInfo, mutex);
             }
 
             return assignments.remove(agent);
         }
     }
 
-    private String agentMutex(AgentIdentifier agent) {
-        return agent.getUuid().intern();
+    private void askForWork(AgentRuntimeInfo runtimeInfo) {
+        assignments.put(runtimeInfo.getIdentifier(), NO_WORK);
+        idleAgentsTopic.post(new IdleAgentMessage(runtimeInfo));
+    }
+
+    private Work waitForAssignment(AgentRuntimeInfo runtimeInfo, Object mutex) {
+        if (longPollTimeout <= 0 || !parkedAgents.tryAcquire()) {
+            return NO_WORK;
+        }
+        AgentIdentifier agent = runtimeInfo.getIdentifier();
+        long deadline = System.currentTimeMillis() + longPollTimeout;
+        long rematchAt = 0;
+        parked.put(agent, runtimeInfo);
+        try {
+            while (true) {
+                Work work = assignments.get(agent);
+                if (work != null && !(work instanceof NoWork)) {
+                    return assignments.remove(agent);
+                }
+                long now = System.currentTimeMillis();
+                if (now >= deadline) {
+                    return NO_WORK;
+                }
+                long wakeAt = deadline;
+                if (work == null) {
+                    if (rematchAt == 0) {
+                        rematchAt = now + rematchInterval;
+                    }
+                    if (now >= rematchAt) {
+                        askForWork(runtimeInfo);
+                        rematchAt = 0;
+                        continue;
+                    }
+                    wakeAt = Math.min(deadline, rematchAt);
+                } else {
+                    rematchAt = 0;
+                }
+                mutex.wait(wakeAt - now);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return NO_WORK;
+        } finally {
+            parked.remove(agent);
+            parkedAgents.release();
+        }
+    }
+
+    /**
+     * Offers every parked agent that is not already being matched for matching again. Called when work has been
+     * scheduled or the configuration has changed, so that parked agents need not wait for the rematch interval.
+     */
+    public void rematchParkedAgents() {
+        for (AgentRuntimeInfo runtimeInfo : parked.values()) {
+            AgentIdentifier agent = runtimeInfo.getIdentifier();
+            synchronized (agentMutex(agent)) {
+                if (parked.containsKey(agent) && assignments.get(agent) == null) {
+                    askForWork(runtimeInfo);
+                }
+            }
+        }
+    }
+
+    private Object agentMutex(AgentIdentifier agent) {
+        Object mutex = agentMutexes.get(agent.getUuid());
+        if (mutex == null) {
+            Object newMutex = new Object();
+            mutex = agentMutexes.putIfAbsent(agent.getUuid(), newMutex);
+            if (mutex == null) {
+                mutex = newMutex;
+            }
+        }
+        return mutex;
     }
 
     public void onMessage(WorkAssignedMessage message) {
         AgentIdentifier agentIdentifier = message.getAgent();
         Work work = message.getWork();
-        if (work instanceof NoWork) {
-            synchronized (agentMutex(agentIdentifier)) {
+        Object mutex = agentMutex(agentIdentifier);
+        synchronized (mutex) {
+            if (work instanceof NoWork) {
                 assignments.remove(agentIdentifier);
-            }
-        } else {
-            synchronized (agentMutex(agentIdentifier)) {
+            } else {
                 assignments.replace(agentIdentifier, NO_WORK, work);
             }
+            mutex.notifyAll();
         }
     }
 
@@ -34,11 +34,11 @@ public class MDUPerformanceLogger {
         this.performanceLogger = performanceLogger;
     }
 
-    public long materialSentToUpdateQueue(Material material) {
+    public long materialSentToUpdateQueue(Material material, long waitedInMillis, int pendingUpdates) {
         long trackingId = currentTrackingId++;
 
         metricsProbeService.begin(ProbeType.MATERIAL_UPDATE_QUEUE_COUNTER);
-        performanceLogger.log("MDU-QUEUE-PUT {} {}", trackingId, material.getFingerprint());
+        performanceLogger.log("MDU-QUEUE-PUT {} {} waited {}ms, {} pending", trackingId, material.getFingerprint(), waitedInMillis, pendingUpdates);
 
         return trackingId;
     }
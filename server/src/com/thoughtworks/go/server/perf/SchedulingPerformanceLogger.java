@@ -23,6 +23,8 @@ import org.springframework.stereotype.Component;
 public class SchedulingPerformanceLogger {
     private PerformanceLogger performanceLogger;
     private long currentTrackingId = 0;
+    private final TimingHistogram queueWaitTimes = new TimingHistogram();
+    private final TimingHistogram schedulingTimes = new TimingHistogram();
 
     @Autowired
     public SchedulingPerformanceLogger(PerformanceLogger performanceLogger) {
@@ -79,7 +81,13 @@ public class SchedulingPerformanceLogger {
         performanceLogger.log("SCH-TO-BE-SCHEDULED-QUEUE-PUT {} {}", trackingId, pipelineName);
     }
 
-    public void scheduledPipeline(String pipelineName, int toBeScheduledQueueSize, long schedulePipelineStartTime, long schedulePipelineEndTime) {
-        performanceLogger.log("SCH-SCHEDULED {} {} {} {}", pipelineName, toBeScheduledQueueSize, schedulePipelineStartTime, schedulePipelineEndTime);
+    public void scheduledPipeline(String pipelineName, int toBeScheduledQueueSize, long queuedTime, long schedulePipelineStartTime, long schedulePipelineEndTime) {
+        queueWaitTimes.record(schedulePipelineStartTime - queuedTime);
+        schedulingTimes.record(schedulePipelineEndTime - schedulePipelineStartTime);
+        performanceLogger.log("SCH-SCHEDULED {} {} {} {} {}", pipelineName, toBeScheduledQueueSize, queuedTime, schedulePipelineStartTime, schedulePipelineEndTime);
+    }
+
+    public void scheduledPipelines(int numberOfPipelines) {
+        performanceLogger.log("SCH-SCHEDULED-BATCH {} queue-wait [{}] scheduling [{}]", numberOfPipelines, queueWaitTimes, schedulingTimes);
     }
 }
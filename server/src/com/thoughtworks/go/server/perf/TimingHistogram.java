@@ -0,0 +1,56 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.server.perf;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @understands how many timings fell into each power-of-two millisecond bucket
+ */
+public class TimingHistogram {
+    private static final int BUCKETS = 20;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long millis) {
+        counts.incrementAndGet(bucketFor(millis));
+    }
+
+    private int bucketFor(long millis) {
+        int bucket = 0;
+        while (bucket < BUCKETS - 1 && millis >= (1L << bucket)) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder histogram = new StringBuilder();
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long count = counts.get(bucket);
+            if (count == 0) {
+                continue;
+            }
+            if (histogram.length() > 0) {
+                histogram.append(",");
+            }
+            histogram.append(bucket == BUCKETS - 1 ? ">=" + (1L << (BUCKETS - 2)) : "<" + (1L << bucket)).append("ms:").append(count);
+        }
+        return histogram.length() == 0 ? "-" : histogram.toString();
+    }
+}
@@ -60,6 +60,7 @@ import com.thoughtworks.go.server.ui.ModificationForPipeline;
 import com.thoughtworks.go.server.ui.PipelineId;
 import com.thoughtworks.go.server.util.CollectionUtil;
 import com.thoughtworks.go.server.util.Pagination;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Predicate;
 import org.apache.log4j.Logger;
@@ -95,15 +96,18 @@ public class MaterialRepository extends HibernateDaoSupport {
     private final QueryExtensions queryExtensions;
     private int latestModificationsCacheLimit;
     private MaterialExpansionService materialExpansionService;
+    private final int modificationsInsertBatchSize;
 
     public MaterialRepository(SessionFactory sessionFactory, GoCache goCache, int latestModificationsCacheLimit, TransactionSynchronizationManager transactionSynchronizationManager,
-                              MaterialConfigConverter materialConfigConverter, MaterialExpansionService materialExpansionService, Database databaseStrategy) {
+                              MaterialConfigConverter materialConfigConverter, MaterialExpansionService materialExpansionService, Database databaseStrategy,
+                              SystemEnvironment systemEnvironment) {
         this.goCache = goCache;
         this.latestModificationsCacheLimit = latestModificationsCacheLimit;
         this.transactionSynchronizationManager = transactionSynchronizationManager;
         this.materialConfigConverter = materialConfigConverter;
         this.materialExpansionService = materialExpansionService;
         this.queryExtensions = databaseStrategy.getQueryExtensions();
+        this.modificationsInsertBatchSize = systemEnvironment.get(SystemEnvironment.MATERIAL_MODIFICATIONS_INSERT_BATCH_SIZE);
         setSessionFactory(sessionFactory);
     }
 
@@ -834,23 +838,48 @@ public class MaterialRepository extends HibernateDaoSupport {
     public void saveModifications(MaterialInstance materialInstance, List<Modification> newChanges) {
         ArrayList<Modification> list = new ArrayList<Modification>(newChanges);
         Collections.reverse(list);
+        List<Modification> newModifications = new ArrayList<Modification>();
+        List<Modification> existingModifications = new ArrayList<Modification>();
         for (Modification modification : list) {
             modification.setMaterialInstance(materialInstance);
+            if (modification.hasId() || !canBatchInsert(materialInstance)) {
+                existingModifications.add(modification);
+            } else {
+                newModifications.add(modification);
+            }
         }
         try {
-            getHibernateTemplate().saveOrUpdateAll(list);
+            getHibernateTemplate().saveOrUpdateAll(existingModifications);
+            batchInsert(materialInstance, newModifications);
         } catch (Exception e) {
             String message = "Cannot save modification";
             LOGGER.error(message, e);
             throw new RuntimeException(message, e);
         }
-        for (Modification modification : list) {
-            removeLatestCachedModification(materialInstance, modification);
+        if (!list.isEmpty()) {
+            removeLatestCachedModification(materialInstance, list.get(list.size() - 1));
         }
 		removeCachedModificationCountFor(materialInstance);
 		removeCachedModificationsFor(materialInstance);
 	}
 
+    private boolean canBatchInsert(MaterialInstance materialInstance) {
+        return modificationsInsertBatchSize > 0 && materialInstance.hasId();
+    }
+
+    private void batchInsert(final MaterialInstance materialInstance, final List<Modification> modifications) {
+        if (modifications.isEmpty()) {
+            return;
+        }
+        getHibernateTemplate().execute(new HibernateCallback() {
+            public Object doInHibernate(Session session) throws HibernateException, SQLException {
+                session.flush();
+                new ModificationBatchWriter(modificationsInsertBatchSize).insert(session.connection(), materialInstance, modifications);
+                return null;
+            }
+        });
+    }
+
     public Modification findModificationWithRevision(final Material material, final String revision) {
         return (Modification) getHibernateTemplate().execute(new HibernateCallback() {
             public Object doInHibernate(Session session) throws HibernateException, SQLException {
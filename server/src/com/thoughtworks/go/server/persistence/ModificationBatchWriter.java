@@ -0,0 +1,107 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.server.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+import com.thoughtworks.go.domain.MaterialInstance;
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.domain.materials.ModifiedFile;
+
+/**
+ * @understands inserting new modifications and their modified files over plain JDBC, sending the files in batches
+ */
+class ModificationBatchWriter {
+    static final String INSERT_MODIFICATION = "INSERT INTO modifications (revision, comment, emailAddress, modifiedTime, userName, pipelineLabel, pipelineId, additionalData, materialId) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String INSERT_MODIFIED_FILE = "INSERT INTO modifiedFiles (action, fileName, folderName, modificationId) VALUES (?, ?, ?, ?)";
+
+    private final int batchSize;
+
+    ModificationBatchWriter(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    void insert(Connection connection, MaterialInstance materialInstance, List<Modification> modifications) throws SQLException {
+        PreparedStatement modificationStatement = connection.prepareStatement(INSERT_MODIFICATION, new String[]{"id"});
+        PreparedStatement fileStatement = connection.prepareStatement(INSERT_MODIFIED_FILE);
+        try {
+            int pendingFiles = 0;
+            for (Modification modification : modifications) {
+                modification.setId(insertModification(modificationStatement, materialInstance, modification));
+                for (ModifiedFile file : modification.getModifiedFiles()) {
+                    file.setModificationId(modification.getId());
+                    fileStatement.setString(1, file.getAction().name());
+                    fileStatement.setString(2, file.getFileName());
+                    fileStatement.setString(3, file.getFolderName());
+                    fileStatement.setLong(4, modification.getId());
+                    fileStatement.addBatch();
+                    if (++pendingFiles == batchSize) {
+                        fileStatement.executeBatch();
+                        pendingFiles = 0;
+                    }
+                }
+            }
+            if (pendingFiles > 0) {
+                fileStatement.executeBatch();
+            }
+        } finally {
+            close(fileStatement);
+            close(modificationStatement);
+        }
+    }
+
+    private long insertModification(PreparedStatement statement, MaterialInstance materialInstance, Modification modification) throws SQLException {
+        statement.setString(1, modification.getRevision());
+        statement.setString(2, modification.getComment());
+        statement.setString(3, modification.getEmailAddress());
+        statement.setTimestamp(4, modification.getModifiedTime() == null ? null : new Timestamp(modification.getModifiedTime().getTime()));
+        statement.setString(5, modification.getUserName());
+        statement.setString(6, modification.getPipelineLabel());
+        if (modification.getPipelineId() == null) {
+            statement.setNull(7, Types.BIGINT);
+        } else {
+            statement.setLong(7, modification.getPipelineId());
+        }
+        statement.setString(8, modification.getAdditionalData());
+        statement.setLong(9, materialInstance.getId());
+        statement.executeUpdate();
+        ResultSet generatedKeys = statement.getGeneratedKeys();
+        try {
+            if (!generatedKeys.next()) {
+                throw new SQLException("No id was generated for modification " + modification);
+            }
+            return generatedKeys.getLong(1);
+        } finally {
+            generatedKeys.close();
+        }
+    }
+
+    private void close(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -30,6 +30,7 @@ import com.thoughtworks.go.domain.AgentRuntimeStatus;
 import com.thoughtworks.go.listener.AgentChangeListener;
 import com.thoughtworks.go.presentation.TriStateSelection;
 import com.thoughtworks.go.remote.AgentIdentifier;
+import com.thoughtworks.go.remote.AgentRuntimeInfoDeltas;
 import com.thoughtworks.go.security.Registration;
 import com.thoughtworks.go.server.domain.AgentInstances;
 import com.thoughtworks.go.server.domain.Username;
@@ -65,16 +66,21 @@ public class AgentService {
     private final AgentDao agentDao;
 
     private AgentInstances agentInstances;
+    private AgentRuntimeInfoDeltas runtimeInfoDeltas = new AgentRuntimeInfoDeltas();
 
     private static final Logger LOGGER = Logger.getLogger(AgentService.class);
 
     @Autowired
     public AgentService(AgentConfigService agentConfigService, SystemEnvironment systemEnvironment, final EnvironmentConfigService environmentConfigService,
                         final GoConfigService goConfigService, SecurityService securityService, AgentDao agentDao, UuidGenerator uuidGenerator, ServerHealthService serverHealthService,
-                        final EmailSender emailSender) {
+                        final EmailSender emailSender, final AgentRuntimeInfoDeltas runtimeInfoDeltas) {
         this(agentConfigService, systemEnvironment, null, environmentConfigService, goConfigService, securityService, agentDao, uuidGenerator, serverHealthService);
+        this.runtimeInfoDeltas = runtimeInfoDeltas;
         this.agentInstances = new AgentInstances(new AgentRuntimeStatus.ChangeListener() {
             public void statusUpdateRequested(AgentRuntimeInfo runtimeInfo, AgentRuntimeStatus newStatus) {
+                if (newStatus == AgentRuntimeStatus.LostContact) {
+                    runtimeInfoDeltas.forget(runtimeInfo.getUUId());
+                }
 //                if (newStatus == AgentRuntimeStatus.LostContact) {
 //                    Set<String> environments = environmentConfigService.environmentsFor(runtimeInfo.getUUId());
 //                    AgentInstance instance = AgentService.this.agentInstances.loadAgentInstance(runtimeInfo.getUUId());
@@ -234,6 +240,9 @@ public class AgentService {
 
         try {
             agentConfigService.deleteAgents(agents.toArray(new AgentInstance[0]));
+            for (AgentInstance agent : agents) {
+                runtimeInfoDeltas.forget(agent.getUuid());
+            }
 
             if (failedToDeleteAgents.isEmpty()) {
                 operationResult.ok(String.format("Deleted %s agent(s).", agents.size()));
@@ -19,12 +19,14 @@ package com.thoughtworks.go.server.service;
 import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.domain.exception.IllegalArtifactLocationException;
 import com.thoughtworks.go.legacywrapper.LogParser;
+import com.thoughtworks.go.server.domain.ConsoleLogIndex;
 import com.thoughtworks.go.server.domain.LogFile;
 import com.thoughtworks.go.server.view.artifacts.ArtifactDirectoryChooser;
 import com.thoughtworks.go.server.view.artifacts.BuildIdArtifactLocator;
 import com.thoughtworks.go.server.view.artifacts.PathBasedArtifactsLocator;
 import com.thoughtworks.go.util.*;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -48,6 +50,7 @@ public class ArtifactsService implements ArtifactUrlReader {
     public static final Logger LOGGER = Logger.getLogger(ArtifactsService.class);
     public static final String LOG_XML_NAME = "log.xml";
     private ArtifactDirectoryChooser chooser;
+    private final Object[] consoleLogMutexes = new Object[64];
 
     @Autowired
     public ArtifactsService(SystemService systemService, ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, JobResolverService jobResolverService, StageService stageService) {
@@ -59,6 +62,9 @@ public class ArtifactsService implements ArtifactUrlReader {
 
         //This is a Chain of Responsibility to decide which view should be shown for a particular artifact URL
         chooser = new ArtifactDirectoryChooser();
+        for (int i = 0; i < consoleLogMutexes.length; i++) {
+            consoleLogMutexes[i] = new Object();
+        }
 
     }
 
@@ -158,7 +164,73 @@ public class ArtifactsService implements ArtifactUrlReader {
         return newAlloc;
     }
 
+    /**
+     * Appends console output sent by an agent starting at the given byte offset of its console stream.
+     * Anything before the offset already received (a resend after a failed acknowledgement) is skipped.
+     * A batch is appended only once it has been received completely, so a truncated upload leaves the log
+     * and its offset untouched for the agent to resend.
+     */
+    public boolean updateConsoleLog(File dest, InputStream in, long offset, LineListener lineListener) throws IOException {
+        synchronized (consoleLogMutex(dest)) {
+            File offsetFile = consoleOffsetFile(dest);
+            long received = offsetFile.exists() ? Long.parseLong(FileUtils.readFileToString(offsetFile).trim()) : 0;
+            if (offset > received) {
+                LOGGER.warn(format("Console output for [%s] expected at offset %s but received at %s", dest.getAbsolutePath(), received, offset));
+            }
+
+            long alreadyReceived = Math.max(0, received - offset);
+            if (IOUtils.skip(in, alreadyReceived) < alreadyReceived) {
+                return true;
+            }
+
+            File batch = File.createTempFile(dest.getName(), ".batch");
+            try {
+                long batchSize;
+                try {
+                    batchSize = copyBatch(in, batch);
+                } catch (IOException e) {
+                    LOGGER.error("Failed to receive console output for : [" + dest.getAbsolutePath() + "]", e);
+                    return false;
+                }
+                InputStream batchStream = new FileInputStream(batch);
+                boolean updated;
+                try {
+                    updated = updateConsoleLog(dest, batchStream, "UTF-8", lineListener);
+                } finally {
+                    IOUtils.closeQuietly(batchStream);
+                }
+                if (updated) {
+                    FileUtils.writeStringToFile(offsetFile, String.valueOf(Math.max(received, offset + alreadyReceived + batchSize)));
+                }
+                return updated;
+            } finally {
+                FileUtils.deleteQuietly(batch);
+            }
+        }
+    }
+
+    private long copyBatch(InputStream in, File batch) throws IOException {
+        OutputStream out = new FileOutputStream(batch);
+        try {
+            return IOUtils.copyLarge(in, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    private Object consoleLogMutex(File consoleLog) {
+        return consoleLogMutexes[(consoleLog.getAbsolutePath().hashCode() & Integer.MAX_VALUE) % consoleLogMutexes.length];
+    }
+
+    File consoleOffsetFile(File consoleLog) {
+        return new File(consoleLog.getParent(), "." + consoleLog.getName() + ".offset");
+    }
+
     public boolean updateConsoleLog(File dest, InputStream in, LineListener lineListener) throws IOException {
+        return updateConsoleLog(dest, in, null, lineListener);
+    }
+
+    private boolean updateConsoleLog(File dest, InputStream in, String charset, LineListener lineListener) throws IOException {
         File parentFile = dest.getParentFile();
         parentFile.mkdirs();
 
@@ -170,7 +242,7 @@ public class ArtifactsService implements ArtifactUrlReader {
         BufferedWriter writer = null;
         try {
             writer = new BufferedWriter(new FileWriter(dest, dest.exists()));
-            BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+            BufferedReader reader = new BufferedReader(charset == null ? new InputStreamReader(in) : new InputStreamReader(in, charset));
             int hasRead, overflowIndex, offset = 0, end;
             while ((hasRead = reader.read(data, offset, data.length - offset)) != -1) {
                 end = offset + hasRead;
@@ -214,6 +286,11 @@ public class ArtifactsService implements ArtifactUrlReader {
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("Console log [" + dest.getAbsolutePath() + "] saved.");
         }
+        try {
+            ConsoleLogIndex.forLog(dest).catchUp();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to index console log at : [" + dest.getAbsolutePath() + "], it will be indexed when read", e);
+        }
         return true;
     }
 
@@ -246,32 +323,8 @@ public class ArtifactsService implements ArtifactUrlReader {
         }
     }
 
-    ConsoleOut getConsoleOut(int startingLine, InputStream inputStream) throws IOException {
-        int lineNumber = 0;
-
-        StringBuffer buffer = new StringBuffer();
-        try {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            String consoleLine;
-            while (null != (consoleLine = reader.readLine())) {
-                if (lineNumber >= startingLine) {
-                    buffer.append(consoleLine);
-                    buffer.append(FileUtil.lineSeparator());
-                }
-                lineNumber++;
-            }
-        } catch (FileNotFoundException ex) {
-            String message = "Could not read console out: " + ex.getMessage();
-            LOGGER.error(message);
-            LOGGER.trace(message, ex);
-        } finally {
-            inputStream.close();
-        }
-        return new ConsoleOut(buffer.toString(), startingLine, lineNumber);
-    }
-
-    public ConsoleOut getConsoleOut(File logFile, int startingLine) throws IOException {
-        return getConsoleOut(startingLine, new LogFile(logFile).getInputStream());
+    public ConsoleLogIndex consoleLogIndex(File logFile) throws IOException {
+        return ConsoleLogIndex.forLog(logFile).catchUp();
     }
 
     public File findArtifact(JobIdentifier identifier, String path) throws IllegalArtifactLocationException {
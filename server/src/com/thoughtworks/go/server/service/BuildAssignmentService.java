@@ -24,6 +24,7 @@ import com.thoughtworks.go.domain.builder.Builder;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.remote.work.*;
 import com.thoughtworks.go.server.materials.StaleMaterialsOnBuildCause;
+import com.thoughtworks.go.server.messaging.scheduling.WorkAssignments;
 import com.thoughtworks.go.server.service.builders.BuilderFactory;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.util.TimeProvider;
@@ -36,6 +37,10 @@ import org.springframework.transaction.support.TransactionCallback;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static java.lang.String.format;
 import static org.apache.commons.collections.CollectionUtils.forAllDo;
@@ -59,14 +64,18 @@ public class BuildAssignmentService implements ConfigChangedListener {
     private TransactionTemplate transactionTemplate;
     private final ScheduledPipelineLoader scheduledPipelineLoader;
 
-    private List<JobPlan> jobPlans = new ArrayList<JobPlan>();
+    private final ScheduledJobPlanIndex jobPlans = new ScheduledJobPlanIndex();
+    private final ReadWriteLock jobPlansLock = new ReentrantReadWriteLock();
+    private final ConcurrentMap<String, Object> agentMutexes = new ConcurrentHashMap<String, Object>();
     private final UpstreamPipelineResolver resolver;
     private final BuilderFactory builderFactory;
+    private final WorkAssignments workAssignments;
 
     @Autowired
     public BuildAssignmentService(GoConfigService goConfigService, JobInstanceService jobInstanceService, ScheduleService scheduleService,
                                   GoLicenseService licenseService, AgentService agentService, EnvironmentConfigService environmentConfigService, TimeProvider timeProvider,
-                                  TransactionTemplate transactionTemplate, ScheduledPipelineLoader scheduledPipelineLoader, PipelineService pipelineService, BuilderFactory builderFactory) {
+                                  TransactionTemplate transactionTemplate, ScheduledPipelineLoader scheduledPipelineLoader, PipelineService pipelineService, BuilderFactory builderFactory,
+                                  WorkAssignments workAssignments) {
         this.goConfigService = goConfigService;
         this.jobInstanceService = jobInstanceService;
         this.scheduleService = scheduleService;
@@ -78,6 +87,7 @@ public class BuildAssignmentService implements ConfigChangedListener {
         this.scheduledPipelineLoader = scheduledPipelineLoader;
         this.resolver = pipelineService;
         this.builderFactory = builderFactory;
+        this.workAssignments = workAssignments;
     }
 
     public void initialize() {
@@ -97,29 +107,43 @@ public class BuildAssignmentService implements ConfigChangedListener {
             return new DeniedAgentWork(agent.getUuid());
         }
 
-        synchronized (this) {
-            //check if agent already has assigned build, if so, reschedule it
-            scheduleService.rescheduleAbandonedBuildIfNecessary(agent.getAgentIdentifier());
-
-            final JobPlan job = findMatchingJob(agent);
-            if (job != null) {
-                Work buildWork = createWork(agent, job);
-                AgentBuildingInfo buildingInfo = new AgentBuildingInfo(job.getIdentifier().buildLocatorForDisplay(),
-                        job.getIdentifier().buildLocator());
-                agentService.building(agent.getUuid(), buildingInfo);
-                LOGGER.info(format("[Agent Assignment] Assigned job [%s] to agent [%s]", job.getIdentifier(), agent.agentConfig().getAgentIdentifier()));
-                return buildWork;
+        jobPlansLock.readLock().lock();
+        try {
+            synchronized (agentMutex(agent.getUuid())) {
+                //check if agent already has assigned build, if so, reschedule it
+                scheduleService.rescheduleAbandonedBuildIfNecessary(agent.getAgentIdentifier());
+
+                final JobPlan job = findMatchingJob(agent);
+                if (job != null) {
+                    Work buildWork = createWork(agent, job);
+                    AgentBuildingInfo buildingInfo = new AgentBuildingInfo(job.getIdentifier().buildLocatorForDisplay(),
+                            job.getIdentifier().buildLocator());
+                    agentService.building(agent.getUuid(), buildingInfo);
+                    LOGGER.info(format("[Agent Assignment] Assigned job [%s] to agent [%s]", job.getIdentifier(), agent.agentConfig().getAgentIdentifier()));
+                    return buildWork;
+                }
             }
+        } finally {
+            jobPlansLock.readLock().unlock();
         }
 
         return NO_WORK;
     }
 
+    private Object agentMutex(String agentUuid) {
+        Object mutex = agentMutexes.get(agentUuid);
+        if (mutex == null) {
+            Object newMutex = new Object();
+            mutex = agentMutexes.putIfAbsent(agentUuid, newMutex);
+            if (mutex == null) {
+                mutex = newMutex;
+            }
+        }
+        return mutex;
+    }
+
     private JobPlan findMatchingJob(AgentInstance agent) {
-        List<JobPlan> filteredJobPlans = environmentConfigService.filterJobsByAgent(jobPlans, agent.getUuid());
-        JobPlan match = agent.firstMatching(filteredJobPlans);
-        jobPlans.remove(match);
-        return match;
+        return jobPlans.claimFirstMatching(agent, environmentConfigService.environmentsFor(agent.getUuid()));
     }
 
     public void onTimer() {
@@ -127,16 +151,28 @@ public class BuildAssignmentService implements ConfigChangedListener {
     }
 
     private void reloadJobPlans() {
-        synchronized (this) {
-            jobPlans = jobInstanceService.orderedScheduledBuilds();
+        boolean jobsAdded;
+        jobPlansLock.writeLock().lock();
+        try {
+            jobsAdded = jobPlans.update(jobInstanceService.orderedScheduledBuilds(), new ScheduledJobPlanIndex.EnvironmentResolver() {
+                public String environmentFor(String pipelineName) {
+                    return environmentConfigService.envForJob(pipelineName);
+                }
+            });
+        } finally {
+            jobPlansLock.writeLock().unlock();
+        }
+        if (jobsAdded) {
+            workAssignments.rematchParkedAgents();
         }
     }
 
-    public void onConfigChange(CruiseConfig newCruiseConfig) {
+    public void onConfigChange(final CruiseConfig newCruiseConfig) {
         LOGGER.info(String.format("[Configuration Changed] Removing jobs for pipelines that no longer exist in configuration."));
-        synchronized (this) {
+        jobPlansLock.writeLock().lock();
+        try {
             List<JobPlan> jobsToRemove = new ArrayList<JobPlan>();
-            for (JobPlan jobPlan : jobPlans) {
+            for (JobPlan jobPlan : jobPlans.jobPlans()) {
                 if (!newCruiseConfig.hasBuildPlan(new CaseInsensitiveString(jobPlan.getPipelineName()), new CaseInsensitiveString(jobPlan.getStageName()), jobPlan.getName(), true)) {
                     jobsToRemove.add(jobPlan);
                 }
@@ -147,7 +183,15 @@ public class BuildAssignmentService implements ConfigChangedListener {
                     removeJob((JobPlan) o);
                 }
             });
+            jobPlans.rebucket(new ScheduledJobPlanIndex.EnvironmentResolver() {
+                public String environmentFor(String pipelineName) {
+                    return CaseInsensitiveString.str(newCruiseConfig.getEnvironments().findEnvironmentNameForPipeline(new CaseInsensitiveString(pipelineName)));
+                }
+            });
+        } finally {
+            jobPlansLock.writeLock().unlock();
         }
+        workAssignments.rematchParkedAgents();
     }
 
     private void removeJobIfNotPresentInCruiseConfig(CruiseConfig newCruiseConfig, JobPlan jobPlan) {
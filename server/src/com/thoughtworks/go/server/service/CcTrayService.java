@@ -19,18 +19,34 @@ package com.thoughtworks.go.server.service;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.domain.activity.ProjectStatus;
 import com.thoughtworks.go.domain.cctray.CcTrayCache;
+import com.thoughtworks.go.domain.cctray.viewers.Viewers;
 import com.thoughtworks.go.server.util.UserHelper;
 import com.thoughtworks.go.util.StringUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
 
-/* Understands how to serve a request for the CcTray XML for the current user. */
 @Service
 public class CcTrayService {
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<Projects>\n";
+    private static final String FOOTER = "</Projects>";
+
     private CcTrayCache ccTrayCache;
     private GoConfigService goConfigService;
+    private final long startedAt = System.currentTimeMillis();
+    private volatile Documents documents = new Documents(-1, new ArrayList<ProjectStatus>());
 
     @Autowired
     public CcTrayService(CcTrayCache ccTrayCache, GoConfigService goConfigService) {
@@ -39,23 +55,166 @@ public class CcTrayService {
     }
 
     public String getCcTrayXml(String siteUrlPrefix) {
+        return ccTrayFeedFor(siteUrlPrefix).xml();
+    }
+
+    public CcTrayFeed ccTrayFeedFor(String siteUrlPrefix) {
         String userName = CaseInsensitiveString.str(UserHelper.getUserName().getUsername());
         boolean isSecurityEnabled = goConfigService.isSecurityEnabled();
 
-        List<ProjectStatus> statuses = ccTrayCache.allEntriesInOrder();
+        Documents documents = currentDocuments();
+        BitSet visibleGroups = isSecurityEnabled ? documents.groupsVisibleTo(userName) : documents.allGroups();
+        return new CcTrayFeed(documents.documentFor(visibleGroups), siteUrlPrefix,
+                startedAt + "-" + documents.version + "-" + visibleGroups + "-" + siteUrlPrefix);
+    }
+
+    private Documents currentDocuments() {
+        long version = ccTrayCache.version();
+        Documents current = this.documents;
+        if (current.version != version) {
+            current = new Documents(version, ccTrayCache.allEntriesInOrder());
+            this.documents = current;
+        }
+        return current;
+    }
+
+    /* Understands the cctray feed one user gets for one site url, and how to write it out. */
+    public static class CcTrayFeed {
+        private final Document document;
+        private final String siteUrlPrefix;
+        private final String etag;
+
+        private CcTrayFeed(Document document, String siteUrlPrefix, String etag) {
+            this.document = document;
+            this.siteUrlPrefix = siteUrlPrefix;
+            this.etag = etag;
+        }
+
+        public String etag() {
+            return etag;
+        }
+
+        public String xml() {
+            StringWriter xml = new StringWriter();
+            try {
+                document.writeTo(xml, siteUrlPrefix);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return xml.toString();
+        }
+
+        public byte[] gzippedXml() {
+            return document.gzippedFor(siteUrlPrefix);
+        }
+    }
+
+    /* Understands which projects of one version of the cache are visible to which combination of viewer groups. */
+    private static class Documents {
+        private final long version;
+        private final List<ProjectStatus> statuses = new ArrayList<ProjectStatus>();
+        private final List<Integer> groupOfStatus = new ArrayList<Integer>();
+        private final List<Viewers> groups = new ArrayList<Viewers>();
+        private final Map<BitSet, Document> documents = new ConcurrentHashMap<BitSet, Document>();
+
+        private Documents(long version, List<ProjectStatus> entries) {
+            this.version = version;
+            Map<Viewers, Integer> groupIndices = new HashMap<Viewers, Integer>();
+            for (ProjectStatus status : entries) {
+                if (StringUtil.isBlank(status.xmlRepresentation())) {
+                    continue;
+                }
+                Integer group = groupIndices.get(status.viewers());
+                if (group == null) {
+                    group = groups.size();
+                    groups.add(status.viewers());
+                    groupIndices.put(status.viewers(), group);
+                }
+                statuses.add(status);
+                groupOfStatus.add(group);
+            }
+        }
+
+        private BitSet allGroups() {
+            BitSet all = new BitSet(groups.size());
+            all.set(0, groups.size());
+            return all;
+        }
 
-        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<Projects>\n");
-        for (ProjectStatus status : statuses) {
-            if (!isSecurityEnabled || status.canBeViewedBy(userName)) {
+        private BitSet groupsVisibleTo(String userName) {
+            BitSet visible = new BitSet(groups.size());
+            for (int i = 0; i < groups.size(); i++) {
+                if (groups.get(i).contains(userName)) {
+                    visible.set(i);
+                }
+            }
+            return visible;
+        }
 
-                String xmlRepresentation = status.xmlRepresentation();
-                if (!StringUtil.isBlank(xmlRepresentation)) {
-                    xml.append("  ").append(xmlRepresentation).append("\n");
+        private Document documentFor(BitSet visibleGroups) {
+            Document document = documents.get(visibleGroups);
+            if (document == null) {
+                List<ProjectStatus> visibleStatuses = new ArrayList<ProjectStatus>();
+                for (int i = 0; i < statuses.size(); i++) {
+                    if (visibleGroups.get(groupOfStatus.get(i))) {
+                        visibleStatuses.add(statuses.get(i));
+                    }
                 }
+                document = new Document(visibleStatuses);
+                documents.put(visibleGroups, document);
+            }
+            return document;
+        }
+    }
+
+    /* Understands writing a set of projects as cctray xml, keeping the compressed form of the last site url asked for. */
+    private static class Document {
+        private final List<ProjectStatus> statuses;
+        private volatile GzippedXml gzipped;
 
+        private Document(List<ProjectStatus> statuses) {
+            this.statuses = statuses;
+        }
+
+        private void writeTo(Writer writer, String siteUrlPrefix) throws IOException {
+            writer.write(HEADER);
+            for (ProjectStatus status : statuses) {
+                writer.write("  ");
+                status.writeXmlRepresentationTo(writer, siteUrlPrefix);
+                writer.write("\n");
+            }
+            writer.write(FOOTER);
+        }
+
+        private byte[] gzippedFor(String siteUrlPrefix) {
+            GzippedXml current = gzipped;
+            if (current == null || !current.siteUrlPrefix.equals(siteUrlPrefix)) {
+                current = new GzippedXml(siteUrlPrefix, gzip(siteUrlPrefix));
+                gzipped = current;
             }
+            return current.bytes;
         }
 
-        return xml.append("</Projects>").toString().replaceAll(ProjectStatus.SITE_URL_PREFIX, siteUrlPrefix);
+        private byte[] gzip(String siteUrlPrefix) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try {
+                Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), "UTF-8");
+                writeTo(writer, siteUrlPrefix);
+                writer.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static class GzippedXml {
+        private final String siteUrlPrefix;
+        private final byte[] bytes;
+
+        private GzippedXml(String siteUrlPrefix, byte[] bytes) {
+            this.siteUrlPrefix = siteUrlPrefix;
+            this.bytes = bytes;
+        }
     }
 }
@@ -24,4 +24,8 @@ public class CheckConnectionSubprocessExecutionContext implements SubprocessExec
     public String getProcessNamespace(String fingerprint) {
         return UUID.randomUUID().toString();
     }
+
+    public boolean isGitReferenceRepositoryEnabled() {
+        return false;
+    }
 }
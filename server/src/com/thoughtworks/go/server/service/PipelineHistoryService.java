@@ -45,7 +45,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class PipelineHistoryService implements PipelineInstanceLoader {
@@ -451,27 +454,29 @@ public class PipelineHistoryService implements PipelineInstanceLoader {
     private PipelineGroupModels allPipelineInstances(Username username) {
         CruiseConfig currentConfig = goConfigService.currentCruiseConfig();
         PipelineGroups groups = currentConfig.getGroups();
-        PipelineInstanceModels activePipelines = filterPermissions(pipelineDao.loadActivePipelines(), username);
+        Map<String, List<PipelineInstanceModel>> activePipelinesByName = groupByName(filterPermissions(pipelineDao.loadActivePipelines(), username));
+        Map<Long, PipelineInstanceModel> loadedHistory = new HashMap<Long, PipelineInstanceModel>();
 
         PipelineGroupModels groupModels = new PipelineGroupModels();
-        for (PipelineConfig pipelineConfig : currentConfig.getAllPipelineConfigs()) {
-            CaseInsensitiveString pipelineName = pipelineConfig.name();
-            for (PipelineInstanceModel activePipeline : activePipelines.findAll(CaseInsensitiveString.str(pipelineName))) {
-                activePipeline.setTrackingTool(pipelineConfig.getTrackingTool());
-                activePipeline.setMingleConfig(pipelineConfig.getMingleConfig());
-                populatePlaceHolderStages(activePipeline);
-
-                String groupName = groups.findGroupNameByPipeline(pipelineName);
-                if (groupName == null) {
-                    throw new RuntimeException("Unable to find group find pipeline " + pipelineName);
+        for (PipelineConfigs group : groups) {
+            String groupName = group.getGroup();
+            for (PipelineConfig pipelineConfig : group) {
+                String pipelineName = CaseInsensitiveString.str(pipelineConfig.name());
+                List<PipelineInstanceModel> activeInstances = activePipelinesByName.get(pipelineName);
+                if (activeInstances == null) {
+                    continue;
+                }
+                boolean canForce = schedulingCheckerService.canManuallyTrigger(pipelineName, username);
+                boolean canOperate = securityService.hasOperatePermissionForPipeline(username.getUsername(), pipelineName);
+                PipelinePauseInfo pauseInfo = pipelinePauseService.pipelinePauseInfo(pipelineName);
+                for (PipelineInstanceModel activePipeline : activeInstances) {
+                    activePipeline.setTrackingTool(pipelineConfig.getTrackingTool());
+                    activePipeline.setMingleConfig(pipelineConfig.getMingleConfig());
+                    populatePlaceHolderStages(activePipeline);
+                    populatePreviousStageState(activePipeline, loadedHistory);
+                    populateLockStatus(activePipeline.getName(), username, activePipeline);
+                    groupModels.addPipelineInstance(groupName, activePipeline, canForce, canOperate, pauseInfo);
                 }
-                populatePreviousStageState(activePipeline);
-                populateLockStatus(activePipeline.getName(), username, activePipeline);
-                boolean canForce = schedulingCheckerService.canManuallyTrigger(CaseInsensitiveString.str(pipelineName), username);
-                PipelinePauseInfo pauseInfo = pipelinePauseService.pipelinePauseInfo(CaseInsensitiveString.str(pipelineName));
-                groupModels.addPipelineInstance(groupName, activePipeline, canForce, securityService.hasOperatePermissionForPipeline(
-                        username.getUsername(), CaseInsensitiveString.str(pipelineName)
-                ), pauseInfo);
             }
         }
 
@@ -481,6 +486,19 @@ public class PipelineHistoryService implements PipelineInstanceLoader {
         return groupModels;
     }
 
+    private Map<String, List<PipelineInstanceModel>> groupByName(PipelineInstanceModels pipelineInstanceModels) {
+        Map<String, List<PipelineInstanceModel>> byName = new HashMap<String, List<PipelineInstanceModel>>();
+        for (PipelineInstanceModel pipelineInstanceModel : pipelineInstanceModels) {
+            List<PipelineInstanceModel> instances = byName.get(pipelineInstanceModel.getName());
+            if (instances == null) {
+                instances = new ArrayList<PipelineInstanceModel>();
+                byName.put(pipelineInstanceModel.getName(), instances);
+            }
+            instances.add(pipelineInstanceModel);
+        }
+        return byName;
+    }
+
     private void filterSelections(PipelineGroupModels groupModels, PipelineSelections pipelineSelections) {
         for (PipelineGroupModel groupModel : groupModels.asList()) {
             for (PipelineModel pipelineModel : groupModel.getPipelineModels()) {
@@ -511,7 +529,7 @@ public class PipelineHistoryService implements PipelineInstanceLoader {
         }
     }
 
-    private void populatePreviousStageState(PipelineInstanceModel activePipeline) {
+    private void populatePreviousStageState(PipelineInstanceModel activePipeline, Map<Long, PipelineInstanceModel> loadedHistory) {
         if (activePipeline.isAnyStageActive()) {
             StageInstanceModel activeStage = activePipeline.activeStage();
             StageInstanceModel latestActive = null;
@@ -522,7 +540,7 @@ public class PipelineHistoryService implements PipelineInstanceLoader {
                     break;
                 }
                 id = timelineEntry.getId();
-                PipelineInstanceModel instanceModel = pipelineDao.loadHistory(id);
+                PipelineInstanceModel instanceModel = loadHistory(id, loadedHistory);
                 if (instanceModel != null && instanceModel.hasStageBeenRun(activeStage.getName())) {
                     latestActive = instanceModel.getStageHistory().byName(activeStage.getName());
                 }
@@ -531,6 +549,14 @@ public class PipelineHistoryService implements PipelineInstanceLoader {
         }
     }
 
+    // Active instances of the same pipeline walk back over the same runs, so each run is only loaded once per dashboard
+    private PipelineInstanceModel loadHistory(long id, Map<Long, PipelineInstanceModel> loadedHistory) {
+        if (!loadedHistory.containsKey(id)) {
+            loadedHistory.put(id, pipelineDao.loadHistory(id));
+        }
+        return loadedHistory.get(id);
+    }
+
     private void populateMissingPipelines(Username username, PipelineGroupModels groupModels, PipelineConfigs group) {
         String groupName = group.getGroup();
         for (PipelineConfig pipelineConfig : group) {
@@ -545,8 +571,13 @@ public class PipelineHistoryService implements PipelineInstanceLoader {
 
     private PipelineInstanceModels filterPermissions(PipelineInstanceModels pipelineInstanceModels, Username username) {
         PipelineInstanceModels newModels = PipelineInstanceModels.createPipelineInstanceModels();
+        Map<String, Boolean> canView = new HashMap<String, Boolean>();
         for (PipelineInstanceModel pipelineInstanceModel : pipelineInstanceModels) {
-            if (securityService.hasViewPermissionForPipeline(username, pipelineInstanceModel.getName())) {
+            String pipelineName = pipelineInstanceModel.getName();
+            if (!canView.containsKey(pipelineName)) {
+                canView.put(pipelineName, securityService.hasViewPermissionForPipeline(username, pipelineName));
+            }
+            if (canView.get(pipelineName)) {
                 newModels.add(pipelineInstanceModel);
             }
         }
@@ -618,7 +649,7 @@ public class PipelineHistoryService implements PipelineInstanceLoader {
     }
 
     private static class PipelineGroupModels {
-        List<PipelineGroupModel> groupModels = new ArrayList<PipelineGroupModel>();
+        Map<String, PipelineGroupModel> groupModels = new LinkedHashMap<String, PipelineGroupModel>();
         
         public void addPipelineInstance(String groupName, PipelineInstanceModel pipelineInstanceModel, boolean canForce, boolean canOperate, PipelinePauseInfo pipelinePauseInfo) {
             PipelineModel pipelineModel = pipelineModelForPipelineName(groupName, pipelineInstanceModel.getName(), canForce, canOperate, pipelinePauseInfo);
@@ -630,7 +661,7 @@ public class PipelineHistoryService implements PipelineInstanceLoader {
         }
 
         public List<PipelineGroupModel> asList() {
-            return new ArrayList<PipelineGroupModel>(groupModels);
+            return new ArrayList<PipelineGroupModel>(groupModels.values());
         }
 
         private PipelineModel pipelineModelForPipelineName(String groupName, String pipelineName, boolean canForce, boolean canOperate, PipelinePauseInfo pipelinePauseInfo){
@@ -639,25 +670,23 @@ public class PipelineHistoryService implements PipelineInstanceLoader {
         }
 
         private PipelineGroupModel get(String groupName) {
-            for (PipelineGroupModel groupModel : groupModels) {
-                if (groupModel.getName().equals(groupName)) {
-                    return groupModel;
-                }
+            PipelineGroupModel groupModel = groupModels.get(groupName);
+            if (groupModel == null) {
+                groupModel = new PipelineGroupModel(groupName);
+                groupModels.put(groupName, groupModel);
             }
-            PipelineGroupModel newGroupModel = new PipelineGroupModel(groupName);
-            groupModels.add(newGroupModel);
-            return newGroupModel;
+            return groupModel;
         }
 
         public void removePipeline(PipelineGroupModel groupModel, PipelineModel pipelineModel) {
             groupModel.remove(pipelineModel);
             if(groupModel.getPipelineModels().isEmpty()){
-                groupModels.remove(groupModel);
+                remove(groupModel);
             }
         }
 
         public void remove(PipelineGroupModel pipelineGroupModel) {
-            groupModels.remove(pipelineGroupModel);
+            groupModels.remove(pipelineGroupModel.getName());
         }
     }
 }
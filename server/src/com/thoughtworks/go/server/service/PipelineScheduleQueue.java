@@ -43,6 +43,7 @@ public class PipelineScheduleQueue {
     private TransactionTemplate transactionTemplate;
     private Map<String, BuildCause> toBeScheduled = new ConcurrentHashMap<String, BuildCause>();
     private Map<String, BuildCause> mostRecentScheduled = new ConcurrentHashMap<String, BuildCause>();
+    private Map<String, Long> queuedTimes = new ConcurrentHashMap<String, Long>();
     private InstanceFactory instanceFactory;
 
     @Autowired
@@ -74,13 +75,14 @@ public class PipelineScheduleQueue {
             BuildCause current = toBeScheduled.get(pipelineName);
             if (current == null || buildCause.trumps(current)) {
                 toBeScheduled.put(pipelineName, buildCause);
+                queuedTimes.put(pipelineName, System.currentTimeMillis());
             }
         }
     }
 
     public void cancelSchedule(String pipelineName) {
         synchronized (mutexForPipelineName(pipelineName)) {
-            toBeScheduled.remove(pipelineName);
+            removeToBeScheduled(pipelineName);
         }
     }
 
@@ -88,10 +90,18 @@ public class PipelineScheduleQueue {
         return new HashMap<String, BuildCause>(toBeScheduled);
     }
 
+    /**
+     * When the build cause waiting to be scheduled for the pipeline was put in the queue, or now if none is waiting.
+     */
+    public long queuedTime(String pipelineName) {
+        Long queuedTime = queuedTimes.get(pipelineName);
+        return queuedTime == null ? System.currentTimeMillis() : queuedTime;
+    }
+
     public void finishSchedule(String pipelineName, BuildCause buildCause, BuildCause newCause) {
         synchronized (mutexForPipelineName(pipelineName)) {
             if (buildCause.equals(toBeScheduled.get(pipelineName))) {
-                toBeScheduled.remove(pipelineName);
+                removeToBeScheduled(pipelineName);
             }
             mostRecentScheduled.put(pipelineName, newCause);
         }
@@ -99,7 +109,7 @@ public class PipelineScheduleQueue {
 
     public void clearPipeline(String pipelineName) {
         synchronized (mutexForPipelineName(pipelineName)) {
-            toBeScheduled.remove(pipelineName);
+            removeToBeScheduled(pipelineName);
             mostRecentScheduled.remove(pipelineName);
         }
     }
@@ -123,6 +133,12 @@ public class PipelineScheduleQueue {
     public void clear() {
         mostRecentScheduled.clear();
         toBeScheduled.clear();
+        queuedTimes.clear();
+    }
+
+    private void removeToBeScheduled(String pipelineName) {
+        toBeScheduled.remove(pipelineName);
+        queuedTimes.remove(pipelineName);
     }
 
     public Pipeline createPipeline(final BuildCause buildCause, final PipelineConfig pipelineConfig, final SchedulingContext context, final String md5, final Clock clock) {
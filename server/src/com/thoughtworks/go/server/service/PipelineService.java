@@ -29,6 +29,7 @@ import com.thoughtworks.go.server.domain.PipelineConfigDependencyGraph;
 import com.thoughtworks.go.server.domain.PipelineTimeline;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.dd.FanInGraph;
+import com.thoughtworks.go.server.service.dd.FanInGraphCache;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.log4j.Logger;
@@ -55,10 +56,12 @@ public class PipelineService implements UpstreamPipelineResolver {
     private final SystemEnvironment systemEnvironment;
     private final GoConfigService goConfigService;
     private MaterialConfigConverter materialConfigConverter;
+    private final FanInGraphCache fanInGraphCache;
 
     @Autowired
     public PipelineService(PipelineSqlMapDao pipelineDao, StageService stageService, PipelineLockService pipelineLockService, PipelineTimeline pipelineTimeline, MaterialRepository materialRepository,
-                           TransactionTemplate transactionTemplate, SystemEnvironment systemEnvironment, GoConfigService goConfigService, MaterialConfigConverter materialConfigConverter) {
+                           TransactionTemplate transactionTemplate, SystemEnvironment systemEnvironment, GoConfigService goConfigService, MaterialConfigConverter materialConfigConverter,
+                           FanInGraphCache fanInGraphCache) {
         this.pipelineDao = pipelineDao;
         this.stageService = stageService;
         this.pipelineLockService = pipelineLockService;
@@ -68,6 +71,7 @@ public class PipelineService implements UpstreamPipelineResolver {
         this.systemEnvironment = systemEnvironment;
         this.goConfigService = goConfigService;
         this.materialConfigConverter = materialConfigConverter;
+        this.fanInGraphCache = fanInGraphCache;
     }
 
     public Pipeline fullPipelineByBuildId(long buildId) {
@@ -226,7 +230,7 @@ public class PipelineService implements UpstreamPipelineResolver {
     /* DIAMOND BEGIN */
 
     public MaterialRevisions getRevisionsBasedOnDependencies(MaterialRevisions actualRevisions, CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName) {
-        FanInGraph fanInGraph = new FanInGraph(cruiseConfig, pipelineName, materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
+        FanInGraph fanInGraph = fanInGraphFor(cruiseConfig, pipelineName);
         final MaterialRevisions computedRevisions = fanInGraph.computeRevisions(actualRevisions, pipelineTimeline);
         fillUpNonOverridableRevisions(actualRevisions, computedRevisions);
         return restoreOriginalMaterialConfigAndMaterialOrderUsingFingerprint(actualRevisions, computedRevisions);
@@ -239,10 +243,19 @@ public class PipelineService implements UpstreamPipelineResolver {
     //Srikant & Sachin
     @Deprecated
     public Collection<MaterialRevision> getRevisionsBasedOnDependenciesForReporting(CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName) {
-        FanInGraph fanInGraph = new FanInGraph(cruiseConfig, pipelineName, materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
+        FanInGraph fanInGraph = fanInGraphFor(cruiseConfig, pipelineName);
         return fanInGraph.computeRevisionsForReporting(pipelineName, pipelineTimeline);
     }
 
+    private FanInGraph fanInGraphFor(CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName) {
+        FanInGraph fanInGraph = fanInGraphCache.get(cruiseConfig, pipelineName);
+        if (fanInGraph == null) {
+            fanInGraph = new FanInGraph(cruiseConfig, pipelineName, materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
+            fanInGraphCache.put(cruiseConfig, pipelineName, fanInGraph);
+        }
+        return fanInGraph;
+    }
+
     private void fillUpNonOverridableRevisions(MaterialRevisions actualRevisions, MaterialRevisions computedRevisions) {
         for (int i = 0; i < actualRevisions.numberOfRevisions(); i++) {
             MaterialRevision actualRev = actualRevisions.getMaterialRevision(i);
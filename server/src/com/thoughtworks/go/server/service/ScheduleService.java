@@ -18,7 +18,14 @@ package com.thoughtworks.go.server.service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.thoughtworks.go.config.Agents;
 import com.thoughtworks.go.config.CaseInsensitiveString;
@@ -67,6 +74,7 @@ import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TimeProvider;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
@@ -105,6 +113,8 @@ public class ScheduleService {
     private TransactionTemplate transactionTemplate;
 
     private final Object autoScheduleMutex = new Object();
+    private final Object pipelineCreationMutex = new Object();
+    private ExecutorService schedulingExecutor;
     private ConsoleActivityMonitor consoleActivityMonitor;
     private PipelinePauseService pipelinePauseService;
     private InstanceFactory instanceFactory;
@@ -137,7 +147,8 @@ public class ScheduleService {
                            ConsoleActivityMonitor consoleActivityMonitor,
                            PipelinePauseService pipelinePauseService,
                            InstanceFactory instanceFactory,
-                           SchedulingPerformanceLogger schedulingPerformanceLogger) {
+                           SchedulingPerformanceLogger schedulingPerformanceLogger,
+                           SystemEnvironment systemEnvironment) {
         this.goConfigService = goConfigService;
         this.pipelineService = pipelineService;
         this.stageService = stageService;
@@ -162,26 +173,28 @@ public class ScheduleService {
         this.pipelinePauseService = pipelinePauseService;
         this.instanceFactory = instanceFactory;
         this.schedulingPerformanceLogger = schedulingPerformanceLogger;
+        this.schedulingExecutor = Executors.newFixedThreadPool(systemEnvironment.get(SystemEnvironment.PIPELINE_SCHEDULING_THREADS), new SchedulingThreadFactory());
     }
 
     //Note: This is called from a Spring timer
     public void autoSchedulePipelinesFromRequestBuffer() {
         synchronized (autoScheduleMutex) {
             try {
-                for (Entry<String, BuildCause> entry : pipelineScheduleQueue.toBeScheduled().entrySet()) {
-                    String pipelineName = entry.getKey();
-                    BuildCause buildCause = entry.getValue();
-
-                    LOGGER.info(String.format("[Pipeline Schedule] Scheduling pipeline %s with build cause %s", pipelineName, buildCause));
-
-                    long schedulingStartTime = System.currentTimeMillis();
-                    Pipeline pipeline = schedulePipeline(pipelineName, buildCause);
-                    long schedulingEndTime = System.currentTimeMillis();
-
-                    if (pipeline != null) {
-                        pipelineScheduledTopic.post(new PipelineScheduledMessage(pipeline.getIdentifier()));
-                        schedulingPerformanceLogger.scheduledPipeline(pipelineName, pipelineScheduleQueue.toBeScheduled().size(), schedulingStartTime, schedulingEndTime);
-                    }
+                Map<String, BuildCause> toBeScheduled = pipelineScheduleQueue.toBeScheduled();
+                List<Future<?>> scheduling = new ArrayList<Future<?>>();
+                for (final Entry<String, BuildCause> entry : toBeScheduled.entrySet()) {
+                    final long queuedTime = pipelineScheduleQueue.queuedTime(entry.getKey());
+                    scheduling.add(schedulingExecutor.submit(new Runnable() {
+                        public void run() {
+                            autoSchedulePipeline(entry.getKey(), entry.getValue(), queuedTime);
+                        }
+                    }));
+                }
+                for (Future<?> pipeline : scheduling) {
+                    waitFor(pipeline);
+                }
+                if (!scheduling.isEmpty()) {
+                    schedulingPerformanceLogger.scheduledPipelines(scheduling.size());
                 }
             } catch (Throwable e) {
                 LOGGER.error(String.format("[Pipeline Schedule] An exception occurred while scheduling the pipeline. %s", e));
@@ -189,13 +202,40 @@ public class ScheduleService {
         }
     }
 
+    // A batch holds each pipeline once and batches do not overlap, so no lock on the pipeline is needed here. The queue
+    // takes its own pipeline mutex for the bookkeeping in createPipeline, after the creation mutex has been acquired.
+    private void autoSchedulePipeline(String pipelineName, BuildCause buildCause, long queuedTime) {
+        LOGGER.info(String.format("[Pipeline Schedule] Scheduling pipeline %s with build cause %s", pipelineName, buildCause));
+
+        long schedulingStartTime = System.currentTimeMillis();
+        Pipeline pipeline = schedulePipeline(pipelineName, buildCause);
+        long schedulingEndTime = System.currentTimeMillis();
+
+        if (pipeline != null) {
+            pipelineScheduledTopic.post(new PipelineScheduledMessage(pipeline.getIdentifier()));
+            schedulingPerformanceLogger.scheduledPipeline(pipelineName, pipelineScheduleQueue.toBeScheduled().size(), queuedTime, schedulingStartTime, schedulingEndTime);
+        }
+    }
+
+    private void waitFor(Future<?> pipeline) throws InterruptedException {
+        try {
+            pipeline.get();
+        } catch (ExecutionException e) {
+            LOGGER.error(String.format("[Pipeline Schedule] An exception occurred while scheduling the pipeline. %s", e.getCause()));
+        }
+    }
+
     private Pipeline schedulePipeline(final String pipelineName, final BuildCause buildCause) {
         try {
             PipelineConfig pipelineConfig = goConfigService.pipelineConfigNamed(new CaseInsensitiveString(pipelineName));
 
             if (canSchedule(pipelineConfig)) {
-                final Pipeline pipelineInstance = pipelineScheduleQueue.createPipeline(buildCause, pipelineConfig, schedulingContext(buildCause.getApprover(), pipelineConfig, pipelineConfig.first()),
-                        goConfigService.getCurrentConfig().getMd5(), timeProvider);
+                SchedulingContext context = schedulingContext(buildCause.getApprover(), pipelineConfig, pipelineConfig.first());
+                String md5 = goConfigService.getCurrentConfig().getMd5();
+                final Pipeline pipelineInstance;
+                synchronized (pipelineCreationMutex) {
+                    pipelineInstance = pipelineScheduleQueue.createPipeline(buildCause, pipelineConfig, context, md5, timeProvider);
+                }
                 serverHealthService.update(stageSchedulingSuccessfulState(pipelineName, CaseInsensitiveString.str(pipelineConfig.get(0).name())));
                 return pipelineInstance;
             }
@@ -345,6 +385,16 @@ public class ScheduleService {
         }
     }
 
+    private static class SchedulingThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "pipeline-scheduler-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     private String mutexForPipeline(String pipelineName) {
         String s = String.format("%s_forPipeline_%s", getClass().getName(), pipelineName);
         return s.intern(); // interned because we synchronize on it
@@ -0,0 +1,261 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.server.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.thoughtworks.go.config.Resource;
+import com.thoughtworks.go.domain.AgentInstance;
+import com.thoughtworks.go.domain.JobPlan;
+
+/**
+ * @understands scheduled job plans bucketed by environment and resources, so that an agent only looks at jobs it could run
+ */
+class ScheduledJobPlanIndex {
+    static final String NO_ENVIRONMENT = "";
+
+    private final Map<String, Map<BucketKey, Bucket>> bucketsByEnvironment = new HashMap<String, Map<BucketKey, Bucket>>();
+    private final Map<Long, Entry> entriesByJobId = new LinkedHashMap<Long, Entry>();
+    private long nextSequence = 0;
+
+    public synchronized void replaceAll(List<JobPlan> jobPlans, EnvironmentResolver resolver) {
+        clear();
+        for (JobPlan jobPlan : jobPlans) {
+            add(jobPlan, resolver.environmentFor(jobPlan.getPipelineName()));
+        }
+    }
+
+    /**
+     * Brings the index in line with the jobs that are scheduled, given in scheduling order. Jobs already indexed keep their
+     * place and are not resolved again. Only when a job that is not yet indexed comes before one that is does this fall
+     * back to replaceAll, to keep the order. Answers whether any job was added.
+     */
+    public synchronized boolean update(List<JobPlan> jobPlans, EnvironmentResolver resolver) {
+        Set<Long> scheduledJobIds = new HashSet<Long>();
+        boolean seenNewJob = false;
+        for (JobPlan jobPlan : jobPlans) {
+            scheduledJobIds.add(jobPlan.getJobId());
+            if (!entriesByJobId.containsKey(jobPlan.getJobId())) {
+                seenNewJob = true;
+            } else if (seenNewJob) {
+                replaceAll(jobPlans, resolver);
+                return true;
+            }
+        }
+        for (JobPlan indexed : jobPlans()) {
+            if (!scheduledJobIds.contains(indexed.getJobId())) {
+                remove(indexed);
+            }
+        }
+        for (JobPlan jobPlan : jobPlans) {
+            if (!entriesByJobId.containsKey(jobPlan.getJobId())) {
+                add(jobPlan, resolver.environmentFor(jobPlan.getPipelineName()));
+            }
+        }
+        return seenNewJob;
+    }
+
+    public synchronized void rebucket(EnvironmentResolver resolver) {
+        List<JobPlan> jobPlans = jobPlans();
+        replaceAll(jobPlans, resolver);
+    }
+
+    public synchronized JobPlan claimFirstMatching(AgentInstance agent, Collection<String> agentEnvironments) {
+        Bucket earliest = null;
+        for (String environment : environmentKeys(agentEnvironments)) {
+            Map<BucketKey, Bucket> buckets = bucketsByEnvironment.get(environment);
+            if (buckets == null) {
+                continue;
+            }
+            for (Bucket bucket : buckets.values()) {
+                if (bucket.canBeRunBy(agent) && (earliest == null || bucket.firstSequence() < earliest.firstSequence())) {
+                    earliest = bucket;
+                }
+            }
+        }
+        if (earliest == null) {
+            return null;
+        }
+        JobPlan match = earliest.first();
+        remove(match);
+        return match;
+    }
+
+    public synchronized boolean remove(JobPlan jobPlan) {
+        Entry entry = entriesByJobId.remove(jobPlan.getJobId());
+        if (entry == null) {
+            return false;
+        }
+        Map<BucketKey, Bucket> buckets = bucketsByEnvironment.get(entry.key.environment);
+        Bucket bucket = buckets.get(entry.key);
+        bucket.remove(entry.sequence);
+        if (bucket.isEmpty()) {
+            buckets.remove(entry.key);
+            if (buckets.isEmpty()) {
+                bucketsByEnvironment.remove(entry.key.environment);
+            }
+        }
+        return true;
+    }
+
+    public synchronized List<JobPlan> jobPlans() {
+        List<JobPlan> jobPlans = new ArrayList<JobPlan>();
+        for (Entry entry : entriesByJobId.values()) {
+            jobPlans.add(entry.jobPlan);
+        }
+        return jobPlans;
+    }
+
+    public synchronized int size() {
+        return entriesByJobId.size();
+    }
+
+    private void add(JobPlan jobPlan, String environment) {
+        BucketKey key = new BucketKey(environment == null ? NO_ENVIRONMENT : environment.toLowerCase(), jobPlan.getResources(), jobPlan.getAgentUuid());
+        Map<BucketKey, Bucket> buckets = bucketsByEnvironment.get(key.environment);
+        if (buckets == null) {
+            buckets = new HashMap<BucketKey, Bucket>();
+            bucketsByEnvironment.put(key.environment, buckets);
+        }
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new Bucket(key);
+            buckets.put(key, bucket);
+        }
+        Entry entry = new Entry(jobPlan, key, nextSequence++);
+        bucket.add(entry);
+        entriesByJobId.put(jobPlan.getJobId(), entry);
+    }
+
+    private void clear() {
+        bucketsByEnvironment.clear();
+        entriesByJobId.clear();
+        nextSequence = 0;
+    }
+
+    private List<String> environmentKeys(Collection<String> agentEnvironments) {
+        List<String> keys = new ArrayList<String>();
+        if (agentEnvironments == null || agentEnvironments.isEmpty()) {
+            keys.add(NO_ENVIRONMENT);
+            return keys;
+        }
+        for (String environment : agentEnvironments) {
+            keys.add(environment.toLowerCase());
+        }
+        return keys;
+    }
+
+    public static interface EnvironmentResolver {
+        String environmentFor(String pipelineName);
+    }
+
+    private static class Entry {
+        private final JobPlan jobPlan;
+        private final BucketKey key;
+        private final long sequence;
+
+        private Entry(JobPlan jobPlan, BucketKey key, long sequence) {
+            this.jobPlan = jobPlan;
+            this.key = key;
+            this.sequence = sequence;
+        }
+    }
+
+    private static class Bucket {
+        private final BucketKey key;
+        private final TreeMap<Long, JobPlan> jobPlansInOrder = new TreeMap<Long, JobPlan>();
+
+        private Bucket(BucketKey key) {
+            this.key = key;
+        }
+
+        boolean canBeRunBy(AgentInstance agent) {
+            if (key.agentUuid != null) {
+                return key.agentUuid.equals(agent.getUuid());
+            }
+            return agent.agentConfig().hasAllResources(key.resources);
+        }
+
+        void add(Entry entry) {
+            jobPlansInOrder.put(entry.sequence, entry.jobPlan);
+        }
+
+        void remove(long sequence) {
+            jobPlansInOrder.remove(sequence);
+        }
+
+        boolean isEmpty() {
+            return jobPlansInOrder.isEmpty();
+        }
+
+        long firstSequence() {
+            return jobPlansInOrder.firstKey();
+        }
+
+        JobPlan first() {
+            return jobPlansInOrder.firstEntry().getValue();
+        }
+    }
+
+    private static class BucketKey {
+        private final String environment;
+        private final Set<Resource> resources;
+        private final String agentUuid;
+
+        private BucketKey(String environment, List<Resource> resources, String agentUuid) {
+            this.environment = environment;
+            this.resources = new HashSet<Resource>(resources);
+            this.agentUuid = agentUuid;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            BucketKey that = (BucketKey) o;
+
+            if (agentUuid != null ? !agentUuid.equals(that.agentUuid) : that.agentUuid != null) {
+                return false;
+            }
+            if (!environment.equals(that.environment)) {
+                return false;
+            }
+            return resources.equals(that.resources);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = environment.hashCode();
+            result = 31 * result + resources.hashCode();
+            result = 31 * result + (agentUuid != null ? agentUuid.hashCode() : 0);
+            return result;
+        }
+    }
+}
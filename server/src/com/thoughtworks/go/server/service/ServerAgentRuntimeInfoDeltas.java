@@ -14,26 +14,15 @@
  * limitations under the License.
  *************************GO-LICENSE-END***********************************/
 
-package com.thoughtworks.go.server.dao.sparql;
 
-/**
-* @understands the result of a test case run
-*/
-class TestCaseResultModel {
-
-    private final Boolean hasFailure;
-    private final Boolean hasError;
+package com.thoughtworks.go.server.service;
 
-    TestCaseResultModel(Boolean hasFailure, Boolean hasError) {
-        this.hasFailure = hasFailure;
-        this.hasError = hasError;
-    }
+import com.thoughtworks.go.remote.AgentRuntimeInfoDeltas;
+import org.springframework.stereotype.Component;
 
-    public Boolean hasFailure() {
-        return hasFailure;
-    }
-
-    public Boolean hasError() {
-        return hasError;
-    }
+/**
+ * @understands the runtime info last received from each agent, shared by the remoting endpoint and the agents it forgets
+ */
+@Component
+public class ServerAgentRuntimeInfoDeltas extends AgentRuntimeInfoDeltas {
 }
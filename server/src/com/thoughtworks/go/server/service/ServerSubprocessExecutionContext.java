@@ -33,4 +33,8 @@ public class ServerSubprocessExecutionContext implements SubprocessExecutionCont
     public String getProcessNamespace(String fingerprint) {
         return CachedDigestUtils.sha256Hex(goConfigService.getServerId() + fingerprint);//memoize if necessary(for gc reasons) -jj
     }
+
+    public boolean isGitReferenceRepositoryEnabled() {
+        return false;
+    }
 }
@@ -53,6 +53,7 @@ public class ValueStreamMapService {
     private final RunStagesPopulator runStagesPopulator;
     private final UnrunStagesPopulator unrunStagePopulator;
     private SecurityService securityService;
+    private volatile DownstreamPipelines downstreamPipelines = new DownstreamPipelines(null, null);
     private static final org.apache.log4j.Logger LOGGER = org.apache.log4j.Logger.getLogger(ValueStreamMapService.class);
 
     @Autowired
@@ -97,7 +98,7 @@ public class ValueStreamMapService {
         }
         String label = pipelineService.findPipelineByCounterOrLabel(pipelineName, String.valueOf(counter)).getLabel();
         ValueStreamMap valueStreamMap = new ValueStreamMap(pipelineName, new PipelineRevision(pipelineName, counter, label));
-        Map<String, List<PipelineConfig>> pipelineToDownstreamMap = cruiseConfig.generatePipelineVsDownstreamMap();
+        Map<String, List<PipelineConfig>> pipelineToDownstreamMap = pipelineToDownstreamMap(cruiseConfig);
 
         traverseDownstream(pipelineName, pipelineToDownstreamMap, valueStreamMap, new ArrayList<PipelineConfig>());
         traverseUpstream(pipelineName, buildCauseForPipeline, valueStreamMap, new ArrayList<MaterialRevision>());
@@ -172,7 +173,7 @@ public class ValueStreamMapService {
 	private ValueStreamMap buildValueStreamMap(Material material, MaterialInstance materialInstance, Modification modification, List<PipelineConfig> downstreamPipelines, Username username) {
 		CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
 		ValueStreamMap valueStreamMap = new ValueStreamMap(material, materialInstance, modification);
-		Map<String, List<PipelineConfig>> pipelineToDownstreamMap = cruiseConfig.generatePipelineVsDownstreamMap();
+		Map<String, List<PipelineConfig>> pipelineToDownstreamMap = pipelineToDownstreamMap(cruiseConfig);
 
 		traverseDownstream(material.getFingerprint(), downstreamPipelines, pipelineToDownstreamMap, valueStreamMap, new ArrayList<PipelineConfig>());
 
@@ -181,6 +182,19 @@ public class ValueStreamMapService {
 		return valueStreamMap;
 	}
 
+    private Map<String, List<PipelineConfig>> pipelineToDownstreamMap(CruiseConfig cruiseConfig) {
+        String md5 = cruiseConfig.getMd5();
+        DownstreamPipelines current = downstreamPipelines;
+        if (md5 != null && md5.equals(current.md5)) {
+            return current.pipelineToDownstreamMap;
+        }
+        Map<String, List<PipelineConfig>> pipelineToDownstreamMap = cruiseConfig.generatePipelineVsDownstreamMap();
+        if (md5 != null) {
+            downstreamPipelines = new DownstreamPipelines(md5, pipelineToDownstreamMap);
+        }
+        return pipelineToDownstreamMap;
+    }
+
     private String pipelineNameWithSameCaseAsConfig(String pipelineName, CruiseConfig cruiseConfig) {
         return cruiseConfig.pipelineConfigByName(new CaseInsensitiveString(pipelineName)).name().toString();
     }
@@ -246,4 +260,14 @@ public class ValueStreamMapService {
         runStagesPopulator.apply(valueStreamMap);
         unrunStagePopulator.apply(valueStreamMap);
     }
+
+    private static class DownstreamPipelines {
+        private final String md5;
+        private final Map<String, List<PipelineConfig>> pipelineToDownstreamMap;
+
+        private DownstreamPipelines(String md5, Map<String, List<PipelineConfig>> pipelineToDownstreamMap) {
+            this.md5 = md5;
+            this.pipelineToDownstreamMap = pipelineToDownstreamMap;
+        }
+    }
 }
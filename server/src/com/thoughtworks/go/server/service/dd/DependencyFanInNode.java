@@ -18,6 +18,7 @@ package com.thoughtworks.go.server.service.dd;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -77,6 +78,15 @@ public class DependencyFanInNode extends FanInNode {
         throw new RuntimeException("Not a valid root node material type");
     }
 
+    @Override
+    void reset() {
+        totalInstanceCount = Integer.MAX_VALUE;
+        maxBackTrackLimit = Integer.MAX_VALUE;
+        currentCount = 0;
+        currentRevision = null;
+        stageIdentifierScmMaterial.clear();
+    }
+
     public void populateRevisions(CaseInsensitiveString pipelineName, FanInGraphContext context) {
         initialize(context);
         fillNextRevisions(context);
@@ -154,26 +164,34 @@ public class DependencyFanInNode extends FanInNode {
     }
 
     private Pair<StageIdentifier, List<FaninScmMaterial>> getRevisionNthFor(int n, FanInGraphContext context) {
-        List<FaninScmMaterial> scmMaterials = new ArrayList<FaninScmMaterial>();
-        PipelineTimeline pipelineTimeline = context.pipelineTimeline;
-        Queue<PipelineTimelineEntry.Revision> revisionQueue = new ConcurrentLinkedQueue<PipelineTimelineEntry.Revision>();
         DependencyMaterialConfig dependencyMaterial = (DependencyMaterialConfig) materialConfig;
-        PipelineTimelineEntry entry = pipelineTimeline.instanceFor(dependencyMaterial.getPipelineName(), totalInstanceCount - n);
+        PipelineTimelineEntry entry = context.pipelineTimeline.instanceFor(dependencyMaterial.getPipelineName(), totalInstanceCount - n);
 
         StageIdentifier dependentStageIdentifier = dependentStageIdentifier(context, entry, CaseInsensitiveString.str(dependencyMaterial.getStageName()));
-        if (!StageIdentifier.NULL.equals(dependentStageIdentifier)) {
-            addToRevisionQueue(entry, revisionQueue, scmMaterials, context);
-        } else {
+        if (StageIdentifier.NULL.equals(dependentStageIdentifier)) {
             return null;
         }
+        return new Pair<StageIdentifier, List<FaninScmMaterial>>(dependentStageIdentifier, scmMaterialsUpstreamOf(entry, context));
+    }
+
+    private List<FaninScmMaterial> scmMaterialsUpstreamOf(PipelineTimelineEntry entry, FanInGraphContext context) {
+        List<FaninScmMaterial> scmMaterials = context.scmMaterialsByTimelineEntryId.get(entry.getId());
+        if (scmMaterials != null) {
+            return scmMaterials;
+        }
+        scmMaterials = new ArrayList<FaninScmMaterial>();
+        PipelineTimeline pipelineTimeline = context.pipelineTimeline;
+        Queue<PipelineTimelineEntry.Revision> revisionQueue = new ConcurrentLinkedQueue<PipelineTimelineEntry.Revision>();
+        addToRevisionQueue(entry, revisionQueue, scmMaterials, context);
         while (!revisionQueue.isEmpty()) {
             PipelineTimelineEntry.Revision revision = revisionQueue.poll();
             DependencyMaterialRevision dmr = DependencyMaterialRevision.create(revision.revision, null);
             PipelineTimelineEntry pte = pipelineTimeline.getEntryFor(new CaseInsensitiveString(dmr.getPipelineName()), dmr.getPipelineCounter());
             addToRevisionQueue(pte, revisionQueue, scmMaterials, context);
         }
-
-        return new Pair<StageIdentifier, List<FaninScmMaterial>>(dependentStageIdentifier, scmMaterials);
+        scmMaterials = Collections.unmodifiableList(scmMaterials);
+        context.scmMaterialsByTimelineEntryId.put(entry.getId(), scmMaterials);
+        return scmMaterials;
     }
 
     private boolean validateAllScmRevisionsAreSameWithinAFingerprint(Pair<StageIdentifier, List<FaninScmMaterial>> pIdScmPair) {
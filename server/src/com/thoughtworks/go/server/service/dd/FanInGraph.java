@@ -22,9 +22,11 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.CruiseConfig;
@@ -62,10 +64,11 @@ public class FanInGraph {
     private final MaterialRepository materialRepository;
     private MaterialConfigConverter materialConfigConverter;
 
-    private final List<FanInNode> nodes = new ArrayList<FanInNode>();
+    private final Map<String, FanInNode> nodes = new LinkedHashMap<String, FanInNode>();
     private final Map<String, MaterialConfig> fingerprintScmMaterialMap = new HashMap<String, MaterialConfig>();
     private final Map<String, DependencyMaterialConfig> fingerprintDepMaterialMap = new HashMap<String, DependencyMaterialConfig>();
     private final Map<DependencyMaterialConfig, Set<String>> dependencyMaterialFingerprintMap = new HashMap<DependencyMaterialConfig, Set<String>>();
+    private final Map<Long, List<FaninScmMaterial>> scmMaterialsByTimelineEntryId = new ConcurrentHashMap<Long, List<FaninScmMaterial>>();
 
     private final DependencyFanInNode root;
     private final CaseInsensitiveString pipelineName;
@@ -87,7 +90,7 @@ public class FanInGraph {
     }
 
     private void buildGraph(PipelineConfig target) {
-        nodes.add(this.root);
+        nodes.put(this.root.materialConfig.getFingerprint(), this.root);
         final HashSet<String> scmMaterials = new HashSet<String>();
         buildRestOfTheGraph(this.root, target, scmMaterials);
         dependencyMaterialFingerprintMap.put((DependencyMaterialConfig) this.root.materialConfig, scmMaterials);
@@ -115,6 +118,12 @@ public class FanInGraph {
     }
 
     private void handleDependencyMaterial(HashSet<String> scmMaterialSet, DependencyMaterialConfig depMaterial, DependencyFanInNode node) {
+        Set<String> alreadyBuilt = dependencyMaterialFingerprintMap.get(depMaterial);
+        if (alreadyBuilt != null) {
+            //Upstream of this node was walked through another path of a diamond
+            scmMaterialSet.addAll(alreadyBuilt);
+            return;
+        }
         final HashSet<String> scmMaterialFingerprintSet = new HashSet<String>();
         buildRestOfTheGraph(node, cruiseConfig.pipelineConfigByName(depMaterial.getPipelineName()), scmMaterialFingerprintSet);
         scmMaterialFingerprintSet.addAll(scmMaterialFingerprintSet);
@@ -126,20 +135,41 @@ public class FanInGraph {
         FanInNode node = getNodeIfExists(material);
         if (node == null) {
             node = FanInNodeFactory.create(material);
-            nodes.add(node);
+            nodes.put(material.getFingerprint(), node);
         }
         return node;
     }
 
     private FanInNode getNodeIfExists(MaterialConfig material) {
-        int i = nodes.indexOf(FanInNodeFactory.create(material));
-        return i == -1 ? null : nodes.get(i);
+        return nodes.get(material.getFingerprint());
+    }
+
+    public boolean dependsOn(CaseInsensitiveString pipelineName) {
+        if (this.pipelineName.equals(pipelineName)) {
+            return true;
+        }
+        for (DependencyMaterialConfig dependencyMaterial : fingerprintDepMaterialMap.values()) {
+            if (dependencyMaterial.getPipelineName().equals(pipelineName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void forgetResolvedRevisions() {
+        scmMaterialsByTimelineEntryId.clear();
+    }
+
+    private void resetNodes() {
+        for (FanInNode node : nodes.values()) {
+            node.reset();
+        }
     }
 
     //Used in test Only
     List<ScmMaterialConfig> getScmMaterials() {
         List<ScmMaterialConfig> scmMaterials = new ArrayList<ScmMaterialConfig>();
-        for (FanInNode node : nodes) {
+        for (FanInNode node : nodes.values()) {
             if (node.materialConfig instanceof ScmMaterialConfig) {
                 scmMaterials.add((ScmMaterialConfig) node.materialConfig);
             }
@@ -161,7 +191,7 @@ public class FanInGraph {
         return dependencyMaterialListMap;
     }
 
-    public MaterialRevisions computeRevisions(MaterialRevisions actualRevisions, PipelineTimeline pipelineTimeline) {
+    public synchronized MaterialRevisions computeRevisions(MaterialRevisions actualRevisions, PipelineTimeline pipelineTimeline) {
 
         assertAllDirectDependenciesArePresentInInput(actualRevisions, pipelineName);
 
@@ -175,6 +205,7 @@ public class FanInGraph {
         }
 
         FanInGraphContext context = buildContext(pipelineTimeline);
+        resetNodes();
         root.initialize(context);
 
         initChildren(depChildren, pipelineName, context);
@@ -194,7 +225,7 @@ public class FanInGraph {
     //Ramraj ge salute
     //Srikant & Sachin
     @Deprecated
-    public Collection<MaterialRevision> computeRevisionsForReporting(CaseInsensitiveString pipelineName, PipelineTimeline pipelineTimeline) {
+    public synchronized Collection<MaterialRevision> computeRevisionsForReporting(CaseInsensitiveString pipelineName, PipelineTimeline pipelineTimeline) {
         Pair<List<RootFanInNode>, List<DependencyFanInNode>> scmAndDepMaterialsChildren = getScmAndDepMaterialsChildren();
         List<RootFanInNode> scmChildren = scmAndDepMaterialsChildren.first();
         List<DependencyFanInNode> depChildren = scmAndDepMaterialsChildren.last();
@@ -205,6 +236,7 @@ public class FanInGraph {
         }
 
         FanInGraphContext context = buildContext(pipelineTimeline);
+        resetNodes();
         root.initialize(context);
 
         initChildren(depChildren, pipelineName, context);
@@ -396,6 +428,7 @@ public class FanInGraph {
         context.fingerprintDepMaterialMap = fingerprintDepMaterialMap;
         context.pipelineDao = pipelineDao;
         context.maxBackTrackLimit = systemEnvironment.get(SystemEnvironment.RESOLVE_FANIN_MAX_BACK_TRACK_LIMIT);
+        context.scmMaterialsByTimelineEntryId = scmMaterialsByTimelineEntryId;
         return context;
     }
 
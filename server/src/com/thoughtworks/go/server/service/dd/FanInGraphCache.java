@@ -0,0 +1,66 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.server.service.dd;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.CruiseConfig;
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+import com.thoughtworks.go.listener.TimelineUpdateListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * @understands fan-in graphs already built for a pipeline in the current version of the config
+ */
+@Component
+public class FanInGraphCache implements TimelineUpdateListener {
+    private final ConcurrentHashMap<String, FanInGraph> graphs = new ConcurrentHashMap<String, FanInGraph>();
+    private String configMd5;
+
+    public FanInGraph get(CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName) {
+        String md5 = cruiseConfig.getMd5();
+        return md5 == null ? null : graphs.get(key(md5, pipelineName));
+    }
+
+    public synchronized void put(CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName, FanInGraph fanInGraph) {
+        String md5 = cruiseConfig.getMd5();
+        if (md5 == null) {
+            return;
+        }
+        if (!md5.equals(configMd5)) {
+            graphs.clear();
+            configMd5 = md5;
+        }
+        graphs.put(key(md5, pipelineName), fanInGraph);
+    }
+
+    public void added(PipelineTimelineEntry newlyAddedEntry, List<PipelineTimelineEntry> timeline) {
+        CaseInsensitiveString pipelineName = new CaseInsensitiveString(newlyAddedEntry.getPipelineName());
+        for (FanInGraph fanInGraph : graphs.values()) {
+            if (fanInGraph.dependsOn(pipelineName)) {
+                fanInGraph.forgetResolvedRevisions();
+            }
+        }
+    }
+
+    private String key(String md5, CaseInsensitiveString pipelineName) {
+        return md5 + "/" + pipelineName.toLower();
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.thoughtworks.go.server.service.dd;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -32,4 +33,5 @@ public class FanInGraphContext {
     public Map<String, DependencyMaterialConfig> fingerprintDepMaterialMap;
     public PipelineDao pipelineDao;
     public int maxBackTrackLimit;
+    Map<Long, List<FaninScmMaterial>> scmMaterialsByTimelineEntryId;
 }
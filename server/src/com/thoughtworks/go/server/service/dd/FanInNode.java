@@ -29,6 +29,11 @@ public abstract class FanInNode {
         this.materialConfig = materialConfig;
     }
 
+    /**
+     * Forgets what was worked out for this node by an earlier revision computation, so that the graph can be used again
+     */
+    abstract void reset();
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -46,6 +46,11 @@ public class RootFanInNode extends FanInNode {
         throw new RuntimeException("Not a valid root node material type");
     }
 
+    @Override
+    void reset() {
+        scmRevision = null;
+    }
+
     public void setScmRevision(Set<FaninScmMaterial> allScmMaterials) {
         for (FaninScmMaterial scmMaterial : allScmMaterials) {
             if (materialConfig.getFingerprint().equals(scmMaterial.fingerprint)) {
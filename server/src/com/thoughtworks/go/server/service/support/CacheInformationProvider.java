@@ -16,6 +16,8 @@
 
 package com.thoughtworks.go.server.service.support;
 
+import java.util.Map;
+
 import com.thoughtworks.go.server.cache.GoCache;
 import net.sf.ehcache.config.CacheConfiguration;
 import net.sf.ehcache.statistics.LiveCacheStatistics;
@@ -45,6 +47,7 @@ public class CacheInformationProvider implements ServerInfoProvider {
 
         appendCacheConfigurationInformation(infoCollector, goCache);
         appendLiveCacheStatisticsInformation(infoCollector, goCache);
+        appendRegionStatisticsInformation(infoCollector, goCache);
     }
 
     private void appendCacheConfigurationInformation(InformationStringBuilder infoCollector, GoCache cache) {
@@ -71,4 +74,17 @@ public class CacheInformationProvider implements ServerInfoProvider {
         infoCollector.append(String.format("Cache size (disk): %s\n", statistics.getOnDiskSize()));
         infoCollector.append(String.format("Cache hit count (disk): %s\n", statistics.getOnDiskHitCount()));
     }
+
+    private void appendRegionStatisticsInformation(InformationStringBuilder infoCollector, GoCache cache) {
+        infoCollector.addSubSection("Cache region information");
+        if (!cache.tracksRegionStatistics()) {
+            infoCollector.append("Not tracked, start the server with -Dgo.cache.region.statistics=true to track them\n");
+            return;
+        }
+        for (Map.Entry<String, GoCache.RegionStatistics> entry : cache.regionStatistics().entrySet()) {
+            GoCache.RegionStatistics statistics = entry.getValue();
+            infoCollector.append(String.format("%s: [Hits: %s, Miss: %s, Put: %s, Remove: %s]\n", entry.getKey(),
+                    statistics.getHits(), statistics.getMisses(), statistics.getPuts(), statistics.getRemoves()));
+        }
+    }
 }
@@ -26,8 +26,10 @@ import com.thoughtworks.go.server.dao.PipelineDao;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Component
@@ -66,14 +68,27 @@ public class DownstreamInstancePopulator {
                 continue;
             }
             visitedRevisions.add(revision);
-            for (Node child : node.getChildren()) {
-                List<PipelineIdentifier> pipelineIdentifiers = pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterial(child.getName(), ((PipelineRevision) revision).getPipelineIdentifier());
-				addRevisionsToNode(child, pipelineIdentifiers);
+            List<Node> children = node.getChildren();
+            if (children.isEmpty()) {
+                continue;
+            }
+            Map<String, List<PipelineIdentifier>> instancesOfChildren = pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterial(namesOf(children),
+                    ((PipelineRevision) revision).getPipelineIdentifier());
+            for (Node child : children) {
+				addRevisionsToNode(child, instancesOfChildren.get(child.getName()));
                 populateRevisionsForAllChildrenOf(child, visitedRevisions);
             }
         }
     }
 
+    private List<String> namesOf(List<Node> nodes) {
+        List<String> names = new ArrayList<String>();
+        for (Node node : nodes) {
+            names.add(node.getName());
+        }
+        return names;
+    }
+
 	private void addRevisionsToNode(Node node, List<PipelineIdentifier> pipelineIdentifiers) {
 		for (PipelineIdentifier pipelineIdentifier : pipelineIdentifiers) {
 			node.addRevision(new PipelineRevision(pipelineIdentifier));
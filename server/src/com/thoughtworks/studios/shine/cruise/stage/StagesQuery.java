@@ -17,11 +17,13 @@
 package com.thoughtworks.studios.shine.cruise.stage;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.thoughtworks.go.domain.StageIdentifier;
 import com.thoughtworks.go.server.dao.sparql.RdfResultMapper;
 import com.thoughtworks.studios.shine.cruise.stage.details.StageGraphLoader;
+import com.thoughtworks.studios.shine.cruise.stage.details.StageTestResults;
 import com.thoughtworks.studios.shine.semweb.BoundVariables;
 import com.thoughtworks.studios.shine.semweb.Graph;
 import org.apache.log4j.Logger;
@@ -50,6 +52,35 @@ public class StagesQuery {
         return result;
     }
 
+    public List<StageTestResults> testResults(List<StageIdentifier> identifiers) {
+        long queryStartTime = System.currentTimeMillis();
+        List<StageTestResults> result = new ArrayList<StageTestResults>();
+        for (StageIdentifier identifier : identifiers) {
+            result.add(testResultsForSingleStage(identifier));
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("Loaded test results for stages: %s using %dms.", identifiers, (System.currentTimeMillis() - queryStartTime)));
+        }
+        return result;
+    }
+
+    private StageTestResults testResultsForSingleStage(StageIdentifier stageIdentifier) {
+        StagesQueryCache.CacheKey key = new StagesQueryCache.CacheKey(StageTestResults.class.getName(), stageIdentifier);
+        List<StageTestResults> cached = (List<StageTestResults>) cache.get(key);
+        if (cached != null) {
+            return cached.get(0);
+        }
+        synchronized (key.getKey().intern()) {
+            cached = (List<StageTestResults>) cache.get(key);
+            if (cached != null) {
+                return cached.get(0);
+            }
+            StageTestResults testResults = stageGraphLoader.loadTestResults(stageIdentifier);
+            cache.put(Collections.singletonList(testResults), key);
+            return testResults;
+        }
+    }
+
     private <T> List<T> selectForSingleStage(String sparql, StageIdentifier stageIdentifier, RdfResultMapper<T> mapper) {
         StagesQueryCache.CacheKey key = new StagesQueryCache.CacheKey(sparql, stageIdentifier);
         List<T> mappedResults = (List<T>) cache.get(key);
@@ -76,4 +76,11 @@ public class LazyStageGraphLoader implements StageGraphLoader {
         stageStorage.save(graph);
         return graph;
     }
+
+    public StageTestResults loadTestResults(StageIdentifier stageIdentifier) {
+        if (!stageStorage.isStageStored(stageIdentifier)) {
+            load(stageIdentifier);
+        }
+        return stageStorage.loadTestResults(stageIdentifier);
+    }
 }
@@ -22,5 +22,7 @@ import com.thoughtworks.studios.shine.semweb.Graph;
 public interface StageGraphLoader {
 
     Graph load(StageIdentifier stageIdentifier);
+
+    StageTestResults loadTestResults(StageIdentifier stageIdentifier);
 }
 
@@ -35,13 +35,16 @@ import com.thoughtworks.studios.shine.semweb.BoundVariables;
 import com.thoughtworks.studios.shine.semweb.Graph;
 import com.thoughtworks.studios.shine.semweb.sesame.InMemoryTempGraphFactory;
 import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 public class StageStorage implements StageGraphLoader {
+    private static final Logger LOGGER = Logger.getLogger(StageStorage.class);
     private String baseDir;
     private static final String EXTENSION = ".n3.gz";
+    private static final String TEST_RESULTS_EXTENSION = ".results";
 
     @Autowired
     public StageStorage(SystemEnvironment systemEnvironment) {
@@ -67,6 +70,9 @@ public class StageStorage implements StageGraphLoader {
                 return;
             }
 
+            // test results go first, so a stored stage always has them unless it was stored before they existed
+            saveTestResults(identifier, StageTestResults.extractFrom(graph));
+
             File file = new File(tmpStagePath(identifier));
 
             file.getParentFile().mkdirs();
@@ -84,6 +90,22 @@ public class StageStorage implements StageGraphLoader {
         }
     }
 
+    private void saveTestResults(StageIdentifier identifier, StageTestResults testResults) {
+        File file = new File(testResultsPath(identifier) + "." + UUID.randomUUID());
+
+        file.getParentFile().mkdirs();
+        try {
+            OutputStream os = new BufferedOutputStream(new FileOutputStream(file));
+            testResults.writeTo(os);
+            os.close();
+            file.renameTo(new File(testResultsPath(identifier)));
+        } catch (IOException e) {
+            throw new ShineRuntimeException(e);
+        } finally {
+            file.delete();
+        }
+    }
+
     private String stageKey(StageIdentifier identifier) {
         return identifier.getStageLocator().intern();
     }
@@ -131,6 +153,28 @@ public class StageStorage implements StageGraphLoader {
 
     }
 
+    public StageTestResults loadTestResults(StageIdentifier stageIdentifier) {
+        File file = new File(testResultsPath(stageIdentifier));
+        if (file.exists()) {
+            try {
+                InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+                try {
+                    return StageTestResults.readFrom(inputStream);
+                } finally {
+                    inputStream.close();
+                }
+            } catch (IOException e) {
+                LOGGER.warn(String.format("Unable to read test results of %s (file: %s), rebuilding them from the stage graph.", stageIdentifier, file), e);
+            }
+        }
+
+        synchronized (stageKey(stageIdentifier)) {
+            StageTestResults testResults = StageTestResults.extractFrom(load(stageIdentifier));
+            saveTestResults(stageIdentifier, testResults);
+            return testResults;
+        }
+    }
+
     public boolean isStageStored(StageIdentifier stageIdentifier) {
         return new File(stagePath(stageIdentifier)).exists();
     }
@@ -143,6 +187,10 @@ public class StageStorage implements StageGraphLoader {
         return baseDir + File.separator + stageIdentifier.stageLocator() + EXTENSION;
     }
 
+    private String testResultsPath(StageIdentifier stageIdentifier) {
+        return baseDir + File.separator + stageIdentifier.stageLocator() + TEST_RESULTS_EXTENSION;
+    }
+
     // with great power comes great responsibility
     public void clear() {
         FileUtils.deleteQuietly(new File(baseDir));
@@ -0,0 +1,416 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.studios.shine.cruise.stage.details;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.thoughtworks.studios.shine.ShineRuntimeException;
+import com.thoughtworks.studios.shine.cruise.GoOntology;
+import com.thoughtworks.studios.shine.semweb.BoundVariables;
+import com.thoughtworks.studios.shine.semweb.Graph;
+import com.thoughtworks.studios.shine.xunit.XUnitOntology;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * @understands the outcome of the tests run by one stage, kept apart from the rdf graph it was imported as
+ */
+public class StageTestResults {
+    private static final int FORMAT_VERSION = 1;
+    private static final String UTF_8 = "UTF-8";
+
+    private final String pipelineName;
+    private final int pipelineCounter;
+    private final String pipelineLabel;
+    private final String stageName;
+    private final String stageCounter;
+    private final int totalCount;
+    private final int failureCount;
+    private final int errorCount;
+    private final List<String> committers;
+    private final String[] suiteNames;
+    private final int[] suiteOfTest;
+    private final String[] testNames;
+    private final List<Job> jobs;
+
+    StageTestResults(String pipelineName, int pipelineCounter, String pipelineLabel, String stageName, String stageCounter, int totalCount, int failureCount, int errorCount,
+                     List<String> committers, String[] suiteNames, int[] suiteOfTest, String[] testNames, List<Job> jobs) {
+        this.pipelineName = pipelineName;
+        this.pipelineCounter = pipelineCounter;
+        this.pipelineLabel = pipelineLabel;
+        this.stageName = stageName;
+        this.stageCounter = stageCounter;
+        this.totalCount = totalCount;
+        this.failureCount = failureCount;
+        this.errorCount = errorCount;
+        this.committers = committers;
+        this.suiteNames = suiteNames;
+        this.suiteOfTest = suiteOfTest;
+        this.testNames = testNames;
+        this.jobs = jobs;
+    }
+
+    public String getPipelineName() {
+        return pipelineName;
+    }
+
+    public int getPipelineCounter() {
+        return pipelineCounter;
+    }
+
+    public String getPipelineLabel() {
+        return pipelineLabel;
+    }
+
+    public String getStageName() {
+        return stageName;
+    }
+
+    public String getStageCounter() {
+        return stageCounter;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public List<String> getCommitters() {
+        return Collections.unmodifiableList(committers);
+    }
+
+    public List<Job> getJobs() {
+        return Collections.unmodifiableList(jobs);
+    }
+
+    /**
+     * Failures of a job ordered by suite and test name, the way the shine queries used to report them.
+     */
+    public List<Failure> failuresOf(Job job) {
+        List<Failure> failures = new ArrayList<Failure>();
+        BitSet failedOrErrored = (BitSet) job.failed.clone();
+        failedOrErrored.or(job.errored);
+        for (int test = failedOrErrored.nextSetBit(0); test >= 0; test = failedOrErrored.nextSetBit(test + 1)) {
+            if (job.failed.get(test)) {
+                failures.add(new Failure(suiteNames[suiteOfTest[test]], testNames[test], false));
+            }
+            if (job.errored.get(test)) {
+                failures.add(new Failure(suiteNames[suiteOfTest[test]], testNames[test], true));
+            }
+        }
+        return failures;
+    }
+
+    public static StageTestResults extractFrom(Graph graph) {
+        BoundVariables stage = graph.selectFirst(""
+                + "PREFIX cruise: <" + GoOntology.URI + "> "
+                + "SELECT ?pipelineName ?pipelineCounter ?pipelineLabel ?stageName ?stageCounter WHERE {"
+                + "  ?pipeline a cruise:Pipeline ."
+                + "  ?pipeline cruise:pipelineName ?pipelineName ."
+                + "  ?pipeline cruise:pipelineCounter ?pipelineCounter ."
+                + "  ?pipeline cruise:hasStage ?stage ."
+                + "  ?stage cruise:stageName ?stageName ."
+                + "  ?stage cruise:stageCounter ?stageCounter ."
+                + "  OPTIONAL { ?pipeline cruise:pipelineLabel ?pipelineLabel . }"
+                + "}");
+        if (stage == null) {
+            throw new ShineRuntimeException("Cannot index test results of a stage graph without stage identification information!");
+        }
+
+        int totalCount = 0;
+        int failureCount = 0;
+        int errorCount = 0;
+        for (BoundVariables testCase : graph.select(""
+                + "PREFIX xunit: <" + XUnitOntology.URI + "> "
+                + "SELECT ?testCase ?failure ?error {"
+                + "  ?testCase a xunit:TestCase ."
+                + "  OPTIONAL {"
+                + "     ?testCase xunit:hasFailure ?failure ."
+                + "     ?failure xunit:isError ?error ."
+                + "  }"
+                + "}")) {
+            totalCount++;
+            if (testCase.getAsString("failure") != null) {
+                if (Boolean.TRUE.equals(testCase.getBoolean("error"))) {
+                    errorCount++;
+                } else {
+                    failureCount++;
+                }
+            }
+        }
+
+        List<String> committers = new ArrayList<String>();
+        for (BoundVariables changeSet : graph.select(""
+                + "PREFIX cruise: <" + GoOntology.URI + "> "
+                + "SELECT DISTINCT ?user {"
+                + "  ?pipelineTrigger a cruise:ChangeSet ."
+                + "  ?pipelineTrigger cruise:user ?user ."
+                + "} ORDER BY ?user")) {
+            String user = changeSet.getString("user");
+            if (!StringUtils.isEmpty(user)) {
+                committers.add(user);
+            }
+        }
+
+        Map<String, JobBuilder> jobBuilders = new TreeMap<String, JobBuilder>();
+        for (BoundVariables job : graph.select(""
+                + "PREFIX cruise: <" + GoOntology.URI + "> "
+                + "SELECT DISTINCT ?jobName {"
+                + "  ?stage cruise:hasJob ?job ."
+                + "  ?job cruise:jobName ?jobName ."
+                + "}")) {
+            jobBuilders.put(job.getString("jobName"), new JobBuilder());
+        }
+
+        List<BoundVariables> failureRows = graph.select(""
+                + "PREFIX cruise: <" + GoOntology.URI + "> "
+                + "PREFIX xunit: <" + XUnitOntology.URI + "> "
+                + "SELECT DISTINCT ?jobName ?testSuiteName ?testCaseName ?isError {"
+                + "  ?job cruise:jobName ?jobName ."
+                + "  ?job xunit:hasTestCase ?testCase ."
+                + "  ?testCase xunit:testCaseName ?testCaseName ."
+                + "  ?testCase xunit:testSuiteName ?testSuiteName ."
+                + "  ?testCase xunit:hasFailure ?failure ."
+                + "  ?failure xunit:isError ?isError ."
+                + "}");
+        Map<String, TreeSet<String>> failingTestsBySuite = new TreeMap<String, TreeSet<String>>();
+        for (BoundVariables row : failureRows) {
+            String suiteName = row.getString("testSuiteName");
+            if (!failingTestsBySuite.containsKey(suiteName)) {
+                failingTestsBySuite.put(suiteName, new TreeSet<String>());
+            }
+            failingTestsBySuite.get(suiteName).add(row.getString("testCaseName"));
+        }
+
+        List<String> suiteNames = new ArrayList<String>(failingTestsBySuite.keySet());
+        List<Integer> suiteOfTest = new ArrayList<Integer>();
+        List<String> testNames = new ArrayList<String>();
+        Map<String, Integer> testIds = new TreeMap<String, Integer>();
+        for (int suite = 0; suite < suiteNames.size(); suite++) {
+            for (String testName : failingTestsBySuite.get(suiteNames.get(suite))) {
+                testIds.put(testKey(suiteNames.get(suite), testName), testNames.size());
+                suiteOfTest.add(suite);
+                testNames.add(testName);
+            }
+        }
+
+        for (BoundVariables row : failureRows) {
+            String jobName = row.getString("jobName");
+            if (!jobBuilders.containsKey(jobName)) {
+                jobBuilders.put(jobName, new JobBuilder());
+            }
+            int test = testIds.get(testKey(row.getString("testSuiteName"), row.getString("testCaseName")));
+            if (Boolean.TRUE.equals(row.getBoolean("isError"))) {
+                jobBuilders.get(jobName).errored.set(test);
+            } else {
+                jobBuilders.get(jobName).failed.set(test);
+            }
+        }
+
+        List<Job> jobs = new ArrayList<Job>();
+        for (Map.Entry<String, JobBuilder> entry : jobBuilders.entrySet()) {
+            jobs.add(new Job(entry.getKey(), entry.getValue().failed, entry.getValue().errored));
+        }
+
+        int[] suiteOfTestArray = new int[suiteOfTest.size()];
+        for (int test = 0; test < suiteOfTestArray.length; test++) {
+            suiteOfTestArray[test] = suiteOfTest.get(test);
+        }
+        return new StageTestResults(stage.getString("pipelineName"), stage.getInt("pipelineCounter"), stage.getString("pipelineLabel"), stage.getString("stageName"),
+                stage.getString("stageCounter"), totalCount, failureCount, errorCount, committers, suiteNames.toArray(new String[suiteNames.size()]), suiteOfTestArray,
+                testNames.toArray(new String[testNames.size()]), jobs);
+    }
+
+    private static String testKey(String suiteName, String testName) {
+        return suiteName + "\u0000" + testName;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(FORMAT_VERSION);
+        writeString(data, pipelineName);
+        data.writeInt(pipelineCounter);
+        writeString(data, pipelineLabel);
+        writeString(data, stageName);
+        writeString(data, stageCounter);
+        data.writeInt(totalCount);
+        data.writeInt(failureCount);
+        data.writeInt(errorCount);
+        data.writeInt(committers.size());
+        for (String committer : committers) {
+            writeString(data, committer);
+        }
+        data.writeInt(suiteNames.length);
+        for (String suiteName : suiteNames) {
+            writeString(data, suiteName);
+        }
+        data.writeInt(testNames.length);
+        for (int test = 0; test < testNames.length; test++) {
+            data.writeInt(suiteOfTest[test]);
+            writeString(data, testNames[test]);
+        }
+        data.writeInt(jobs.size());
+        for (Job job : jobs) {
+            writeString(data, job.name);
+            writeBits(data, job.failed);
+            writeBits(data, job.errored);
+        }
+        data.flush();
+    }
+
+    public static StageTestResults readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int version = data.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported stage test results format version " + version);
+        }
+        String pipelineName = readString(data);
+        int pipelineCounter = data.readInt();
+        String pipelineLabel = readString(data);
+        String stageName = readString(data);
+        String stageCounter = readString(data);
+        int totalCount = data.readInt();
+        int failureCount = data.readInt();
+        int errorCount = data.readInt();
+        int committerCount = data.readInt();
+        List<String> committers = new ArrayList<String>(committerCount);
+        for (int i = 0; i < committerCount; i++) {
+            committers.add(readString(data));
+        }
+        String[] suiteNames = new String[data.readInt()];
+        for (int suite = 0; suite < suiteNames.length; suite++) {
+            suiteNames[suite] = readString(data);
+        }
+        int testCount = data.readInt();
+        int[] suiteOfTest = new int[testCount];
+        String[] testNames = new String[testCount];
+        for (int test = 0; test < testCount; test++) {
+            suiteOfTest[test] = data.readInt();
+            testNames[test] = readString(data);
+        }
+        int jobCount = data.readInt();
+        List<Job> jobs = new ArrayList<Job>(jobCount);
+        for (int i = 0; i < jobCount; i++) {
+            jobs.add(new Job(readString(data), readBits(data), readBits(data)));
+        }
+        return new StageTestResults(pipelineName, pipelineCounter, pipelineLabel, stageName, stageCounter, totalCount, failureCount, errorCount, committers, suiteNames, suiteOfTest,
+                testNames, jobs);
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeBits(DataOutputStream data, BitSet bits) throws IOException {
+        data.writeInt(bits.cardinality());
+        for (int bit = bits.nextSetBit(0); bit >= 0; bit = bits.nextSetBit(bit + 1)) {
+            data.writeInt(bit);
+        }
+    }
+
+    private static BitSet readBits(DataInputStream data) throws IOException {
+        BitSet bits = new BitSet();
+        int count = data.readInt();
+        for (int i = 0; i < count; i++) {
+            bits.set(data.readInt());
+        }
+        return bits;
+    }
+
+    private static class JobBuilder {
+        private final BitSet failed = new BitSet();
+        private final BitSet errored = new BitSet();
+    }
+
+    public static class Job {
+        private final String name;
+        private final BitSet failed;
+        private final BitSet errored;
+
+        Job(String name, BitSet failed, BitSet errored) {
+            this.name = name;
+            this.failed = failed;
+            this.errored = errored;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean hasFailures() {
+            return !failed.isEmpty() || !errored.isEmpty();
+        }
+    }
+
+    public static class Failure {
+        private final String suiteName;
+        private final String testName;
+        private final boolean error;
+
+        Failure(String suiteName, String testName, boolean error) {
+            this.suiteName = suiteName;
+            this.testName = testName;
+            this.error = error;
+        }
+
+        public String getSuiteName() {
+            return suiteName;
+        }
+
+        public String getTestName() {
+            return testName;
+        }
+
+        public boolean isError() {
+            return error;
+        }
+    }
+}
@@ -17,7 +17,14 @@
 package com.thoughtworks.go.server.cache;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.ibatis.sqlmap.client.SqlMapClient;
 import com.thoughtworks.go.config.GoConfigFileDao;
@@ -289,4 +296,187 @@ public class GoCacheTest {
         assertThat((String) goCache.get("baz"), is("3"));
 
     }
+
+    @Test
+    public void getOrCompute_shouldLoadMissingValueOnceAndServeItFromCacheAfterwards() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final String[] values = new String[10];
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < values.length; i++) {
+            final int index = i;
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    values[index] = goCache.getOrCompute("GoCacheTest_loaded_foo", new GoCache.ValueLoader<String>() {
+                        public String load() {
+                            loads.incrementAndGet();
+                            try {
+                                Thread.sleep(50);
+                            } catch (InterruptedException e) {
+                                throw new RuntimeException(e);
+                            }
+                            return "bar";
+                        }
+                    });
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(loads.get(), is(1));
+        for (String value : values) {
+            assertThat(value, is("bar"));
+        }
+        assertThat((String) goCache.get("GoCacheTest_loaded_foo"), is("bar"));
+    }
+
+    @Test
+    public void getOrCompute_shouldNotCacheNullValues() {
+        final AtomicInteger loads = new AtomicInteger();
+        GoCache.ValueLoader<String> loader = new GoCache.ValueLoader<String>() {
+            public String load() {
+                loads.incrementAndGet();
+                return null;
+            }
+        };
+        assertThat(goCache.getOrCompute("foo", loader), is(nullValue()));
+        assertThat(goCache.getOrCompute("foo", loader), is(nullValue()));
+        assertThat(loads.get(), is(2));
+    }
+
+    @Test
+    public void getOrCompute_shouldLoadScopedValueForSubKey() {
+        String value = goCache.getOrCompute("foo", "bar", new GoCache.ValueLoader<String>() {
+            public String load() {
+                return "baz";
+            }
+        });
+        assertThat(value, is("baz"));
+        assertThat((String) goCache.get("foo", "bar"), is("baz"));
+        goCache.remove("foo");
+        assertThat(goCache.get("foo", "bar"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldKeepSubKeyFamilyConsistentUnderConcurrentPutsAndRemoves() throws Exception {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            final int thread = i;
+            threads.add(new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < 200; j++) {
+                        String subKey = thread + "-" + j;
+                        goCache.put("foo", subKey, subKey);
+                        if (j % 2 == 0) {
+                            goCache.remove("foo", subKey);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        GoCache.KeyList subKeys = (GoCache.KeyList) goCache.get("foo");
+        assertThat(subKeys.size(), is(8 * 100));
+        assertThat((String) goCache.get("foo", "3-1"), is("3-1"));
+        assertThat(goCache.get("foo", "3-2"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldTrackStatisticsPerRegionOfKeyWhenAskedTo() {
+        System.setProperty(SystemEnvironment.GO_CACHE_REGION_STATISTICS.propertyName(), "true");
+        GoCache goCache;
+        try {
+            goCache = new GoCache(this.goCache);
+        } finally {
+            System.clearProperty(SystemEnvironment.GO_CACHE_REGION_STATISTICS.propertyName());
+        }
+        goCache.put("GoCacheTest_region_1", "one");
+        goCache.put("GoCacheTest_region_2", "two");
+        goCache.get("GoCacheTest_region_1");
+        goCache.get("GoCacheTest_region_3");
+        goCache.remove("GoCacheTest_region_2");
+
+        GoCache.RegionStatistics statistics = goCache.regionStatistics().get("GoCacheTest_region");
+        assertThat(statistics.getPuts(), is(2L));
+        assertThat(statistics.getHits(), is(1L));
+        assertThat(statistics.getMisses(), is(1L));
+        assertThat(statistics.getRemoves(), is(1L));
+    }
+
+    @Test
+    public void shouldNotTrackStatisticsPerRegionOfKeyByDefault() {
+        GoCache goCache = new GoCache(this.goCache);
+        goCache.put("GoCacheTest_untracked_1", "one");
+        goCache.get("GoCacheTest_untracked_1");
+
+        assertThat(goCache.tracksRegionStatistics(), is(false));
+        assertThat(goCache.regionStatistics().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldLoadASubKeyUnderTheSameLockThatRemovingItsParentKeyTakes() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch removed = new CountDownLatch(1);
+        Thread loader = new Thread(new Runnable() {
+            public void run() {
+                goCache.getOrCompute("foo", "bar", new GoCache.ValueLoader<String>() {
+                    public String load() {
+                        loading.countDown();
+                        try {
+                            removed.await(200, TimeUnit.MILLISECONDS);
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                        return "stale";
+                    }
+                });
+            }
+        });
+        loader.start();
+        loading.await();
+        goCache.remove("foo", "bar");
+        removed.countDown();
+        loader.join();
+
+        assertThat(goCache.get("foo", "bar"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldLoadOnlyTheMissingKeysOfABatchInOneCallAndCacheWhatWasLoaded() {
+        goCache.put("batch_1", "cached");
+        final List<List<String>> loadedKeys = new ArrayList<List<String>>();
+
+        Map<String, String> values = goCache.getOrComputeAll(Arrays.asList("batch_3", "batch_1", "batch_2"), new GoCache.BatchValueLoader<String>() {
+            public Map<String, String> load(List<String> keys) {
+                loadedKeys.add(keys);
+                Map<String, String> loaded = new HashMap<String, String>();
+                loaded.put("batch_3", "loaded");
+                return loaded;
+            }
+        });
+
+        assertThat(loadedKeys, is(Arrays.asList(Arrays.asList("batch_3", "batch_2"))));
+        assertThat(new ArrayList<String>(values.keySet()), is(Arrays.asList("batch_3", "batch_1", "batch_2")));
+        assertThat(values.get("batch_1"), is("cached"));
+        assertThat(values.get("batch_3"), is("loaded"));
+        assertThat(values.get("batch_2"), is(nullValue()));
+        assertThat((String) goCache.get("batch_3"), is("loaded"));
+        assertThat(goCache.isKeyInCache("batch_2"), is(false));
+    }
 }
@@ -39,6 +39,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import static com.thoughtworks.go.util.IBatisUtil.arguments;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -141,6 +142,17 @@ public class JobInstanceSqlMapDaoCachingTest {
         verify(mockTemplate, times(2)).queryForList(eq("scheduledPlanIds"));
     }
 
+    @Test
+    public void orderedScheduledBuilds_shouldHandOutCachedJobPlansWithoutCopyingThem() {
+        when(mockTemplate.queryForList(eq("scheduledPlanIds"))).thenReturn(Arrays.asList(1L));
+        when(mockTemplate.queryForObject("scheduledPlan", arguments("id", 1L).asMap())).thenReturn(jobPlan(1));
+
+        jobInstanceDao.setSqlMapClientTemplate(mockTemplate);
+        JobPlan first = jobInstanceDao.orderedScheduledBuilds().get(0);
+
+        assertThat(jobInstanceDao.orderedScheduledBuilds().get(0), sameInstance(first));
+    }
+
     @Test
     public void updateStatus_shouldRemoveCachedJobPlan() {
         when(mockTemplate.queryForList(eq("scheduledPlanIds"))).thenReturn(Arrays.asList(1L));
@@ -736,6 +736,27 @@ public class PipelineSqlMapDaoCachingTest {
         assertThat((List<PipelineIdentifier>) goCache.get(cacheKey), is(actual));
     }
 
+    @Test
+    public void shouldQueryOnlyUncachedPipelinesWhenFetchingInstancesOfSeveralDownstreamPipelines() throws Exception {
+        when(mockTemplate.queryForList(eq("pipelineInstancesTriggeredOutOfDependencyMaterial"), anyString())).thenReturn(Arrays.asList(new PipelineIdentifier("p1", 1)));
+        when(mockTemplate.queryForList(eq("pipelineInstancesOfPipelinesTriggeredOutOfDependencyMaterial"), anyString())).thenReturn(
+                Arrays.asList(new PipelineIdentifier("p2", 2), new PipelineIdentifier("p2", 1)));
+        pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterial("p1", new PipelineIdentifier("p", 1));
+
+        Map<String, List<PipelineIdentifier>> actual = pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterial(Arrays.asList("p1", "p2", "p3"), new PipelineIdentifier("p", 1));
+
+        assertThat(actual.get("p1"), is(Arrays.asList(new PipelineIdentifier("p1", 1))));
+        assertThat(actual.get("p2"), is(Arrays.asList(new PipelineIdentifier("p2", 2), new PipelineIdentifier("p2", 1))));
+        assertThat(actual.get("p3"), hasSize(0));
+        Map<String, Object> expectedArguments = arguments("pipelineNames", Arrays.asList("p2", "p3")).and("dependencyPipelineName", "p").and("stageLocator", "p/1/%/%").asMap();
+        verify(mockTemplate).queryForList("pipelineInstancesOfPipelinesTriggeredOutOfDependencyMaterial", expectedArguments);
+
+        String cacheKeyForP3 = (PipelineSqlMapDao.class + "_cacheKeyForPipelineInstancesWithDependencyMaterial_" + "p3_p_1").intern();
+        assertThat((List<PipelineIdentifier>) goCache.get(cacheKeyForP3), hasSize(0));
+        pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterial(Arrays.asList("p2", "p3"), new PipelineIdentifier("p", 1));
+        verify(mockTemplate, times(1)).queryForList(eq("pipelineInstancesOfPipelinesTriggeredOutOfDependencyMaterial"), anyString());
+    }
+
     @Test
     public void shouldInvalidateCacheOfPipelineInstancesTriggeredWithDependencyMaterial() throws Exception {
         String cacheKey = (PipelineSqlMapDao.class + "_cacheKeyForPipelineInstancesWithDependencyMaterial_" + "p1_p_1").intern();
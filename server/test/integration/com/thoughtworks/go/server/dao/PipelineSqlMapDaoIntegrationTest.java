@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import javax.sql.DataSource;
 
 import com.thoughtworks.go.config.CaseInsensitiveString;
@@ -1680,6 +1681,29 @@ public class PipelineSqlMapDaoIntegrationTest {
         assertThat(pipelineIdentifiers, contains(new PipelineIdentifier(p2.config.name().toString(), 2, "2"), new PipelineIdentifier(p2.config.name().toString(), 1, "1")));
     }
 
+    @Test
+    public void shouldReturnPipelineIdentifiersForSeveralDownstreamPipelinesOfARunOfUpstreamPipelineInOneCall() throws Exception {
+        GitMaterial g1 = u.wf(new GitMaterial("g1"), "folder3");
+        u.checkinInOrder(g1, "g_1");
+
+        ScheduleTestUtil.AddedPipeline p1 = u.saveConfigWith("p1", u.m(g1));
+        ScheduleTestUtil.AddedPipeline p2 = u.saveConfigWith("p2", u.m(p1));
+        ScheduleTestUtil.AddedPipeline p3 = u.saveConfigWith("p3", u.m(p1));
+        ScheduleTestUtil.AddedPipeline p4 = u.saveConfigWith("p4", u.m(p1));
+
+        String p1_1 = u.runAndPass(p1, "g_1");
+        u.runAndPass(p2, p1_1);
+        u.runAndPass(p2, p1_1);
+        u.runAndPass(p3, p1_1);
+
+        Map<String, List<PipelineIdentifier>> instances = pipelineDao.getPipelineInstancesTriggeredWithDependencyMaterial(Arrays.asList("p2", "p3", "p4"),
+                new PipelineIdentifier(p1.config.name().toString(), 1));
+
+        assertThat(instances.get("p2"), contains(new PipelineIdentifier("p2", 2, "2"), new PipelineIdentifier("p2", 1, "1")));
+        assertThat(instances.get("p3"), contains(new PipelineIdentifier("p3", 1, "1")));
+        assertThat(instances.get("p4"), is(Matchers.<PipelineIdentifier>empty()));
+    }
+
     @Test
     public void shouldReturnEmptyListOfPipelineIdentifiersForUnRunDownstreamPipelinesBasedOnARunOfUpstreamPipeline() throws Exception {
         GitMaterial g1 = u.wf(new GitMaterial("g1"), "folder3");
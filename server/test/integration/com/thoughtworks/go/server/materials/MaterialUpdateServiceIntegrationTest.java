@@ -57,7 +57,7 @@ public class MaterialUpdateServiceIntegrationTest {
         HealthStateScope goodScope = HealthStateScope.forMaterialConfig(goodMaterial);
         serverHealthService.update(ServerHealthState.error("could not update!", "why", HealthStateType.general(goodScope)));
 
-        MaterialUpdateService materialUpdateService = new MaterialUpdateService(null, mock(MaterialUpdateCompletedTopic.class), mock(GoConfigService.class),
+        MaterialUpdateService materialUpdateService = new MaterialUpdateService(null, null, null, mock(MaterialUpdateCompletedTopic.class), mock(GoConfigService.class),
                 systemEnvironment, serverHealthService, null, mock(MDUPerformanceLogger.class), materialConfigConverter);
 
         materialUpdateService.onConfigChange(configWithMaterial(goodMaterial));
@@ -59,6 +59,7 @@ import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.util.GoConfigFileHelper;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TestUtils;
 import com.thoughtworks.go.util.TimeProvider;
 import com.thoughtworks.go.util.json.JsonHelper;
@@ -202,7 +203,7 @@ public class MaterialRepositoryIntegrationTest {
         MaterialRevision second = saveOneScmModification(material, "user2", "file2");
 
         goCache.clear();
-        repo = new MaterialRepository(sessionFactory, goCache, 1, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy);
+        repo = new MaterialRepository(sessionFactory, goCache, 1, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy, new SystemEnvironment());
 
         repo.findModificationsSince(material, first);
         assertThat(repo.cachedModifications(repo.findMaterialInstance(material)), is(nullValue()));
@@ -225,7 +226,7 @@ public class MaterialRepositoryIntegrationTest {
                 TestUtils.sleepQuietly(200); // sleep so we can have multiple threads enter the critical section
                 return value;
             }
-        }, 200,transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy);
+        }, 200,transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy, new SystemEnvironment());
 
         Thread thread1 = new Thread(new Runnable() {
             public void run() {
@@ -331,7 +332,7 @@ public class MaterialRepositoryIntegrationTest {
         final Material svn = MaterialsMother.svnMaterial("url", null, "username", "password", false, null);
 
         HibernateTemplate mockTemplate = mock(HibernateTemplate.class);
-        repo = new MaterialRepository(repo.getSessionFactory(), goCache, 200, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy) {
+        repo = new MaterialRepository(repo.getSessionFactory(), goCache, 200, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy, new SystemEnvironment()) {
             @Override public MaterialInstance findMaterialInstance(Material material) {
                 MaterialInstance result = super.findMaterialInstance(material);
                 TestUtils.sleepQuietly(20); // force multiple threads to try to create the material
@@ -609,7 +610,7 @@ public class MaterialRepositoryIntegrationTest {
         GoCache spyGoCache = spy(goCache);
         when(spyGoCache.get(any(String.class))).thenCallRealMethod();
         Mockito.doCallRealMethod().when(spyGoCache).put(any(String.class), any(Object.class));
-        repo = new MaterialRepository(sessionFactory, spyGoCache, 2,transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy);
+        repo = new MaterialRepository(sessionFactory, spyGoCache, 2,transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy, new SystemEnvironment());
 
         pipelineSqlMapDao.save(pipeline);
 
@@ -845,6 +846,30 @@ public class MaterialRepositoryIntegrationTest {
         assertEquals(Arrays.asList(modOneRepeat, modTwo), repo.findModificationsSince(gitFoo, new MaterialRevision(gitFoo, modOne)));
     }
 
+    @Test
+    public void shouldSaveModificationsWithMoreModifiedFilesThanFitInOneBatch() {
+        final GitMaterial gitFoo = new GitMaterial("foo");
+        final Modification first = new Modification("user", "first", "email@gmail.com", new Date(), "123");
+        final Modification second = new Modification("user", "second", "email@gmail.com", new Date(), "456");
+        for (int i = 0; i < 1234; i++) {
+            second.createModifiedFile("file-" + i + ".txt", "folder", ModifiedAction.added);
+        }
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override protected void doInTransactionWithoutResult(TransactionStatus status) {
+                MaterialInstance foo = repo.findOrCreateFrom(gitFoo);
+                repo.saveModifications(foo, Arrays.asList(second, first));
+            }
+        });
+
+        assertThat(first.hasId(), is(true));
+        assertThat(second.getId() > first.getId(), is(true));
+        List<Modification> saved = repo.findModificationsSince(gitFoo, new MaterialRevision(gitFoo, first));
+        assertThat(saved.size(), is(1));
+        assertThat(saved.get(0).getComment(), is("second"));
+        assertThat(saved.get(0).getModifiedFiles().size(), is(1234));
+        assertThat(saved.get(0).getModifiedFiles().get(1233).getFileName(), is("file-1233.txt"));
+    }
+
     @Test
     public void shouldReturnMaterialRevisionsWithEmptyModificationsWhenNoModifications() throws Exception {
         Material material = material();
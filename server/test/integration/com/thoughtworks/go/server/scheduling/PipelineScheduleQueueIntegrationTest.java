@@ -154,6 +154,18 @@ public class PipelineScheduleQueueIntegrationTest {
         assertThat(queue.toBeScheduled().get("cruise"), is(nullValue()));
     }
 
+    @Test
+    public void shouldRememberWhenTheWaitingBuildCauseWasQueuedUntilItIsScheduled() throws Exception {
+        BuildCause buildCause = BuildCause.createWithEmptyModifications();
+        queue.schedule("cruise", buildCause);
+        long queuedTime = queue.queuedTime("cruise");
+        Thread.sleep(5);
+
+        assertThat(queue.queuedTime("cruise"), is(queuedTime));
+        queue.finishSchedule("cruise", buildCause, buildCause);
+        assertThat(queue.queuedTime("cruise") > queuedTime, is(true));
+    }
+
     @Test
     public void shouldClearMostRecentScheduledIfPipelineIsDeleted() {
         BuildCause buildCause = BuildCause.createWithEmptyModifications();
@@ -50,6 +50,7 @@ import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.util.GoConfigFileHelper;
 import com.thoughtworks.go.plugin.infra.PluginManager;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -266,7 +267,7 @@ public class ScheduleServiceStageTriggerTest {
         SchedulingPerformanceLogger schedulingPerformanceLogger = mock(SchedulingPerformanceLogger.class);
         scheduleService = new ScheduleService(goConfigService, pipelineService, stageService, schedulingCheckerService, pipelineScheduledTopic, pipelineDao, stageDao,
                 stageOrderService, securityService, pipelineScheduleQueue, this.jobInstanceService, jobInstanceDao, agentAssignment, environmentConfigService, pipelineLockService, serverHealthService,
-                transactionTemplate, null, transactionSynchronizationManager, null, null, null, null, schedulingPerformanceLogger);
+                transactionTemplate, null, transactionSynchronizationManager, null, null, null, null, schedulingPerformanceLogger, new SystemEnvironment());
 
         try {
             scheduleService.cancelAndTriggerRelevantStages(stage.getId(), null, null);
@@ -306,7 +307,7 @@ public class ScheduleServiceStageTriggerTest {
         SchedulingPerformanceLogger schedulingPerformanceLogger = mock(SchedulingPerformanceLogger.class);
         scheduleService = new ScheduleService(goConfigService, pipelineService, stageService, schedulingCheckerService, pipelineScheduledTopic, pipelineDao, stageDao,
                 stageOrderService, securityService, pipelineScheduleQueue, this.jobInstanceService, jobInstanceDao, agentAssignment, environmentConfigService, pipelineLockService, serverHealthService,
-                transactionTemplate, null, transactionSynchronizationManager, null, null, null, null, schedulingPerformanceLogger);
+                transactionTemplate, null, transactionSynchronizationManager, null, null, null, null, schedulingPerformanceLogger, new SystemEnvironment());
 
         try {
             transactionTemplate.executeWithExceptionHandling(new TransactionCallback() {
@@ -16,6 +16,7 @@
 
 package com.thoughtworks.go.server.sweepers;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -52,7 +53,7 @@ public class FailedBuildHistoryCacheSweeperTest {
     private PipelineTimelineEntry newlyAddedEntry;
     private PipelineTimelineEntry entryBeforeNew;
     private PipelineTimelineEntry entryAfterNew;
-    private TreeSet<PipelineTimelineEntry> timeline;
+    private List<PipelineTimelineEntry> timeline;
 
     @Before
     public void setUp() {
@@ -61,10 +62,11 @@ public class FailedBuildHistoryCacheSweeperTest {
         newlyAddedEntry = new PipelineTimelineEntry("cruise", 100, 10, modificationTimes, 5.0);
         entryBeforeNew = new PipelineTimelineEntry("cruise", 98, 9, modificationTimes, 4.0);
         entryAfterNew = new PipelineTimelineEntry("cruise", 99, 11, modificationTimes, 6.0);
-        timeline = new TreeSet<PipelineTimelineEntry>();
-        timeline.add(entryBeforeNew);
-        timeline.add(entryAfterNew);
-        timeline.add(newlyAddedEntry);
+        TreeSet<PipelineTimelineEntry> naturalOrder = new TreeSet<PipelineTimelineEntry>();
+        naturalOrder.add(entryBeforeNew);
+        naturalOrder.add(entryAfterNew);
+        naturalOrder.add(newlyAddedEntry);
+        timeline = new ArrayList<PipelineTimelineEntry>(naturalOrder);
     }
 
     @Test
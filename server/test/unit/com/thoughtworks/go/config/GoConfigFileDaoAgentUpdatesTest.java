@@ -0,0 +1,147 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.thoughtworks.go.metrics.service.MetricsProbeService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GoConfigFileDaoAgentUpdatesTest {
+    private CachedGoConfig cachedGoConfig;
+    private GoConfigFileDao goConfigFileDao;
+    private List<UpdateConfigCommand> writes;
+    private CruiseConfig config;
+    private Thread[] waitingWriters = new Thread[0];
+
+    @Before
+    public void setUp() {
+        cachedGoConfig = mock(CachedGoConfig.class);
+        goConfigFileDao = new GoConfigFileDao(cachedGoConfig, mock(MetricsProbeService.class));
+        writes = Collections.synchronizedList(new ArrayList<UpdateConfigCommand>());
+        config = new CruiseConfig();
+        config.agents().add(new AgentConfig("existing", "host", "10.0.0.1"));
+        when(cachedGoConfig.writeWithLock(any(UpdateConfigCommand.class))).thenAnswer(new Answer<ConfigSaveState>() {
+            public ConfigSaveState answer(InvocationOnMock invocation) throws Throwable {
+                UpdateConfigCommand command = (UpdateConfigCommand) invocation.getArguments()[0];
+                writes.add(command);
+                waitUntilBlocked(waitingWriters);
+                waitingWriters = new Thread[0];
+                command.update(new CruiseConfig());
+                return ConfigSaveState.UPDATED;
+            }
+        });
+    }
+
+    @Test
+    public void shouldWriteAgentChangesQueuedDuringAConfigSaveTogether() throws Exception {
+        Thread second = writer(new Runnable() {
+            public void run() {
+                goConfigFileDao.addAgent(new AgentConfig("second", "host", "10.0.0.2"));
+            }
+        }, new AtomicReference<RuntimeException>());
+        Thread third = writer(new Runnable() {
+            public void run() {
+                goConfigFileDao.addAgent(new AgentConfig("third", "host", "10.0.0.3"));
+            }
+        }, new AtomicReference<RuntimeException>());
+        waitingWriters = new Thread[]{second, third};
+        second.start();
+        third.start();
+
+        goConfigFileDao.addAgent(new AgentConfig("first", "host", "10.0.0.1"));
+        second.join();
+        third.join();
+
+        assertThat(writes.size(), is(2));
+        assertThat(writes.get(1), instanceOf(GoConfigFileDao.CompositeConfigCommand.class));
+        assertThat(((GoConfigFileDao.CompositeConfigCommand) writes.get(1)).getCommands().size(), is(2));
+    }
+
+    @Test
+    public void shouldFailOnlyTheChangeThatCouldNotBeAppliedWhenABatchFails() throws Exception {
+        when(cachedGoConfig.writeWithLock(any(UpdateConfigCommand.class))).thenAnswer(new Answer<ConfigSaveState>() {
+            public ConfigSaveState answer(InvocationOnMock invocation) throws Throwable {
+                UpdateConfigCommand command = (UpdateConfigCommand) invocation.getArguments()[0];
+                writes.add(command);
+                waitUntilBlocked(waitingWriters);
+                waitingWriters = new Thread[0];
+                command.update(config);
+                return ConfigSaveState.UPDATED;
+            }
+        });
+        AtomicReference<RuntimeException> unknownAgentFailure = new AtomicReference<RuntimeException>();
+        AtomicReference<RuntimeException> existingAgentFailure = new AtomicReference<RuntimeException>();
+        Thread unknownAgent = writer(new Runnable() {
+            public void run() {
+                goConfigFileDao.updateAgentApprovalStatus("unknown", true);
+            }
+        }, unknownAgentFailure);
+        Thread existingAgent = writer(new Runnable() {
+            public void run() {
+                goConfigFileDao.updateAgentApprovalStatus("existing", true);
+            }
+        }, existingAgentFailure);
+        waitingWriters = new Thread[]{unknownAgent, existingAgent};
+        unknownAgent.start();
+        existingAgent.start();
+
+        goConfigFileDao.addAgent(new AgentConfig("new", "host", "10.0.0.2"));
+        unknownAgent.join();
+        existingAgent.join();
+
+        assertThat(unknownAgentFailure.get().getMessage(), containsString("Agent [unknown] not found"));
+        assertThat(existingAgentFailure.get(), is(nullValue()));
+        assertThat(config.agents().getAgentByUuid("existing").isDisabled(), is(true));
+    }
+
+    private Thread writer(final Runnable update, final AtomicReference<RuntimeException> failure) {
+        return new Thread(new Runnable() {
+            public void run() {
+                try {
+                    update.run();
+                } catch (RuntimeException e) {
+                    failure.set(e);
+                }
+            }
+        });
+    }
+
+    private static void waitUntilBlocked(Thread... threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.BLOCKED) {
+                Thread.sleep(10);
+            }
+        }
+    }
+}
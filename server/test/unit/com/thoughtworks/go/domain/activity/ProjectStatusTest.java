@@ -22,6 +22,7 @@ import com.thoughtworks.go.util.DateUtils;
 import org.jdom.Element;
 import org.junit.Test;
 
+import java.io.StringWriter;
 import java.util.Date;
 
 import static com.thoughtworks.go.util.DataStructureUtils.s;
@@ -85,6 +86,19 @@ public class ProjectStatusTest {
                         "<messages><message text=\"breaker1, breaker2\" kind=\"Breakers\" /></messages></Project>"));
     }
 
+    @Test
+    public void shouldWriteItsXmlRepresentationWithTheGivenSiteUrlPrefix() throws Exception {
+        ProjectStatus status = new ProjectStatus("name", "activity1", "build-status-1", "build-label-1",
+                DateUtils.parseYYYYMMDD("2010-05-23"), "web-url");
+
+        StringWriter writer = new StringWriter();
+        status.writeXmlRepresentationTo(writer, "http://go-server:8153/go");
+
+        assertThat(writer.toString(),
+                is("<Project name=\"name\" activity=\"activity1\" lastBuildStatus=\"build-status-1\" lastBuildLabel=\"build-label-1\" " +
+                        "lastBuildTime=\"2010-05-23T00:00:00\" webUrl=\"http://go-server:8153/go/web-url\" />"));
+    }
+
     @Test
     public void shouldAlwaysHaveEmptyStringAsXMLRepresentationOfANullProjectStatus() throws Exception {
         assertThat(new ProjectStatus.NullProjectStatus("some-name").xmlRepresentation(), is(""));
@@ -156,4 +156,21 @@ public class CcTrayCacheTest {
         assertThat(allProjects.get(1), is(status2_changed));
         assertThat(allProjects.get(2), is(status3));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldChangeVersionWheneverTheEntriesChange() throws Exception {
+        ProjectStatus status1 = new ProjectStatus("item1", "Sleeping 1", "last-build-status 1", "last-build-label 1", new Date(), "web-url 1");
+        ProjectStatus status2 = new ProjectStatus("item2", "Sleeping 2", "last-build-status 2", "last-build-label 2", new Date(), "web-url 2");
+
+        long initialVersion = cache.version();
+        cache.replaceAllEntriesInCacheWith(asList(status1));
+        long versionAfterReplace = cache.version();
+        cache.put(status2);
+        long versionAfterPut = cache.version();
+        cache.putAll(asList(status1, status2));
+
+        assertThat(versionAfterReplace == initialVersion, is(false));
+        assertThat(versionAfterPut == versionAfterReplace, is(false));
+        assertThat(cache.version() == versionAfterPut, is(false));
+    }
+}
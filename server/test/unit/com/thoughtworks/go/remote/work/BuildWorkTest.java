@@ -63,6 +63,7 @@ import com.thoughtworks.go.util.ConfigElementImplementationRegistryMother;
 import com.thoughtworks.go.util.FileUtil;
 import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.SystemUtil;
+import com.thoughtworks.go.util.UploadableArtifact;
 import com.thoughtworks.go.util.command.EnvironmentVariableContext;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -341,10 +342,10 @@ public class BuildWorkTest {
 
         assertThat(actual.toLowerCase(), containsString(("Uploading artifacts from " + new File(basedir, "cruise-output/log.xml").getCanonicalPath()).toLowerCase()));
 
-        Map<String, File> uploadedFiles = httpService.getUploadedFiles();
+        Map<String, UploadableArtifact> uploadedArtifacts = httpService.getUploadedArtifacts();
 
-        assertThat(uploadedFiles.size(), is(1));
-        assertThat(uploadedFiles.get(url).getAbsolutePath(), containsString("log.xml.zip"));
+        assertThat(uploadedArtifacts.size(), is(1));
+        assertThat(uploadedArtifacts.get(url).getName(), is("log.xml.zip"));
     }
 
     @Test
@@ -0,0 +1,76 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.server.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class CacheKeyLocksTest {
+    private final CacheKeyLocks locks = new CacheKeyLocks();
+
+    @Test
+    public void shouldForgetLockOnceNoThreadIsUsingIt() throws Exception {
+        locks.lock("foo");
+        locks.lock("foo");
+        locks.lock("bar");
+        assertThat(locks.size(), is(2));
+
+        locks.unlock("foo");
+        assertThat(locks.size(), is(2));
+        locks.unlock("foo");
+        locks.unlock("bar");
+        assertThat(locks.size(), is(0));
+    }
+
+    @Test(expected = IllegalMonitorStateException.class)
+    public void shouldNotAllowUnlockingAKeyThatIsNotLocked() throws Exception {
+        locks.unlock("foo");
+    }
+
+    @Test
+    public void shouldGiveThreadsExclusiveAccessPerKey() throws Exception {
+        final int[] counter = new int[1];
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        locks.lock("foo");
+                        try {
+                            counter[0]++;
+                        } finally {
+                            locks.unlock("foo");
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(counter[0], is(80000));
+        assertThat(locks.size(), is(0));
+    }
+}
@@ -16,8 +16,10 @@
 
 package com.thoughtworks.go.server.controller;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.util.zip.GZIPOutputStream;
 import javax.servlet.http.HttpServletResponse;
 
 import com.thoughtworks.go.domain.JobIdentifier;
@@ -29,8 +31,11 @@ import com.thoughtworks.go.server.service.RestfulService;
 import com.thoughtworks.go.server.service.ScheduleService;
 import com.thoughtworks.go.server.web.ArtifactFolderViewFactory;
 import com.thoughtworks.go.server.web.ResponseCodeView;
+import com.thoughtworks.go.util.HttpService;
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
@@ -85,6 +90,28 @@ public class ArtifactsControllerTest {
         verify(consoleActivityMonitor).consoleUpdatedFor(jobIdentifier);
     }
 
+    @Test
+    public void shouldAppendCompressedConsoleLogFromTheOffsetSentByTheAgent() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        gzip.write("Testing:".getBytes());
+        gzip.close();
+        request.setContent(compressed.toByteArray());
+        request.addHeader("Content-Encoding", "gzip");
+        request.addHeader(HttpService.GO_CONSOLE_OFFSET, "42");
+        JobIdentifier jobIdentifier = new JobIdentifier("pipeline", 10, "label-10", "stage", "2", "build", 103l);
+        when(restfulService.findJob("pipeline", "10", "stage", "2", "build", 103l)).thenReturn(jobIdentifier);
+        String path = "cruise-output/console.log";
+        File artifactFile = new File("junk");
+        when(artifactService.findArtifact(jobIdentifier, path)).thenReturn(artifactFile);
+        ArgumentCaptor<InputStream> stream = ArgumentCaptor.forClass(InputStream.class);
+        when(artifactService.updateConsoleLog(eq(artifactFile), stream.capture(), eq(42L), any(ArtifactsService.LineListener.class))).thenReturn(true);
+
+        assertThat(((ResponseCodeView) artifactsController.putArtifact("pipeline", "10", "stage", "2", "build", 103l, path, "agent-id", request).getView()).getStatusCode(), is(HttpServletResponse.SC_OK));
+        assertThat(IOUtils.toString(stream.getValue()), is("Testing:"));
+        verify(consoleActivityMonitor).consoleUpdatedFor(jobIdentifier);
+    }
+
     @Test
     public void shouldReturnHttpErrorCodeWhenChecksumFileSaveFails() throws Exception {
         File artifactFile = new File("junk");
@@ -25,11 +25,14 @@ import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.orm.ibatis.SqlMapClientTemplate;
 
 import static com.thoughtworks.go.util.IBatisUtil.arguments;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
@@ -60,12 +63,13 @@ public class PipelineSqlMapDaoTest {
         String pipelineName = "wholetthedogsout";
         int pipelineCounter = 42;
         PipelineInstanceModel expected = mock(PipelineInstanceModel.class);
-        when(goCache.get(anyString())).thenReturn(expected);
+        when(goCache.getOrCompute(anyString(), any(GoCache.ValueLoader.class))).thenReturn(expected);
 
         PipelineInstanceModel reFetch = pipelineSqlMapDao.findPipelineHistoryByNameAndCounter(pipelineName, pipelineCounter); //returned from cache
 
         assertThat(reFetch, is(expected));
-        verify(goCache).get(anyString());
+        verify(goCache).getOrCompute(anyString(), any(GoCache.ValueLoader.class));
+        verify(sqlMapClientTemplate, times(0)).queryForObject(eq("getPipelineHistoryByNameAndCounter"), any());
     }
 
     @Test
@@ -77,14 +81,19 @@ public class PipelineSqlMapDaoTest {
         when(sqlMapClientTemplate.queryForObject("getPipelineHistoryByNameAndCounter", map)).thenReturn(expected);
         when(expected.getId()).thenReturn(1111l);
         when(materialRepository.findMaterialRevisionsForPipeline(expected.getId())).thenReturn(null);
+        when(goCache.getOrCompute(anyString(), any(GoCache.ValueLoader.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return ((GoCache.ValueLoader) invocation.getArguments()[1]).load();
+            }
+        });
 
         PipelineInstanceModel primed = pipelineSqlMapDao.findPipelineHistoryByNameAndCounter(pipelineName, pipelineCounter);//prime cache
         
         assertThat(primed, is(expected));
 
         verify(sqlMapClientTemplate, times(1)).queryForObject("getPipelineHistoryByNameAndCounter", map);
-        verify(goCache, times(1)).put(anyString(), eq(expected));
-        verify(goCache, times(2)).get(anyString());
+        verify(goCache, times(1)).getOrCompute(eq("com.thoughtworks.go.server.dao.PipelineSqlMapDao_cacheKeyForPipelineHistoryByName_wholetthedogsout_AndCounter_42"),
+                any(GoCache.ValueLoader.class));
     }
 
     @Test
@@ -0,0 +1,110 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.server.domain;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import com.thoughtworks.go.util.TestFileUtil;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.thoughtworks.go.util.FileUtil.lineSeparator;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ConsoleLogIndexTest {
+    private File folder;
+    private File consoleLog;
+
+    @Before
+    public void setUp() throws Exception {
+        folder = TestFileUtil.createTempFolder("ConsoleLogIndexTest");
+        consoleLog = new File(folder, "console.log");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(folder);
+    }
+
+    @Test
+    public void shouldReadLinesFromAnyStartingLineAcrossCheckpoints() throws Exception {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            log.append("line").append(i).append("\n");
+        }
+        FileUtils.writeStringToFile(consoleLog, log.toString());
+
+        ConsoleLogIndex index = ConsoleLogIndex.forLog(consoleLog).catchUp();
+
+        assertThat(index.lineCount(), is(300));
+        assertThat(linesFrom(index, 297), is("line297" + lineSeparator() + "line298" + lineSeparator() + "line299" + lineSeparator()));
+        assertThat(linesFrom(index, 128), is(linesFrom(index, 127).substring(("line127" + lineSeparator()).length())));
+        assertThat(index.nextStart(300), is(300));
+    }
+
+    @Test
+    public void shouldOnlyIndexWhatWasAppendedSinceTheIndexWasSaved() throws Exception {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            log.append("line").append(i).append("\n");
+        }
+        FileUtils.writeStringToFile(consoleLog, log.toString());
+        ConsoleLogIndex.forLog(consoleLog).catchUp();
+
+        FileUtils.writeStringToFile(consoleLog, "line200\nline201\n", true);
+        ConsoleLogIndex index = ConsoleLogIndex.forLog(consoleLog).catchUp();
+
+        assertThat(index.lineCount(), is(202));
+        assertThat(linesFrom(index, 199), is("line199" + lineSeparator() + "line200" + lineSeparator() + "line201" + lineSeparator()));
+    }
+
+    @Test
+    public void shouldCountLineBreaksTheSameWayAsReadLine() throws Exception {
+        FileUtils.writeStringToFile(consoleLog, "first\r\nsecond\rthird\r");
+        ConsoleLogIndex index = ConsoleLogIndex.forLog(consoleLog).catchUp();
+        assertThat(index.lineCount(), is(3));
+
+        FileUtils.writeStringToFile(consoleLog, "\nfourth", true);
+        index = ConsoleLogIndex.forLog(consoleLog).catchUp();
+
+        assertThat(index.lineCount(), is(4));
+        assertThat(linesFrom(index, 2), is("third" + lineSeparator() + "fourth" + lineSeparator()));
+    }
+
+    @Test
+    public void shouldRebuildIndexWhenLogIsReplacedWithASmallerOne() throws Exception {
+        FileUtils.writeStringToFile(consoleLog, "one\ntwo\nthree\n");
+        ConsoleLogIndex.forLog(consoleLog).catchUp();
+
+        FileUtils.writeStringToFile(consoleLog, "uno\n");
+        ConsoleLogIndex index = ConsoleLogIndex.forLog(consoleLog).catchUp();
+
+        assertThat(index.lineCount(), is(1));
+        assertThat(linesFrom(index, 0), is("uno" + lineSeparator()));
+    }
+
+    private String linesFrom(ConsoleLogIndex index, int startingLine) throws IOException {
+        StringWriter writer = new StringWriter();
+        index.writeLines(startingLine, writer);
+        return writer.toString();
+    }
+}
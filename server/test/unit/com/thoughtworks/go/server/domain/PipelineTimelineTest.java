@@ -19,7 +19,10 @@ package com.thoughtworks.go.server.domain;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.domain.PipelineTimelineEntry;
@@ -198,7 +201,7 @@ public class PipelineTimelineTest {
         final List<PipelineTimelineEntry>[] entries = new List[1];
         entries[0] = new ArrayList<PipelineTimelineEntry>();
         final PipelineTimeline timeline = new PipelineTimeline(pipelineRepository, transactionTemplate, transactionSynchronizationManager, new TimelineUpdateListener() {
-            public void added(PipelineTimelineEntry newlyAddedEntry, TreeSet<PipelineTimelineEntry> timeline) {
+            public void added(PipelineTimelineEntry newlyAddedEntry, List<PipelineTimelineEntry> timeline) {
                 assertThat(timeline.contains(newlyAddedEntry), is(true));
                 assertThat(timeline.containsAll(entries[0]), is(true));
                 entries[0].add(newlyAddedEntry);
@@ -215,7 +218,7 @@ public class PipelineTimelineTest {
         setupTransactionTemplateStub(TransactionSynchronization.STATUS_COMMITTED, true);
         TimelineUpdateListener anotherListener = mock(TimelineUpdateListener.class);
         final PipelineTimeline timeline = new PipelineTimeline(pipelineRepository, transactionTemplate, transactionSynchronizationManager, new TimelineUpdateListener() {
-            public void added(PipelineTimelineEntry newlyAddedEntry, TreeSet<PipelineTimelineEntry> timeline) {
+            public void added(PipelineTimelineEntry newlyAddedEntry, List<PipelineTimelineEntry> timeline) {
                 throw new RuntimeException();
             }
         }, anotherListener);
@@ -225,7 +228,7 @@ public class PipelineTimelineTest {
         } catch (Exception e) {
             fail("should not have failed because of exception thrown by listener");
         }
-        verify(anotherListener).added(eq(first), any(TreeSet.class));
+        verify(anotherListener).added(eq(first), any(List.class));
     }
 
     @Test public void updateOnInitShouldBeDoneOutsideTransaction() throws Exception {
@@ -279,6 +282,37 @@ public class PipelineTimelineTest {
         assertThat(timeline.instanceFor(new CaseInsensitiveString("pipeline"), 1), is(second));
     }
 
+    @Test
+    public void shouldLetReadersSeeThePublishedTimelineWithoutWaitingForAnUpdateInProgress() throws Exception {
+        stubTransactionSynchronization();
+        setupTransactionTemplateStub(TransactionSynchronization.STATUS_COMMITTED, true);
+        final PipelineTimeline timeline = new PipelineTimeline(pipelineRepository, transactionTemplate, transactionSynchronizationManager);
+        timeline.add(first);
+        final ExecutorService reader = Executors.newSingleThreadExecutor();
+        final int[] instanceCountSeenDuringUpdate = new int[1];
+        when(pipelineRepository.updatePipelineTimeline(timeline)).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                timeline.add(second);
+                instanceCountSeenDuringUpdate[0] = reader.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        return timeline.instanceCount(new CaseInsensitiveString("pipeline"));
+                    }
+                }).get(10, TimeUnit.SECONDS);
+                return Arrays.asList(second);
+            }
+        });
+        try {
+            timeline.update();
+        } finally {
+            reader.shutdownNow();
+        }
+
+        assertThat(instanceCountSeenDuringUpdate[0], is(1));
+        assertThat(timeline.instanceCount(new CaseInsensitiveString("pipeline")), is(2));
+        assertThat(timeline.runAfter(first.getId(), new CaseInsensitiveString("pipeline")), is(nullValue()));
+        assertThat(timeline.runBefore(second.getId(), new CaseInsensitiveString("pipeline")), is(first));
+    }
+
     private void stubPipelineRepository(final PipelineTimeline timeline, boolean restub, final PipelineTimelineEntry... entries) {
         repositoryEntries = entries;
         if (restub) {
@@ -49,6 +49,8 @@ public class MaterialUpdateListenerFactoryTest {
     @Mock private LegacyMaterialChecker legacyMaterialChecker;
     @Mock private MaterialUpdateCompletedTopic topic;
     @Mock private MaterialUpdateQueue queue;
+    @Mock private CentralizedScmMaterialUpdateQueue centralizedScmQueue;
+    @Mock private DependencyMaterialUpdateQueue dependencyQueue;
     @Mock private DependencyMaterialUpdater dependencyMaterialUpdater;
     @Mock private ScmMaterialUpdater scmMaterialUpdater;
     @Mock private PackageMaterialUpdater packageMaterialUpdater;
@@ -67,10 +69,25 @@ public class MaterialUpdateListenerFactoryTest {
     public void shouldCreateCompetingConsumersForSuppliedQueue() throws Exception {
         when(systemEnvironment.getNumberOfMaterialCheckListener()).thenReturn(NUMBER_OF_CONSUMERS);
 
-        MaterialUpdateListenerFactory factory = new MaterialUpdateListenerFactory(topic, queue, materialRepository, systemEnvironment, healthService, diskSpaceMonitor,
+        MaterialUpdateListenerFactory factory = new MaterialUpdateListenerFactory(topic, queue, centralizedScmQueue, dependencyQueue, materialRepository, systemEnvironment, healthService, diskSpaceMonitor,
                 transactionTemplate, goCache, dependencyMaterialUpdater, scmMaterialUpdater, packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService, mduPerformanceLogger);
         factory.init();
 
         verify(queue, new Times(NUMBER_OF_CONSUMERS)).addListener(any(GoMessageListener.class));
     }
+
+    @Test
+    public void shouldCreateSeparateConsumersForCentralizedScmAndDependencyMaterialQueues() throws Exception {
+        when(systemEnvironment.getNumberOfMaterialCheckListener()).thenReturn(NUMBER_OF_CONSUMERS);
+        when(systemEnvironment.getNumberOfCentralizedScmMaterialCheckListener()).thenReturn(2);
+        when(systemEnvironment.getNumberOfDependencyMaterialCheckListener()).thenReturn(3);
+
+        MaterialUpdateListenerFactory factory = new MaterialUpdateListenerFactory(topic, queue, centralizedScmQueue, dependencyQueue, materialRepository, systemEnvironment, healthService, diskSpaceMonitor,
+                transactionTemplate, goCache, dependencyMaterialUpdater, scmMaterialUpdater, packageMaterialUpdater, pluggableSCMMaterialUpdater, materialExpansionService, mduPerformanceLogger);
+        factory.init();
+
+        verify(queue, new Times(NUMBER_OF_CONSUMERS)).addListener(any(GoMessageListener.class));
+        verify(centralizedScmQueue, new Times(2)).addListener(any(GoMessageListener.class));
+        verify(dependencyQueue, new Times(3)).addListener(any(GoMessageListener.class));
+    }
 }
@@ -79,6 +79,8 @@ import static org.mockito.Mockito.when;
 
 public class MaterialUpdateServiceTest {
     private MaterialUpdateQueue queue;
+    private CentralizedScmMaterialUpdateQueue centralizedScmQueue;
+    private DependencyMaterialUpdateQueue dependencyQueue;
     private MaterialUpdateCompletedTopic completed;
     private GoConfigService goConfigService;
     private static final SvnMaterialConfig MATERIAL_CONFIG = MaterialConfigsMother.svnMaterialConfig();
@@ -93,10 +95,13 @@ public class MaterialUpdateServiceTest {
     private SystemEnvironment systemEnvironment;
     private MetricsProbeService metricsProbeService;
     private MaterialConfigConverter materialConfigConverter;
+    private MDUPerformanceLogger mduPerformanceLogger;
 
     @Before
     public void setUp() throws Exception {
         queue = mock(MaterialUpdateQueue.class);
+        centralizedScmQueue = mock(CentralizedScmMaterialUpdateQueue.class);
+        dependencyQueue = mock(DependencyMaterialUpdateQueue.class);
         completed = mock(MaterialUpdateCompletedTopic.class);
         goConfigService = mock(GoConfigService.class);
         postCommitHookMaterialType = mock(PostCommitHookMaterialTypeResolver.class);
@@ -104,8 +109,8 @@ public class MaterialUpdateServiceTest {
         systemEnvironment = new SystemEnvironment();
         metricsProbeService = mock(MetricsProbeService.class);
         materialConfigConverter = mock(MaterialConfigConverter.class);
-        MDUPerformanceLogger mduPerformanceLogger = mock(MDUPerformanceLogger.class);
-        service = new MaterialUpdateService(queue, completed, goConfigService, systemEnvironment, serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
+        mduPerformanceLogger = mock(MDUPerformanceLogger.class);
+        service = new MaterialUpdateService(queue, centralizedScmQueue, dependencyQueue, completed, goConfigService, systemEnvironment, serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
         HashSet<MaterialConfig> materialConfigs = new HashSet(Collections.singleton(MATERIAL_CONFIG));
         HashSet<Material> materials = new HashSet(Collections.singleton(MATERIAL));
         when(goConfigService.getSchedulableMaterials()).thenReturn(materialConfigs);
@@ -128,14 +133,14 @@ public class MaterialUpdateServiceTest {
     @Test
     public void shouldSendMaterialUpdateCheckMessageWhenTimerIsCalled() throws Exception {
         service.onTimer();
-        Mockito.verify(queue).post(matchMaterialUpdateMessage(MATERIAL));
+        Mockito.verify(centralizedScmQueue).post(matchMaterialUpdateMessage(MATERIAL));
     }
 
     @Test
     public void shouldNotSendMaterialUpdateCheckMessageIfMaterialIsStillBeingChecked() throws Exception {
         service.onTimer();
         service.onTimer();
-        Mockito.verify(queue, new AtMost(1)).post(matchMaterialUpdateMessage(MATERIAL));
+        Mockito.verify(centralizedScmQueue, new AtMost(1)).post(matchMaterialUpdateMessage(MATERIAL));
     }
 
     @Test
@@ -248,7 +253,7 @@ public class MaterialUpdateServiceTest {
 
     @Test
     public void shouldMaterialUpdateShouldNotBeInProgressIfUpdateMaterialMessagePostFails() {
-        doThrow(new RuntimeException("failed")).when(queue).post(matchMaterialUpdateMessage(MATERIAL));
+        doThrow(new RuntimeException("failed")).when(centralizedScmQueue).post(matchMaterialUpdateMessage(MATERIAL));
         try {
             service.updateMaterial(MATERIAL);
             fail("Should have failed");
@@ -324,4 +329,120 @@ public class MaterialUpdateServiceTest {
         verify(queue, times(1)).post(message);
         verify(material, never()).isAutoUpdate();
     }
+
+    @Test
+    public void shouldSendUpdatesOfDependencyAndOtherScmMaterialsToTheirOwnQueues() throws Exception {
+        Material dependencyMaterial = MaterialsMother.dependencyMaterial();
+        Material gitMaterial = MaterialsMother.gitMaterial("http://example.com/repo.git");
+
+        service.updateMaterial(dependencyMaterial);
+        service.updateMaterial(gitMaterial);
+
+        verify(dependencyQueue).post(matchMaterialUpdateMessage(dependencyMaterial));
+        verify(queue).post(matchMaterialUpdateMessage(gitMaterial));
+        verify(centralizedScmQueue, never()).post(Matchers.<MaterialUpdateMessage>any());
+    }
+
+    @Test
+    public void shouldHoldBackUpdatesOnceAllListenersOfAQueueAreBusy() throws Exception {
+        SvnMaterial first = MaterialsMother.svnMaterial("http://example.com/first");
+        SvnMaterial second = MaterialsMother.svnMaterial("http://example.com/second");
+        service = newServiceWithOneCentralizedScmListener();
+
+        service.updateMaterial(first);
+        service.updateMaterial(second);
+        verify(centralizedScmQueue).post(matchMaterialUpdateMessage(first));
+        verify(centralizedScmQueue, never()).post(matchMaterialUpdateMessage(second));
+
+        service.onMessage(new MaterialUpdateSuccessfulMessage(first, 0));
+        verify(centralizedScmQueue).post(matchMaterialUpdateMessage(second));
+    }
+
+    @Test
+    public void shouldLetUrgentUpdatesOvertakeTheOnesWaitingForTheNextPoll() throws Exception {
+        SvnMaterial running = MaterialsMother.svnMaterial("http://example.com/running");
+        SvnMaterial polled = MaterialsMother.svnMaterial("http://example.com/polled");
+        SvnMaterial committedTo = MaterialsMother.svnMaterial("http://example.com/committed-to");
+        service = newServiceWithOneCentralizedScmListener();
+
+        service.updateMaterial(running, MaterialUpdatePool.Priority.NORMAL);
+        service.updateMaterial(polled, MaterialUpdatePool.Priority.NORMAL);
+        service.updateMaterial(committedTo);
+        service.onMessage(new MaterialUpdateSuccessfulMessage(running, 0));
+
+        verify(centralizedScmQueue).post(matchMaterialUpdateMessage(committedTo));
+        verify(centralizedScmQueue, never()).post(matchMaterialUpdateMessage(polled));
+        verify(mduPerformanceLogger).materialSentToUpdateQueue(eq(committedTo), Matchers.anyLong(), eq(1));
+    }
+
+    @Test
+    public void shouldLetAnUrgentUpdateOfAMaterialAlreadyWaitingForItsPollOvertakeTheOthers() throws Exception {
+        SvnMaterial running = MaterialsMother.svnMaterial("http://example.com/running");
+        SvnMaterial polled = MaterialsMother.svnMaterial("http://example.com/polled");
+        SvnMaterial committedTo = MaterialsMother.svnMaterial("http://example.com/committed-to");
+        service = newServiceWithOneCentralizedScmListener();
+
+        service.updateMaterial(running, MaterialUpdatePool.Priority.NORMAL);
+        service.updateMaterial(polled, MaterialUpdatePool.Priority.NORMAL);
+        service.updateMaterial(committedTo, MaterialUpdatePool.Priority.NORMAL);
+        service.updateMaterial(committedTo);
+        service.onMessage(new MaterialUpdateSuccessfulMessage(running, 0));
+
+        verify(centralizedScmQueue).post(matchMaterialUpdateMessage(committedTo));
+        verify(centralizedScmQueue, never()).post(matchMaterialUpdateMessage(polled));
+        verify(serverHealthService, never()).update(Matchers.<ServerHealthState>any());
+    }
+
+    @Test
+    public void shouldBackOffPollingOfMaterialsWithoutChangesAndResetOnceAChangeIsFound() throws Exception {
+        systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, "1000");
+        systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY, "3000");
+        try {
+            service = new MaterialUpdateService(queue, centralizedScmQueue, dependencyQueue, completed, goConfigService, systemEnvironment, serverHealthService,
+                    postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
+
+            assertThat(service.updateIntervalFor(MATERIAL), is(1000L));
+            service.onMessage(new MaterialUpdateSuccessfulMessage(MATERIAL, 0, false));
+            assertThat(service.updateIntervalFor(MATERIAL), is(2000L));
+            service.onMessage(new MaterialUpdateFailedMessage(MATERIAL, 0, new RuntimeException("failed")));
+            assertThat(service.updateIntervalFor(MATERIAL), is(3000L));
+            service.onMessage(new MaterialUpdateSuccessfulMessage(MATERIAL, 0, false));
+            assertThat(service.updateIntervalFor(MATERIAL), is(3000L));
+            service.onMessage(new MaterialUpdateSuccessfulMessage(MATERIAL, 0, true));
+            assertThat(service.updateIntervalFor(MATERIAL), is(1000L));
+        } finally {
+            systemEnvironment.clearProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY);
+            systemEnvironment.clearProperty(SystemEnvironment.MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY);
+        }
+    }
+
+    @Test
+    public void shouldKeepPollingDependencyMaterialsAtTheConfiguredIntervalSinceOnlyPollingFindsNewStages() throws Exception {
+        Material dependencyMaterial = MaterialsMother.dependencyMaterial();
+        systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, "1000");
+        systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY, "3000");
+        try {
+            service = new MaterialUpdateService(queue, centralizedScmQueue, dependencyQueue, completed, goConfigService, systemEnvironment, serverHealthService,
+                    postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
+
+            service.onMessage(new MaterialUpdateSuccessfulMessage(dependencyMaterial, 0, false));
+            assertThat(service.updateIntervalFor(dependencyMaterial), is(1000L));
+            service.onMessage(new MaterialUpdateFailedMessage(dependencyMaterial, 0, new RuntimeException("failed")));
+            assertThat(service.updateIntervalFor(dependencyMaterial), is(1000L));
+        } finally {
+            systemEnvironment.clearProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY);
+            systemEnvironment.clearProperty(SystemEnvironment.MATERIAL_UPDATE_MAX_IDLE_INTERVAL_PROPERTY);
+        }
+    }
+
+    private MaterialUpdateService newServiceWithOneCentralizedScmListener() {
+        SystemEnvironment environment = mock(SystemEnvironment.class);
+        when(environment.getNumberOfMaterialCheckListener()).thenReturn(10);
+        when(environment.getNumberOfCentralizedScmMaterialCheckListener()).thenReturn(1);
+        when(environment.getNumberOfDependencyMaterialCheckListener()).thenReturn(10);
+        when(environment.getMaterialUpdateIdleInterval()).thenReturn(60000L);
+        when(environment.getMaterialUpdateMaxIdleInterval()).thenReturn(300000L);
+        return new MaterialUpdateService(queue, centralizedScmQueue, dependencyQueue, completed, goConfigService, environment, serverHealthService,
+                postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
+    }
 }
@@ -26,6 +26,7 @@ import com.thoughtworks.go.config.materials.dependency.DependencyMaterialConfig;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
 import com.thoughtworks.go.server.materials.postcommit.PostCommitHookMaterialTypeResolver;
+import com.thoughtworks.go.server.messaging.GoMessageQueue;
 import com.thoughtworks.go.server.perf.MDUPerformanceLogger;
 import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.helper.MaterialUpdateMessageMatcher;
@@ -49,7 +50,10 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public abstract class MaterialUpdateService_IdleTime_TestBase {
-    private MaterialUpdateQueue queue;
+    private MaterialUpdateQueue scmQueue;
+    private CentralizedScmMaterialUpdateQueue centralizedScmQueue;
+    private DependencyMaterialUpdateQueue dependencyQueue;
+    private GoMessageQueue<MaterialUpdateMessage> queue;
     private MaterialUpdateCompletedTopic completed;
     private GoConfigService goConfigService;
     private MaterialUpdateService service;
@@ -61,7 +65,10 @@ public abstract class MaterialUpdateService_IdleTime_TestBase {
 
     @Before
     public void setUp() throws Exception {
-        queue = mock(MaterialUpdateQueue.class);
+        scmQueue = mock(MaterialUpdateQueue.class);
+        centralizedScmQueue = mock(CentralizedScmMaterialUpdateQueue.class);
+        dependencyQueue = mock(DependencyMaterialUpdateQueue.class);
+        queue = material() instanceof DependencyMaterial ? dependencyQueue : centralizedScmQueue;
         completed = mock(MaterialUpdateCompletedTopic.class);
         goConfigService = mock(GoConfigService.class);
         postCommitHookMaterialType = mock(PostCommitHookMaterialTypeResolver.class);
@@ -69,7 +76,7 @@ public abstract class MaterialUpdateService_IdleTime_TestBase {
         systemEnvironment = new SystemEnvironment();
         materialConfigConverter = mock(MaterialConfigConverter.class);
         mduPerformanceLogger = mock(MDUPerformanceLogger.class);
-        service = new MaterialUpdateService(queue, completed, goConfigService, systemEnvironment, serverHealthService,
+        service = new MaterialUpdateService(scmQueue, centralizedScmQueue, dependencyQueue, completed, goConfigService, systemEnvironment, serverHealthService,
                 postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
 
         Set<MaterialConfig> schedulableMaterialConfigs = new HashSet<MaterialConfig>(Collections.singleton(material().config()));
@@ -99,7 +106,7 @@ public abstract class MaterialUpdateService_IdleTime_TestBase {
         service = spy(service);
         when(service.hasUpdateIntervalElapsedForScmMaterial(material())).thenReturn(true);
         service.onTimer();
-        verify(service).updateMaterial(material());
+        verify(service).updateMaterial(material(), MaterialUpdatePool.Priority.NORMAL);
         verify(service).hasUpdateIntervalElapsedForScmMaterial(material());
     }
 
@@ -108,14 +115,14 @@ public abstract class MaterialUpdateService_IdleTime_TestBase {
         service = spy(service);
         when(service.hasUpdateIntervalElapsedForScmMaterial(material())).thenReturn(false);
         service.onTimer();
-        verify(service, never()).updateMaterial(material());
+        verify(service, never()).updateMaterial(material(), MaterialUpdatePool.Priority.NORMAL);
         verify(service).hasUpdateIntervalElapsedForScmMaterial(material());
     }
 
     @Test
     public void shouldReturnTrueIfMaterialUpdateElapsedTimeIsEqualToOrGreaterThanUpdateInterval() throws Exception {
         systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, "2000");
-        service = new MaterialUpdateService(queue, completed, goConfigService, systemEnvironment, serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
+        service = new MaterialUpdateService(scmQueue, centralizedScmQueue, dependencyQueue, completed, goConfigService, systemEnvironment, serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
 
         Map<Material, Long> materialLastUpdateTimeMap = (Map<Material, Long>) ReflectionUtil.getField(service, "materialLastUpdateTimeMap");
         materialLastUpdateTimeMap.put(material(), System.currentTimeMillis() - 10000); //Assuming material completed update 10 secs ago.
@@ -126,7 +133,7 @@ public abstract class MaterialUpdateService_IdleTime_TestBase {
     @Test
     public void shouldReturnFalseIfMaterialUpdateElapsedTimeIsLessThanUpdateInterval() throws Exception {
         systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, "10000");
-        service = new MaterialUpdateService(queue, completed, goConfigService, systemEnvironment, serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
+        service = new MaterialUpdateService(scmQueue, centralizedScmQueue, dependencyQueue, completed, goConfigService, systemEnvironment, serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
 
         Map<Material, Long> materialLastUpdateTimeMap = (Map<Material, Long>) ReflectionUtil.getField(service, "materialLastUpdateTimeMap");
         materialLastUpdateTimeMap.put(material(), System.currentTimeMillis() - 2000); //Assuming material completed update 2 secs ago.
@@ -137,7 +144,7 @@ public abstract class MaterialUpdateService_IdleTime_TestBase {
     @Test
     public void shouldUpdateMaterialSecondTimeIfLastUpdateCompleteIntervalHasElapsed() throws Exception {
         systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, "1000");
-        service = new MaterialUpdateService(queue, completed, goConfigService, systemEnvironment, serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
+        service = new MaterialUpdateService(scmQueue, centralizedScmQueue, dependencyQueue, completed, goConfigService, systemEnvironment, serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
         service = spy(service);
         Set<MaterialConfig> schedulableMaterials = goConfigService.getSchedulableMaterials();
         Set<Material> materials = new HashSet<Material>();
@@ -149,13 +156,13 @@ public abstract class MaterialUpdateService_IdleTime_TestBase {
 
         Thread.sleep(2000);
         service.onTimer();
-        verify(service, times(2)).updateMaterial(material());
+        verify(service, times(2)).updateMaterial(material(), MaterialUpdatePool.Priority.NORMAL);
     }
 
     @Test
     public void shouldNotUpdateMaterialSecondTimeIfLastUpdateCompleteIntervalHasNotElapsed() throws Exception {
         systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, "10000");
-        service = new MaterialUpdateService(queue, completed, goConfigService, systemEnvironment, serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
+        service = new MaterialUpdateService(scmQueue, centralizedScmQueue, dependencyQueue, completed, goConfigService, systemEnvironment, serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
         service = spy(service);
 
         service.onTimer();
@@ -163,7 +170,7 @@ public abstract class MaterialUpdateService_IdleTime_TestBase {
 
         Thread.sleep(1000);
         service.onTimer();
-        verify(service).updateMaterial(material());
+        verify(service).updateMaterial(material(), MaterialUpdatePool.Priority.NORMAL);
     }
 
     @Test
@@ -176,12 +183,12 @@ public abstract class MaterialUpdateService_IdleTime_TestBase {
         when(materialConfigConverter.toMaterials(materialConfigs)).thenReturn(materials);
 
         systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, "100000");
-        service = new MaterialUpdateService(queue, completed, goConfigService, systemEnvironment, serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
+        service = new MaterialUpdateService(scmQueue, centralizedScmQueue, dependencyQueue, completed, goConfigService, systemEnvironment, serverHealthService, postCommitHookMaterialType, mduPerformanceLogger, materialConfigConverter);
         service = spy(service);
 
         service.onTimer();
         service.onTimer();
-        verify(service, times(2)).updateMaterial(dependencyMaterial);
+        verify(service, times(2)).updateMaterial(dependencyMaterial, MaterialUpdatePool.Priority.NORMAL);
     }
 
 }
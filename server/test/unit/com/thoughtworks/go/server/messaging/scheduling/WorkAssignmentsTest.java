@@ -22,6 +22,7 @@ import com.thoughtworks.go.remote.work.Work;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
 import com.thoughtworks.go.util.ClassMockery;
 import com.thoughtworks.go.work.FakeWork;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.core.Is.is;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
@@ -51,7 +52,7 @@ public class WorkAssignmentsTest {
         context.checking(new Expectations() {{
             one(assignedWorkTopic).addListener(with(any(WorkAssignments.class)));
         }});
-        assignments = new WorkAssignments(idleAgentsTopic, assignedWorkTopic);
+        assignments = new WorkAssignments(idleAgentsTopic, assignedWorkTopic, 0, 0, 0);
         agentIdentifier = new AgentIdentifier("localhost", "127.0.0.1", "uuid");
         agent = AgentRuntimeInfo.fromAgent(agentIdentifier, "cookie", null);
     }
@@ -116,4 +117,111 @@ public class WorkAssignmentsTest {
         }});
         assertThat(assignments.getWork(agent), is(NO_WORK));
     }
+
+    @Test
+    public void shouldHandWorkToAParkedAgentAsSoonAsItIsAssigned() {
+        assignments = longPollingAssignments(10000, 10000, 1);
+        context.checking(new Expectations() {{
+            one(idleAgentsTopic).post(new IdleAgentMessage(agent));
+        }});
+        assignLater(100, REAL_WORK);
+
+        long start = System.currentTimeMillis();
+        assertThat(assignments.getWork(agent), is(REAL_WORK));
+        assertThat(System.currentTimeMillis() - start, lessThan(5000L));
+    }
+
+    @Test
+    public void shouldOfferAParkedAgentForMatchingAgainWhenNoWorkWasFound() {
+        assignments = longPollingAssignments(10000, 20, 1);
+        context.checking(new Expectations() {{
+            exactly(2).of(idleAgentsTopic).post(new IdleAgentMessage(agent));
+        }});
+        assignLater(200, NO_WORK, REAL_WORK);
+
+        assertThat(assignments.getWork(agent), is(REAL_WORK));
+    }
+
+    @Test
+    public void shouldOfferParkedAgentsForMatchingAgainAsSoonAsAskedTo() {
+        assignments = longPollingAssignments(10000, 10000, 1);
+        context.checking(new Expectations() {{
+            exactly(2).of(idleAgentsTopic).post(new IdleAgentMessage(agent));
+        }});
+        assignLater(100, NO_WORK);
+        rematchLater(300);
+        assignLater(500, REAL_WORK);
+
+        long start = System.currentTimeMillis();
+        assertThat(assignments.getWork(agent), is(REAL_WORK));
+        assertThat(System.currentTimeMillis() - start, lessThan(5000L));
+    }
+
+    @Test
+    public void shouldNotOfferAnAgentWhichIsNotParkedForMatchingAgain() {
+        assignments = longPollingAssignments(10000, 10000, 1);
+
+        assignments.rematchParkedAgents();
+    }
+
+    @Test
+    public void shouldAnswerNoWorkWhenNothingIsAssignedWithinTheLongPollTimeout() {
+        assignments = longPollingAssignments(100, 10000, 1);
+        context.checking(new Expectations() {{
+            one(idleAgentsTopic).post(new IdleAgentMessage(agent));
+        }});
+
+        assertThat(assignments.getWork(agent), is(NO_WORK));
+    }
+
+    @Test
+    public void shouldNotParkMoreAgentsThanAllowed() {
+        assignments = longPollingAssignments(10000, 10000, 0);
+        context.checking(new Expectations() {{
+            one(idleAgentsTopic).post(new IdleAgentMessage(agent));
+        }});
+
+        long start = System.currentTimeMillis();
+        assertThat(assignments.getWork(agent), is(NO_WORK));
+        assertThat(System.currentTimeMillis() - start, lessThan(5000L));
+    }
+
+    private WorkAssignments longPollingAssignments(long longPollTimeout, long rematchInterval, int maxParkedAgents) {
+        context.checking(new Expectations() {{
+            one(assignedWorkTopic).addListener(with(any(WorkAssignments.class)));
+        }});
+        return new WorkAssignments(idleAgentsTopic, assignedWorkTopic, longPollTimeout, rematchInterval, maxParkedAgents);
+    }
+
+    private void rematchLater(final long delayInMillis) {
+        Thread rematcher = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(delayInMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                assignments.rematchParkedAgents();
+            }
+        });
+        rematcher.setDaemon(true);
+        rematcher.start();
+    }
+
+    private void assignLater(final long intervalInMillis, final Work... works) {
+        Thread assigner = new Thread(new Runnable() {
+            public void run() {
+                for (Work work : works) {
+                    try {
+                        Thread.sleep(intervalInMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    assignments.onMessage(new WorkAssignedMessage(agentIdentifier, work));
+                }
+            }
+        });
+        assigner.setDaemon(true);
+        assigner.start();
+    }
 }
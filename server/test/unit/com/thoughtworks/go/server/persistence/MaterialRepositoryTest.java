@@ -24,6 +24,7 @@ import com.thoughtworks.go.server.database.DatabaseStrategy;
 import com.thoughtworks.go.server.service.MaterialConfigConverter;
 import com.thoughtworks.go.server.service.MaterialExpansionService;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.hibernate.Query;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -65,7 +66,7 @@ public class MaterialRepositoryTest {
         mockHibernateTemplate = mock(HibernateTemplate.class);
         materialConfigConverter = mock(MaterialConfigConverter.class);
         materialExpansionService = mock(MaterialExpansionService.class);
-        materialRepository = new MaterialRepository(sessionFactory, goCache, 4242, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy);
+        materialRepository = new MaterialRepository(sessionFactory, goCache, 4242, transactionSynchronizationManager, materialConfigConverter, materialExpansionService, databaseStrategy, new SystemEnvironment());
         materialRepository.setHibernateTemplate(mockHibernateTemplate);
         when(goCache.get(anyString())).thenAnswer(new Answer<Object>() {
             @Override
@@ -19,6 +19,8 @@ package com.thoughtworks.go.server.service;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -26,7 +28,6 @@ import java.util.zip.ZipInputStream;
 
 import com.googlecode.junit.ext.JunitExtRunner;
 import com.googlecode.junit.ext.RunIf;
-import com.thoughtworks.go.domain.ConsoleOut;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.domain.LocatableEntity;
 import com.thoughtworks.go.domain.Stage;
@@ -52,7 +53,6 @@ import static com.thoughtworks.go.junitext.EnhancedOSChecker.DO_NOT_RUN_ON;
 import static com.thoughtworks.go.junitext.EnhancedOSChecker.WINDOWS;
 import static com.thoughtworks.go.server.service.ArtifactsService.LOG_XML_NAME;
 import static com.thoughtworks.go.util.GoConstants.PUBLISH_MAX_RETRIES;
-import static java.lang.System.getProperty;
 import static junit.framework.Assert.fail;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
@@ -158,23 +158,36 @@ public class ArtifactsServiceTest {
     }
 
     @Test
-    public void shouldReturnConsoleUpdates() throws IOException {
-        String separator = getProperty("line.separator");
-        String output = "line1" + separator + "line2" + separator + "line3";
-        ByteArrayInputStream stream = new ByteArrayInputStream(output.getBytes());
-
-        assumeArtifactsRoot(new File("logs"));
+    public void shouldSkipConsoleOutputAlreadyReceivedWhenAgentResendsFromAnEarlierOffset() throws IOException {
+        File consoleLog = new File(fakeRoot, "cruise-output/console.log");
         ArtifactsService artifactsService = new ArtifactsService(systemService, artifactsDirHolder, zipUtil, resolverService, stageService);
-        ConsoleOut consoleOut = artifactsService.getConsoleOut(0, stream);
-        assertThat(consoleOut.output(), is(output + separator));
-        assertThat(consoleOut.calculateNextStart(), is(3));
 
-        output += separator + "line4" + separator + "line5";
+        artifactsService.updateConsoleLog(consoleLog, new ByteArrayInputStream("line1\nline2\n".getBytes()), 0, ArtifactsService.LineListener.NO_OP_LINE_LISTENER);
+        artifactsService.updateConsoleLog(consoleLog, new ByteArrayInputStream("line1\nline2\n".getBytes()), 0, ArtifactsService.LineListener.NO_OP_LINE_LISTENER);
+        artifactsService.updateConsoleLog(consoleLog, new ByteArrayInputStream("line2\nline3\n".getBytes()), 6, ArtifactsService.LineListener.NO_OP_LINE_LISTENER);
+
+        assertThat(FileUtils.readFileToString(consoleLog), is("line1\nline2\nline3\n"));
+        assertThat(FileUtils.readFileToString(artifactsService.consoleOffsetFile(consoleLog)), is("18"));
+    }
 
-        stream = new ByteArrayInputStream(output.getBytes());
-        consoleOut = artifactsService.getConsoleOut(3, stream);
-        assertThat(consoleOut.output(), is("line4" + separator + "line5" + separator));
-        assertThat(consoleOut.calculateNextStart(), is(5));
+    @Test
+    public void shouldNotAppendAnyOfATruncatedBatchSoThatItsResendIsNotDuplicated() throws IOException {
+        File consoleLog = new File(fakeRoot, "cruise-output/console.log");
+        ArtifactsService artifactsService = new ArtifactsService(systemService, artifactsDirHolder, zipUtil, resolverService, stageService);
+        artifactsService.updateConsoleLog(consoleLog, new ByteArrayInputStream("line1\n".getBytes()), 0, ArtifactsService.LineListener.NO_OP_LINE_LISTENER);
+
+        InputStream truncated = new SequenceInputStream(new ByteArrayInputStream("line2\n".getBytes()), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+        boolean updated = artifactsService.updateConsoleLog(consoleLog, truncated, 6, ArtifactsService.LineListener.NO_OP_LINE_LISTENER);
+        artifactsService.updateConsoleLog(consoleLog, new ByteArrayInputStream("line2\nline3\n".getBytes()), 6, ArtifactsService.LineListener.NO_OP_LINE_LISTENER);
+
+        assertThat(updated, is(false));
+        assertThat(FileUtils.readFileToString(consoleLog), is("line1\nline2\nline3\n"));
+        assertThat(FileUtils.readFileToString(artifactsService.consoleOffsetFile(consoleLog)), is("18"));
     }
 
     @Test
@@ -5,16 +5,21 @@ import com.thoughtworks.go.domain.cctray.CcTrayCache;
 import com.thoughtworks.go.domain.cctray.viewers.AllowedViewers;
 import com.thoughtworks.go.domain.cctray.viewers.Viewers;
 import com.thoughtworks.go.util.DateUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
 import static com.thoughtworks.go.fixture.IntegrationTestsFixture.login;
 import static com.thoughtworks.go.fixture.IntegrationTestsFixture.resetSecurityContext;
 import static com.thoughtworks.go.util.DataStructureUtils.s;
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -101,6 +106,56 @@ public class CcTrayServiceTest {
                 "</Projects>"));
     }
 
+    @Test
+    public void shouldKeepTheSameEtagTillTheCacheChanges() throws Exception {
+        when(goConfigService.isSecurityEnabled()).thenReturn(true);
+        when(ccTrayCache.version()).thenReturn(1L);
+        when(ccTrayCache.allEntriesInOrder()).thenReturn(asList(statusFor("proj1", "user1")));
+        login("user1", "password");
+
+        String etag = ccTrayService.ccTrayFeedFor("prefix1").etag();
+        assertThat(ccTrayService.ccTrayFeedFor("prefix1").etag(), is(etag));
+
+        when(ccTrayCache.version()).thenReturn(2L);
+        when(ccTrayCache.allEntriesInOrder()).thenReturn(asList(statusFor("proj1", "user1"), statusFor("proj2", "user1")));
+
+        CcTrayService.CcTrayFeed feed = ccTrayService.ccTrayFeedFor("prefix1");
+        assertThat(feed.etag(), is(not(etag)));
+        assertCcTrayXmlFor(feed.xml(), "prefix1", "proj1", "proj2");
+    }
+
+    @Test
+    public void shouldShareEtagsOnlyBetweenUsersWhoCanSeeTheSameProjects() throws Exception {
+        when(goConfigService.isSecurityEnabled()).thenReturn(true);
+        when(ccTrayCache.allEntriesInOrder()).thenReturn(asList(statusFor("proj1", "user1", "user2"), statusFor("proj2", "user3")));
+
+        login("user1", "password");
+        String etagOfUser1 = ccTrayService.ccTrayFeedFor("prefix1").etag();
+        login("user2", "password");
+        String etagOfUser2 = ccTrayService.ccTrayFeedFor("prefix1").etag();
+        String etagOfUser2ForAnotherSiteUrl = ccTrayService.ccTrayFeedFor("prefix2").etag();
+        login("user3", "password");
+        String etagOfUser3 = ccTrayService.ccTrayFeedFor("prefix1").etag();
+
+        assertThat(etagOfUser2, is(etagOfUser1));
+        assertThat(etagOfUser2ForAnotherSiteUrl, is(not(etagOfUser2)));
+        assertThat(etagOfUser3, is(not(etagOfUser1)));
+    }
+
+    @Test
+    public void shouldProvideCompressedCcTrayXml() throws Exception {
+        when(goConfigService.isSecurityEnabled()).thenReturn(true);
+        when(ccTrayCache.allEntriesInOrder()).thenReturn(asList(statusFor("proj1", "user1"), statusFor("proj2", "user2")));
+        login("user1", "password");
+
+        assertCcTrayXmlFor(gunzip(ccTrayService.ccTrayFeedFor("prefix1").gzippedXml()), "prefix1", "proj1");
+        assertCcTrayXmlFor(gunzip(ccTrayService.ccTrayFeedFor("prefix2").gzippedXml()), "prefix2", "proj1");
+    }
+
+    private String gunzip(byte[] bytes) throws Exception {
+        return IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(bytes)), "UTF-8");
+    }
+
     private ProjectStatus statusFor(String projectName, String... allowedUsers) throws Exception {
         ProjectStatus status = new ProjectStatus(projectName, "activity1", "build-status-1", "build-label-1", DateUtils.parseYYYYMMDD("2010-05-23"), "web-url");
         status.updateViewers(viewers(allowedUsers));
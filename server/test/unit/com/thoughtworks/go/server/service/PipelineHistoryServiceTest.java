@@ -358,6 +358,30 @@ public class PipelineHistoryServiceTest {
         assertPipelineIs(activePipelines.get(1), "pipeline1", "stage2", StageResult.Passed);
     }
 
+    @Test
+    public void shouldCheckPermissionsOncePerPipelineWhenItHasManyActiveInstances() {
+        Username foo = new Username(new CaseInsensitiveString("foo"));
+        CruiseConfig cruiseConfig = ConfigMigrator.loadWithMigration(ConfigFileFixture.CONFIG).config;
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+        PipelineInstanceModels activePipelineInstances = createPipelineInstanceModels(
+                activePipeline("pipeline1", 3, 3.0),
+                activePipeline("pipeline1", 2, 2.0),
+                activePipeline("pipeline1", 1, 1.0)
+        );
+        when(pipelineDao.loadActivePipelines()).thenReturn(activePipelineInstances);
+        stubPermisssionsForActivePipeline(foo, cruiseConfig, "pipeline1", true, true);
+        when(goConfigService.hasPipelineNamed(new CaseInsensitiveString(any(String.class)))).thenReturn(true);
+
+        List<PipelineGroupModel> groups = pipelineHistoryService.allActivePipelineInstances(foo, new PipelineSelections(Arrays.asList("pipeline2", "pipeline3", "pipeline4", "non-operatable-pipeline")));
+
+        assertThat(groups.size(), is(1));
+        assertThat(groups.get(0).getPipelineModels().size(), is(1));
+        assertThat(groups.get(0).getPipelineModels().get(0).getActivePipelineInstances().size(), is(3));
+        verify(securityService, times(1)).hasViewPermissionForPipeline(foo, "pipeline1");
+        verify(securityService, times(1)).hasOperatePermissionForPipeline(foo.getUsername(), "pipeline1");
+        verify(schedulingCheckerService, times(1)).canManuallyTrigger("pipeline1", foo);
+    }
+
     @Test
     public void allActivePipelines_shouldOnlyKeepSelectedPipelines() {
         Username foo = new Username(new CaseInsensitiveString("foo"));
@@ -17,6 +17,8 @@
 package com.thoughtworks.go.server.service;
 
 import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import com.thoughtworks.go.config.Agents;
 import com.thoughtworks.go.config.CaseInsensitiveString;
@@ -57,12 +59,15 @@ import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
 import com.thoughtworks.go.util.GoConstants;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TimeProvider;
 import com.thoughtworks.go.utils.Timeout;
 import org.apache.commons.httpclient.HttpStatus;
 import org.hamcrest.Matchers;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import static com.thoughtworks.go.helper.ModificationsMother.modifySomeFiles;
 import static com.thoughtworks.go.util.DataStructureUtils.m;
@@ -71,6 +76,8 @@ import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyVararg;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
@@ -121,7 +128,7 @@ public class ScheduleServiceTest {
                 PipelineScheduledTopic.class), mock(PipelineDao.class), mock(StageDao.class), mock(StageOrderService.class), securityService, pipelineScheduleQueue,
                 jobInstanceService, mock(JobInstanceDao.class), mock(AgentAssignment.class), environmentConfigService, mock(PipelineLockService.class), serverHealthService,
                 new TestTransactionTemplate(synchronizationManager),
-                mock(AgentService.class), synchronizationManager, timeProvider, consoleActivityMonitor, pipelinePauseService, instanceFactory, schedulingPerformanceLogger);
+                mock(AgentService.class), synchronizationManager, timeProvider, consoleActivityMonitor, pipelinePauseService, instanceFactory, schedulingPerformanceLogger, new SystemEnvironment());
     }
 
     @Test
@@ -307,7 +314,7 @@ public class ScheduleServiceTest {
         when(goConfigService.getCurrentConfig()).thenReturn(cruiseConfig);
         StubPipelineScheduleTopic stubTopic = new StubPipelineScheduleTopic();
         service = new ScheduleService(goConfigService, null, null, schedulingChecker, stubTopic, null, null, null, null, pipelineScheduleQueue,
-                jobInstanceService, null, null, environmentConfigService, null, serverHealthService, null, null, null, timeProvider, null, null, null, schedulingPerformanceLogger);
+                jobInstanceService, null, null, environmentConfigService, null, serverHealthService, null, null, null, timeProvider, null, null, null, schedulingPerformanceLogger, new SystemEnvironment());
 
         PipelineConfig mingleConfig = PipelineConfigMother.createPipelineConfig("mingle", "build", "unit", "functional");
         PipelineConfig evolveConfig = PipelineConfigMother.createPipelineConfig("evolve", "build", "unit");
@@ -331,6 +338,61 @@ public class ScheduleServiceTest {
         assertThat(stubTopic.callCount, Matchers.is(2));
     }
 
+    @Test
+    public void shouldReportTheTimeEachPipelineWasQueuedAt() throws Exception {
+        CruiseConfig cruiseConfig = mock(CruiseConfig.class);
+        when(cruiseConfig.getMd5()).thenReturn("md5-test");
+        when(goConfigService.getCurrentConfig()).thenReturn(cruiseConfig);
+        PipelineConfig mingleConfig = PipelineConfigMother.createPipelineConfig("mingle", "build", "unit", "functional");
+        BuildCause mingleBuildCause = modifySomeFiles(mingleConfig);
+        when(pipelineScheduleQueue.toBeScheduled()).thenReturn(m("mingle", mingleBuildCause));
+        when(pipelineScheduleQueue.queuedTime("mingle")).thenReturn(42L);
+        when(goConfigService.pipelineConfigNamed(new CaseInsensitiveString("mingle"))).thenReturn(mingleConfig);
+        when(schedulingChecker.canAutoTriggerConsumer(mingleConfig)).thenReturn(true);
+        when(pipelineScheduleQueue.createPipeline(mingleBuildCause, mingleConfig, new DefaultSchedulingContext(GoConstants.DEFAULT_APPROVED_BY, new Agents()), "md5-test", timeProvider)).thenReturn(
+                PipelineMother.schedule(mingleConfig, mingleBuildCause));
+
+        service.autoSchedulePipelinesFromRequestBuffer();
+
+        verify(schedulingPerformanceLogger).scheduledPipeline(eq("mingle"), anyInt(), eq(42L), anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldScheduleIndependentPipelinesConcurrently() throws Exception {
+        CruiseConfig cruiseConfig = mock(CruiseConfig.class);
+        when(cruiseConfig.getMd5()).thenReturn("md5-test");
+        when(goConfigService.getCurrentConfig()).thenReturn(cruiseConfig);
+        StubPipelineScheduleTopic stubTopic = new StubPipelineScheduleTopic();
+        service = new ScheduleService(goConfigService, null, null, schedulingChecker, stubTopic, null, null, null, null, pipelineScheduleQueue,
+                jobInstanceService, null, null, environmentConfigService, null, serverHealthService, null, null, null, timeProvider, null, null, null, schedulingPerformanceLogger, new SystemEnvironment());
+
+        PipelineConfig mingleConfig = PipelineConfigMother.createPipelineConfig("mingle", "build", "unit", "functional");
+        PipelineConfig evolveConfig = PipelineConfigMother.createPipelineConfig("evolve", "build", "unit");
+        BuildCause mingleBuildCause = modifySomeFiles(mingleConfig);
+        BuildCause evolveBuildCause = modifySomeFiles(evolveConfig);
+        when(pipelineScheduleQueue.toBeScheduled()).thenReturn(m("mingle", mingleBuildCause, "evolve", evolveBuildCause));
+        when(goConfigService.pipelineConfigNamed(new CaseInsensitiveString("mingle"))).thenReturn(mingleConfig);
+        when(goConfigService.pipelineConfigNamed(new CaseInsensitiveString("evolve"))).thenReturn(evolveConfig);
+
+        final CountDownLatch bothPipelinesBeingChecked = new CountDownLatch(2);
+        Answer<Boolean> waitForTheOtherPipeline = new Answer<Boolean>() {
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                bothPipelinesBeingChecked.countDown();
+                return bothPipelinesBeingChecked.await(10, TimeUnit.SECONDS);
+            }
+        };
+        when(schedulingChecker.canAutoTriggerConsumer(mingleConfig)).thenAnswer(waitForTheOtherPipeline);
+        when(schedulingChecker.canAutoTriggerConsumer(evolveConfig)).thenAnswer(waitForTheOtherPipeline);
+        when(pipelineScheduleQueue.createPipeline(mingleBuildCause, mingleConfig, new DefaultSchedulingContext(GoConstants.DEFAULT_APPROVED_BY, new Agents()), "md5-test", timeProvider)).thenReturn(
+                PipelineMother.schedule(mingleConfig, mingleBuildCause));
+        when(pipelineScheduleQueue.createPipeline(evolveBuildCause, evolveConfig, new DefaultSchedulingContext(GoConstants.DEFAULT_APPROVED_BY, new Agents()), "md5-test", timeProvider)).thenReturn(
+                PipelineMother.schedule(evolveConfig, evolveBuildCause));
+
+        service.autoSchedulePipelinesFromRequestBuffer();
+
+        assertThat(stubTopic.callCount, Matchers.is(2));
+    }
+
     @Test
     public void shouldCancelUnresponsiveJobs() {
         service.cancelHungJobs();
@@ -344,7 +406,7 @@ public class ScheduleServiceTest {
             super(null);
         }
 
-        public void post(PipelineScheduledMessage message) {
+        public synchronized void post(PipelineScheduledMessage message) {
             callCount++;
         }
     }
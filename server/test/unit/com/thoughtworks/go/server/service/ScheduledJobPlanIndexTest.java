@@ -0,0 +1,160 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+package com.thoughtworks.go.server.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.thoughtworks.go.config.AgentConfig;
+import com.thoughtworks.go.config.ArtifactPlans;
+import com.thoughtworks.go.config.Resources;
+import com.thoughtworks.go.domain.AgentInstance;
+import com.thoughtworks.go.domain.DefaultJobPlan;
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.JobPlan;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ScheduledJobPlanIndexTest {
+    private ScheduledJobPlanIndex index;
+    private ScheduledJobPlanIndex.EnvironmentResolver resolver;
+
+    @Before
+    public void setUp() throws Exception {
+        index = new ScheduledJobPlanIndex();
+        resolver = new ScheduledJobPlanIndex.EnvironmentResolver() {
+            public String environmentFor(String pipelineName) {
+                return pipelineName.startsWith("uat") ? "uat" : null;
+            }
+        };
+    }
+
+    @Test
+    public void shouldClaimEarliestJobAcrossMatchingBuckets() throws Exception {
+        JobPlan svn = jobPlan(1, "pipeline1", "linux, svn", null);
+        JobPlan linux = jobPlan(2, "pipeline2", "linux", null);
+        JobPlan mercurial = jobPlan(3, "pipeline3", "linux, mercurial", null);
+        index.replaceAll(Arrays.asList(svn, linux, mercurial), resolver);
+
+        AgentInstance agent = agent("linux, mercurial");
+
+        assertThat(index.claimFirstMatching(agent, Collections.<String>emptySet()), is(linux));
+        assertThat(index.claimFirstMatching(agent, Collections.<String>emptySet()), is(mercurial));
+        assertThat(index.claimFirstMatching(agent, Collections.<String>emptySet()), is(nullValue()));
+        assertThat(index.jobPlans(), is(Arrays.asList(svn)));
+    }
+
+    @Test
+    public void shouldOnlyMatchJobsInTheSameEnvironmentAsTheAgent() throws Exception {
+        JobPlan noEnv = jobPlan(1, "pipeline1", "linux", null);
+        JobPlan uat = jobPlan(2, "uat-pipeline", "linux", null);
+        index.replaceAll(Arrays.asList(noEnv, uat), resolver);
+
+        assertThat(index.claimFirstMatching(agent("linux"), Arrays.asList("UAT")), is(uat));
+        assertThat(index.claimFirstMatching(agent("linux"), Arrays.asList("UAT")), is(nullValue()));
+        assertThat(index.claimFirstMatching(agent("linux"), Collections.<String>emptySet()), is(noEnv));
+    }
+
+    @Test
+    public void shouldOnlyMatchJobAssignedToAParticularAgentWithThatAgent() throws Exception {
+        JobPlan pinned = jobPlan(1, "pipeline1", "linux", "other-uuid");
+        index.replaceAll(Arrays.asList(pinned), resolver);
+
+        assertThat(index.claimFirstMatching(agent("linux"), Collections.<String>emptySet()), is(nullValue()));
+        assertThat(index.claimFirstMatching(AgentInstance.createFromConfig(new AgentConfig("other-uuid", "B", "127.0.0.2"), new SystemEnvironment()),
+                Collections.<String>emptySet()), is(pinned));
+    }
+
+    @Test
+    public void shouldKeepOrderingWhenRebucketingForANewEnvironmentConfiguration() throws Exception {
+        JobPlan first = jobPlan(1, "pipeline1", "linux", null);
+        JobPlan second = jobPlan(2, "pipeline2", "linux", null);
+        index.replaceAll(Arrays.asList(first, second), resolver);
+
+        index.rebucket(new ScheduledJobPlanIndex.EnvironmentResolver() {
+            public String environmentFor(String pipelineName) {
+                return "prod";
+            }
+        });
+
+        assertThat(index.claimFirstMatching(agent("linux"), Collections.<String>emptySet()), is(nullValue()));
+        assertThat(index.claimFirstMatching(agent("linux"), Arrays.asList("prod")), is(first));
+        assertThat(index.claimFirstMatching(agent("linux"), Arrays.asList("prod")), is(second));
+    }
+
+    @Test
+    public void shouldRemoveJobPlan() throws Exception {
+        JobPlan job = jobPlan(1, "pipeline1", "linux", null);
+        index.replaceAll(Arrays.asList(job), resolver);
+
+        assertThat(index.remove(job), is(true));
+        assertThat(index.remove(job), is(false));
+        assertThat(index.size(), is(0));
+    }
+
+    @Test
+    public void shouldOnlyResolveNewlyScheduledJobsWhenUpdating() throws Exception {
+        JobPlan first = jobPlan(1, "pipeline1", "linux", null);
+        JobPlan second = jobPlan(2, "pipeline2", "linux", null);
+        JobPlan third = jobPlan(3, "pipeline3", "linux", null);
+        index.replaceAll(Arrays.asList(first, second), resolver);
+        final List<String> resolved = new ArrayList<String>();
+
+        ScheduledJobPlanIndex.EnvironmentResolver recordingResolver = new ScheduledJobPlanIndex.EnvironmentResolver() {
+            public String environmentFor(String pipelineName) {
+                resolved.add(pipelineName);
+                return null;
+            }
+        };
+
+        assertThat(index.update(Arrays.asList(second, third), recordingResolver), is(true));
+        assertThat(resolved, is(Arrays.asList("pipeline3")));
+        assertThat(index.jobPlans(), is(Arrays.asList(second, third)));
+        assertThat(index.update(Arrays.asList(third), recordingResolver), is(false));
+        assertThat(index.jobPlans(), is(Arrays.asList(third)));
+    }
+
+    @Test
+    public void shouldKeepSchedulingOrderWhenANewJobComesBeforeAnIndexedOne() throws Exception {
+        JobPlan first = jobPlan(1, "pipeline1", "linux", null);
+        JobPlan second = jobPlan(2, "pipeline2", "linux", null);
+        index.replaceAll(Arrays.asList(second), resolver);
+
+        index.update(Arrays.asList(first, second), resolver);
+
+        assertThat(index.claimFirstMatching(agent("linux"), Collections.<String>emptySet()), is(first));
+        assertThat(index.claimFirstMatching(agent("linux"), Collections.<String>emptySet()), is(second));
+    }
+
+    private AgentInstance agent(String resources) {
+        return AgentInstance.createFromConfig(new AgentConfig("UUID", "A", "127.0.0.1", new Resources(resources)), new SystemEnvironment());
+    }
+
+    private JobPlan jobPlan(long id, String pipelineName, String resources, String uuid) {
+        JobIdentifier jobIdentifier = new JobIdentifier(pipelineName, 1, "1", "stage1", "1", "job", id);
+        DefaultJobPlan plan = new DefaultJobPlan(new Resources(resources), new ArtifactPlans(), null, id, jobIdentifier);
+        plan.setAgentUuid(uuid);
+        return plan;
+    }
+}
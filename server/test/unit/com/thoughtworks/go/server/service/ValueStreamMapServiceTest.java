@@ -146,6 +146,30 @@ public class ValueStreamMapServiceTest {
         assertNode(0, secondLevel.get(0), pipelineName, pipelineName, 0);
     }
 
+    @Test
+    public void shouldReuseDownstreamPipelinesOfAConfigVersionAcrossRequests() {
+        String pipelineName = "p1";
+        BuildCause buildCause = PipelineMother.pipeline(pipelineName, new Stage()).getBuildCause();
+        MaterialConfig materialConfig = buildCause.getMaterialRevisions().getMaterialRevision(0).getMaterial().config();
+        PipelineConfig p1Config = PipelineConfigMother.pipelineConfig(pipelineName, new MaterialConfigs(materialConfig));
+        CruiseConfig cruiseConfig = spy(new CruiseConfig(new PipelineConfigs(p1Config)));
+        ReflectionUtil.setField(cruiseConfig, "md5", "md5-1");
+        CruiseConfig modifiedConfig = spy(new CruiseConfig(new PipelineConfigs(p1Config)));
+        ReflectionUtil.setField(modifiedConfig, "md5", "md5-2");
+
+        when(pipelineService.buildCauseFor(pipelineName, 1)).thenReturn(buildCause);
+        when(pipelineService.findPipelineByCounterOrLabel(pipelineName, "1")).thenReturn(new Pipeline(pipelineName, "p1-label", buildCause));
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig, cruiseConfig, modifiedConfig);
+
+        valueStreamMapService.getValueStreamMap(pipelineName, 1, user, result);
+        valueStreamMapService.getValueStreamMap(pipelineName, 1, user, result);
+        verify(cruiseConfig, times(1)).generatePipelineVsDownstreamMap();
+
+        valueStreamMapService.getValueStreamMap(pipelineName, 1, user, result);
+        verify(modifiedConfig, times(1)).generatePipelineVsDownstreamMap();
+        assertThat(result.isSuccessful(), is(true));
+    }
+
     @Test
     public void shouldGetPipelineDependencyGraphForAPipelineWithNoCrossLevelDependencies() {
         /*
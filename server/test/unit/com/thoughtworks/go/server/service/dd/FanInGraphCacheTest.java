@@ -0,0 +1,70 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.go.server.service.dd;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.CruiseConfig;
+import com.thoughtworks.go.util.ReflectionUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class FanInGraphCacheTest {
+    private FanInGraphCache cache;
+    private FanInGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new FanInGraphCache();
+        graph = mock(FanInGraph.class);
+    }
+
+    @Test
+    public void shouldReturnGraphBuiltForTheSameVersionOfConfig() throws Exception {
+        cache.put(configWithMd5("md5-1"), new CaseInsensitiveString("up42"), graph);
+
+        assertThat(cache.get(configWithMd5("md5-1"), new CaseInsensitiveString("UP42")), is(graph));
+        assertThat(cache.get(configWithMd5("md5-1"), new CaseInsensitiveString("other")), is(nullValue()));
+    }
+
+    @Test
+    public void shouldForgetGraphsBuiltForAnEarlierVersionOfConfig() throws Exception {
+        cache.put(configWithMd5("md5-1"), new CaseInsensitiveString("up42"), graph);
+        cache.put(configWithMd5("md5-2"), new CaseInsensitiveString("other"), mock(FanInGraph.class));
+
+        assertThat(cache.get(configWithMd5("md5-2"), new CaseInsensitiveString("up42")), is(nullValue()));
+        assertThat(cache.get(configWithMd5("md5-1"), new CaseInsensitiveString("up42")), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotCacheGraphsOfConfigThatWasNotLoadedFromFile() throws Exception {
+        cache.put(new CruiseConfig(), new CaseInsensitiveString("up42"), graph);
+
+        assertThat(cache.get(new CruiseConfig(), new CaseInsensitiveString("up42")), is(nullValue()));
+    }
+
+    private CruiseConfig configWithMd5(String md5) {
+        CruiseConfig cruiseConfig = new CruiseConfig();
+        ReflectionUtil.setField(cruiseConfig, "md5", md5);
+        return cruiseConfig;
+    }
+}
@@ -17,8 +17,13 @@
 package com.thoughtworks.go.server.service.dd;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
 import com.thoughtworks.go.config.PipelineConfigs;
@@ -27,6 +32,7 @@ import com.thoughtworks.go.config.materials.ScmMaterialConfig;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterialConfig;
 import com.thoughtworks.go.config.materials.git.GitMaterialConfig;
 import com.thoughtworks.go.config.materials.mercurial.HgMaterialConfig;
+import com.thoughtworks.go.domain.materials.MaterialConfig;
 import com.thoughtworks.go.helper.PipelineConfigMother;
 import org.junit.Test;
 
@@ -58,4 +64,41 @@ public class FanInGraphTest {
 
         System.err.println(faninGraph.getPipelineScmDepMap());
     }
+
+    @Test
+    public void shouldMapEveryDependencyOfADiamondToTheScmMaterialsUpstreamOfIt() throws Exception {
+        GitMaterialConfig git = new GitMaterialConfig("giturl", "dest");
+        HgMaterialConfig hg = new HgMaterialConfig("hgurl", "dest");
+        PipelineConfig p1 = PipelineConfigMother.pipelineConfig("p1", new MaterialConfigs(git));
+        DependencyMaterialConfig p1Dep = new DependencyMaterialConfig(p1.name(), p1.get(0).name());
+        PipelineConfig p2 = PipelineConfigMother.pipelineConfig("p2", new MaterialConfigs(p1Dep));
+        PipelineConfig p3 = PipelineConfigMother.pipelineConfig("p3", new MaterialConfigs(p1Dep, hg));
+        DependencyMaterialConfig p2Dep = new DependencyMaterialConfig(p2.name(), p2.get(0).name());
+        DependencyMaterialConfig p3Dep = new DependencyMaterialConfig(p3.name(), p3.get(0).name());
+        PipelineConfig p4 = PipelineConfigMother.pipelineConfig("p4", new MaterialConfigs(p2Dep, p3Dep));
+
+        CruiseConfig cruiseConfig = new CruiseConfig(new PipelineConfigs(p1, p2, p3, p4));
+        FanInGraph faninGraph = new FanInGraph(cruiseConfig, p4.name(), null, null, null, null);
+        Map<DependencyMaterialConfig, Set<MaterialConfig>> pipelineScmDepMap = faninGraph.getPipelineScmDepMap();
+
+        assertThat(pipelineScmDepMap.get(p1Dep), is((Set<MaterialConfig>) new HashSet<MaterialConfig>(Arrays.<MaterialConfig>asList(git))));
+        assertThat(pipelineScmDepMap.get(p2Dep), is((Set<MaterialConfig>) new HashSet<MaterialConfig>(Arrays.<MaterialConfig>asList(git))));
+        assertThat(pipelineScmDepMap.get(p3Dep), is((Set<MaterialConfig>) new HashSet<MaterialConfig>(Arrays.<MaterialConfig>asList(git, hg))));
+        assertThat(pipelineScmDepMap.get(new DependencyMaterialConfig(p4.name(), p4.get(0).name())), is((Set<MaterialConfig>) new HashSet<MaterialConfig>(Arrays.<MaterialConfig>asList(git, hg))));
+        assertThat(faninGraph.getScmMaterials().size(), is(2));
+    }
+
+    @Test
+    public void shouldKnowWhichPipelinesItDependsOn() throws Exception {
+        GitMaterialConfig git = new GitMaterialConfig("giturl", "dest");
+        PipelineConfig p1 = PipelineConfigMother.pipelineConfig("p1", new MaterialConfigs(git));
+        PipelineConfig p2 = PipelineConfigMother.pipelineConfig("p2", new MaterialConfigs(new DependencyMaterialConfig(p1.name(), p1.get(0).name())));
+        PipelineConfig unrelated = PipelineConfigMother.pipelineConfig("unrelated", new MaterialConfigs(git));
+
+        FanInGraph faninGraph = new FanInGraph(new CruiseConfig(new PipelineConfigs(p1, p2, unrelated)), p2.name(), null, null, null, null);
+
+        assertThat(faninGraph.dependsOn(new CaseInsensitiveString("P1")), is(true));
+        assertThat(faninGraph.dependsOn(new CaseInsensitiveString("p2")), is(true));
+        assertThat(faninGraph.dependsOn(new CaseInsensitiveString("unrelated")), is(false));
+    }
 }
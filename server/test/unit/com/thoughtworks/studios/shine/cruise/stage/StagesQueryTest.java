@@ -26,6 +26,7 @@ import com.thoughtworks.go.server.dao.sparql.RdfResultMapper;
 import com.thoughtworks.go.util.TempFiles;
 import com.thoughtworks.studios.shine.cruise.GoOntology;
 import com.thoughtworks.studios.shine.cruise.stage.details.StageStorage;
+import com.thoughtworks.studios.shine.cruise.stage.details.StageTestResults;
 import com.thoughtworks.studios.shine.semweb.BoundVariables;
 import com.thoughtworks.studios.shine.semweb.Graph;
 import com.thoughtworks.studios.shine.semweb.TempGraphFactory;
@@ -37,6 +38,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 public class StagesQueryTest {
     private StageStorage graphLoader;
@@ -141,6 +143,24 @@ public class StagesQueryTest {
         assertEquals("http://job/1", bvs.get(0).getAsString("job"));
     }
 
+    @Test
+    public void testResultsOfStagesWillBeCachedOncePerStage() {
+        populateStage("p", 1, "s", 2, "http://job/1");
+        populateStage("p", 2, "s", 2, "http://job/2");
+        InMemoryCache cache = new InMemoryCache();
+        StagesQuery stagesQuery = new StagesQuery(graphLoader, cache);
+        StageIdentifier stageIdentifierOne = new StageIdentifier("p", 1, "s", "2");
+        StageIdentifier stageIdentifierTwo = new StageIdentifier("p", 2, "s", "2");
+
+        List<StageTestResults> testResults = stagesQuery.testResults(Arrays.asList(stageIdentifierOne, stageIdentifierTwo));
+
+        assertEquals(2, testResults.size());
+        assertEquals(1, testResults.get(0).getPipelineCounter());
+        assertEquals(2, testResults.get(1).getPipelineCounter());
+        assertSame(testResults.get(0), cache.get(new StagesQueryCache.CacheKey(StageTestResults.class.getName(), stageIdentifierOne)).get(0));
+        assertSame(testResults.get(1), stagesQuery.testResults(Arrays.asList(stageIdentifierTwo)).get(0));
+    }
+
     private void populateStage(String pipelineName, int pipelineCounter, String stageName, int stageCounter, String job) {
 
         graphLoader.save(graphWithRDF("" +
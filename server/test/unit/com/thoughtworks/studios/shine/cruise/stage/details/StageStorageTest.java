@@ -22,6 +22,8 @@ import com.thoughtworks.go.server.service.PipelineInstanceLoader;
 import com.thoughtworks.go.util.TempFiles;
 import com.thoughtworks.go.domain.StageIdentifier;
 import static com.thoughtworks.studios.shine.AssertUtils.assertAskIsTrue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 
 import com.thoughtworks.studios.shine.ShineRuntimeException;
@@ -29,6 +31,7 @@ import com.thoughtworks.studios.shine.cruise.GoOntology;
 import com.thoughtworks.studios.shine.semweb.Graph;
 import com.thoughtworks.studios.shine.semweb.TempGraphFactory;
 import com.thoughtworks.studios.shine.semweb.sesame.InMemoryTempGraphFactory;
+import com.thoughtworks.studios.shine.xunit.XUnitOntology;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -38,12 +41,13 @@ public class StageStorageTest {
     private TempGraphFactory graphFactory;
     private TempFiles tempFiles;
     private PipelineInstanceLoader pipelineInstanceLoader;
+    private File tempFolder;
 
 
     @Before
     public void setUp() throws Exception {
         tempFiles = new TempFiles();
-        File tempFolder = tempFiles.createUniqueFolder("shine");
+        tempFolder = tempFiles.createUniqueFolder("shine");
         stageStorage = new StageStorage(tempFolder.getAbsolutePath());
         stageStorage.clear();
         graphFactory = new InMemoryTempGraphFactory();
@@ -94,6 +98,55 @@ public class StageStorageTest {
     }
 
 
+    @Test
+    public void shouldSaveTestResultsAlongWithTheStageGraph() throws Exception {
+        stageStorage.save(graphWithRDF(stageWithAFailingTest()));
+
+        assertThat(new File(tempFolder, "p/1/s/2.results").exists(), is(true));
+        StageTestResults testResults = stageStorage.loadTestResults(new StageIdentifier("p", 1, "s", "2"));
+        assertThat(testResults.getTotalCount(), is(1));
+        assertThat(testResults.getFailureCount(), is(1));
+        assertThat(testResults.failuresOf(testResults.getJobs().get(0)).get(0).getTestName(), is("test-1"));
+    }
+
+    @Test
+    public void shouldRebuildTestResultsFromTheStageGraphWhenTheyWereNotSaved() throws Exception {
+        stageStorage.save(graphWithRDF(stageWithAFailingTest()));
+        File testResultsFile = new File(tempFolder, "p/1/s/2.results");
+        testResultsFile.delete();
+
+        StageTestResults testResults = stageStorage.loadTestResults(new StageIdentifier("p", 1, "s", "2"));
+
+        assertThat(testResults.getFailureCount(), is(1));
+        assertThat(testResultsFile.exists(), is(true));
+    }
+
+    private String stageWithAFailingTest() {
+        return "" +
+                "@prefix cruise: <" + GoOntology.URI + "> . " +
+                "@prefix xunit: <" + XUnitOntology.URI + "> . " +
+                "@prefix rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> . " +
+                "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> . " +
+                "" +
+                "<http://pipeline/1> a cruise:Pipeline ." +
+                "<http://pipeline/1> cruise:pipelineName \"p\"^^xsd:string ." +
+                "<http://pipeline/1> cruise:pipelineCounter 1 ." +
+                "<http://pipeline/1> cruise:hasStage <http://stage/1> ." +
+                "<http://stage/1> rdf:type cruise:Stage . " +
+                "<http://stage/1> cruise:stageName \"s\"^^xsd:string . " +
+                "<http://stage/1> cruise:stageCounter 2 . " +
+                "<http://stage/1> cruise:hasJob <http://job/1> . " +
+                "<http://job/1> a cruise:Job . " +
+                "<http://job/1> cruise:jobName \"j\"^^xsd:string . " +
+                "<http://job/1> xunit:hasTestCase <http://test/1> . " +
+                "<http://test/1> a xunit:TestCase . " +
+                "<http://test/1> xunit:testSuiteName \"suite\"^^xsd:string . " +
+                "<http://test/1> xunit:testCaseName \"test-1\"^^xsd:string . " +
+                "<http://test/1> xunit:hasFailure <http://failure/1> . " +
+                "<http://failure/1> xunit:isError \"false\"^^xsd:boolean . " +
+                "";
+    }
+
     @Test(expected = ShineRuntimeException.class)
     public void shouldThrowExceptionWhenTryToLoadAStageNotPersisted() throws Exception {
         stageStorage.load(new StageIdentifier("p", 1, "s", "2"));
@@ -0,0 +1,148 @@
+/*************************GO-LICENSE-START*********************************
+ * Copyright 2014 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *************************GO-LICENSE-END***********************************/
+
+
+package com.thoughtworks.studios.shine.cruise.stage.details;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import com.thoughtworks.studios.shine.ShineRuntimeException;
+import com.thoughtworks.studios.shine.cruise.GoOntology;
+import com.thoughtworks.studios.shine.semweb.Graph;
+import com.thoughtworks.studios.shine.semweb.sesame.InMemoryTempGraphFactory;
+import com.thoughtworks.studios.shine.xunit.XUnitOntology;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class StageTestResultsTest {
+
+    @Test
+    public void shouldExtractCountsCommittersAndFailuresOfAStageGraph() {
+        StageTestResults testResults = StageTestResults.extractFrom(stageGraph());
+
+        assertThat(testResults.getPipelineName(), is("pipeline-foo"));
+        assertThat(testResults.getPipelineCounter(), is(23));
+        assertThat(testResults.getPipelineLabel(), is("label-23"));
+        assertThat(testResults.getStageName(), is("stage-1"));
+        assertThat(testResults.getStageCounter(), is("1"));
+        assertThat(testResults.getTotalCount(), is(4));
+        assertThat(testResults.getFailureCount(), is(2));
+        assertThat(testResults.getErrorCount(), is(1));
+        assertThat(testResults.getCommitters(), is(Arrays.asList("alice", "bob")));
+        assertFailures(testResults);
+    }
+
+    @Test
+    public void shouldReadBackWhatWasWritten() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StageTestResults.extractFrom(stageGraph()).writeTo(out);
+
+        StageTestResults testResults = StageTestResults.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(testResults.getPipelineName(), is("pipeline-foo"));
+        assertThat(testResults.getPipelineCounter(), is(23));
+        assertThat(testResults.getPipelineLabel(), is("label-23"));
+        assertThat(testResults.getStageName(), is("stage-1"));
+        assertThat(testResults.getStageCounter(), is("1"));
+        assertThat(testResults.getTotalCount(), is(4));
+        assertThat(testResults.getFailureCount(), is(2));
+        assertThat(testResults.getErrorCount(), is(1));
+        assertThat(testResults.getCommitters(), is(Arrays.asList("alice", "bob")));
+        assertFailures(testResults);
+    }
+
+    @Test(expected = ShineRuntimeException.class)
+    public void shouldNotExtractTestResultsFromAGraphWithoutAStage() {
+        StageTestResults.extractFrom(new InMemoryTempGraphFactory().createTempGraph());
+    }
+
+    private void assertFailures(StageTestResults testResults) {
+        List<StageTestResults.Job> jobs = testResults.getJobs();
+        assertThat(jobs.size(), is(2));
+
+        assertThat(jobs.get(0).getName(), is("job-a"));
+        assertThat(jobs.get(0).hasFailures(), is(true));
+        List<StageTestResults.Failure> failures = testResults.failuresOf(jobs.get(0));
+        assertThat(failures.size(), is(3));
+        assertFailure(failures.get(0), "suite-a", "test-1", false);
+        assertFailure(failures.get(1), "suite-a", "test-2", true);
+        assertFailure(failures.get(2), "suite-b", "test-1", false);
+
+        assertThat(jobs.get(1).getName(), is("job-b"));
+        assertThat(jobs.get(1).hasFailures(), is(false));
+        assertThat(testResults.failuresOf(jobs.get(1)).isEmpty(), is(true));
+    }
+
+    private void assertFailure(StageTestResults.Failure failure, String suiteName, String testName, boolean error) {
+        assertThat(failure.getSuiteName(), is(suiteName));
+        assertThat(failure.getTestName(), is(testName));
+        assertThat(failure.isError(), is(error));
+    }
+
+    private Graph stageGraph() {
+        Graph graph = new InMemoryTempGraphFactory().createTempGraph();
+        graph.addTriplesFromTurtle("" +
+                "@prefix cruise: <" + GoOntology.URI + "> . " +
+                "@prefix xunit: <" + XUnitOntology.URI + "> . " +
+                "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> . " +
+                "" +
+                " <http://pipeline/1> a cruise:Pipeline . " +
+                " <http://pipeline/1> cruise:pipelineName \"pipeline-foo\"^^xsd:string . " +
+                " <http://pipeline/1> cruise:pipelineCounter \"23\"^^xsd:integer . " +
+                " <http://pipeline/1> cruise:pipelineLabel \"label-23\"^^xsd:string . " +
+                " <http://pipeline/1> cruise:hasStage <http://stage/1> . " +
+                " <http://changeset/1> a cruise:ChangeSet . " +
+                " <http://changeset/1> cruise:user \"bob\"^^xsd:string . " +
+                " <http://changeset/2> a cruise:ChangeSet . " +
+                " <http://changeset/2> cruise:user \"alice\"^^xsd:string . " +
+                " <http://stage/1> a cruise:Stage . " +
+                " <http://stage/1> cruise:stageName \"stage-1\"^^xsd:string . " +
+                " <http://stage/1> cruise:stageCounter \"1\"^^xsd:integer . " +
+                " <http://stage/1> cruise:hasJob <http://job/b> . " +
+                " <http://stage/1> cruise:hasJob <http://job/a> . " +
+                " <http://job/a> a cruise:Job . " +
+                " <http://job/a> cruise:jobName \"job-a\"^^xsd:string . " +
+                " <http://job/b> a cruise:Job . " +
+                " <http://job/b> cruise:jobName \"job-b\"^^xsd:string . " +
+                testCase("a", "suite-b", "test-1", "false") +
+                testCase("a", "suite-a", "test-2", "true") +
+                testCase("a", "suite-a", "test-1", "false") +
+                testCase("b", "suite-a", "test-3", null) +
+                "");
+        return graph;
+    }
+
+    private String testCase(String job, String suiteName, String testName, String isError) {
+        String testCase = "<http://job/" + job + "/" + suiteName + "/" + testName + ">";
+        String triples = "" +
+                " <http://job/" + job + "> xunit:hasTestCase " + testCase + " . " +
+                testCase + " a xunit:TestCase . " +
+                testCase + " xunit:testSuiteName \"" + suiteName + "\"^^xsd:string . " +
+                testCase + " xunit:testCaseName \"" + testName + "\"^^xsd:string . ";
+        if (isError != null) {
+            String failure = "<http://job/" + job + "/" + suiteName + "/" + testName + "/failure>";
+            triples += testCase + " xunit:hasFailure " + failure + " . " +
+                    failure + " a xunit:Failure . " +
+                    failure + " xunit:isError \"" + isError + "\"^^xsd:boolean . ";
+        }
+        return triples;
+    }
+}
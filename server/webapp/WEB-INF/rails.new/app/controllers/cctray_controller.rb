@@ -17,7 +17,16 @@
 class CctrayController < ApplicationController
   def index
     if Toggles.isToggleOn(Toggles.NEW_CCTRAY_FEATURE_TOGGLE_KEY)
-      render text: cc_tray_service.getCcTrayXml(site_url_prefix)
+      feed = cc_tray_service.ccTrayFeedFor(site_url_prefix)
+      gzip = accepts_gzip?
+      response.headers['Vary'] = 'Accept-Encoding'
+      return unless stale?(etag: [feed.etag, gzip ? 'gzip' : 'identity'])
+      if gzip
+        response.headers['Content-Encoding'] = 'gzip'
+        send_data String.from_java_bytes(feed.gzippedXml), type: 'application/xml', disposition: 'inline'
+      else
+        render text: feed.xml
+      end
     else
       doc = cc_tray_status_service.createCctrayXmlDocument(request_context_path)
       render text: com.thoughtworks.go.util.XmlUtils.asXml(doc)
@@ -25,6 +34,10 @@ class CctrayController < ApplicationController
   end
 
   private
+  def accepts_gzip?
+    request.headers['Accept-Encoding'].to_s =~ /\bgzip\b/
+  end
+
   def site_url_prefix
     server_config_service.siteUrlFor(request_context_path, false)
   end
@@ -26,7 +26,7 @@ describe CctrayController do
   context "new cctray" do
     describe "index" do
       before do
-        expect(Toggles).to receive(:isToggleOn).with(Toggles.NEW_CCTRAY_FEATURE_TOGGLE_KEY).and_return(true)
+        expect(Toggles).to receive(:isToggleOn).with(Toggles.NEW_CCTRAY_FEATURE_TOGGLE_KEY).at_least(:once).and_return(true)
       end
 
       after do
@@ -43,11 +43,79 @@ describe CctrayController do
         expect(server_config_service).to receive(:siteUrlFor).with("http://test.host/context_path", false).and_return(expected_prefix)
 
         cc_tray_service = stub_service(:cc_tray_service)
-        expect(cc_tray_service).to receive(:getCcTrayXml).with(expected_prefix).and_return("RESPONSE_FOR_THIS_URL_PREFIX")
+        expect(cc_tray_service).to receive(:ccTrayFeedFor).with(expected_prefix).and_return(feed("RESPONSE_FOR_THIS_URL_PREFIX", "etag-1"))
 
         get :index
 
         expect(response.body).to eq("RESPONSE_FOR_THIS_URL_PREFIX")
+        expect(response.headers["ETag"]).to_not be_nil
+      end
+
+      it "should respond with not modified when the feed has not changed since the client last fetched it" do
+        stub_site_url_prefix
+        cc_tray_service = stub_service(:cc_tray_service)
+        allow(cc_tray_service).to receive(:ccTrayFeedFor).and_return(feed("XML", "etag-1"))
+
+        get :index
+        etag = response.headers["ETag"]
+
+        request.env["HTTP_IF_NONE_MATCH"] = etag
+        get :index
+
+        expect(response.status).to eq(304)
+        expect(response.body).to be_blank
+        expect(response.headers["Vary"]).to eq("Accept-Encoding")
+      end
+
+      it "should not answer a gzip request as not modified against the etag of the plain feed" do
+        stub_site_url_prefix
+        cc_tray_service = stub_service(:cc_tray_service)
+        allow(cc_tray_service).to receive(:ccTrayFeedFor).and_return(feed("XML", "etag-1", "GZIPPED_XML".to_java_bytes))
+
+        get :index
+        plain_etag = response.headers["ETag"]
+
+        request.env["HTTP_IF_NONE_MATCH"] = plain_etag
+        request.env["HTTP_ACCEPT_ENCODING"] = "gzip"
+        get :index
+
+        expect(response.status).to eq(200)
+        expect(response.headers["ETag"]).to_not eq(plain_etag)
+        expect(response.body).to eq("GZIPPED_XML")
+      end
+
+      it "should send the feed again once it has changed" do
+        stub_site_url_prefix
+        cc_tray_service = stub_service(:cc_tray_service)
+        allow(cc_tray_service).to receive(:ccTrayFeedFor).and_return(feed("OLD_XML", "etag-1"), feed("NEW_XML", "etag-2"))
+
+        get :index
+        request.env["HTTP_IF_NONE_MATCH"] = response.headers["ETag"]
+        get :index
+
+        expect(response.status).to eq(200)
+        expect(response.body).to eq("NEW_XML")
+      end
+
+      it "should send compressed xml to clients which accept gzip" do
+        stub_site_url_prefix
+        cc_tray_service = stub_service(:cc_tray_service)
+        allow(cc_tray_service).to receive(:ccTrayFeedFor).and_return(feed("XML", "etag-1", "GZIPPED_XML".to_java_bytes))
+
+        request.env["HTTP_ACCEPT_ENCODING"] = "gzip, deflate"
+        get :index
+
+        expect(response.headers["Content-Encoding"]).to eq("gzip")
+        expect(response.body).to eq("GZIPPED_XML")
+      end
+
+      def feed(xml, etag, gzipped_xml = nil)
+        double("feed", xml: xml, etag: etag, gzippedXml: gzipped_xml)
+      end
+
+      def stub_site_url_prefix
+        $servlet_context = double("servlet_context", getContextPath: "/context_path")
+        allow(stub_service(:server_config_service)).to receive(:siteUrlFor).and_return("http://my.site.url:8153/context_path")
       end
     end
   end